@@ -21,21 +21,31 @@ import javax.servlet.ServletRequestEvent;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSessionEvent;
 import org.b3log.latke.Latkes;
-import org.b3log.latke.event.EventManager;
 import org.b3log.latke.ioc.Lifecycle;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
 import org.b3log.latke.servlet.AbstractServletListener;
 import org.b3log.latke.util.Stopwatchs;
 import org.b3log.latke.util.Strings;
+import org.b3log.rhythm.event.EventDispatcher;
+import org.b3log.rhythm.event.symphony.ArticleDeliveryListener;
 import org.b3log.rhythm.event.symphony.ArticleSender;
 import org.b3log.rhythm.event.symphony.ArticleUpdater;
+import org.b3log.rhythm.outbox.Outboxes;
+import org.b3log.rhythm.processor.FastPathFilter;
+import org.b3log.rhythm.service.ArticleUpdateCoalescer;
+import org.b3log.rhythm.service.BroadcastChanceHub;
+import org.b3log.rhythm.service.BroadcastChanceRegistry;
+import org.b3log.rhythm.service.UserService;
+import org.b3log.rhythm.service.VersionRegistry;
+import org.b3log.rhythm.service.VersionTelemetry;
+import org.b3log.rhythm.urlfetch.OutboundFetchService;
 
 /**
  * Rhythm servlet listener.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.1.6, Jan 14, 2016
+ * @version 1.2.1.0, Oct 19, 2026
  * @since 0.1.4
  */
 public final class RhythmServletListener extends AbstractServletListener {
@@ -58,18 +68,39 @@ public final class RhythmServletListener extends AbstractServletListener {
 
     @Override
     public void contextInitialized(final ServletContextEvent servletContextEvent) {
+        OutboundFetchService.init();
+        Outboxes.init();
+
         Latkes.setScanPath("org.b3log.rhythm");
         super.contextInitialized(servletContextEvent);
 
         registerEventProcessor();
+        Outboxes.setArticleListener(new ArticleDeliveryListener(
+                Lifecycle.getBeanManager().getReference(UserService.class)));
+        Lifecycle.getBeanManager().getReference(VersionRegistry.class).start();
+        Lifecycle.getBeanManager().getReference(VersionTelemetry.class).start();
+        Lifecycle.getBeanManager().getReference(ArticleUpdateCoalescer.class).start();
+        Lifecycle.getBeanManager().getReference(BroadcastChanceRegistry.class).start();
+        Lifecycle.getBeanManager().getReference(BroadcastChanceHub.class).start();
 
         LOGGER.info("Initialized the context");
     }
 
     @Override
     public void contextDestroyed(final ServletContextEvent servletContextEvent) {
+        Outboxes.setArticleListener(null);
+        Lifecycle.getBeanManager().getReference(BroadcastChanceHub.class).shutdown();
+        Lifecycle.getBeanManager().getReference(BroadcastChanceRegistry.class).shutdown();
+        Lifecycle.getBeanManager().getReference(ArticleUpdateCoalescer.class).shutdown();
+        Lifecycle.getBeanManager().getReference(EventDispatcher.class).shutdown();
+        Lifecycle.getBeanManager().getReference(VersionTelemetry.class).shutdown();
+        Lifecycle.getBeanManager().getReference(VersionRegistry.class).shutdown();
+
         super.contextDestroyed(servletContextEvent);
 
+        Outboxes.shutdown();
+        OutboundFetchService.shutdown();
+
         LOGGER.info("Destroyed the context");
     }
 
@@ -86,15 +117,24 @@ public final class RhythmServletListener extends AbstractServletListener {
     public void requestInitialized(final ServletRequestEvent servletRequestEvent) {
         final HttpServletRequest servletRequest
                 = (HttpServletRequest) servletRequestEvent.getServletRequest();
+        if (FastPathFilter.isFastPath(servletRequest)) {
+            return;
+        }
+
         Stopwatchs.start("Request Initialized[requestURI=" + servletRequest.
                 getRequestURI() + "]");
     }
 
     @Override
     public void requestDestroyed(final ServletRequestEvent servletRequestEvent) {
-        Stopwatchs.end();
+        final HttpServletRequest servletRequest
+                = (HttpServletRequest) servletRequestEvent.getServletRequest();
+        if (!FastPathFilter.isFastPath(servletRequest)) {
+            Stopwatchs.end();
 
-        LOGGER.log(Level.DEBUG, "Stopwatch: {0}{1}", new Object[]{Strings.LINE_SEPARATOR, Stopwatchs.getTimingStat()});
+            LOGGER.log(Level.DEBUG, "Stopwatch: {0}{1}",
+                    new Object[]{Strings.LINE_SEPARATOR, Stopwatchs.getTimingStat()});
+        }
         Stopwatchs.release();
 
         super.requestDestroyed(servletRequestEvent);
@@ -105,10 +145,11 @@ public final class RhythmServletListener extends AbstractServletListener {
      */
     private void registerEventProcessor() {
         try {
-            final EventManager eventManager = Lifecycle.getBeanManager().getReference(EventManager.class);
+            final EventDispatcher eventDispatcher = Lifecycle.getBeanManager().getReference(EventDispatcher.class);
 
-            eventManager.registerListener(new ArticleSender());
-            eventManager.registerListener(new ArticleUpdater());
+            eventDispatcher.register(new ArticleSender());
+            eventDispatcher.register(new ArticleUpdater());
+            eventDispatcher.start();
 
         } catch (final Exception e) {
             LOGGER.log(Level.ERROR, "Register event processors error", e);
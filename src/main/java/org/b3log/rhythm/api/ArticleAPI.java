@@ -27,9 +27,6 @@ import org.b3log.latke.Keys;
 import org.b3log.latke.RuntimeEnv;
 import org.b3log.latke.cache.Cache;
 import org.b3log.latke.cache.CacheFactory;
-import org.b3log.latke.event.Event;
-import org.b3log.latke.event.EventException;
-import org.b3log.latke.event.EventManager;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
 import org.b3log.latke.servlet.HTTPRequestContext;
@@ -39,7 +36,9 @@ import org.b3log.latke.servlet.annotation.RequestProcessor;
 import org.b3log.latke.servlet.renderer.JSONRenderer;
 import org.b3log.latke.util.Requests;
 import org.b3log.latke.util.Strings;
+import org.b3log.rhythm.event.EventDispatcher;
 import org.b3log.rhythm.event.EventTypes;
+import org.b3log.rhythm.event.symphony.ArticleEvent;
 import org.b3log.rhythm.model.Article;
 
 import static org.b3log.rhythm.model.Article.ARTICLE_AUTHOR_EMAIL;
@@ -66,7 +65,7 @@ import org.json.JSONObject;
  * </p>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.0.5, Jan 3, 2017
+ * @version 1.1.4.0, Oct 19, 2026
  * @since 1.1.0
  */
 @RequestProcessor
@@ -90,10 +89,10 @@ public class ArticleAPI {
     private Cache<String, Serializable> cache = (Cache<String, Serializable>) CacheFactory.getCache("RhythmCache");
 
     /**
-     * Event manager.
+     * Event dispatcher.
      */
     @Inject
-    private EventManager eventManager;
+    private EventDispatcher eventDispatcher;
 
     /**
      * Client title max length.
@@ -403,8 +402,8 @@ public class ArticleAPI {
                 data.put(Common.CLIENT_RUNTIME_ENV, RuntimeEnv.LOCAL.toString());
                 data.put(Common.CLIENT_ADMIN_EMAIL, clientEmail);
 
-                eventManager.fireEventAsynchronously(new Event<JSONObject>(EventTypes.ADD_ARTICLE_TO_SYMPHONY, data));
-            } catch (final EventException e) {
+                eventDispatcher.dispatch(EventTypes.ADD_ARTICLE_TO_SYMPHONY, ArticleEvent.fromJSON(data));
+            } catch (final Exception e) {
                 LOGGER.log(Level.ERROR, e.getMessage(), e);
             }
 
@@ -32,14 +32,11 @@ import org.b3log.latke.servlet.HTTPRequestMethod;
 import org.b3log.latke.servlet.annotation.RequestProcessing;
 import org.b3log.latke.servlet.annotation.RequestProcessor;
 import org.b3log.latke.servlet.renderer.JSONRenderer;
-import org.b3log.latke.urlfetch.HTTPRequest;
-import org.b3log.latke.urlfetch.URLFetchService;
-import org.b3log.latke.urlfetch.URLFetchServiceFactory;
 import org.b3log.latke.util.Requests;
 import org.b3log.latke.util.Strings;
-import org.b3log.rhythm.RhythmServletListener;
 import org.b3log.rhythm.model.Article;
 import org.b3log.rhythm.model.Common;
+import org.b3log.rhythm.outbox.Outboxes;
 import org.b3log.rhythm.util.Rhythms;
 import org.b3log.rhythm.util.Securities;
 import org.json.JSONObject;
@@ -50,10 +47,11 @@ import org.json.JSONObject;
  *
  * <ul>
  * <li>Adds a comment (/api/comment), POST</li>
+ * <li>Gets the delivery status of a comment (/api/comment/status), GET</li>
  * </ul>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.3, Mar 12, 2016
+ * @version 1.1.2.1, Oct 19, 2026
  * @since 1.1.0
  */
 @RequestProcessor
@@ -65,15 +63,15 @@ public class CommentAPI {
     private static final Logger LOGGER = Logger.getLogger(CommentAPI.class.getName());
 
     /**
-     * Cache.
+     * Key of track id.
      */
-    @SuppressWarnings("unchecked")
-    private Cache<String, Serializable> cache = (Cache<String, Serializable>) CacheFactory.getCache("RhythmCache");
+    private static final String TRACK_ID = "trackId";
 
     /**
-     * URL fetch service.
+     * Cache.
      */
-    private final URLFetchService urlFetchService = URLFetchServiceFactory.getURLFetchService();
+    @SuppressWarnings("unchecked")
+    private Cache<String, Serializable> cache = (Cache<String, Serializable>) CacheFactory.getCache("RhythmCache");
 
     /**
      * Shows add comment.
@@ -90,11 +88,13 @@ public class CommentAPI {
      * Adds a comment.
      *
      * <p>
-     * Renders the response with a json object, for example,
+     * The comment is queued and forwarded to the community targets in the background, the comments of an article are
+     * forwarded in the order they were added. Renders the response with a json object, for example,
      * <pre>
      * {
      *     "sc": true,
-     *     "msg": ""
+     *     "msg": "",
+     *     "trackId": 1 // for polling the delivery status, see {@link #getCommentStatus(HTTPRequestContext)}
      * }
      * </pre>
      * </p>
@@ -231,7 +231,7 @@ public class CommentAPI {
             // TODO: check comment.content
             commentContent = Securities.securedHTML(commentContent);
 
-            LOGGER.log(Level.INFO, "Data [{0}]", requestJSONObject.toString(Rhythms.INDENT_FACTOR));
+            LOGGER.log(Level.DEBUG, "Comment [{0}]", requestJSONObject);
 
             Long latestPostTime = (Long) cache.get(clientEmail + ".lastPostTime");
             final Long currentPostTime = System.currentTimeMillis();
@@ -283,14 +283,14 @@ public class CommentAPI {
                 data.put(Common.CLIENT_ADMIN_EMAIL, clientEmail);
                 data.put(Common.USER_B3_KEY, clientKey);
 
-                final HTTPRequest httpRequest = new HTTPRequest();
-                httpRequest.setURL(new URL(RhythmServletListener.B3LOG_SYMPHONY_SERVE_PATH + "/solo/comment"));
-                httpRequest.setRequestMethod(HTTPRequestMethod.POST);
-                httpRequest.setPayload(data.toString().getBytes("UTF-8"));
-
-                urlFetchService.fetchAsync(httpRequest);
+                jsonObject.put(TRACK_ID, Outboxes.forwardComment(data.toString(), clientHost + "/" + articleId));
             } catch (final Exception e) {
-                LOGGER.log(Level.ERROR, e.getMessage(), e);
+                LOGGER.log(Level.ERROR, "Queues comment failed", e);
+
+                jsonObject.put(Common.SUCC, false);
+                jsonObject.put(Keys.STATUS_CODE, "Queues comment failed, please retry");
+
+                return;
             }
 
             jsonObject.put(Common.SUCC, true);
@@ -302,4 +302,53 @@ public class CommentAPI {
             jsonObject.put(Keys.STATUS_CODE, e.getMessage());
         }
     }
+
+    /**
+     * Gets the delivery status of a comment.
+     *
+     * <p>
+     * Request parameter "trackId" is the track id returned by {@link #addComment(HTTPRequestContext)}. Renders the
+     * response with a json object, for example,
+     * <pre>
+     * {
+     *     "sc": true,
+     *     "id": 1,
+     *     "status": "delivered", // the least advanced status of the targets:
+     *                            // failed/retrying/queued/delivered, or unknown
+     *     "targets": {
+     *         "symphony": {
+     *             "status": "delivered",
+     *             "attempts": 0,
+     *             "reason": "", // optional
+     *             "time": 1457158841475
+     *         }, ....
+     *     }
+     * }
+     * </pre>
+     * </p>
+     *
+     * @param context the specified context
+     */
+    @RequestProcessing(value = "/api/comment/status", method = HTTPRequestMethod.GET)
+    public void getCommentStatus(final HTTPRequestContext context) {
+        final JSONObject jsonObject = new JSONObject();
+
+        final JSONRenderer renderer = new JSONRenderer();
+        context.setRenderer(renderer);
+        renderer.setJSONObject(jsonObject);
+
+        final long trackId;
+        try {
+            trackId = Long.valueOf(context.getRequest().getParameter(TRACK_ID));
+        } catch (final NumberFormatException e) {
+            jsonObject.put(Common.SUCC, false);
+            jsonObject.put(Keys.MSG, "Invalid [trackId]");
+
+            return;
+        }
+
+        final JSONObject status = Outboxes.getCommentTracker().getStatus(trackId);
+        status.put(Common.SUCC, true);
+        renderer.setJSONObject(status);
+    }
 }
@@ -0,0 +1,603 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.service.annotation.Service;
+import org.b3log.rhythm.outbox.Outbox;
+import org.b3log.rhythm.outbox.OutboxRecord;
+import org.b3log.rhythm.outbox.Outboxes;
+import org.b3log.rhythm.util.Rhythms;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Event dispatcher, runs the listeners of the events in {@link EventTypes} on dedicated consumer threads, so that
+ * request threads never wait for the listeners.
+ *
+ * <p>
+ * Each event type has its own {@link RingBuffer ring} of "event.ringSize" preallocated slots and one consumer thread
+ * which waits with the "event.waitStrategy" and passes up to "event.batchSize" events at a time to the
+ * {@link RhythmEventListener listeners}. The payload is dispatched as is, no event object is allocated per dispatch.
+ * The payloads are typed {@link EventPayload}s, all listeners of an event type take the same payload type.
+ * </p>
+ *
+ * <p>
+ * If a ring is full, the event is handled by the "event.saturationPolicy":
+ * <ul>
+ * <li>drop: drops the event</li>
+ * <li>block: waits at most "event.blockTimeout" milliseconds for room, then drops the event</li>
+ * <li>spill: appends the event to a local {@link Outboxes#getEventOutbox() outbox}, the spilled events are
+ * dispatched once the ring has room, and survive restarts. A spilled event is acknowledged in the outbox after its
+ * listeners ran, so an event in the ring at a crash or shutdown is dispatched again after the restart</li>
+ * </ul>
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.3.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+@Service
+public class EventDispatcher {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(EventDispatcher.class.getName());
+
+    /**
+     * Saturation policy of dropping.
+     */
+    private static final String POLICY_DROP = "drop";
+
+    /**
+     * Saturation policy of blocking.
+     */
+    private static final String POLICY_BLOCK = "block";
+
+    /**
+     * Saturation policy of spilling to disk.
+     */
+    private static final String POLICY_SPILL = "spill";
+
+    /**
+     * Method of spilled event records.
+     */
+    private static final String SPILL_METHOD = "EVENT";
+
+    /**
+     * Max number of spilled events to load per round.
+     */
+    private static final int SPILL_BATCH_SIZE = 100;
+
+    /**
+     * Spill drain interval in milliseconds.
+     */
+    private static final long SPILL_DRAIN_INTERVAL = 1000;
+
+    /**
+     * Max time to wait for a consumer thread to stop in milliseconds.
+     */
+    private static final long STOP_TIMEOUT = 1000;
+
+    /**
+     * Channels, &lt;event type, channel&gt;.
+     */
+    private final Map<String, Channel> channels = new ConcurrentHashMap<String, Channel>();
+
+    /**
+     * Dropped events count.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Spilled events count.
+     */
+    private final AtomicLong spilled = new AtomicLong();
+
+    /**
+     * Ids of the spilled events published to the rings but not acknowledged yet.
+     */
+    private final Set<Long> spillsInFlight = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+
+    /**
+     * Saturation policy.
+     */
+    private String policy;
+
+    /**
+     * Block timeout in milliseconds.
+     */
+    private long blockTimeout;
+
+    /**
+     * Consumer and spill drainer threads.
+     */
+    private final List<Thread> workers = new ArrayList<Thread>();
+
+    /**
+     * Whether this dispatcher is running.
+     */
+    private volatile boolean running;
+
+    /**
+     * Registers the specified listener, all listeners should be registered before {@link #start() starting}.
+     *
+     * @param listener the specified listener
+     */
+    public void register(final RhythmEventListener<? extends EventPayload> listener) {
+        final String type = listener.getEventType();
+
+        synchronized (channels) {
+            Channel channel = channels.get(type);
+            if (null == channel) {
+                channel = new Channel(type);
+                channels.put(type, channel);
+            }
+
+            channel.listeners.add(newListener(listener));
+        }
+    }
+
+    /**
+     * Starts the consumer threads, see rhythm.properties "event.*" for configurations.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        final int ringSize = Integer.valueOf(Rhythms.CFG.getString("event.ringSize"));
+        final WaitStrategy waitStrategy = WaitStrategy.valueOf(Rhythms.CFG.getString("event.waitStrategy"));
+        final int batchSize = Integer.valueOf(Rhythms.CFG.getString("event.batchSize"));
+        policy = Rhythms.CFG.getString("event.saturationPolicy");
+        blockTimeout = Long.valueOf(Rhythms.CFG.getString("event.blockTimeout"));
+
+        for (final Channel channel : channels.values()) {
+            channel.ring = new RingBuffer<EventPayload>(ringSize, waitStrategy);
+        }
+        running = true;
+
+        for (final Channel channel : channels.values()) {
+            final Thread consumer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    consume(channel, batchSize);
+                }
+            }, "EventDispatcher-" + channel.type);
+            consumer.setDaemon(true);
+            consumer.start();
+            workers.add(consumer);
+        }
+
+        if (POLICY_SPILL.equals(policy)) {
+            final Thread drainer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    drain();
+                }
+            }, "EventDispatcher-Spill");
+            drainer.setDaemon(true);
+            drainer.start();
+            workers.add(drainer);
+        }
+
+        LOGGER.log(Level.INFO, "Started event dispatcher [eventTypes={0}, ringSize={1}, waitStrategy={2}, "
+                + "batchSize={3}, saturationPolicy={4}]",
+                new Object[]{channels.keySet(), ringSize, waitStrategy, batchSize, policy});
+    }
+
+    /**
+     * Stops the consumer threads, the queued events are spilled if the saturation policy is "spill", dropped
+     * otherwise.
+     */
+    public synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+
+        running = false;
+        for (final Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (final Thread worker : workers) {
+            try {
+                worker.join(STOP_TIMEOUT);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                break;
+            }
+        }
+
+        for (final Channel channel : channels.values()) {
+            final List<EventPayload> remains = new ArrayList<EventPayload>();
+            channel.ring.drainTo(remains, channel.ring.getCapacity());
+            for (final EventPayload payload : remains) {
+                if (null == channel.spills.remove(payload)) { // A spilled event stays in the outbox
+                    saturate(channel, payload);
+                }
+            }
+            channel.spills.clear();
+        }
+        spillsInFlight.clear();
+        workers.clear();
+
+        LOGGER.log(Level.INFO, "Stopped event dispatcher, stats {0}", getStats());
+    }
+
+    /**
+     * Dispatches an event with the specified type and payload.
+     *
+     * @param type the specified type, see {@link EventTypes}
+     * @param payload the specified payload, its type is the payload type of the listeners of the event type
+     */
+    public void dispatch(final String type, final EventPayload payload) {
+        final Channel channel = channels.get(type);
+        if (null == channel) {
+            LOGGER.log(Level.WARN, "No listener of event [type={0}]", type);
+
+            return;
+        }
+
+        if (!running || !channel.ring.tryPublish(payload)) {
+            saturate(channel, payload);
+        }
+    }
+
+    /**
+     * Gets the statistics.
+     *
+     * @return for example,
+     * <pre>
+     * {
+     *     "queued": 0,
+     *     "dropped": 0,
+     *     "spilled": 0,
+     *     "listeners": [{
+     *         "eventType": "",
+     *         "listener": "",
+     *         "count": 0,
+     *         "batches": 0,
+     *         "failures": 0,
+     *         "avgBatchMillis": 0.0,
+     *         "maxBatchMillis": 0.0
+     *     }, ....]
+     * }
+     * </pre>
+     */
+    public JSONObject getStats() {
+        int queued = 0;
+        final JSONArray listenerStats = new JSONArray();
+        for (final Channel channel : channels.values()) {
+            if (null != channel.ring) {
+                queued += channel.ring.size();
+            }
+
+            for (final Listener<?> listener : channel.listeners) {
+                listenerStats.put(listener.getStats());
+            }
+        }
+
+        final JSONObject ret = new JSONObject();
+        ret.put("queued", queued);
+        ret.put("dropped", dropped.get());
+        ret.put("spilled", spilled.get());
+        ret.put("listeners", listenerStats);
+
+        return ret;
+    }
+
+    /**
+     * Handles the specified event which can not be published to the specified channel.
+     *
+     * @param channel the specified channel
+     * @param payload the specified event payload
+     */
+    private void saturate(final Channel channel, final EventPayload payload) {
+        if (running && POLICY_BLOCK.equals(policy)) {
+            try {
+                if (channel.ring.publish(payload, blockTimeout)) {
+                    return;
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else if (POLICY_SPILL.equals(policy)) {
+            final Outbox outbox = Outboxes.getEventOutbox();
+            if (null != outbox) {
+                try {
+                    outbox.append(channel.type, SPILL_METHOD, payload.toJSON().toString());
+                    spilled.incrementAndGet();
+
+                    return;
+                } catch (final Exception e) {
+                    LOGGER.log(Level.ERROR, "Spills event [type=" + channel.type + "] failed", e);
+                }
+            }
+        }
+
+        dropped.incrementAndGet();
+        LOGGER.log(Level.WARN, "Dropped event [type={0}], the event ring is saturated", channel.type);
+    }
+
+    /**
+     * Takes batches of events from the specified channel and runs its listeners, runs in the consumer thread of the
+     * channel.
+     *
+     * @param channel the specified channel
+     * @param batchSize the specified max number of events per batch
+     */
+    private void consume(final Channel channel, final int batchSize) {
+        final List<EventPayload> batch = new ArrayList<EventPayload>(batchSize);
+        while (running) {
+            try {
+                if (!channel.ring.await(SPILL_DRAIN_INTERVAL)) {
+                    continue;
+                }
+            } catch (final InterruptedException e) {
+                break;
+            }
+
+            channel.ring.drainTo(batch, batchSize);
+            for (final Listener<?> listener : channel.listeners) {
+                listener.action(batch);
+            }
+            if (!channel.spills.isEmpty()) {
+                ack(channel, batch);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Moves the spilled events to the rings once they have room, runs in the spill drainer thread.
+     */
+    private void drain() {
+        final Outbox outbox = Outboxes.getEventOutbox();
+        if (null == outbox) {
+            return;
+        }
+
+        while (running) {
+            try {
+                for (final OutboxRecord record : outbox.getDue(System.currentTimeMillis(), SPILL_BATCH_SIZE)) {
+                    final Channel channel = channels.get(record.getURL());
+                    if (null == channel) {
+                        LOGGER.log(Level.WARN, "No listener of spilled event [type={0}]", record.getURL());
+                        outbox.deadLetter(record, "No listener");
+
+                        continue;
+                    }
+
+                    if (spillsInFlight.contains(record.getId())) {
+                        continue;
+                    }
+
+                    final EventPayload payload;
+                    try {
+                        payload = channel.listeners.get(0).parse(new JSONObject(record.getPayload()));
+                    } catch (final Exception e) {
+                        LOGGER.log(Level.ERROR, "Parses spilled event [type=" + record.getURL() + "] failed", e);
+                        outbox.deadLetter(record, "Malformed payload");
+
+                        continue;
+                    }
+
+                    // Registers the spill before publishing, the consumer may run the listeners at once
+                    spillsInFlight.add(record.getId());
+                    channel.spills.put(payload, record);
+                    if (!channel.ring.publish(payload, SPILL_DRAIN_INTERVAL)) {
+                        channel.spills.remove(payload);
+                        spillsInFlight.remove(record.getId());
+
+                        break;
+                    }
+                }
+
+                outbox.await(SPILL_DRAIN_INTERVAL);
+            } catch (final InterruptedException e) {
+                break;
+            } catch (final Exception e) {
+                LOGGER.log(Level.ERROR, "Drains spilled events failed", e);
+            }
+        }
+    }
+
+    /**
+     * Acknowledges the spilled events of the specified batch whose listeners ran, runs in the consumer thread of the
+     * specified channel.
+     *
+     * @param channel the specified channel
+     * @param batch the specified batch of event payloads
+     */
+    private void ack(final Channel channel, final List<EventPayload> batch) {
+        final Outbox outbox = Outboxes.getEventOutbox();
+        for (final EventPayload payload : batch) {
+            final OutboxRecord record = channel.spills.remove(payload);
+            if (null != record) {
+                outbox.ack(record);
+                spillsInFlight.remove(record.getId());
+            }
+        }
+    }
+
+    /**
+     * Ring and listeners of an event type.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.1.0.0, Oct 19, 2026
+     */
+    private static final class Channel {
+
+        /**
+         * Event type.
+         */
+        private final String type;
+
+        /**
+         * Listeners.
+         */
+        private final List<Listener<?>> listeners = new CopyOnWriteArrayList<Listener<?>>();
+
+        /**
+         * Spilled events in the ring, &lt;payload, outbox record&gt;, by payload identity.
+         */
+        private final Map<EventPayload, OutboxRecord> spills
+                = Collections.synchronizedMap(new IdentityHashMap<EventPayload, OutboxRecord>());
+
+        /**
+         * Ring, created at start.
+         */
+        private volatile RingBuffer<EventPayload> ring;
+
+        /**
+         * Constructs a channel with the specified event type.
+         *
+         * @param type the specified event type
+         */
+        private Channel(final String type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * Wraps the specified listener.
+     *
+     * @param <T> the type of event payloads
+     * @param listener the specified listener
+     * @return wrapped listener
+     */
+    private static <T extends EventPayload> Listener<T> newListener(final RhythmEventListener<T> listener) {
+        return new Listener<T>(listener);
+    }
+
+    /**
+     * A registered listener with latency metrics.
+     *
+     * @param <T> the type of event payloads
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.2.0.0, Oct 19, 2026
+     */
+    private static final class Listener<T extends EventPayload> {
+
+        /**
+         * Listener.
+         */
+        private final RhythmEventListener<T> listener;
+
+        /**
+         * Event count.
+         */
+        private final AtomicLong count = new AtomicLong();
+
+        /**
+         * Batch count.
+         */
+        private final AtomicLong batches = new AtomicLong();
+
+        /**
+         * Failed batch count.
+         */
+        private final AtomicLong failures = new AtomicLong();
+
+        /**
+         * Total time in nanoseconds.
+         */
+        private final AtomicLong totalNanos = new AtomicLong();
+
+        /**
+         * Max batch time in nanoseconds.
+         */
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        /**
+         * Constructs a listener with the specified listener.
+         *
+         * @param listener the specified listener
+         */
+        private Listener(final RhythmEventListener<T> listener) {
+            this.listener = listener;
+        }
+
+        /**
+         * Parses the specified json object of a spilled event to a payload of the listener.
+         *
+         * @param json the specified json object
+         * @return payload
+         * @throws Exception if the json object is malformed
+         */
+        private T parse(final JSONObject json) throws Exception {
+            return listener.parse(json);
+        }
+
+        /**
+         * Runs the listener with the specified batch of event payloads.
+         *
+         * @param payloads the specified event payloads
+         */
+        @SuppressWarnings("unchecked")
+        private void action(final List<EventPayload> payloads) {
+            final long start = System.nanoTime();
+            try {
+                listener.action((List<T>) (List<?>) payloads);
+            } catch (final Exception e) {
+                failures.incrementAndGet();
+                LOGGER.log(Level.ERROR, "Listener [" + listener.getClass().getName() + "] failed", e);
+            } finally {
+                final long elapsed = System.nanoTime() - start;
+                count.addAndGet(payloads.size());
+                batches.incrementAndGet();
+                totalNanos.addAndGet(elapsed);
+
+                long max = maxNanos.get();
+                while (elapsed > max && !maxNanos.compareAndSet(max, elapsed)) {
+                    max = maxNanos.get();
+                }
+            }
+        }
+
+        /**
+         * Gets the statistics.
+         *
+         * @return statistics
+         */
+        private JSONObject getStats() {
+            final long batchCnt = batches.get();
+
+            final JSONObject ret = new JSONObject();
+            ret.put("eventType", listener.getEventType());
+            ret.put("listener", listener.getClass().getSimpleName());
+            ret.put("count", count.get());
+            ret.put("batches", batchCnt);
+            ret.put("failures", failures.get());
+            ret.put("avgBatchMillis", 0 == batchCnt ? 0 : totalNanos.get() / batchCnt / 1000000.0);
+            ret.put("maxBatchMillis", maxNanos.get() / 1000000.0);
+
+            return ret;
+        }
+    }
+}
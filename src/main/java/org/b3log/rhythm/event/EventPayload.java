@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.event;
+
+import org.json.JSONObject;
+
+/**
+ * Payload of a Rhythm event dispatched by the {@link EventDispatcher}.
+ *
+ * <p>
+ * A payload is passed to the listeners as is. It is converted to json only when it is spilled to disk, and parsed back
+ * by {@link RhythmEventListener#parse(org.json.JSONObject)}.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public interface EventPayload {
+
+    /**
+     * Converts this payload to a json object.
+     *
+     * @return json object
+     */
+    JSONObject toJSON();
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.event;
+
+import java.util.List;
+import org.json.JSONObject;
+
+/**
+ * Rhythm event listener, consumes the events of one type from the {@link EventDispatcher} in batches.
+ *
+ * @param <T> the type of event payloads
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public interface RhythmEventListener<T extends EventPayload> {
+
+    /**
+     * Gets the event type this listener listens to, see {@link EventTypes}.
+     *
+     * @return event type
+     */
+    String getEventType();
+
+    /**
+     * Processes the specified events, in the order they were dispatched.
+     *
+     * @param payloads the specified event payloads, never empty
+     * @throws Exception if processing failed
+     */
+    void action(List<T> payloads) throws Exception;
+
+    /**
+     * Parses the specified json object of a spilled event, see {@link EventPayload#toJSON()}.
+     *
+     * @param json the specified json object
+     * @return event payload
+     * @throws Exception if the json object is malformed
+     */
+    T parse(JSONObject json) throws Exception;
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.event;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded multi-producer single-consumer ring buffer.
+ *
+ * <p>
+ * The slots are allocated once. A producer claims the next sequence with a CAS, stores its payload into the slot of
+ * the sequence and then publishes the sequence in the slot. The consumer drains published slots in sequence order, in
+ * batches, and waits for producers with the configured {@link WaitStrategy}. Nothing is allocated per event.
+ * </p>
+ *
+ * @param <T> the type of payloads
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class RingBuffer<T> {
+
+    /**
+     * Spins of {@link WaitStrategy#SLEEPING} before parking.
+     */
+    private static final int SPINS = 100;
+
+    /**
+     * Park time of {@link WaitStrategy#SLEEPING} in nanoseconds.
+     */
+    private static final long SLEEP_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * Park time of producers waiting for room in nanoseconds.
+     */
+    private static final long PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * Payload slots.
+     */
+    private final Object[] slots;
+
+    /**
+     * Published sequences of the slots.
+     */
+    private final AtomicLongArray published;
+
+    /**
+     * Index mask.
+     */
+    private final int mask;
+
+    /**
+     * Last claimed sequence.
+     */
+    private final AtomicLong claimed = new AtomicLong(-1);
+
+    /**
+     * Last consumed sequence.
+     */
+    private volatile long consumed = -1;
+
+    /**
+     * Wait strategy.
+     */
+    private final WaitStrategy waitStrategy;
+
+    /**
+     * Lock of {@link WaitStrategy#BLOCKING}.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Not empty condition of {@link WaitStrategy#BLOCKING}.
+     */
+    private final Condition notEmpty = lock.newCondition();
+
+    /**
+     * Whether the consumer is parked on {@link #notEmpty}.
+     */
+    private volatile boolean consumerWaiting;
+
+    /**
+     * Constructs a ring buffer with the specified capacity and wait strategy.
+     *
+     * @param capacity the specified capacity, must be a power of 2
+     * @param waitStrategy the specified wait strategy
+     * @throws IllegalArgumentException if the capacity is not a power of 2
+     */
+    public RingBuffer(final int capacity, final WaitStrategy waitStrategy) {
+        if (capacity < 1 || 0 != (capacity & (capacity - 1))) {
+            throw new IllegalArgumentException("Capacity must be a power of 2 [" + capacity + "]");
+        }
+
+        this.slots = new Object[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.mask = capacity - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Publishes the specified payload if there is room.
+     *
+     * @param payload the specified payload
+     * @return {@code true} if published, returns {@code false} if the ring is full
+     */
+    public boolean tryPublish(final T payload) {
+        long sequence;
+        do {
+            sequence = claimed.get() + 1;
+            if (sequence - consumed > slots.length) {
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence - 1, sequence));
+
+        final int index = (int) sequence & mask;
+        slots[index] = payload;
+        published.set(index, sequence);
+
+        if (consumerWaiting) {
+            lock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Publishes the specified payload, waits at most the specified timeout for room.
+     *
+     * @param payload the specified payload
+     * @param timeout the specified timeout in milliseconds
+     * @return {@code true} if published, returns {@code false} if the ring is still full after the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean publish(final T payload, final long timeout) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (!tryPublish(payload)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+
+            LockSupport.parkNanos(PRODUCER_PARK_NANOS);
+        }
+
+        return true;
+    }
+
+    /**
+     * Moves at most the specified number of published payloads to the specified batch, must be invoked by the
+     * consumer thread only.
+     *
+     * @param batch the specified batch
+     * @param max the specified max number of payloads
+     * @return number of payloads moved
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(final List<? super T> batch, final int max) {
+        long sequence = consumed + 1;
+        int ret = 0;
+        while (ret < max) {
+            final int index = (int) sequence & mask;
+            if (published.get(index) != sequence) {
+                break;
+            }
+
+            batch.add((T) slots[index]);
+            slots[index] = null;
+            sequence++;
+            ret++;
+        }
+
+        if (0 < ret) {
+            consumed = sequence - 1;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Waits with the wait strategy until a payload is published, must be invoked by the consumer thread only.
+     *
+     * @param timeout the specified max wait time in milliseconds
+     * @return {@code true} if a payload is available, returns {@code false} on timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean await(final long timeout) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        int spins = 0;
+        while (!isAvailable()) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            final long remains = deadline - System.nanoTime();
+            if (remains <= 0) {
+                return false;
+            }
+
+            switch (waitStrategy) {
+                case BUSY_SPIN:
+                    break;
+                case YIELDING:
+                    Thread.yield();
+
+                    break;
+                case SLEEPING:
+                    if (spins < SPINS) {
+                        spins++;
+                    } else {
+                        LockSupport.parkNanos(Math.min(SLEEP_NANOS, remains));
+                    }
+
+                    break;
+                default:
+                    lock.lock();
+                    try {
+                        consumerWaiting = true;
+                        if (!isAvailable()) {
+                            notEmpty.awaitNanos(remains);
+                        }
+                    } finally {
+                        consumerWaiting = false;
+                        lock.unlock();
+                    }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the number of payloads in the ring.
+     *
+     * @return size
+     */
+    public int size() {
+        return (int) Math.max(0, claimed.get() - consumed);
+    }
+
+    /**
+     * Gets the capacity.
+     *
+     * @return capacity
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Determines whether the next payload to consume is published.
+     *
+     * @return {@code true} if published, returns {@code false} otherwise
+     */
+    private boolean isAvailable() {
+        final long sequence = consumed + 1;
+
+        return published.get((int) sequence & mask) == sequence;
+    }
+}
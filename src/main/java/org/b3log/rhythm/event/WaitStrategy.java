@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.event;
+
+/**
+ * Wait strategies of a {@link RingBuffer} consumer waiting for events.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public enum WaitStrategy {
+
+    /**
+     * Spins, lowest latency, burns a core.
+     */
+    BUSY_SPIN,
+    /**
+     * Spins with {@link Thread#yield()}.
+     */
+    YIELDING,
+    /**
+     * Spins for a while, then parks for short periods.
+     */
+    SLEEPING,
+    /**
+     * Parks until a producer signals, lowest CPU usage.
+     */
+    BLOCKING
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.event.symphony;
+
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.rhythm.model.Article;
+import org.b3log.rhythm.model.Common;
+import org.b3log.rhythm.outbox.OutboxListener;
+import org.b3log.rhythm.outbox.OutboxRecord;
+import org.b3log.rhythm.service.UserService;
+import org.json.JSONObject;
+
+/**
+ * Listener of the article deliveries to Symphony, records the B3 key of the author once Symphony accepted an article
+ * posted with it, see {@link UserService#recordB3Key(java.lang.String, java.lang.String)}.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class ArticleDeliveryListener implements OutboxListener {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ArticleDeliveryListener.class.getName());
+
+    /**
+     * User service.
+     */
+    private final UserService userService;
+
+    /**
+     * Constructs a listener with the specified user service.
+     *
+     * @param userService the specified user service
+     */
+    public ArticleDeliveryListener(final UserService userService) {
+        this.userService = userService;
+    }
+
+    @Override
+    public void delivered(final OutboxRecord record) {
+        if (null == record.getPayload()) {
+            return;
+        }
+
+        try {
+            final JSONObject payload = new JSONObject(record.getPayload());
+            final JSONObject article = payload.optJSONObject(Article.ARTICLE);
+            if (null == article) {
+                return;
+            }
+
+            userService.recordB3Key(article.optString(Article.ARTICLE_AUTHOR_EMAIL),
+                    payload.optString(Common.USER_B3_KEY));
+        } catch (final Exception e) {
+            LOGGER.log(Level.WARN, "Records B3 key of delivered record " + record + " failed", e);
+        }
+    }
+
+    @Override
+    public void retrying(final OutboxRecord record, final String reason) {
+    }
+
+    @Override
+    public void deadLettered(final OutboxRecord record, final String reason) {
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.event.symphony;
+
+import org.b3log.rhythm.event.EventPayload;
+import org.b3log.rhythm.model.Article;
+import org.b3log.rhythm.model.Blog;
+import org.b3log.rhythm.model.Common;
+import org.json.JSONObject;
+
+/**
+ * Payload of the events {@link org.b3log.rhythm.event.EventTypes#ADD_ARTICLE_TO_SYMPHONY} and
+ * {@link org.b3log.rhythm.event.EventTypes#UPDATE_ARTICLE_TO_SYMPHONY}, an article and the client which posted it.
+ *
+ * <p>
+ * The json form uses the field names of the article requests of clients, so a payload is
+ * {@link #fromJSON(org.json.JSONObject) parsed} from a request directly.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class ArticleEvent implements EventPayload {
+
+    /**
+     * Article.
+     */
+    private final JSONObject article;
+
+    /**
+     * Client host, for example, "http://88250.b3log.org".
+     */
+    private final String clientHost;
+
+    /**
+     * Client name, for example, "B3log Solo".
+     */
+    private final String clientName;
+
+    /**
+     * Client title.
+     */
+    private final String clientTitle;
+
+    /**
+     * Client version.
+     */
+    private final String clientVersion;
+
+    /**
+     * Client runtime environment.
+     */
+    private final String clientRuntimeEnv;
+
+    /**
+     * B3 key of the user.
+     */
+    private final String userB3Key;
+
+    /**
+     * Client admin email.
+     */
+    private final String clientAdminEmail;
+
+    /**
+     * Constructs an article event.
+     *
+     * @param article the specified article
+     * @param clientHost the specified client host
+     * @param clientName the specified client name
+     * @param clientTitle the specified client title
+     * @param clientVersion the specified client version
+     * @param clientRuntimeEnv the specified client runtime environment
+     * @param userB3Key the specified B3 key of the user
+     * @param clientAdminEmail the specified client admin email
+     */
+    public ArticleEvent(final JSONObject article, final String clientHost, final String clientName,
+            final String clientTitle, final String clientVersion, final String clientRuntimeEnv,
+            final String userB3Key, final String clientAdminEmail) {
+        this.article = article;
+        this.clientHost = clientHost;
+        this.clientName = clientName;
+        this.clientTitle = clientTitle;
+        this.clientVersion = clientVersion;
+        this.clientRuntimeEnv = clientRuntimeEnv;
+        this.userB3Key = userB3Key;
+        this.clientAdminEmail = clientAdminEmail;
+    }
+
+    /**
+     * Parses the specified json object, an article request of a client or a spilled event.
+     *
+     * @param json the specified json object, for example,
+     * <pre>
+     * {
+     *     "article": {....},
+     *     "blogHost": "",
+     *     "blog": "",
+     *     "blogTitle": "",
+     *     "blogVersion": "",
+     *     "clientRuntimeEnv": "",
+     *     "userB3Key": "",
+     *     "clientAdminEmail": ""
+     * }
+     * </pre>
+     * @return article event
+     * @throws org.json.JSONException if the json object has no article
+     */
+    public static ArticleEvent fromJSON(final JSONObject json) {
+        return new ArticleEvent(json.getJSONObject(Article.ARTICLE), json.optString(Blog.BLOG_HOST),
+                json.optString(Blog.BLOG), json.optString(Blog.BLOG_TITLE), json.optString(Blog.BLOG_VERSION),
+                json.optString(Common.CLIENT_RUNTIME_ENV), json.optString(Common.USER_B3_KEY),
+                json.optString(Common.CLIENT_ADMIN_EMAIL));
+    }
+
+    @Override
+    public JSONObject toJSON() {
+        final JSONObject ret = new JSONObject();
+        ret.put(Article.ARTICLE, article);
+        ret.put(Blog.BLOG_HOST, clientHost);
+        ret.put(Blog.BLOG, clientName);
+        ret.put(Blog.BLOG_TITLE, clientTitle);
+        ret.put(Blog.BLOG_VERSION, clientVersion);
+        ret.put(Common.CLIENT_RUNTIME_ENV, clientRuntimeEnv);
+        ret.put(Common.USER_B3_KEY, userB3Key);
+        ret.put(Common.CLIENT_ADMIN_EMAIL, clientAdminEmail);
+
+        return ret;
+    }
+
+    /**
+     * Gets the article.
+     *
+     * @return article
+     */
+    public JSONObject getArticle() {
+        return article;
+    }
+
+    /**
+     * Gets the client host.
+     *
+     * @return client host
+     */
+    public String getClientHost() {
+        return clientHost;
+    }
+
+    /**
+     * Gets the client name.
+     *
+     * @return client name
+     */
+    public String getClientName() {
+        return clientName;
+    }
+
+    /**
+     * Gets the client title.
+     *
+     * @return client title
+     */
+    public String getClientTitle() {
+        return clientTitle;
+    }
+
+    /**
+     * Gets the client version.
+     *
+     * @return client version
+     */
+    public String getClientVersion() {
+        return clientVersion;
+    }
+
+    /**
+     * Gets the client runtime environment.
+     *
+     * @return client runtime environment
+     */
+    public String getClientRuntimeEnv() {
+        return clientRuntimeEnv;
+    }
+
+    /**
+     * Gets the B3 key of the user.
+     *
+     * @return B3 key of the user
+     */
+    public String getUserB3Key() {
+        return userB3Key;
+    }
+
+    /**
+     * Gets the client admin email.
+     *
+     * @return client admin email
+     */
+    public String getClientAdminEmail() {
+        return clientAdminEmail;
+    }
+
+    @Override
+    public String toString() {
+        return "[clientHost=" + clientHost + ", articleTitle=" + article.optString(Article.ARTICLE_TITLE) + "]";
+    }
+}
@@ -15,22 +15,18 @@
  */
 package org.b3log.rhythm.event.symphony;
 
-import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.List;
 import org.b3log.latke.Keys;
-import org.b3log.latke.event.AbstractEventListener;
-import org.b3log.latke.event.Event;
 import org.b3log.latke.event.EventException;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
 import org.b3log.latke.servlet.HTTPRequestMethod;
-import org.b3log.latke.urlfetch.HTTPRequest;
-import org.b3log.latke.urlfetch.URLFetchServiceFactory;
 import org.b3log.latke.util.Strings;
-import org.b3log.rhythm.RhythmServletListener;
 import org.b3log.rhythm.event.EventTypes;
+import org.b3log.rhythm.event.RhythmEventListener;
 import org.b3log.rhythm.model.Article;
-import org.b3log.rhythm.model.Blog;
+import org.b3log.rhythm.outbox.Outboxes;
 import org.b3log.rhythm.util.Rhythms;
 import org.json.JSONObject;
 
@@ -38,38 +34,50 @@ import org.json.JSONObject;
  * This listener is responsible for sending article to B3log Symphony.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.1.7, Jun 13, 2013
+ * @version 1.3.0.0, Oct 19, 2026
  * @since 0.1.4
  */
-public final class ArticleSender extends AbstractEventListener<JSONObject> {
+public final class ArticleSender implements RhythmEventListener<ArticleEvent> {
 
     /**
      * Logger.
      */
     private static final Logger LOGGER = Logger.getLogger(ArticleSender.class.getName());
 
-    /**
-     * URL of adding article to Rhythm.
-     */
-    private static final URL ADD_ARTICLE_URL;
+    @Override
+    public void action(final List<ArticleEvent> payloads) throws EventException {
+        EventException failure = null;
+        for (final ArticleEvent data : payloads) {
+            try {
+                process(data);
+            } catch (final EventException e) {
+                failure = e;
+            }
+        }
 
-    static {
-        try {
-            ADD_ARTICLE_URL = new URL(RhythmServletListener.B3LOG_SYMPHONY_SERVE_PATH + "/rhythm/article");
-        } catch (final MalformedURLException e) {
-            throw new RuntimeException(e);
+        if (null != failure) {
+            throw failure;
         }
     }
 
     @Override
-    public void action(final Event<JSONObject> event) throws EventException {
-        final JSONObject data = event.getData();
+    public ArticleEvent parse(final JSONObject json) {
+        return ArticleEvent.fromJSON(json);
+    }
+
+    /**
+     * Sends the specified article to Symphony.
+     *
+     * @param data the specified event payload
+     * @throws EventException if sending failed
+     */
+    private void process(final ArticleEvent data) throws EventException {
         LOGGER.log(Level.INFO, "Processing an event[type={0}, data={1}] in listener[className={2}]",
-                new Object[]{event.getType(), data, ArticleSender.class.getName()});
+                new Object[]{getEventType(), data, ArticleSender.class.getName()});
         try {
-            final JSONObject article = data.getJSONObject(Article.ARTICLE);
+            final JSONObject article = data.getArticle();
 
-            String clientHost = data.getString(Blog.BLOG_HOST);
+            String clientHost = data.getClientHost();
             if (!Strings.isURL(clientHost)) {
                 clientHost = "http://" + clientHost;
 
@@ -80,12 +88,12 @@ public final class ArticleSender extends AbstractEventListener<JSONObject> {
                 }
             }
 
-            final String clientVersion = data.getString(Blog.BLOG_VERSION);
-            final String clientName = data.getString(Blog.BLOG);
-            final String clientTitle = data.getString(Blog.BLOG_TITLE);
-            final String clientRuntimeEnv = data.getString("clientRuntimeEnv");
-            final String userB3Key = data.getString("userB3Key");
-            final String clientAdminEmail = data.getString("clientAdminEmail");
+            final String clientVersion = data.getClientVersion();
+            final String clientName = data.getClientName();
+            final String clientTitle = data.getClientTitle();
+            final String clientRuntimeEnv = data.getClientRuntimeEnv();
+            final String userB3Key = data.getUserB3Key();
+            final String clientAdminEmail = data.getClientAdminEmail();
 
             final JSONObject request = new JSONObject();
             request.put("article", article);
@@ -151,9 +159,6 @@ public final class ArticleSender extends AbstractEventListener<JSONObject> {
         final String clientRuntimeEnv = request.getString("clientRuntimeEnv");
         final String clientAdminEmail = request.getString("clientAdminEmail");
 
-        final HTTPRequest httpRequest = new HTTPRequest();
-        httpRequest.setURL(ADD_ARTICLE_URL);
-        httpRequest.setRequestMethod(HTTPRequestMethod.POST);
         article.put("clientArticleId", article.getString(Keys.OBJECT_ID));
 
         final JSONObject requestJSONObject = new JSONObject();
@@ -168,10 +173,8 @@ public final class ArticleSender extends AbstractEventListener<JSONObject> {
         requestJSONObject.put("clientAdminEmail", clientAdminEmail);
         requestJSONObject.put(Article.ARTICLE, article);
 
-        httpRequest.setPayload(requestJSONObject.toString().getBytes("UTF-8"));
-
-        URLFetchServiceFactory.getURLFetchService().fetchAsync(httpRequest);
+        Outboxes.forwardArticle(HTTPRequestMethod.POST.name(), requestJSONObject);
 
-        LOGGER.log(Level.INFO, "Sent an article to Symphony [articleTitle={0}]", article.optString(Article.ARTICLE_TITLE));
+        LOGGER.log(Level.INFO, "Queued an article to Symphony [articleTitle={0}]", article.optString(Article.ARTICLE_TITLE));
     }
 }
@@ -19,7 +19,7 @@ package org.b3log.rhythm.model;
  * This class defines all article model relevant keys.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.0.5, Mar 5, 2016
+ * @version 1.3.0.0, Oct 19, 2026
  * @since 0.1.4
  */
 public final class Article {
@@ -60,6 +60,23 @@ public final class Article {
      * Key of accessibility check not HTTP 200 count.
      */
     public static final String ARTICLE_ACCESSIBILITY_NOT_200_CNT = "articleAccessibilityNot200Cnt";
+    /**
+     * Key of accessibility history, a 64-bit ring of the latest check outcomes (the lowest bit is the latest, 1
+     * indicates not HTTP 200).
+     */
+    public static final String ARTICLE_ACCESSIBILITY_HISTORY = "articleAccessibilityHistory";
+    /**
+     * Key of accessibility last check HTTP status code.
+     */
+    public static final String ARTICLE_ACCESSIBILITY_LAST_SC = "articleAccessibilityLastSC";
+    /**
+     * Key of accessibility last check time.
+     */
+    public static final String ARTICLE_ACCESSIBILITY_LAST_CHECK_TIME = "articleAccessibilityLastCheckTime";
+    /**
+     * Key of accessibility next check time.
+     */
+    public static final String ARTICLE_ACCESSIBILITY_NEXT_CHECK_TIME = "articleAccessibilityNextCheckTime";
     //// Transient ////
     /**
      * Key of article content.
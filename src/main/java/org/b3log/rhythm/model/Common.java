@@ -19,7 +19,7 @@ package org.b3log.rhythm.model;
  * This class defines all common model relevant keys.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.0.0, Mar 5, 2016
+ * @version 1.3.0.0, Oct 19, 2026
  * @since 0.1.5
  */
 public final class Common {
@@ -108,6 +108,21 @@ public final class Common {
      * Key of recent post time.
      */
     public static final String RECENT_POST_TIME = "recentPostTime";
+
+    /**
+     * Key of user accessibility check count.
+     */
+    public static final String USER_ACCESSIBILITY_CHECK_CNT = "userAccessibilityCheckCnt";
+
+    /**
+     * Key of user accessibility next check time.
+     */
+    public static final String USER_ACCESSIBILITY_NEXT_CHECK_TIME = "userAccessibilityNextCheckTime";
+
+    /**
+     * Key of user b3 key hash.
+     */
+    public static final String USER_B3_KEY_HASH = "userB3KeyHash";
     
     /**
      * Key of comment.
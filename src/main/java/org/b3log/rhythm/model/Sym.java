@@ -19,7 +19,7 @@ package org.b3log.rhythm.model;
  * This class defines all Sym model relevant keys.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.1, Oct 29, 2016
+ * @version 1.2.0.0, Oct 19, 2026
  * @since 1.2.0
  */
 public final class Sym {
@@ -54,6 +54,11 @@ public final class Sym {
      */
     public static final String SYM_DESC = "symDesc";
 
+    /**
+     * Key of sym icon hash, see {@link org.b3log.rhythm.service.SymIconService} for more details.
+     */
+    public static final String SYM_ICON_HASH = "symIconHash";
+
     /**
      * Key of sym accessibility check count.
      */
@@ -63,6 +68,14 @@ public final class Sym {
      * Key of sym accessibility check count.
      */
     public static final String SYM_ACCESSIBILITY_NOT_200_CNT = "symAccessibilityNot200Cnt";
+    /**
+     * Key of sym accessibility history, see {@link org.b3log.rhythm.util.Accessibilities} for more details.
+     */
+    public static final String SYM_ACCESSIBILITY_HISTORY = "symAccessibilityHistory";
+    /**
+     * Key of sym accessibility next check time.
+     */
+    public static final String SYM_ACCESSIBILITY_NEXT_CHECK_TIME = "symAccessibilityNextCheckTime";
 
     /**
      * Key of sym status.
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.outbox;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.json.JSONObject;
+
+/**
+ * Tracks the delivery status of requests forwarded to one or more targets, keeps the latest "max tracked" statuses in
+ * memory.
+ *
+ * <p>
+ * A request gets a track id, and each of its outbox records is {@link #track(long, String, OutboxRecord) tracked}
+ * under that id and the name of its target before the record is submitted, so an outcome reported as soon as the
+ * record is durable is not missed. A record which can not be submitted is
+ * {@link #untrack(java.lang.String, org.b3log.rhythm.outbox.OutboxRecord, java.lang.String) untracked}. The
+ * dispatcher of a target reports outcomes to {@link #getListener(java.lang.String) its listener}. Statuses are not durable, a request tracked before a restart is
+ * reported as "unknown".
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.2.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class DeliveryTracker {
+
+    /**
+     * Status of a record waiting for the first attempt.
+     */
+    public static final String STATUS_QUEUED = "queued";
+
+    /**
+     * Status of a record waiting for a retry.
+     */
+    public static final String STATUS_RETRYING = "retrying";
+
+    /**
+     * Status of a delivered record.
+     */
+    public static final String STATUS_DELIVERED = "delivered";
+
+    /**
+     * Status of a dead-lettered record.
+     */
+    public static final String STATUS_FAILED = "failed";
+
+    /**
+     * Status of a request not tracked.
+     */
+    public static final String STATUS_UNKNOWN = "unknown";
+
+    /**
+     * Statuses, &lt;track id, &lt;target name, status&gt;&gt;, in access order.
+     */
+    private final Map<Long, Map<String, JSONObject>> statuses;
+
+    /**
+     * Track ids of the records not completed yet, &lt;target name#record id, track id&gt;, bounded by the pending
+     * records of the outboxes.
+     */
+    private final Map<String, Long> trackIds = new ConcurrentHashMap<String, Long>();
+
+    /**
+     * Track id generator, starts from the current time so that ids are unlikely to be reused after a restart.
+     */
+    private final AtomicLong ids = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * Constructs a tracker with the specified max number of tracked requests.
+     *
+     * @param maxTracked the specified max number of tracked requests
+     */
+    public DeliveryTracker(final int maxTracked) {
+        statuses = new LinkedHashMap<Long, Map<String, JSONObject>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, Map<String, JSONObject>> eldest) {
+                return size() > maxTracked;
+            }
+        };
+    }
+
+    /**
+     * Generates a track id.
+     *
+     * @return track id
+     */
+    public long nextId() {
+        return ids.incrementAndGet();
+    }
+
+    /**
+     * Tracks the specified record of the specified target under the specified track id, the record must not be
+     * submitted to its outbox yet.
+     *
+     * @param trackId the specified track id
+     * @param target the specified target name
+     * @param record the specified record
+     */
+    public void track(final long trackId, final String target, final OutboxRecord record) {
+        trackIds.put(target + '#' + record.getId(), trackId);
+        update(trackId, target, record, STATUS_QUEUED, null);
+    }
+
+    /**
+     * Stops tracking the specified record of the specified target, the record is failed.
+     *
+     * @param target the specified target name
+     * @param record the specified record
+     * @param reason the specified failure reason
+     */
+    public void untrack(final String target, final OutboxRecord record, final String reason) {
+        complete(target, record, STATUS_FAILED, reason);
+    }
+
+    /**
+     * Gets the number of the tracked records not completed yet.
+     *
+     * @return number of tracked records
+     */
+    int getTracked() {
+        return trackIds.size();
+    }
+
+    /**
+     * Gets the listener of the dispatcher of the specified target.
+     *
+     * @param target the specified target name
+     * @return listener
+     */
+    public OutboxListener getListener(final String target) {
+        return new OutboxListener() {
+            @Override
+            public void delivered(final OutboxRecord record) {
+                complete(target, record, STATUS_DELIVERED, null);
+            }
+
+            @Override
+            public void retrying(final OutboxRecord record, final String reason) {
+                final Long trackId = trackIds.get(target + '#' + record.getId());
+                if (null != trackId) {
+                    update(trackId, target, record, STATUS_RETRYING, reason);
+                }
+            }
+
+            @Override
+            public void deadLettered(final OutboxRecord record, final String reason) {
+                complete(target, record, STATUS_FAILED, reason);
+            }
+        };
+    }
+
+    /**
+     * Gets the status of the request with the specified track id.
+     *
+     * @param trackId the specified track id
+     * @return for example,
+     * <pre>
+     * {
+     *     "id": 1,
+     *     "status": "retrying", // the least advanced status of the targets:
+     *                           // failed/retrying/queued/delivered, or unknown
+     *     "targets": {
+     *         "symphony": {
+     *             "status": "retrying",
+     *             "attempts": 1, // failed attempts
+     *             "reason": "HTTP 503", // optional
+     *             "time": 1457158841475 // time of the status
+     *         }, ....
+     *     }
+     * }
+     * </pre>
+     */
+    public synchronized JSONObject getStatus(final long trackId) {
+        final JSONObject ret = new JSONObject();
+        ret.put("id", trackId);
+
+        final JSONObject targets = new JSONObject();
+        ret.put("targets", targets);
+
+        final Map<String, JSONObject> targetStatuses = statuses.get(trackId);
+        if (null == targetStatuses) {
+            ret.put("status", STATUS_UNKNOWN);
+
+            return ret;
+        }
+
+        String status = STATUS_DELIVERED;
+        for (final Map.Entry<String, JSONObject> targetStatus : targetStatuses.entrySet()) {
+            final JSONObject value = targetStatus.getValue();
+            targets.put(targetStatus.getKey(), new JSONObject(value.toString()));
+
+            status = min(status, value.getString("status"));
+        }
+        ret.put("status", status);
+
+        return ret;
+    }
+
+    /**
+     * Completes the specified record of the specified target with the specified status.
+     *
+     * @param target the specified target name
+     * @param record the specified record
+     * @param status the specified status
+     * @param reason the specified failure reason, may be {@code null}
+     */
+    private void complete(final String target, final OutboxRecord record, final String status, final String reason) {
+        final Long trackId = trackIds.remove(target + '#' + record.getId());
+        if (null != trackId) {
+            update(trackId, target, record, status, reason);
+        }
+    }
+
+    /**
+     * Updates the status of the specified record of the specified target.
+     *
+     * @param trackId the specified track id
+     * @param target the specified target name
+     * @param record the specified record
+     * @param status the specified status
+     * @param reason the specified failure reason, may be {@code null}
+     */
+    private synchronized void update(final long trackId, final String target, final OutboxRecord record,
+            final String status, final String reason) {
+        Map<String, JSONObject> targetStatuses = statuses.get(trackId);
+        if (null == targetStatuses) {
+            if (!STATUS_QUEUED.equals(status)) { // Evicted
+                return;
+            }
+
+            targetStatuses = new LinkedHashMap<String, JSONObject>();
+            statuses.put(trackId, targetStatuses);
+        }
+
+        final JSONObject value = new JSONObject();
+        value.put("status", status);
+        value.put("attempts", record.getAttempts());
+        if (null != reason) {
+            value.put("reason", reason);
+        }
+        value.put("time", System.currentTimeMillis());
+
+        targetStatuses.put(target, value);
+    }
+
+    /**
+     * Gets the less advanced status of the specified statuses.
+     *
+     * @param status1 the specified status
+     * @param status2 the specified status
+     * @return less advanced status
+     */
+    private static String min(final String status1, final String status2) {
+        return rank(status1) <= rank(status2) ? status1 : status2;
+    }
+
+    /**
+     * Gets the rank of the specified status, a less advanced status has a lower rank.
+     *
+     * @param status the specified status
+     * @return rank
+     */
+    private static int rank(final String status) {
+        if (STATUS_FAILED.equals(status)) {
+            return 0;
+        }
+
+        if (STATUS_RETRYING.equals(status)) {
+            return 1;
+        }
+
+        if (STATUS_QUEUED.equals(status)) {
+            return 2;
+        }
+
+        return 3;
+    }
+}
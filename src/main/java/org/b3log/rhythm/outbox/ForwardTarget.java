@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.outbox;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.util.Strings;
+import org.b3log.rhythm.urlfetch.OutboundFetchService;
+import org.json.JSONObject;
+
+/**
+ * A community (Symphony) instance articles and comments are forwarded to.
+ *
+ * <p>
+ * Each target has its own article and comment {@link Outbox outboxes} and {@link OutboxDispatcher dispatchers}, and
+ * its own {@link OutboundFetchService fetch service}, so its concurrency limit and circuit breaker are independent of
+ * the other targets. A slow or broken target only backs up its own outboxes.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.2.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class ForwardTarget {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ForwardTarget.class.getName());
+
+    /**
+     * Path of article adds and updates.
+     */
+    public static final String ARTICLE_PATH = "/rhythm/article";
+
+    /**
+     * Path of comment adds.
+     */
+    public static final String COMMENT_PATH = "/solo/comment";
+
+    /**
+     * Name of the payload field of the Symphony key.
+     */
+    private static final String SYMPHONY_KEY = "symphonyKey";
+
+    /**
+     * Name.
+     */
+    private final String name;
+
+    /**
+     * Serve path, for example, "https://hacpai.com:443".
+     */
+    private final String servePath;
+
+    /**
+     * Symphony key of this target.
+     */
+    private final String key;
+
+    /**
+     * Fetch service.
+     */
+    private final OutboundFetchService fetchService;
+
+    /**
+     * Article outbox.
+     */
+    private Outbox articleOutbox;
+
+    /**
+     * Article outbox dispatcher.
+     */
+    private OutboxDispatcher articleDispatcher;
+
+    /**
+     * Comment outbox.
+     */
+    private Outbox commentOutbox;
+
+    /**
+     * Comment outbox dispatcher.
+     */
+    private OutboxDispatcher commentDispatcher;
+
+    /**
+     * Constructs a target.
+     *
+     * @param name the specified name
+     * @param servePath the specified serve path
+     * @param key the specified Symphony key of the target
+     * @param fetchService the specified fetch service
+     */
+    public ForwardTarget(final String name, final String servePath, final String key,
+            final OutboundFetchService fetchService) {
+        this.name = name;
+        this.servePath = servePath;
+        this.key = key;
+        this.fetchService = fetchService;
+    }
+
+    /**
+     * Opens the outboxes of this target in the specified directory and starts their dispatchers.
+     *
+     * @param dir the specified directory
+     * @param settings the specified outbox settings, see rhythm.properties "outbox.*"
+     * @param articleListener the specified article delivery listener, may be {@code null}
+     * @param commentListener the specified comment delivery listener, may be {@code null}
+     * @throws IOException if an outbox can not be opened
+     */
+    public void start(final File dir, final Settings settings, final OutboxListener articleListener,
+            final OutboxListener commentListener) throws IOException {
+        articleOutbox = new Outbox(name, new File(dir, name), settings.segmentSize, settings.fsyncTimeout);
+        commentOutbox = new Outbox(name + "-comments", new File(dir, name + "-comments"), settings.segmentSize,
+                settings.fsyncTimeout);
+
+        articleDispatcher = newDispatcher(articleOutbox, ARTICLE_PATH, settings.batchPath, SYMPHONY_KEY, settings);
+        articleDispatcher.setListener(articleListener);
+        articleDispatcher.start();
+
+        commentDispatcher = newDispatcher(commentOutbox, COMMENT_PATH, settings.commentBatchPath, null, settings);
+        commentDispatcher.setListener(commentListener);
+        commentDispatcher.start();
+
+        LOGGER.log(Level.INFO, "Started forwarding target [name={0}, servePath={1}]", new Object[]{name, servePath});
+    }
+
+    /**
+     * Stops the dispatchers and closes the outboxes.
+     */
+    public void stop() {
+        if (null != articleDispatcher) {
+            articleDispatcher.stop();
+        }
+
+        if (null != commentDispatcher) {
+            commentDispatcher.stop();
+        }
+
+        if (null != articleOutbox) {
+            articleOutbox.close();
+        }
+
+        if (null != commentOutbox) {
+            commentOutbox.close();
+        }
+    }
+
+    /**
+     * Submits the specified article request to the article outbox, see
+     * {@link Outbox#submit(java.lang.String, java.lang.String, java.lang.String, java.lang.String)}.
+     *
+     * @param method the specified HTTP method
+     * @param payload the specified payload, its "symphonyKey" is replaced with the key of this target
+     * @return submitted write
+     * @throws IOException if the outbox is closed
+     */
+    Outbox.Write submitArticle(final String method, final JSONObject payload) throws IOException {
+        String data = payload.toString();
+        if (payload.has(SYMPHONY_KEY) && !key.equals(payload.optString(SYMPHONY_KEY))) {
+            final JSONObject copy = new JSONObject(data);
+            copy.put(SYMPHONY_KEY, key);
+            data = copy.toString();
+        }
+
+        return articleOutbox.submit(servePath + ARTICLE_PATH, method, data, null);
+    }
+
+    /**
+     * Prepares a write of the specified comment request to the comment outbox, see
+     * {@link Outbox#prepare(java.lang.String, java.lang.String, java.lang.String, java.lang.String)}.
+     *
+     * @param payload the specified payload
+     * @param orderingKey the specified ordering key
+     * @return prepared write
+     */
+    Outbox.Write prepareComment(final String payload, final String orderingKey) {
+        return commentOutbox.prepare(servePath + COMMENT_PATH, "POST", payload, orderingKey);
+    }
+
+    /**
+     * Gets the name.
+     *
+     * @return name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the article outbox.
+     *
+     * @return article outbox
+     */
+    public Outbox getArticleOutbox() {
+        return articleOutbox;
+    }
+
+    /**
+     * Gets the comment outbox.
+     *
+     * @return comment outbox
+     */
+    public Outbox getCommentOutbox() {
+        return commentOutbox;
+    }
+
+    /**
+     * Creates a dispatcher of the specified outbox.
+     *
+     * @param outbox the specified outbox
+     * @param path the specified path of records could be batched
+     * @param batchPath the specified batch endpoint path, batching is disabled if empty
+     * @param sharedField the specified name of the field shared by the payloads, may be {@code null}
+     * @param settings the specified outbox settings
+     * @return dispatcher
+     */
+    private OutboxDispatcher newDispatcher(final Outbox outbox, final String path, final String batchPath,
+            final String sharedField, final Settings settings) {
+        OutboxBatch batch = null;
+        if (!Strings.isEmptyOrNull(batchPath)) {
+            try {
+                batch = new OutboxBatch(servePath + path, new URL(servePath + batchPath), sharedField,
+                        settings.batchSize, settings.batchLinger);
+            } catch (final IOException e) {
+                LOGGER.log(Level.ERROR, "Invalid batch path [" + batchPath + "], disables batching", e);
+            }
+        }
+
+        return new OutboxDispatcher(outbox, fetchService, settings.maxAttempts, settings.retryBase, settings.retryMax,
+                batch);
+    }
+
+    /**
+     * Outbox settings shared by the targets.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 19, 2026
+     */
+    public static final class Settings {
+
+        /**
+         * Segment size in bytes.
+         */
+        private final long segmentSize;
+
+        /**
+         * Fsync timeout in milliseconds.
+         */
+        private final long fsyncTimeout;
+
+        /**
+         * Max delivery attempts.
+         */
+        private final int maxAttempts;
+
+        /**
+         * Base retry delay in milliseconds.
+         */
+        private final long retryBase;
+
+        /**
+         * Max retry delay in milliseconds.
+         */
+        private final long retryMax;
+
+        /**
+         * Article batch endpoint path.
+         */
+        private final String batchPath;
+
+        /**
+         * Comment batch endpoint path.
+         */
+        private final String commentBatchPath;
+
+        /**
+         * Max records per batch.
+         */
+        private final int batchSize;
+
+        /**
+         * Batch linger time in milliseconds.
+         */
+        private final long batchLinger;
+
+        /**
+         * Constructs settings.
+         *
+         * @param segmentSize the specified segment size in bytes
+         * @param fsyncTimeout the specified fsync timeout in milliseconds
+         * @param maxAttempts the specified max delivery attempts
+         * @param retryBase the specified base retry delay in milliseconds
+         * @param retryMax the specified max retry delay in milliseconds
+         * @param batchPath the specified article batch endpoint path, may be empty
+         * @param commentBatchPath the specified comment batch endpoint path, may be empty
+         * @param batchSize the specified max records per batch
+         * @param batchLinger the specified batch linger time in milliseconds
+         */
+        public Settings(final long segmentSize, final long fsyncTimeout, final int maxAttempts, final long retryBase,
+                final long retryMax, final String batchPath, final String commentBatchPath, final int batchSize,
+                final long batchLinger) {
+            this.segmentSize = segmentSize;
+            this.fsyncTimeout = fsyncTimeout;
+            this.maxAttempts = maxAttempts;
+            this.retryBase = retryBase;
+            this.retryMax = retryMax;
+            this.batchPath = batchPath;
+            this.commentBatchPath = commentBatchPath;
+            this.batchSize = batchSize;
+            this.batchLinger = batchLinger;
+        }
+    }
+}
@@ -0,0 +1,876 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.outbox;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * A local append-only, segmented and fsync-batched outbox of outbound HTTP requests.
+ *
+ * <p>
+ * Records are appended as json lines to the current segment file by a writer thread, which writes all queued records
+ * then fsyncs once, so concurrent appends share one fsync. {@link #append(java.lang.String, java.lang.String, java.lang.String)}
+ * returns after its record is durable. The segment is rolled once it grows beyond the segment size after a batch.
+ * If a batch fails, the segment is truncated back to the start of the batch, or rolled if it can not be truncated, so
+ * that a torn record never precedes a later record in a segment.
+ * </p>
+ *
+ * <p>
+ * A delivered record is {@link #ack(org.b3log.rhythm.outbox.OutboxRecord) acknowledged}, an undeliverable record is
+ * {@link #deadLetter(org.b3log.rhythm.outbox.OutboxRecord, java.lang.String) dead-lettered} into "dead-letter.log" with
+ * the keys in its payload redacted. Both append a marker record. Segments are compacted from the oldest one: a
+ * segment is deleted once all its messages are acknowledged or dead-lettered and all older segments are deleted.
+ * Pending records are rebuilt by replaying the segments at startup.
+ * </p>
+ *
+ * <p>
+ * Records {@link #append(java.lang.String, java.lang.String, java.lang.String, java.lang.String) appended} with the
+ * same ordering key are handed out in id order: a record is not due while an older record with its key is waiting for
+ * a retry.
+ * </p>
+ *
+ * <p>
+ * The records carry the keys of the requests, so the directory is made accessible by the owner only where the file
+ * system supports POSIX permissions.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.4.1.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class Outbox {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(Outbox.class.getName());
+
+    /**
+     * Segment file name prefix.
+     */
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    /**
+     * Segment file name suffix.
+     */
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * Dead-letter file name.
+     */
+    private static final String DEAD_LETTER_FILE = "dead-letter.log";
+
+    /**
+     * Max number of records written per fsync.
+     */
+    private static final int MAX_WRITE_BATCH = 512;
+
+    /**
+     * Line separator.
+     */
+    private static final byte LF = '\n';
+
+    /**
+     * Charset of records.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Payload keys redacted in dead letters.
+     */
+    private static final Set<String> REDACTED_KEYS = Collections.unmodifiableSet(new HashSet<String>(
+            Arrays.asList("symphonyKey", "userB3Key", "b3logKey", "key")));
+
+    /**
+     * Redacted value.
+     */
+    private static final String REDACTED = "***";
+
+    /**
+     * Name.
+     */
+    private final String name;
+
+    /**
+     * Directory.
+     */
+    private final File dir;
+
+    /**
+     * Max segment size in bytes.
+     */
+    private final long segmentSize;
+
+    /**
+     * Timeout of waiting for a record to be durable in milliseconds.
+     */
+    private final long fsyncTimeout;
+
+    /**
+     * Pending records, &lt;id, record&gt;.
+     */
+    private final ConcurrentSkipListMap<Long, OutboxRecord> pending = new ConcurrentSkipListMap<Long, OutboxRecord>();
+
+    /**
+     * Live message count of segments, &lt;segment sequence, count&gt;.
+     */
+    private final TreeMap<Long, Integer> segments = new TreeMap<Long, Integer>();
+
+    /**
+     * Id generator.
+     */
+    private final AtomicLong ids = new AtomicLong();
+
+    /**
+     * Write queue.
+     */
+    private final BlockingQueue<Write> writes = new LinkedBlockingQueue<Write>();
+
+    /**
+     * Dead-letter file lock.
+     */
+    private final Object deadLetterLock = new Object();
+
+    /**
+     * Writer thread.
+     */
+    private final Thread writer;
+
+    /**
+     * Whether this outbox is closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Current segment sequence.
+     */
+    private volatile long currentSegment;
+
+    /**
+     * Current segment channel, accessed by the writer thread only.
+     */
+    private FileChannel channel;
+
+    /**
+     * Current segment size, accessed by the writer thread only.
+     */
+    private long currentSegmentSize;
+
+    /**
+     * Opens an outbox with the specified name and directory, replays the existing segments.
+     *
+     * @param name the specified name
+     * @param dir the specified directory
+     * @param segmentSize the specified max segment size in bytes
+     * @param fsyncTimeout the specified timeout of waiting for a record to be durable in milliseconds
+     * @throws IOException io exception
+     */
+    public Outbox(final String name, final File dir, final long segmentSize, final long fsyncTimeout)
+            throws IOException {
+        this.name = name;
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.fsyncTimeout = fsyncTimeout;
+
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Creates outbox dir [" + dir + "] failed");
+        }
+
+        try {
+            Files.setPosixFilePermissions(dir.toPath(), PosixFilePermissions.fromString("rwx------"));
+        } catch (final UnsupportedOperationException e) {
+            LOGGER.log(Level.DEBUG, "Outbox dir [{0}] does not support POSIX permissions", dir);
+        }
+
+        replay();
+        openSegment(currentSegment);
+        compact();
+
+        writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                write();
+            }
+        }, "Outbox-" + name);
+        writer.setDaemon(true);
+        writer.start();
+
+        LOGGER.log(Level.INFO, "Opened outbox [name={0}, dir={1}, pending={2}]", new Object[]{name, dir, pending.size()});
+    }
+
+    /**
+     * Appends a request, returns after it is durable.
+     *
+     * @param url the specified URL
+     * @param method the specified HTTP method, for example, "POST"
+     * @param payload the specified payload, may be {@code null}
+     * @return appended record
+     * @throws IOException if this outbox is closed or the record can not be written
+     */
+    public OutboxRecord append(final String url, final String method, final String payload) throws IOException {
+        return append(url, method, payload, null);
+    }
+
+    /**
+     * Appends a request with the specified ordering key, returns after it is durable.
+     *
+     * @param url the specified URL
+     * @param method the specified HTTP method, for example, "POST"
+     * @param payload the specified payload, may be {@code null}
+     * @param key the specified ordering key, may be {@code null}
+     * @return appended record
+     * @throws IOException if this outbox is closed or the record can not be written
+     */
+    public OutboxRecord append(final String url, final String method, final String payload, final String key)
+            throws IOException {
+        return awaitDurable(submit(url, method, payload, key));
+    }
+
+    /**
+     * Submits a request with the specified ordering key to the writer thread, returns without waiting for it to be
+     * durable, see {@link #awaitDurable(org.b3log.rhythm.outbox.Outbox.Write)}.
+     *
+     * @param url the specified URL
+     * @param method the specified HTTP method, for example, "POST"
+     * @param payload the specified payload, may be {@code null}
+     * @param key the specified ordering key, may be {@code null}
+     * @return submitted write
+     * @throws IOException if this outbox is closed
+     */
+    Write submit(final String url, final String method, final String payload, final String key) throws IOException {
+        return submit(prepare(url, method, payload, key));
+    }
+
+    /**
+     * Prepares a write of a request with the specified ordering key, the id of its record is assigned but the write is
+     * not submitted, so that the record can be registered before it could be delivered.
+     *
+     * @param url the specified URL
+     * @param method the specified HTTP method, for example, "POST"
+     * @param payload the specified payload, may be {@code null}
+     * @param key the specified ordering key, may be {@code null}
+     * @return prepared write
+     */
+    Write prepare(final String url, final String method, final String payload, final String key) {
+        final OutboxRecord record = new OutboxRecord(ids.incrementAndGet(), url, method, payload,
+                System.currentTimeMillis(), key);
+
+        return new Write(record.toJSON(), record);
+    }
+
+    /**
+     * Submits the specified prepared write to the writer thread, returns without waiting for it to be durable.
+     *
+     * @param write the specified write
+     * @return the specified write
+     * @throws IOException if this outbox is closed
+     */
+    Write submit(final Write write) throws IOException {
+        if (closed) {
+            throw new IOException("Outbox [" + name + "] is closed");
+        }
+
+        writes.add(write);
+
+        return write;
+    }
+
+    /**
+     * Waits at most the fsync timeout for the specified submitted write to be durable.
+     *
+     * <p>
+     * A write which is not confirmed durable is a failure: the writer thread may still write it later, so the request
+     * may be delivered once even if the caller reports the failure.
+     * </p>
+     *
+     * @param write the specified write
+     * @return the record of the write
+     * @throws InterruptedIOException if the current thread is interrupted while waiting
+     * @throws IOException if the record can not be written or is not durable within the fsync timeout
+     */
+    OutboxRecord awaitDurable(final Write write) throws IOException {
+        final OutboxRecord ret = write.record;
+
+        try {
+            if (!write.done.await(fsyncTimeout, TimeUnit.MILLISECONDS)) {
+                LOGGER.log(Level.WARN, "Waits for record [id={0}] of outbox [{1}] durable timeout",
+                        new Object[]{ret.getId(), name});
+
+                throw new IOException("Record [id=" + ret.getId() + "] of outbox [" + name + "] is not durable in ["
+                        + fsyncTimeout + "]ms");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException("Interrupted while waiting for record [id=" + ret.getId()
+                    + "] of outbox [" + name + "] durable");
+        }
+
+        if (null != write.error) {
+            throw write.error;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the pending records which are due.
+     *
+     * @param now the specified current time
+     * @param max the specified max number of records to get
+     * @return due records in id order, records behind an older record with the same ordering key which is not due are
+     * excluded
+     */
+    public List<OutboxRecord> getDue(final long now, final int max) {
+        final List<OutboxRecord> ret = new ArrayList<OutboxRecord>();
+        final Set<String> blockedKeys = new HashSet<String>();
+
+        for (final OutboxRecord record : pending.values()) {
+            final String key = record.getKey();
+            if (null != key && blockedKeys.contains(key)) {
+                continue;
+            }
+
+            if (record.getNextAttemptTime() > now) {
+                if (null != key) {
+                    blockedKeys.add(key);
+                }
+            } else {
+                ret.add(record);
+
+                if (ret.size() >= max) {
+                    break;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Waits for new records with the specified timeout.
+     *
+     * @param timeout the specified timeout in milliseconds
+     * @throws InterruptedException interrupted exception
+     */
+    public synchronized void await(final long timeout) throws InterruptedException {
+        wait(timeout);
+    }
+
+    /**
+     * Acknowledges the specified record as delivered.
+     *
+     * @param record the specified record
+     */
+    public void ack(final OutboxRecord record) {
+        remove(record, OutboxRecord.TYPE_ACK);
+    }
+
+    /**
+     * Records a failed delivery of the specified record.
+     *
+     * @param record the specified record
+     * @param nextAttemptTime the specified next attempt time
+     */
+    public void retry(final OutboxRecord record, final long nextAttemptTime) {
+        record.failed(nextAttemptTime);
+    }
+
+    /**
+     * Moves the specified record to the dead-letter file.
+     *
+     * @param record the specified record
+     * @param reason the specified reason
+     */
+    public void deadLetter(final OutboxRecord record, final String reason) {
+        final JSONObject deadLetter = record.toJSON();
+        deadLetter.put("payload", redact(deadLetter.optString("payload", null)));
+        deadLetter.put("attempts", record.getAttempts());
+        deadLetter.put("reason", reason);
+        deadLetter.put("deadTime", System.currentTimeMillis());
+
+        synchronized (deadLetterLock) {
+            FileOutputStream outputStream = null;
+            try {
+                outputStream = new FileOutputStream(new File(dir, DEAD_LETTER_FILE), true);
+                outputStream.write((deadLetter.toString() + '\n').getBytes(UTF8));
+                outputStream.getFD().sync();
+            } catch (final IOException e) {
+                LOGGER.log(Level.ERROR, "Writes dead-letter " + record + " of outbox [" + name + "] failed, keeps it", e);
+
+                return;
+            } finally {
+                if (null != outputStream) {
+                    try {
+                        outputStream.close();
+                    } catch (final IOException e) {
+                        LOGGER.log(Level.WARN, "Closes dead-letter file failed", e);
+                    }
+                }
+            }
+        }
+
+        remove(record, OutboxRecord.TYPE_DEAD);
+
+        LOGGER.log(Level.WARN, "Dead-lettered record {0} of outbox [{1}], reason [{2}]",
+                new Object[]{record, name, reason});
+    }
+
+    /**
+     * Gets the number of pending records.
+     *
+     * @return number of pending records
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Gets the name.
+     *
+     * @return name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the directory.
+     *
+     * @return directory
+     */
+    public File getDir() {
+        return dir;
+    }
+
+    /**
+     * Closes this outbox, waits for the queued records to be written.
+     */
+    public void close() {
+        closed = true;
+
+        try {
+            writer.join(fsyncTimeout * 2);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        LOGGER.log(Level.INFO, "Closed outbox [name={0}, pending={1}]", new Object[]{name, pending.size()});
+    }
+
+    /**
+     * Removes the specified record from the pending records with the specified marker type.
+     *
+     * @param record the specified record
+     * @param type the specified marker type
+     */
+    private void remove(final OutboxRecord record, final String type) {
+        if (null == pending.remove(record.getId())) {
+            return;
+        }
+
+        writes.add(new Write(record.toJSON(type), null));
+
+        synchronized (segments) {
+            final Integer count = segments.get(record.getSegment());
+            if (null != count) {
+                segments.put(record.getSegment(), count - 1);
+            }
+        }
+
+        compact();
+    }
+
+    /**
+     * Deletes the oldest segments which have no live messages.
+     */
+    private void compact() {
+        synchronized (segments) {
+            final Iterator<Map.Entry<Long, Integer>> iterator = segments.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<Long, Integer> segment = iterator.next();
+                if (segment.getKey() >= currentSegment || segment.getValue() > 0) {
+                    break;
+                }
+
+                final File file = getSegmentFile(segment.getKey());
+                if (file.exists() && !file.delete()) {
+                    LOGGER.log(Level.WARN, "Deletes segment [{0}] failed", file);
+
+                    break;
+                }
+
+                iterator.remove();
+                LOGGER.log(Level.DEBUG, "Compacted segment [{0}]", file);
+            }
+        }
+    }
+
+    /**
+     * Writes the queued records, runs in the writer thread.
+     */
+    private void write() {
+        final List<Write> batch = new ArrayList<Write>();
+
+        while (!closed || !writes.isEmpty()) {
+            try {
+                final Write first = writes.poll(100, TimeUnit.MILLISECONDS);
+                if (null == first) {
+                    continue;
+                }
+
+                batch.add(first);
+                writes.drainTo(batch, MAX_WRITE_BATCH - 1);
+
+                final long batchStart = currentSegmentSize;
+                int messages = 0;
+                IOException error = null;
+                try {
+                    for (final Write write : batch) {
+                        final ByteBuffer buffer = ByteBuffer.wrap(write.data);
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                        currentSegmentSize += write.data.length;
+
+                        if (null != write.record) {
+                            write.record.setSegment(currentSegment);
+                            messages++;
+                        }
+                    }
+
+                    channel.force(false);
+                } catch (final IOException e) {
+                    LOGGER.log(Level.ERROR, "Writes outbox [" + name + "] failed", e);
+                    error = e;
+
+                    recover(batchStart);
+                }
+
+                if (null == error) {
+                    synchronized (segments) {
+                        segments.put(currentSegment, segments.get(currentSegment) + messages);
+                    }
+
+                    if (currentSegmentSize >= segmentSize) {
+                        try {
+                            roll();
+                        } catch (final IOException e) {
+                            LOGGER.log(Level.ERROR, "Rolls segment of outbox [" + name + "] failed", e);
+                        }
+                    }
+                }
+
+                for (final Write write : batch) {
+                    if (null == error && null != write.record) {
+                        pending.put(write.record.getId(), write.record);
+                    }
+
+                    write.error = error;
+                    write.done.countDown();
+                }
+                batch.clear();
+
+                synchronized (this) {
+                    notifyAll();
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                break;
+            }
+        }
+
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (final IOException e) {
+            LOGGER.log(Level.ERROR, "Closes outbox [" + name + "] failed", e);
+        }
+    }
+
+    /**
+     * Truncates the current segment back to the specified position after a failed batch, rolls to a new segment if it
+     * can not be truncated, runs in the writer thread.
+     *
+     * @param position the specified position, the start of the failed batch
+     */
+    private void recover(final long position) {
+        try {
+            channel.truncate(position);
+            channel.position(position);
+            channel.force(false);
+            currentSegmentSize = position;
+
+            return;
+        } catch (final IOException e) {
+            LOGGER.log(Level.WARN, "Truncates segment [" + currentSegment + "] of outbox [" + name + "] failed", e);
+        }
+
+        try {
+            roll();
+        } catch (final IOException e) {
+            LOGGER.log(Level.ERROR, "Rolls segment of outbox [" + name + "] failed", e);
+        }
+    }
+
+    /**
+     * Rolls to a new segment, the current segment is closed only after the new one is opened, runs in the writer
+     * thread.
+     *
+     * @throws IOException if the new segment can not be opened
+     */
+    private void roll() throws IOException {
+        final FileChannel old = channel;
+        openSegment(currentSegment + 1);
+
+        try {
+            old.close();
+        } catch (final IOException e) {
+            LOGGER.log(Level.WARN, "Closes segment of outbox [" + name + "] failed", e);
+        }
+    }
+
+    /**
+     * Opens the segment with the specified sequence as the current segment, the current segment is kept if the
+     * specified segment can not be opened.
+     *
+     * @param sequence the specified sequence
+     * @throws IOException io exception
+     */
+    @SuppressWarnings("resource")
+    private void openSegment(final long sequence) throws IOException {
+        final File file = getSegmentFile(sequence);
+        final FileChannel opened = new RandomAccessFile(file, "rw").getChannel();
+        final long size;
+        try {
+            size = opened.size();
+            opened.position(size);
+        } catch (final IOException e) {
+            opened.close();
+
+            throw e;
+        }
+        channel = opened;
+        currentSegmentSize = size;
+
+        synchronized (segments) {
+            if (!segments.containsKey(sequence)) {
+                segments.put(sequence, 0);
+            }
+        }
+        currentSegment = sequence;
+
+        compact();
+    }
+
+    /**
+     * Replays the existing segments to rebuild the pending records, and sets the current segment to a new one.
+     *
+     * @throws IOException io exception
+     */
+    private void replay() throws IOException {
+        final TreeMap<Long, File> files = new TreeMap<Long, File>();
+        final File[] list = dir.listFiles();
+        if (null != list) {
+            for (final File file : list) {
+                final String fileName = file.getName();
+                if (fileName.startsWith(SEGMENT_PREFIX) && fileName.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        files.put(Long.valueOf(fileName.substring(SEGMENT_PREFIX.length(),
+                                fileName.length() - SEGMENT_SUFFIX.length())), file);
+                    } catch (final NumberFormatException e) {
+                        LOGGER.log(Level.WARN, "Ignored file [{0}] in outbox dir", file);
+                    }
+                }
+            }
+        }
+
+        long maxId = 0;
+        for (final Map.Entry<Long, File> file : files.entrySet()) {
+            final long sequence = file.getKey();
+            segments.put(sequence, 0);
+
+            final BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(file.getValue()), "UTF-8"));
+            try {
+                String line;
+                while (null != (line = reader.readLine())) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+
+                    JSONObject json;
+                    try {
+                        json = new JSONObject(line);
+                    } catch (final Exception e) {
+                        LOGGER.log(Level.WARN, "Skipped a torn record in segment [{0}]", file.getValue());
+
+                        continue;
+                    }
+
+                    if (OutboxRecord.TYPE_MESSAGE.equals(json.optString(OutboxRecord.TYPE))) {
+                        final OutboxRecord record = OutboxRecord.fromJSON(json);
+                        record.setSegment(sequence);
+                        pending.put(record.getId(), record);
+                        segments.put(sequence, segments.get(sequence) + 1);
+                        maxId = Math.max(maxId, record.getId());
+                    } else {
+                        final OutboxRecord record = pending.remove(OutboxRecord.getId(json));
+                        if (null != record) {
+                            segments.put(record.getSegment(), segments.get(record.getSegment()) - 1);
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+
+        ids.set(maxId);
+        currentSegment = files.isEmpty() ? 1 : files.lastKey() + 1;
+    }
+
+    /**
+     * Redacts the keys in the specified payload.
+     *
+     * @param payload the specified payload, may be {@code null}
+     * @return redacted payload, the specified payload if it is not a json object
+     */
+    static String redact(final String payload) {
+        if (null == payload) {
+            return null;
+        }
+
+        try {
+            final JSONObject ret = new JSONObject(payload);
+            redact(ret);
+
+            return ret.toString();
+        } catch (final JSONException e) {
+            return payload;
+        }
+    }
+
+    /**
+     * Redacts the keys in the specified json object and its nested json objects.
+     *
+     * @param json the specified json object
+     */
+    private static void redact(final JSONObject json) {
+        for (final String name : new ArrayList<String>(json.keySet())) {
+            final Object value = json.opt(name);
+            if (REDACTED_KEYS.contains(name)) {
+                json.put(name, REDACTED);
+            } else if (value instanceof JSONObject) {
+                redact((JSONObject) value);
+            }
+        }
+    }
+
+    /**
+     * Gets the segment file with the specified sequence.
+     *
+     * @param sequence the specified sequence
+     * @return segment file
+     */
+    private File getSegmentFile(final long sequence) {
+        return new File(dir, SEGMENT_PREFIX + String.format("%019d", sequence) + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * A queued write.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.1.0.0, Oct 19, 2026
+     */
+    static final class Write {
+
+        /**
+         * Data to write, a json line.
+         */
+        private final byte[] data;
+
+        /**
+         * Message record, {@code null} for marker records.
+         */
+        private final OutboxRecord record;
+
+        /**
+         * Latch counted down once written.
+         */
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        /**
+         * Write error.
+         */
+        private volatile IOException error;
+
+        /**
+         * Constructs a write with the specified json object and record.
+         *
+         * @param json the specified json object
+         * @param record the specified record, {@code null} for marker records
+         */
+        private Write(final JSONObject json, final OutboxRecord record) {
+            final byte[] bytes = json.toString().getBytes(UTF8);
+            data = new byte[bytes.length + 1];
+            System.arraycopy(bytes, 0, data, 0, bytes.length);
+            data[bytes.length] = LF;
+            this.record = record;
+        }
+
+        /**
+         * Gets the message record.
+         *
+         * @return message record, {@code null} for marker records
+         */
+        OutboxRecord getRecord() {
+            return record;
+        }
+    }
+}
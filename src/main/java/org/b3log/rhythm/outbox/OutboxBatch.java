@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.outbox;
+
+import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Batch endpoint of an {@link OutboxDispatcher}, groups records sent to the same URL into one request.
+ *
+ * <p>
+ * Request:
+ * <pre>
+ * {
+ *     "symphonyKey": "", // the shared field, hoisted if all items have the same value
+ *     "items": [{
+ *         "id": 1,
+ *         "method": "POST",
+ *         "payload": {} // the record payload without the shared field
+ *     }, ....]
+ * }
+ * </pre>
+ * Response:
+ * <pre>
+ * {
+ *     "items": [{
+ *         "id": 1,
+ *         "code": 200 // HTTP status code of the item
+ *     }, ....]
+ * }
+ * </pre>
+ * Items are in record id order, and a batch carries at most one record per ordering key, so the items of a batch do
+ * not depend on each other and the receiver may apply them in any order.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.2, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class OutboxBatch {
+
+    /**
+     * Key of items.
+     */
+    private static final String ITEMS = "items";
+
+    /**
+     * Key of item id.
+     */
+    private static final String ID = "id";
+
+    /**
+     * Key of item method.
+     */
+    private static final String METHOD = "method";
+
+    /**
+     * Key of item payload.
+     */
+    private static final String PAYLOAD = "payload";
+
+    /**
+     * Key of item status code.
+     */
+    private static final String CODE = "code";
+
+    /**
+     * URL of records could be batched.
+     */
+    private final String batchableURL;
+
+    /**
+     * Batch endpoint URL.
+     */
+    private final URL url;
+
+    /**
+     * Name of the field shared by the payloads, may be {@code null}.
+     */
+    private final String sharedField;
+
+    /**
+     * Max number of records per batch.
+     */
+    private final int size;
+
+    /**
+     * Max time to wait for more records in milliseconds.
+     */
+    private final long linger;
+
+    /**
+     * Constructs a batch endpoint.
+     *
+     * @param batchableURL the specified URL of records could be batched
+     * @param url the specified batch endpoint URL
+     * @param sharedField the specified name of the field shared by the payloads, may be {@code null}
+     * @param size the specified max number of records per batch
+     * @param linger the specified max time to wait for more records in milliseconds
+     */
+    public OutboxBatch(final String batchableURL, final URL url, final String sharedField, final int size,
+            final long linger) {
+        this.batchableURL = batchableURL;
+        this.url = url;
+        this.sharedField = sharedField;
+        this.size = size;
+        this.linger = linger;
+    }
+
+    /**
+     * Determines whether the specified record could be batched.
+     *
+     * @param record the specified record
+     * @return {@code true} if it could, returns {@code false} otherwise
+     */
+    public boolean accepts(final OutboxRecord record) {
+        return batchableURL.equals(record.getURL()) && null != record.getPayload();
+    }
+
+    /**
+     * Determines whether the specified pending batchable records should be sent now.
+     *
+     * @param records the specified records
+     * @param now the specified current time
+     * @return {@code true} if the batch is full, contains retries or its oldest record has waited for the linger time,
+     * returns {@code false} otherwise
+     */
+    public boolean isReady(final List<OutboxRecord> records, final long now) {
+        if (records.size() >= size) {
+            return true;
+        }
+
+        for (final OutboxRecord record : records) {
+            if (record.getAttempts() > 0 || record.getCreateTime() + linger <= now) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the time to wait for more records.
+     *
+     * @param records the specified pending batchable records
+     * @param now the specified current time
+     * @return wait time in milliseconds
+     */
+    public long getWait(final List<OutboxRecord> records, final long now) {
+        long oldest = now;
+        for (final OutboxRecord record : records) {
+            oldest = Math.min(oldest, record.getCreateTime());
+        }
+
+        return Math.max(1, oldest + linger - now);
+    }
+
+    /**
+     * Builds the batch request payload of the specified records.
+     *
+     * @param records the specified records
+     * @return payload
+     */
+    public String toPayload(final List<OutboxRecord> records) {
+        final JSONObject ret = new JSONObject();
+        final JSONArray items = new JSONArray();
+        ret.put(ITEMS, items);
+
+        Object shared = null;
+        for (final OutboxRecord record : records) {
+            final JSONObject payload = new JSONObject(record.getPayload());
+
+            if (null != sharedField && payload.has(sharedField)) {
+                final Object value = payload.get(sharedField);
+                if (null == shared) {
+                    shared = value;
+                    ret.put(sharedField, value);
+                }
+
+                if (shared.equals(value)) {
+                    payload.remove(sharedField);
+                }
+            }
+
+            final JSONObject item = new JSONObject();
+            item.put(ID, record.getId());
+            item.put(METHOD, record.getMethod());
+            item.put(PAYLOAD, payload);
+            items.put(item);
+        }
+
+        return ret.toString();
+    }
+
+    /**
+     * Parses the item status codes of the specified batch response content.
+     *
+     * @param content the specified batch response content
+     * @return status codes, &lt;record id, HTTP status code&gt;
+     */
+    public Map<Long, Integer> parseResults(final String content) {
+        final Map<Long, Integer> ret = new HashMap<Long, Integer>();
+
+        final JSONArray items = new JSONObject(content).optJSONArray(ITEMS);
+        if (null == items) {
+            return ret;
+        }
+
+        for (int i = 0; i < items.length(); i++) {
+            final JSONObject item = items.optJSONObject(i);
+            if (null != item && item.has(ID)) {
+                ret.put(item.getLong(ID), item.optInt(CODE));
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the batch endpoint URL.
+     *
+     * @return batch endpoint URL
+     */
+    public URL getURL() {
+        return url;
+    }
+
+    /**
+     * Gets the max number of records per batch.
+     *
+     * @return max number of records per batch
+     */
+    public int getSize() {
+        return size;
+    }
+}
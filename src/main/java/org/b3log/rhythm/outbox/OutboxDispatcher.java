@@ -0,0 +1,444 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.outbox;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.servlet.HTTPRequestMethod;
+import org.b3log.latke.urlfetch.HTTPRequest;
+import org.b3log.latke.urlfetch.HTTPResponse;
+import org.b3log.latke.urlfetch.URLFetchService;
+import org.b3log.rhythm.urlfetch.Politeness;
+
+/**
+ * Delivers the records of an {@link Outbox}.
+ *
+ * <p>
+ * A 2xx response acknowledges the record, a 4xx response (except 408 and 429) dead-letters it, other responses and
+ * exceptions retry it with jittered exponential backoff, the record is dead-lettered after the max attempts. Delivery
+ * is at-least-once, the receiver may get a record more than once if a response is lost.
+ * </p>
+ *
+ * <p>
+ * If an {@link OutboxBatch batch endpoint} is configured, records it accepts are grouped and sent in one request, and
+ * each item is completed by its own status code. If the endpoint is missing (404, 405 or 501), batching is disabled for
+ * an hour and the records are sent one by one over the keep-alive connection.
+ * </p>
+ *
+ * <p>
+ * Records with an ordering key are sent in id order: once a record fails with a retry, the later records with its key
+ * are held back until it is delivered or dead-lettered. A batch carries at most one record per ordering key, the later
+ * records with the key wait for a later round, so a record never overtakes an earlier one failed in the same batch.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.3.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class OutboxDispatcher implements Runnable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(OutboxDispatcher.class.getName());
+
+    /**
+     * Max number of records to deliver per round.
+     */
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * Idle wait time in milliseconds.
+     */
+    private static final long IDLE_WAIT = 1000;
+
+    /**
+     * Time to disable batching after found the batch endpoint missing in milliseconds.
+     */
+    private static final long BATCH_DISABLE_TIME = 1000 * 60 * 60;
+
+    /**
+     * Random for jitter.
+     */
+    private static final Random RANDOM = new Random();
+
+    /**
+     * Outbox.
+     */
+    private final Outbox outbox;
+
+    /**
+     * URL fetch service.
+     */
+    private final URLFetchService urlFetchService;
+
+    /**
+     * Max delivery attempts.
+     */
+    private final int maxAttempts;
+
+    /**
+     * Base retry delay in milliseconds.
+     */
+    private final long retryBase;
+
+    /**
+     * Max retry delay in milliseconds.
+     */
+    private final long retryMax;
+
+    /**
+     * Batch endpoint, {@code null} if batching is not supported.
+     */
+    private final OutboxBatch batch;
+
+    /**
+     * Delivery outcome listener, may be {@code null}.
+     */
+    private volatile OutboxListener listener;
+
+    /**
+     * Ordering keys of the records which failed with a retry in the current round.
+     */
+    private final Set<String> failedKeys = new HashSet<String>();
+
+    /**
+     * Time until which batching is disabled.
+     */
+    private long batchDisabledUntil;
+
+    /**
+     * Dispatcher thread.
+     */
+    private Thread thread;
+
+    /**
+     * Whether this dispatcher is running.
+     */
+    private volatile boolean running;
+
+    /**
+     * Constructs a dispatcher.
+     *
+     * @param outbox the specified outbox
+     * @param urlFetchService the specified URL fetch service
+     * @param maxAttempts the specified max delivery attempts
+     * @param retryBase the specified base retry delay in milliseconds
+     * @param retryMax the specified max retry delay in milliseconds
+     */
+    public OutboxDispatcher(final Outbox outbox, final URLFetchService urlFetchService, final int maxAttempts,
+            final long retryBase, final long retryMax) {
+        this(outbox, urlFetchService, maxAttempts, retryBase, retryMax, null);
+    }
+
+    /**
+     * Constructs a dispatcher with the specified batch endpoint.
+     *
+     * @param outbox the specified outbox
+     * @param urlFetchService the specified URL fetch service
+     * @param maxAttempts the specified max delivery attempts
+     * @param retryBase the specified base retry delay in milliseconds
+     * @param retryMax the specified max retry delay in milliseconds
+     * @param batch the specified batch endpoint, {@code null} to disable batching
+     */
+    public OutboxDispatcher(final Outbox outbox, final URLFetchService urlFetchService, final int maxAttempts,
+            final long retryBase, final long retryMax, final OutboxBatch batch) {
+        this.batch = batch;
+        this.outbox = outbox;
+        this.urlFetchService = urlFetchService;
+        this.maxAttempts = maxAttempts;
+        this.retryBase = retryBase;
+        this.retryMax = retryMax;
+    }
+
+    /**
+     * Sets the delivery outcome listener.
+     *
+     * @param listener the specified listener, may be {@code null}
+     */
+    public void setListener(final OutboxListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts this dispatcher.
+     */
+    public synchronized void start() {
+        running = true;
+
+        thread = new Thread(this, "OutboxDispatcher-" + outbox.getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops this dispatcher, the records not delivered yet will be delivered after restart.
+     */
+    public synchronized void stop() {
+        running = false;
+
+        if (null != thread) {
+            thread.interrupt();
+            try {
+                thread.join(IDLE_WAIT * 2);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                final long now = System.currentTimeMillis();
+                final List<OutboxRecord> records = outbox.getDue(now, getMaxDue());
+                if (records.isEmpty()) {
+                    outbox.await(IDLE_WAIT);
+
+                    continue;
+                }
+
+                failedKeys.clear();
+
+                final List<OutboxRecord> batchable = new ArrayList<OutboxRecord>();
+                final Set<String> batchedKeys = new HashSet<String>();
+                int sent = 0;
+                for (final OutboxRecord record : records) {
+                    if (!running) {
+                        break;
+                    }
+
+                    if (isBatching(now) && batch.accepts(record)) {
+                        final String key = record.getKey();
+                        if (null == key || batchedKeys.add(key)) {
+                            batchable.add(record);
+                        }
+
+                        continue;
+                    }
+
+                    deliver(record);
+                    sent++;
+                }
+
+                if (batchable.isEmpty()) {
+                    continue;
+                }
+
+                if (!batch.isReady(batchable, now)) {
+                    if (0 == sent) {
+                        outbox.await(batch.getWait(batchable, now));
+                    }
+
+                    continue;
+                }
+
+                for (int i = 0; i < batchable.size() && running; i += batch.getSize()) {
+                    deliver(batchable.subList(i, Math.min(i + batch.getSize(), batchable.size())));
+                }
+            } catch (final InterruptedException e) {
+                break;
+            } catch (final Exception e) {
+                LOGGER.log(Level.ERROR, "Dispatches outbox [" + outbox.getName() + "] failed", e);
+            }
+        }
+    }
+
+    /**
+     * Delivers the specified batch of records.
+     *
+     * @param batchRecords the specified records
+     */
+    private void deliver(final List<OutboxRecord> batchRecords) {
+        final List<OutboxRecord> records = new ArrayList<OutboxRecord>(batchRecords);
+        final Iterator<OutboxRecord> iterator = records.iterator();
+        while (iterator.hasNext()) {
+            final String key = iterator.next().getKey();
+            if (null != key && failedKeys.contains(key)) {
+                iterator.remove();
+            }
+        }
+
+        if (records.isEmpty()) {
+            return;
+        }
+
+        if (1 == records.size()) {
+            deliver(records.get(0));
+
+            return;
+        }
+
+        Map<Long, Integer> results;
+        try {
+            final HTTPRequest request = new HTTPRequest();
+            request.setURL(batch.getURL());
+            request.setRequestMethod(HTTPRequestMethod.POST);
+            request.setPayload(batch.toPayload(records).getBytes("UTF-8"));
+
+            final HTTPResponse response = urlFetchService.fetch(request);
+            final int code = response.getResponseCode();
+            if (HttpURLConnection.HTTP_NOT_FOUND == code || HttpURLConnection.HTTP_BAD_METHOD == code
+                    || HttpURLConnection.HTTP_NOT_IMPLEMENTED == code) {
+                LOGGER.log(Level.WARN, "Batch endpoint [{0}] is unavailable [HTTP {1}], sends one by one",
+                        new Object[]{batch.getURL(), code});
+                batchDisabledUntil = System.currentTimeMillis() + BATCH_DISABLE_TIME;
+
+                for (final OutboxRecord record : records) {
+                    deliver(record);
+                }
+
+                return;
+            }
+
+            if (code < HttpURLConnection.HTTP_OK || code >= HttpURLConnection.HTTP_MULT_CHOICE) {
+                for (final OutboxRecord record : records) {
+                    complete(record, code, "Batch HTTP " + code);
+                }
+
+                return;
+            }
+
+            results = batch.parseResults(new String(response.getContent(), "UTF-8"));
+        } catch (final Exception e) {
+            final String reason = e.getClass().getSimpleName() + ": " + e.getMessage();
+            for (final OutboxRecord record : records) {
+                complete(record, 0, reason);
+            }
+
+            return;
+        }
+
+        for (final OutboxRecord record : records) {
+            final Integer code = results.get(record.getId());
+            if (null == code) {
+                complete(record, 0, "Missing in batch response");
+            } else {
+                complete(record, code, "HTTP " + code);
+            }
+        }
+    }
+
+    /**
+     * Delivers the specified record.
+     *
+     * @param record the specified record
+     */
+    private void deliver(final OutboxRecord record) {
+        if (null != record.getKey() && failedKeys.contains(record.getKey())) {
+            return;
+        }
+
+        try {
+            final HTTPRequest request = new HTTPRequest();
+            request.setURL(new URL(record.getURL()));
+            request.setRequestMethod(HTTPRequestMethod.valueOf(record.getMethod()));
+            if (null != record.getPayload()) {
+                request.setPayload(record.getPayload().getBytes("UTF-8"));
+            }
+
+            final HTTPResponse response = urlFetchService.fetch(request);
+            final int code = response.getResponseCode();
+            complete(record, code, "HTTP " + code);
+        } catch (final Exception e) {
+            complete(record, 0, e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Completes a delivery of the specified record with the specified status code.
+     *
+     * @param record the specified record
+     * @param code the specified HTTP status code, {@code 0} if no response
+     * @param reason the specified failure reason
+     */
+    private void complete(final OutboxRecord record, final int code, final String reason) {
+        final OutboxListener outcomeListener = listener;
+
+        if (code >= HttpURLConnection.HTTP_OK && code < HttpURLConnection.HTTP_MULT_CHOICE) {
+            outbox.ack(record);
+            if (null != outcomeListener) {
+                outcomeListener.delivered(record);
+            }
+
+            return;
+        }
+
+        if ((code >= HttpURLConnection.HTTP_BAD_REQUEST && code < HttpURLConnection.HTTP_INTERNAL_ERROR
+                && HttpURLConnection.HTTP_CLIENT_TIMEOUT != code && Politeness.SC_TOO_MANY_REQUESTS != code)
+                || record.getAttempts() + 1 >= maxAttempts) {
+            outbox.deadLetter(record, reason);
+            if (null != outcomeListener) {
+                outcomeListener.deadLettered(record, reason);
+            }
+
+            return;
+        }
+
+        final long nextAttemptTime = System.currentTimeMillis() + getRetryDelay(record.getAttempts());
+        outbox.retry(record, nextAttemptTime);
+        if (null != record.getKey()) {
+            failedKeys.add(record.getKey());
+        }
+        if (null != outcomeListener) {
+            outcomeListener.retrying(record, reason);
+        }
+
+        LOGGER.log(Level.DEBUG, "Delivers record {0} failed [{1}], retries later", new Object[]{record, reason});
+    }
+
+    /**
+     * Determines whether batching is enabled at the specified time.
+     *
+     * @param now the specified time
+     * @return {@code true} if enabled, returns {@code false} otherwise
+     */
+    private boolean isBatching(final long now) {
+        return null != batch && batchDisabledUntil <= now;
+    }
+
+    /**
+     * Gets the max number of due records to deliver per round.
+     *
+     * @return max number of due records
+     */
+    private int getMaxDue() {
+        return null == batch ? BATCH_SIZE : Math.max(BATCH_SIZE, batch.getSize() * 2);
+    }
+
+    /**
+     * Gets the jittered retry delay of the specified attempts.
+     *
+     * @param attempts the specified attempts
+     * @return retry delay in milliseconds
+     */
+    private long getRetryDelay(final int attempts) {
+        final long delay = retryBase << Math.min(attempts, 30);
+        final long capped = delay <= 0 || delay > retryMax ? retryMax : delay;
+
+        return capped / 2 + (long) (RANDOM.nextDouble() * (capped / 2));
+    }
+}
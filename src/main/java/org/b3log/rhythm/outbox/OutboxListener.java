@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.outbox;
+
+/**
+ * Listener of the delivery outcomes of an {@link OutboxDispatcher}, invoked in the dispatcher thread.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public interface OutboxListener {
+
+    /**
+     * The specified record is delivered.
+     *
+     * @param record the specified record
+     */
+    void delivered(OutboxRecord record);
+
+    /**
+     * The specified record failed and will be retried.
+     *
+     * @param record the specified record
+     * @param reason the specified failure reason
+     */
+    void retrying(OutboxRecord record, String reason);
+
+    /**
+     * The specified record is dead-lettered.
+     *
+     * @param record the specified record
+     * @param reason the specified failure reason
+     */
+    void deadLettered(OutboxRecord record, String reason);
+}
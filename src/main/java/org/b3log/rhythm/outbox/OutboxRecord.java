@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.outbox;
+
+import org.json.JSONObject;
+
+/**
+ * An outbound HTTP request stored in an {@link Outbox}.
+ *
+ * <p>
+ * The id, URL, method, payload and ordering key are durable, the delivery state (attempts and next attempt time) is kept in memory
+ * only, so a restart retries all pending records immediately.
+ * </p>
+ *
+ * <p>
+ * Records with the same ordering key are delivered in id order, see {@link Outbox#getDue(long, int)}.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class OutboxRecord {
+
+    /**
+     * Key of record type.
+     */
+    static final String TYPE = "t";
+
+    /**
+     * Record type of message.
+     */
+    static final String TYPE_MESSAGE = "m";
+
+    /**
+     * Record type of acknowledgement.
+     */
+    static final String TYPE_ACK = "a";
+
+    /**
+     * Record type of dead-letter.
+     */
+    static final String TYPE_DEAD = "d";
+
+    /**
+     * Key of id.
+     */
+    private static final String ID = "id";
+
+    /**
+     * Key of URL.
+     */
+    private static final String URL = "url";
+
+    /**
+     * Key of method.
+     */
+    private static final String METHOD = "method";
+
+    /**
+     * Key of payload.
+     */
+    private static final String PAYLOAD = "payload";
+
+    /**
+     * Key of create time.
+     */
+    private static final String CREATE_TIME = "time";
+
+    /**
+     * Key of ordering key.
+     */
+    private static final String KEY = "key";
+
+    /**
+     * Id.
+     */
+    private final long id;
+
+    /**
+     * URL.
+     */
+    private final String url;
+
+    /**
+     * HTTP method.
+     */
+    private final String method;
+
+    /**
+     * Payload.
+     */
+    private final String payload;
+
+    /**
+     * Create time.
+     */
+    private final long createTime;
+
+    /**
+     * Ordering key, may be {@code null}.
+     */
+    private final String key;
+
+    /**
+     * Sequence of the segment this record stored in.
+     */
+    private long segment;
+
+    /**
+     * Delivery attempts.
+     */
+    private int attempts;
+
+    /**
+     * Next attempt time.
+     */
+    private long nextAttemptTime;
+
+    /**
+     * Constructs a record.
+     *
+     * @param id the specified id
+     * @param url the specified URL
+     * @param method the specified HTTP method
+     * @param payload the specified payload
+     * @param createTime the specified create time
+     * @param key the specified ordering key, may be {@code null}
+     */
+    OutboxRecord(final long id, final String url, final String method, final String payload, final long createTime,
+            final String key) {
+        this.id = id;
+        this.url = url;
+        this.method = method;
+        this.payload = payload;
+        this.createTime = createTime;
+        this.key = key;
+    }
+
+    /**
+     * Parses a message record from the specified json object.
+     *
+     * @param json the specified json object
+     * @return record
+     */
+    static OutboxRecord fromJSON(final JSONObject json) {
+        return new OutboxRecord(json.getLong(ID), json.getString(URL), json.getString(METHOD),
+                json.optString(PAYLOAD, null), json.optLong(CREATE_TIME), json.optString(KEY, null));
+    }
+
+    /**
+     * Gets the id of the specified ack or dead-letter json object.
+     *
+     * @param json the specified json object
+     * @return id
+     */
+    static long getId(final JSONObject json) {
+        return json.getLong(ID);
+    }
+
+    /**
+     * Converts this record to a message json object.
+     *
+     * @return json object
+     */
+    JSONObject toJSON() {
+        final JSONObject ret = new JSONObject();
+        ret.put(TYPE, TYPE_MESSAGE);
+        ret.put(ID, id);
+        ret.put(URL, url);
+        ret.put(METHOD, method);
+        if (null != payload) {
+            ret.put(PAYLOAD, payload);
+        }
+        ret.put(CREATE_TIME, createTime);
+        if (null != key) {
+            ret.put(KEY, key);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Converts this record to an ack or dead-letter json object.
+     *
+     * @param type the specified type, {@link #TYPE_ACK} or {@link #TYPE_DEAD}
+     * @return json object
+     */
+    JSONObject toJSON(final String type) {
+        final JSONObject ret = new JSONObject();
+        ret.put(TYPE, type);
+        ret.put(ID, id);
+
+        return ret;
+    }
+
+    /**
+     * Gets the id.
+     *
+     * @return id
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the URL.
+     *
+     * @return URL
+     */
+    public String getURL() {
+        return url;
+    }
+
+    /**
+     * Gets the HTTP method.
+     *
+     * @return HTTP method, for example, "POST"
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Gets the payload.
+     *
+     * @return payload, returns {@code null} if no payload
+     */
+    public String getPayload() {
+        return payload;
+    }
+
+    /**
+     * Gets the create time.
+     *
+     * @return create time
+     */
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    /**
+     * Gets the ordering key.
+     *
+     * @return ordering key, returns {@code null} if not ordered
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the delivery attempts.
+     *
+     * @return attempts
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Gets the next attempt time.
+     *
+     * @return next attempt time
+     */
+    public long getNextAttemptTime() {
+        return nextAttemptTime;
+    }
+
+    /**
+     * Gets the segment sequence.
+     *
+     * @return segment sequence
+     */
+    long getSegment() {
+        return segment;
+    }
+
+    /**
+     * Sets the segment sequence.
+     *
+     * @param segment the specified segment sequence
+     */
+    void setSegment(final long segment) {
+        this.segment = segment;
+    }
+
+    /**
+     * Records a failed attempt.
+     *
+     * @param nextAttemptTime the specified next attempt time
+     */
+    void failed(final long nextAttemptTime) {
+        attempts++;
+        this.nextAttemptTime = nextAttemptTime;
+    }
+
+    @Override
+    public String toString() {
+        return "[id=" + id + ", method=" + method + ", url=" + url + ", attempts=" + attempts + ']';
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.outbox;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.util.Strings;
+import org.b3log.rhythm.RhythmServletListener;
+import org.b3log.rhythm.urlfetch.Destination;
+import org.b3log.rhythm.urlfetch.OutboundFetchService;
+import org.b3log.rhythm.util.Rhythms;
+import org.json.JSONObject;
+
+/**
+ * Outbox utilities.
+ *
+ * <p>
+ * Articles and comments are forwarded to each of the "forward.targets", every {@link ForwardTarget target} has its own
+ * outboxes, dispatchers, concurrency limit and circuit breaker, so the targets are delivered to in parallel and a slow
+ * target does not delay the others. A request is submitted to the outboxes of all targets at once and their writer
+ * threads fsync in parallel, so adding a target does not add up the append latency.
+ * </p>
+ *
+ * <p>
+ * Article deliveries are reported to the listener {@link #setArticleListener(OutboxListener) set} after the services
+ * are ready, deliveries before that are not reported.
+ * </p>
+ *
+ * <p>
+ * {@link #init()} should be invoked at startup and {@link #shutdown()} at shutdown, see rhythm.properties "outbox.*"
+ * and "forward.*" for configurations.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.6.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class Outboxes {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(Outboxes.class.getName());
+
+    /**
+     * Forwarding targets.
+     */
+    private static List<ForwardTarget> targets = Collections.emptyList();
+
+    /**
+     * Comment delivery tracker.
+     */
+    private static DeliveryTracker commentTracker;
+
+    /**
+     * Article delivery listener, may be {@code null}.
+     */
+    private static volatile OutboxListener articleListener;
+
+    /**
+     * Listener of the article dispatchers, reports to {@link #articleListener}.
+     */
+    private static final OutboxListener ARTICLE_LISTENER = new OutboxListener() {
+        @Override
+        public void delivered(final OutboxRecord record) {
+            final OutboxListener listener = articleListener;
+            if (null != listener) {
+                listener.delivered(record);
+            }
+        }
+
+        @Override
+        public void retrying(final OutboxRecord record, final String reason) {
+            final OutboxListener listener = articleListener;
+            if (null != listener) {
+                listener.retrying(record, reason);
+            }
+        }
+
+        @Override
+        public void deadLettered(final OutboxRecord record, final String reason) {
+            final OutboxListener listener = articleListener;
+            if (null != listener) {
+                listener.deadLettered(record, reason);
+            }
+        }
+    };
+
+    /**
+     * Outbox of events spilled by the event dispatcher.
+     */
+    private static Outbox eventOutbox;
+
+    /**
+     * Private constructor.
+     */
+    private Outboxes() {
+    }
+
+    /**
+     * Opens the outboxes and starts their dispatchers.
+     *
+     * @throws IllegalStateException if an outbox can not be opened or the data directory is not configured
+     */
+    public static synchronized void init() {
+        String dir = Rhythms.CFG.getString("outbox.dir");
+        if (Strings.isEmptyOrNull(dir)) {
+            dir = new File(Rhythms.getDataDir(), "outbox").getPath();
+        }
+
+        final long segmentSize = Long.valueOf(Rhythms.CFG.getString("outbox.segmentSize"));
+        final long fsyncTimeout = Long.valueOf(Rhythms.CFG.getString("outbox.fsyncTimeout"));
+        final ForwardTarget.Settings settings = new ForwardTarget.Settings(segmentSize, fsyncTimeout,
+                Integer.valueOf(Rhythms.CFG.getString("outbox.maxAttempts")),
+                Long.valueOf(Rhythms.CFG.getString("outbox.retryBase")),
+                Long.valueOf(Rhythms.CFG.getString("outbox.retryMax")),
+                Rhythms.CFG.getString("outbox.batchPath"), Rhythms.CFG.getString("outbox.commentBatchPath"),
+                Integer.valueOf(Rhythms.CFG.getString("outbox.batchSize")),
+                Long.valueOf(Rhythms.CFG.getString("outbox.batchLinger")));
+
+        commentTracker = new DeliveryTracker(Integer.valueOf(Rhythms.CFG.getString("outbox.commentTracked")));
+
+        final List<ForwardTarget> started = new ArrayList<ForwardTarget>();
+        try {
+            eventOutbox = new Outbox("events", new File(dir, "events"), segmentSize, fsyncTimeout);
+
+            for (final String name : Rhythms.CFG.getString("forward.targets").split(",")) {
+                final ForwardTarget target = newTarget(name.trim());
+                target.start(new File(dir), settings, ARTICLE_LISTENER, commentTracker.getListener(target.getName()));
+                started.add(target);
+            }
+        } catch (final IOException e) {
+            LOGGER.log(Level.ERROR, "Opens outbox failed", e);
+
+            throw new IllegalStateException(e);
+        }
+
+        targets = Collections.unmodifiableList(started);
+    }
+
+    /**
+     * Stops the dispatchers and closes the outboxes.
+     */
+    public static synchronized void shutdown() {
+        for (final ForwardTarget target : targets) {
+            target.stop();
+        }
+
+        if (null != eventOutbox) {
+            eventOutbox.close();
+        }
+    }
+
+    /**
+     * Forwards the specified article request to all targets, returns after it is durable in their outboxes.
+     *
+     * @param method the specified HTTP method, "POST" to add, "PUT" to update
+     * @param payload the specified payload, its "symphonyKey" is replaced with the key of each target
+     * @throws IOException if the request can not be appended to an outbox
+     */
+    public static void forwardArticle(final String method, final JSONObject payload) throws IOException {
+        final List<ForwardTarget> all = getTargets();
+        final List<Outbox.Write> writes = new ArrayList<Outbox.Write>(all.size());
+        for (final ForwardTarget target : all) {
+            writes.add(target.submitArticle(method, payload));
+        }
+
+        for (int i = 0; i < writes.size(); i++) {
+            all.get(i).getArticleOutbox().awaitDurable(writes.get(i));
+        }
+    }
+
+    /**
+     * Forwards the specified comment request to all targets, returns after it is durable in their outboxes.
+     *
+     * @param payload the specified payload
+     * @param orderingKey the specified ordering key, comments with the same key are delivered in order
+     * @return track id for {@link #getCommentTracker() the comment tracker}
+     * @throws IOException if the request can not be appended to an outbox
+     */
+    public static long forwardComment(final String payload, final String orderingKey) throws IOException {
+        final List<ForwardTarget> all = getTargets();
+        final DeliveryTracker tracker = getCommentTracker();
+        final long ret = tracker.nextId();
+
+        // Tracks the records before they are submitted, the dispatchers may deliver them before they are awaited
+        final List<Outbox.Write> writes = new ArrayList<Outbox.Write>(all.size());
+        for (final ForwardTarget target : all) {
+            final Outbox.Write write = target.prepareComment(payload, orderingKey);
+            tracker.track(ret, target.getName(), write.getRecord());
+            writes.add(write);
+        }
+
+        try {
+            for (int i = 0; i < writes.size(); i++) {
+                all.get(i).getCommentOutbox().submit(writes.get(i));
+            }
+
+            for (int i = 0; i < writes.size(); i++) {
+                all.get(i).getCommentOutbox().awaitDurable(writes.get(i));
+            }
+        } catch (final IOException e) {
+            for (int i = 0; i < writes.size(); i++) {
+                tracker.untrack(all.get(i).getName(), writes.get(i).getRecord(), e.getMessage());
+            }
+
+            throw e;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Sets the listener of the article deliveries of all targets.
+     *
+     * @param listener the specified listener, may be {@code null}
+     */
+    public static void setArticleListener(final OutboxListener listener) {
+        articleListener = listener;
+    }
+
+    /**
+     * Gets the forwarding targets.
+     *
+     * @return targets
+     */
+    public static synchronized List<ForwardTarget> getTargets() {
+        return targets;
+    }
+
+    /**
+     * Gets the delivery tracker of the forwarded comments.
+     *
+     * @return comment tracker
+     */
+    public static synchronized DeliveryTracker getCommentTracker() {
+        return commentTracker;
+    }
+
+    /**
+     * Gets the outbox of events spilled by the {@link org.b3log.rhythm.event.EventDispatcher event dispatcher}.
+     *
+     * @return event outbox
+     */
+    public static synchronized Outbox getEventOutbox() {
+        return eventOutbox;
+    }
+
+    /**
+     * Creates the forwarding target with the specified name, see rhythm.properties "forward.*" for configurations.
+     *
+     * @param name the specified name
+     * @return target
+     */
+    private static ForwardTarget newTarget(final String name) {
+        final String prefix = "forward." + name + '.';
+        final String servePath = getConfig(prefix + "servePath", RhythmServletListener.B3LOG_SYMPHONY_SERVE_PATH);
+        final String key = getConfig(prefix + "key", Rhythms.KEY_OF_SYMPHONY);
+
+        final Destination symphony = Destination.SYMPHONY;
+        final OutboundFetchService fetchService = OutboundFetchService.getInstance(symphony, "forward-" + name,
+                Integer.valueOf(getConfig(prefix + "maxConcurrent", String.valueOf(symphony.getMaxConcurrent()))),
+                Long.valueOf(getConfig(prefix + "maxWait", String.valueOf(symphony.getMaxWait()))),
+                Boolean.valueOf(getConfig(prefix + "breaker", String.valueOf(symphony.isBreaker()))));
+
+        return new ForwardTarget(name, servePath, key, fetchService);
+    }
+
+    /**
+     * Gets the configuration value of the specified key.
+     *
+     * @param key the specified key
+     * @param defaultValue the specified default value
+     * @return value, returns the specified default value if the key is absent or empty
+     */
+    private static String getConfig(final String key, final String defaultValue) {
+        if (!Rhythms.CFG.containsKey(key)) {
+            return defaultValue;
+        }
+
+        final String ret = Rhythms.CFG.getString(key);
+
+        return Strings.isEmptyOrNull(ret) ? defaultValue : ret;
+    }
+}
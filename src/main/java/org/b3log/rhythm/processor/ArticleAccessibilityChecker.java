@@ -15,7 +15,9 @@
  */
 package org.b3log.rhythm.processor;
 
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import javax.inject.Inject;
@@ -28,16 +30,16 @@ import org.b3log.latke.servlet.HTTPRequestMethod;
 import org.b3log.latke.servlet.annotation.RequestProcessing;
 import org.b3log.latke.servlet.annotation.RequestProcessor;
 import org.b3log.latke.servlet.renderer.DoNothingRenderer;
-import org.b3log.latke.thread.ThreadService;
-import org.b3log.latke.thread.ThreadServiceFactory;
 import org.b3log.latke.urlfetch.HTTPHeader;
 import org.b3log.latke.urlfetch.HTTPRequest;
 import org.b3log.latke.urlfetch.HTTPResponse;
 import org.b3log.latke.urlfetch.URLFetchService;
-import org.b3log.latke.urlfetch.URLFetchServiceFactory;
 import org.b3log.latke.util.Strings;
 import org.b3log.rhythm.model.Article;
 import org.b3log.rhythm.service.ArticleService;
+import org.b3log.rhythm.urlfetch.Destination;
+import org.b3log.rhythm.urlfetch.OutboundFetchService;
+import org.b3log.rhythm.urlfetch.Politeness;
 import org.b3log.rhythm.util.Rhythms;
 import org.json.JSONObject;
 
@@ -46,7 +48,7 @@ import org.json.JSONObject;
  * of an article.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.1.8, Jun 20, 2014
+ * @version 1.4.2.0, Oct 19, 2026
  * @since 0.1.5
  */
 @RequestProcessor
@@ -63,20 +65,15 @@ public class ArticleAccessibilityChecker {
     @Inject
     private ArticleService articleService;
 
-    /**
-     * Thread service.
-     */
-    private ThreadService threadService = ThreadServiceFactory.getThreadService();
-
     /**
      * URL fetch service.
      */
-    private URLFetchService urlFetchService = URLFetchServiceFactory.getURLFetchService();
+    private URLFetchService urlFetchService = OutboundFetchService.getInstance(Destination.CRAWL);
 
     /**
-     * Check count.
+     * Politeness.
      */
-    private static final int CHECK_CNT = 200;
+    private Politeness politeness = Politeness.getInstance();
 
     /**
      * Check timeout.
@@ -84,12 +81,29 @@ public class ArticleAccessibilityChecker {
     private static final long CHECK_TIMEOUT = 10000;
 
     /**
-     * Threshold of not 200.
+     * Batch timeout, the check results finished in this period will be persisted in one batch after the period.
+     */
+    private static final long BATCH_TIMEOUT = CHECK_TIMEOUT * 3;
+
+    /**
+     * Schedule window, the checks whose reserved time slots are beyond this window will be deferred to the next runs.
+     */
+    private static final long SCHEDULE_WINDOW = CHECK_TIMEOUT * 2;
+
+    /**
+     * Threshold of consecutive not 200.
      */
     private static final int NOT_200_THRESHOLD = 5;
 
     /**
-     * Checks and saves the check results.
+     * Checks the articles which are due and saves the check results.
+     *
+     * <p>
+     * At most {@link Rhythms#ARTICLE_CHECK_BUDGET} articles will be checked per run, the next check time of each
+     * article is scheduled adaptively by its accessibility history. Checks to the same host are spaced out by
+     * {@link Politeness}, a check can not get a time slot in {@link #SCHEDULE_WINDOW} will be deferred. Returns once the
+     * checks are scheduled, their results are persisted in a {@link CheckBatch batch}.
+     * </p>
      *
      * @param context the specified context
      * @throws Exception exception
@@ -105,19 +119,41 @@ public class ArticleAccessibilityChecker {
             return;
         }
 
-        final List<JSONObject> articles = articleService.getArticlesRandomly(CHECK_CNT);
+        final List<JSONObject> articles = articleService.getArticlesToCheck(Rhythms.ARTICLE_CHECK_BUDGET);
 
+        final CheckBatch batch = new CheckBatch() {
+            @Override
+            void persist(final List<JSONObject> results) {
+                articleService.updateAccessibilities(results);
+            }
+        };
         for (final JSONObject article : articles) {
-            threadService.submit(new CheckTask(article), CHECK_TIMEOUT);
+            long checkTime = System.currentTimeMillis();
+            try {
+                checkTime = politeness.reserve(new URL(article.optString(Article.ARTICLE_PERMALINK)), SCHEDULE_WINDOW);
+            } catch (final MalformedURLException e) {
+                // Checks it immediately to record the failure
+            }
+
+            if (checkTime - System.currentTimeMillis() > SCHEDULE_WINDOW) {
+                articleService.deferAccessibility(article, checkTime);
+                batch.offer(article);
+
+                continue;
+            }
+
+            CheckScheduler.schedule(new CheckTask(article, batch), checkTime);
         }
+
+        batch.closeAfter(BATCH_TIMEOUT);
     }
 
     /**
      * Removes articles if they are not found.
      *
      * <p>
-     * A 'not found' article is that {@link Article#ARTICLE_ACCESSIBILITY_NOT_200_CNT not 200 count} greater than
-     * {@value #NOT_200_THRESHOLD}.
+     * A 'not found' article is that the latest {@value #NOT_200_THRESHOLD} consecutive checks in its
+     * {@link Article#ARTICLE_ACCESSIBILITY_HISTORY accessibility history} are all not 200.
      * </p>
      *
      * @param context the specified context
@@ -134,18 +170,16 @@ public class ArticleAccessibilityChecker {
             return;
         }
 
-        final Set<String> articleIds = articleService.getArticleIdsByAccessibilityCheckCnt('>', NOT_200_THRESHOLD);
+        final Set<String> articleIds = articleService.getArticleIdsByConsecutiveFailures(NOT_200_THRESHOLD);
 
-        for (final String articleId : articleIds) {
-            articleService.removeArticle(articleId);
-        }
+        articleService.removeArticles(articleIds);
     }
 
     /**
      * Article accessibility check task.
      *
      * @author <a href="http://88250.b3log.org">Liang Ding</a>
-     * @version 1.0.0.0, Jan 10, 2014
+     * @version 1.2.0.0, Oct 19, 2026
      */
     private class CheckTask implements Runnable {
 
@@ -155,12 +189,19 @@ public class ArticleAccessibilityChecker {
         private JSONObject article;
 
         /**
-         * Constructs a check task with the specified article.
+         * Check batch.
+         */
+        private final CheckBatch batch;
+
+        /**
+         * Constructs a check task with the specified article and check batch.
          *
          * @param article the specified article
+         * @param batch the specified check batch
          */
-        public CheckTask(final JSONObject article) {
+        public CheckTask(final JSONObject article, final CheckBatch batch) {
             this.article = article;
+            this.batch = batch;
         }
 
         @Override
@@ -171,14 +212,25 @@ public class ArticleAccessibilityChecker {
             final long start = System.currentTimeMillis();
 
             int responseCode = 0;
+            long deferTime = 0;
             try {
-                final HTTPRequest request = new HTTPRequest();
-                request.addHeader(new HTTPHeader("User-Agent", "B3log Rhythm/" + Rhythms.RHYTHM_VERSION));
-                request.setURL(new URL(articlePermalink));
-
-                final HTTPResponse response = urlFetchService.fetch(request);
-
-                responseCode = response.getResponseCode();
+                final URL url = new URL(articlePermalink);
+
+                if (!politeness.isAllowed(url)) {
+                    LOGGER.log(Level.DEBUG, "Article[permalink={0}] is disallowed by robots.txt", articlePermalink);
+                    deferTime = politeness.getRobotsExpiration(url);
+                } else {
+                    final HTTPRequest request = new HTTPRequest();
+                    request.addHeader(new HTTPHeader("User-Agent", Politeness.USER_AGENT));
+                    request.setURL(url);
+
+                    final HTTPResponse response = urlFetchService.fetch(request);
+
+                    responseCode = response.getResponseCode();
+                    if (Politeness.SC_TOO_MANY_REQUESTS == responseCode) {
+                        deferTime = politeness.backOff(url, response);
+                    }
+                }
             } catch (final Exception e) {
                 LOGGER.warn("Article[permalink=" + articlePermalink + "] accessibility check failed [msg=" + e.getMessage() + "]");
                 responseCode = HttpServletResponse.SC_NOT_FOUND;
@@ -188,7 +240,14 @@ public class ArticleAccessibilityChecker {
                 LOGGER.log(Level.DEBUG, "Accesses article[permalink=" + articlePermalink + "] response[code=" + responseCode + "], "
                         + "elapsed [" + elapsed + ']');
 
-                articleService.updateAccessibility(article, responseCode);
+                if (deferTime > 0) {
+                    articleService.deferAccessibility(article, deferTime);
+                } else {
+                    articleService.recordAccessibility(article, responseCode, start);
+                }
+                if (!batch.offer(article)) {
+                    articleService.updateAccessibilities(Collections.singletonList(article));
+                }
             }
         }
     }
@@ -19,9 +19,6 @@ import org.apache.commons.lang.StringUtils;
 import org.b3log.latke.Keys;
 import org.b3log.latke.cache.Cache;
 import org.b3log.latke.cache.CacheFactory;
-import org.b3log.latke.event.Event;
-import org.b3log.latke.event.EventException;
-import org.b3log.latke.event.EventManager;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
 import org.b3log.latke.model.Pagination;
@@ -33,7 +30,9 @@ import org.b3log.latke.servlet.renderer.DoNothingRenderer;
 import org.b3log.latke.servlet.renderer.JSONRenderer;
 import org.b3log.latke.util.Requests;
 import org.b3log.latke.util.Strings;
+import org.b3log.rhythm.event.EventDispatcher;
 import org.b3log.rhythm.event.EventTypes;
+import org.b3log.rhythm.event.symphony.ArticleEvent;
 import org.b3log.rhythm.model.Article;
 import org.b3log.rhythm.model.Blog;
 import org.b3log.rhythm.model.Common;
@@ -42,6 +41,8 @@ import org.b3log.rhythm.repository.ArticleRepository;
 import org.b3log.rhythm.repository.TagArticleRepository;
 import org.b3log.rhythm.repository.TagRepository;
 import org.b3log.rhythm.service.ArticleService;
+import org.b3log.rhythm.service.ArticleUpdateCoalescer;
+import org.b3log.rhythm.service.VersionRegistry;
 import org.b3log.rhythm.util.Rhythms;
 import org.b3log.rhythm.util.Securities;
 import org.json.JSONArray;
@@ -61,7 +62,7 @@ import static org.b3log.rhythm.model.Article.*;
  * Article processor.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.3.6.17, Jan 3, 2017
+ * @version 1.3.12.0, Oct 19, 2026
  * @since 0.1.4
  */
 @RequestProcessor
@@ -78,6 +79,12 @@ public class ArticleProcessor {
     @Inject
     private ArticleService articleService;
 
+    /**
+     * Version registry.
+     */
+    @Inject
+    private VersionRegistry versionRegistry;
+
     /**
      * Article repository.
      */
@@ -103,10 +110,16 @@ public class ArticleProcessor {
     private Cache<String, Serializable> cache = (Cache<String, Serializable>) CacheFactory.getCache("RhythmCache");
 
     /**
-     * Event manager.
+     * Article update coalescer.
+     */
+    @Inject
+    private ArticleUpdateCoalescer articleUpdateCoalescer;
+
+    /**
+     * Event dispatcher.
      */
     @Inject
-    private EventManager eventManager;
+    private EventDispatcher eventDispatcher;
 
     /**
      * Index, redirects to the <b>b3log.org</b> home: <a href="http://b3log.org">http://b3log.org</a>.
@@ -193,7 +206,7 @@ public class ArticleProcessor {
 
             final String blogVersion = requestJSONObject.optString(Blog.BLOG_VERSION);
 
-            if (!Rhythms.RELEASED_SOLO_VERSIONS.contains(blogVersion) && !Rhythms.SNAPSHOT_SOLO_VERSION.equals(blogVersion)) {
+            if (!versionRegistry.isKnown(VersionRegistry.SOLO, blogVersion)) {
                 LOGGER.log(Level.WARN, "Version of Solo[host={0}] is [{1}], so ignored this request",
                         new String[]{blogHost, blogVersion});
                 jsonObject.put(Keys.STATUS_CODE, StatusCodes.IGNORE_REQUEST);
@@ -267,18 +280,15 @@ public class ArticleProcessor {
             article.put(Blog.BLOG_VERSION, blogVersion);
             article.put(Blog.BLOG_TITLE, blogTitle);
 
-            articleService.updateByOriginalId(article);
-
+            ArticleEvent forward = null;
             if (originalArticle.optBoolean(Common.POST_TO_COMMUNITY, true)) {
-                try {
-                    originalArticle.remove(Common.POST_TO_COMMUNITY);
+                originalArticle.remove(Common.POST_TO_COMMUNITY);
 
-                    eventManager.fireEventSynchronously(new Event<JSONObject>(EventTypes.UPDATE_ARTICLE_TO_SYMPHONY, requestJSONObject));
-                } catch (final EventException e) {
-                    LOGGER.log(Level.ERROR, e.getMessage(), e);
-                }
+                forward = ArticleEvent.fromJSON(requestJSONObject);
             }
 
+            articleUpdateCoalescer.submit(article, forward);
+
             jsonObject.put(Keys.STATUS_CODE, StatusCodes.ADD_ARTICLE_SUCC);
 
             cache.put(authorEmail + ".lastPostTime", latestPostTime);
@@ -361,7 +371,7 @@ public class ArticleProcessor {
 
             final String blogVersion = requestJSONObject.optString(Blog.BLOG_VERSION);
 
-            if (!Rhythms.RELEASED_SOLO_VERSIONS.contains(blogVersion) && !Rhythms.SNAPSHOT_SOLO_VERSION.equals(blogVersion)) {
+            if (!versionRegistry.isKnown(VersionRegistry.SOLO, blogVersion)) {
                 LOGGER.log(Level.WARN, "Version of Solo[host={0}] is [{1}], so ignored this request",
                         new String[]{blogHost, blogVersion});
                 jsonObject.put(Keys.STATUS_CODE, StatusCodes.IGNORE_REQUEST);
@@ -437,13 +447,9 @@ public class ArticleProcessor {
             articleService.addArticle(article);
 
             if (originalArticle.optBoolean(Common.POST_TO_COMMUNITY, true)) {
-                try {
-                    originalArticle.remove(Common.POST_TO_COMMUNITY);
+                originalArticle.remove(Common.POST_TO_COMMUNITY);
 
-                    eventManager.fireEventSynchronously(new Event<JSONObject>(EventTypes.ADD_ARTICLE_TO_SYMPHONY, requestJSONObject));
-                } catch (final EventException e) {
-                    LOGGER.log(Level.ERROR, e.getMessage(), e);
-                }
+                eventDispatcher.dispatch(EventTypes.ADD_ARTICLE_TO_SYMPHONY, ArticleEvent.fromJSON(requestJSONObject));
             }
 
             jsonObject.put(Keys.STATUS_CODE, StatusCodes.ADD_ARTICLE_SUCC);
@@ -595,6 +601,10 @@ public class ArticleProcessor {
             article.remove(ARTICLE_TAGS_REF);
             article.remove(ARTICLE_ACCESSIBILITY_CHECK_CNT);
             article.remove(ARTICLE_ACCESSIBILITY_NOT_200_CNT);
+            article.remove(ARTICLE_ACCESSIBILITY_HISTORY);
+            article.remove(ARTICLE_ACCESSIBILITY_LAST_SC);
+            article.remove(ARTICLE_ACCESSIBILITY_LAST_CHECK_TIME);
+            article.remove(ARTICLE_ACCESSIBILITY_NEXT_CHECK_TIME);
             article.remove(Blog.BLOG_HOST);
             article.remove(Blog.BLOG_TITLE);
             article.remove(Blog.BLOG_VERSION);
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.processor;
+
+import java.io.IOException;
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.b3log.latke.ioc.Lifecycle;
+import org.b3log.latke.util.Strings;
+import org.b3log.rhythm.service.BroadcastChanceHub;
+import org.b3log.rhythm.service.UserService;
+
+/**
+ * Broadcast chance stream servlet, a Solo client keeps "/broadcast/chance/stream?email=xxx&amp;key=xxx" open to
+ * receive its broadcast chances as server-sent events.
+ *
+ * <p>
+ * The "key" is the B3 key the client posts articles with, it is verified against the one recorded for the email before
+ * subscribing, see {@link UserService#verifyB3Key(String, String)}. A key is recorded only after Symphony accepted an
+ * article posted with it, so a user without a recorded key, or a client without a verified key, is rejected and
+ * receives its chances at its host as before.
+ * </p>
+ *
+ * <p>
+ * The stream is served asynchronously so an idle subscriber holds no container thread, it is mapped in web.xml rather
+ * than processed by the dispatcher servlet. Events:
+ * <pre>
+ * event: chance
+ * data: {"time": long} // expiration time of the chance, the same as the "time" sent to the client host
+ * </pre>
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.1.0, Oct 19, 2026
+ * @since 1.2.0
+ * @see BroadcastChanceHub
+ */
+public class BroadcastChanceStreamServlet extends HttpServlet {
+
+    /**
+     * Default serial version uid.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Broadcast chance hub.
+     */
+    private transient BroadcastChanceHub broadcastChanceHub;
+
+    /**
+     * User service.
+     */
+    private transient UserService userService;
+
+    @Override
+    public void init() {
+        broadcastChanceHub = Lifecycle.getBeanManager().getReference(BroadcastChanceHub.class);
+        userService = Lifecycle.getBeanManager().getReference(UserService.class);
+    }
+
+    @Override
+    protected void doGet(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+        final String email = request.getParameter("email");
+        if (Strings.isEmptyOrNull(email)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+
+            return;
+        }
+
+        final String key = request.getParameter("key");
+        if (!userService.verifyB3Key(email, key)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+
+            return;
+        }
+
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+
+        final AsyncContext asyncContext = request.startAsync();
+        broadcastChanceHub.subscribe(email, asyncContext);
+    }
+}
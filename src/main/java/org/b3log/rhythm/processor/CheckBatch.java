@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.json.JSONObject;
+
+/**
+ * Collects results of check tasks of one check run, so that the results can be persisted in one batch.
+ *
+ * <p>
+ * A check task {@link #offer(org.json.JSONObject) offers} its result to the batch once it finished. The batch is
+ * {@link #closeAfter(long) closed} by the {@link CheckScheduler} after a timeout, then the accepted results are
+ * {@link #persist(java.util.List) persisted} and late results are rejected, the late tasks should persist their
+ * results by themselves. So the thread starting a check run does not wait for the checks.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+abstract class CheckBatch {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(CheckBatch.class.getName());
+
+    /**
+     * Results.
+     */
+    private final List<JSONObject> results = new ArrayList<JSONObject>();
+
+    /**
+     * Whether this batch is closed.
+     */
+    private boolean closed;
+
+    /**
+     * Offers the specified result.
+     *
+     * @param result the specified result
+     * @return {@code true} if accepted, returns {@code false} if this batch has been closed
+     */
+    synchronized boolean offer(final JSONObject result) {
+        if (closed) {
+            return false;
+        }
+
+        results.add(result);
+
+        return true;
+    }
+
+    /**
+     * Closes this batch and persists the accepted results after the specified timeout, returns immediately.
+     *
+     * @param timeout the specified timeout in milliseconds
+     */
+    void closeAfter(final long timeout) {
+        CheckScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                final List<JSONObject> accepted;
+                synchronized (CheckBatch.this) {
+                    closed = true;
+                    accepted = new ArrayList<JSONObject>(results);
+                }
+
+                try {
+                    persist(accepted);
+                } catch (final Exception e) {
+                    LOGGER.log(Level.ERROR, "Persists check results failed", e);
+                }
+            }
+        }, System.currentTimeMillis() + timeout);
+    }
+
+    /**
+     * Persists the specified accepted results.
+     *
+     * @param results the specified results
+     */
+    abstract void persist(final List<JSONObject> results);
+}
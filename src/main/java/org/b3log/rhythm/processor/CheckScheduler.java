@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.processor;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs check tasks at their {@link org.b3log.rhythm.urlfetch.Politeness#reserve(java.net.URL, long) reserved} time
+ * slots, so that a check waiting for its slot does not occupy a thread.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.1, Oct 19, 2026
+ * @since 1.2.0
+ */
+final class CheckScheduler {
+
+    /**
+     * Number of check threads.
+     */
+    private static final int THREAD_CNT = 32;
+
+    /**
+     * Scheduler.
+     */
+    private static final ScheduledExecutorService SCHEDULER = new ScheduledThreadPoolExecutor(THREAD_CNT,
+            new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread ret = new Thread(runnable, "AccessibilityCheck-" + count.incrementAndGet());
+            ret.setDaemon(true);
+
+            return ret;
+        }
+    });
+
+    /**
+     * Schedules the specified check task to run at the specified time.
+     *
+     * @param task the specified check task
+     * @param time the specified time, runs immediately if it is past
+     * @return future of the task
+     */
+    static Future<?> schedule(final Runnable task, final long time) {
+        return SCHEDULER.schedule(task, Math.max(0, time - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Private constructor.
+     */
+    private CheckScheduler() {
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.processor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.b3log.latke.ioc.Lifecycle;
+import org.b3log.latke.util.Requests;
+import org.b3log.rhythm.service.SymService;
+import org.b3log.rhythm.service.VersionRegistry;
+import org.b3log.rhythm.service.VersionTelemetry;
+import org.b3log.rhythm.util.Rhythms;
+
+/**
+ * Fast path filter, serves the high-frequency read-only GET requests ahead of the dispatcher servlet.
+ *
+ * <p>
+ * "/", "/syms" and "/version/{product}/latest[/{current version}]" are looked up in a route table built at class
+ * loading and answered with the {@link SymService#getSymsResponse() cached} and
+ * {@link VersionRegistry#getLatestResponse(String, String, String) precomputed} bytes, skipping the dispatcher routing,
+ * the processor invocation, the request context and the request stopwatch. A request which is not routed, or can not be
+ * answered from the caches (for example, the syms are not built yet), passes through to the processors unchanged.
+ * </p>
+ *
+ * <p>
+ * It is mapped in web.xml before the other filters, and enabled by "fastPath.enabled".
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public class FastPathFilter implements Filter {
+
+    /**
+     * Version path prefix.
+     */
+    private static final String VERSION_PREFIX = "/version/";
+
+    /**
+     * Latest version path suffix.
+     */
+    private static final String LATEST = "/latest";
+
+    /**
+     * Location the index redirects to, same as {@link ArticleProcessor#index}.
+     */
+    private static final String INDEX_LOCATION = "http://b3log.org";
+
+    /**
+     * Route table, &lt;path, route&gt;.
+     */
+    private static final Map<String, Route> ROUTES;
+
+    static {
+        final Map<String, Route> routes = new HashMap<String, Route>();
+        routes.put("/", new Route(Kind.INDEX, null));
+        routes.put("/syms", new Route(Kind.SYMS, null));
+        for (final String product : new String[]{VersionRegistry.SOLO, VersionRegistry.WIDE,
+            VersionRegistry.SYMPHONY}) {
+            routes.put(VERSION_PREFIX + product + LATEST, new Route(Kind.VERSION, product));
+        }
+
+        ROUTES = Collections.unmodifiableMap(routes);
+    }
+
+    /**
+     * Whether the filter is initialized and enabled.
+     */
+    private static volatile boolean enabled;
+
+    /**
+     * Sym service.
+     */
+    private SymService symService;
+
+    /**
+     * Version registry.
+     */
+    private VersionRegistry versionRegistry;
+
+    /**
+     * Version telemetry.
+     */
+    private VersionTelemetry versionTelemetry;
+
+    @Override
+    public void init(final FilterConfig filterConfig) {
+        symService = Lifecycle.getBeanManager().getReference(SymService.class);
+        versionRegistry = Lifecycle.getBeanManager().getReference(VersionRegistry.class);
+        versionTelemetry = Lifecycle.getBeanManager().getReference(VersionTelemetry.class);
+
+        enabled = Boolean.valueOf(Rhythms.CFG.getString("fastPath.enabled"));
+    }
+
+    @Override
+    public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain chain)
+            throws IOException, ServletException {
+        final HttpServletRequest httpServletRequest = (HttpServletRequest) request;
+        final HttpServletResponse httpServletResponse = (HttpServletResponse) response;
+
+        if (!isFastPath(httpServletRequest) || !serve(httpServletRequest, httpServletResponse)) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        enabled = false;
+    }
+
+    /**
+     * Determines whether the specified request is routed to the fast path.
+     *
+     * @param request the specified request
+     * @return {@code true} if it is, returns {@code false} otherwise
+     */
+    public static boolean isFastPath(final HttpServletRequest request) {
+        return enabled && "GET".equals(request.getMethod()) && null != route(getPath(request));
+    }
+
+    /**
+     * Serves the specified routed request.
+     *
+     * @param request the specified request
+     * @param response the specified response
+     * @return {@code true} if served, returns {@code false} if it should pass through
+     * @throws IOException io exception
+     */
+    private boolean serve(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+        final String path = getPath(request);
+        final Route route = route(path);
+
+        switch (route.kind) {
+            case INDEX:
+                response.setStatus(HttpServletResponse.SC_FOUND);
+                response.setHeader("Location", INDEX_LOCATION);
+                response.setContentLength(0);
+
+                return true;
+            case SYMS:
+                final byte[] syms = symService.getSymsResponse();
+                if (null == syms) {
+                    return false;
+                }
+
+                write(response, "application/json", syms);
+
+                return true;
+            case VERSION:
+                final int base = VERSION_PREFIX.length() + route.product.length() + LATEST.length();
+                final String currentVersion = path.length() > base ? path.substring(base + 1) : "";
+                final byte[] content = versionRegistry.getLatestResponse(route.product, currentVersion,
+                        request.getParameter("callback"));
+                if (null == content) {
+                    return false;
+                }
+
+                versionTelemetry.record(route.product, currentVersion, Requests.getRemoteAddr(request));
+                write(response, "application/javascript", content);
+
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Writes the specified UTF-8 content of the specified content type to the specified response.
+     *
+     * @param response the specified response
+     * @param contentType the specified content type
+     * @param content the specified content
+     * @throws IOException io exception
+     */
+    private static void write(final HttpServletResponse response, final String contentType, final byte[] content)
+            throws IOException {
+        response.setContentType(contentType);
+        response.setCharacterEncoding("UTF-8");
+        response.setContentLength(content.length);
+
+        final OutputStream outputStream = response.getOutputStream();
+        outputStream.write(content);
+        outputStream.flush();
+    }
+
+    /**
+     * Gets the path of the specified request, the request URI without the context path.
+     *
+     * @param request the specified request
+     * @return path
+     */
+    private static String getPath(final HttpServletRequest request) {
+        final String uri = request.getRequestURI();
+        final String contextPath = request.getContextPath();
+
+        return uri.startsWith(contextPath) ? uri.substring(contextPath.length()) : uri;
+    }
+
+    /**
+     * Routes the specified path.
+     *
+     * @param path the specified path
+     * @return route, returns {@code null} if not routed
+     */
+    private static Route route(final String path) {
+        final Route ret = ROUTES.get(path);
+        if (null != ret || !path.startsWith(VERSION_PREFIX)) {
+            return ret;
+        }
+
+        final int latest = path.indexOf(LATEST + '/', VERSION_PREFIX.length());
+        if (-1 == latest) {
+            return null;
+        }
+
+        final Route version = ROUTES.get(path.substring(0, latest + LATEST.length()));
+
+        return null != version && Kind.VERSION == version.kind ? version : null;
+    }
+
+    /**
+     * Route kinds.
+     */
+    private enum Kind {
+
+        /**
+         * Index redirect.
+         */
+        INDEX,
+        /**
+         * Syms.
+         */
+        SYMS,
+        /**
+         * Latest version of a product.
+         */
+        VERSION
+    }
+
+    /**
+     * Route.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 19, 2026
+     * @since 1.2.0
+     */
+    private static final class Route {
+
+        /**
+         * Kind.
+         */
+        private final Kind kind;
+
+        /**
+         * Product of a version route, {@code null} otherwise.
+         */
+        private final String product;
+
+        /**
+         * Constructs a route.
+         *
+         * @param kind the specified kind
+         * @param product the specified product of a version route
+         */
+        private Route(final Kind kind, final String product) {
+            this.kind = kind;
+            this.product = product;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.processor;
+
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.b3log.latke.servlet.HTTPRequestContext;
+import org.b3log.latke.servlet.HTTPRequestMethod;
+import org.b3log.latke.servlet.annotation.RequestProcessing;
+import org.b3log.latke.servlet.annotation.RequestProcessor;
+import org.b3log.latke.servlet.renderer.JSONRenderer;
+import org.b3log.latke.util.Strings;
+import org.b3log.rhythm.event.EventDispatcher;
+import org.b3log.rhythm.outbox.ForwardTarget;
+import org.b3log.rhythm.outbox.Outbox;
+import org.b3log.rhythm.outbox.Outboxes;
+import org.b3log.rhythm.service.BroadcastChanceService;
+import org.b3log.rhythm.service.VersionTelemetry;
+import org.b3log.rhythm.urlfetch.OutboundFetchService;
+import org.b3log.rhythm.util.Rhythms;
+import org.json.JSONObject;
+
+/**
+ * Runtime statistics processor.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.4.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+@RequestProcessor
+public class StatsProcessor {
+
+    /**
+     * Event dispatcher.
+     */
+    @Inject
+    private EventDispatcher eventDispatcher;
+
+    /**
+     * Broadcast chance service.
+     */
+    @Inject
+    private BroadcastChanceService broadcastChanceService;
+
+    /**
+     * Version telemetry.
+     */
+    @Inject
+    private VersionTelemetry versionTelemetry;
+
+    /**
+     * Gets the runtime statistics, requires the "key" parameter.
+     *
+     * <p>
+     * Renders:
+     * <pre>
+     * {
+     *     "urlfetch": {}, // bulkhead and circuit breaker stats of each destination and forwarding target
+     *     "events": {}, // event dispatcher stats
+     *     "outboxes": {
+     *         "symphony": int, // pending records
+     *         "symphony-comments": int,
+     *         "events": int
+     *     },
+     *     "broadcastChances": {}, // delivery status counts, the last send round and the stream subscribers
+     *     "versions": {}, // checked versions counts and distinct clients of each product
+     *     "jvm": {
+     *         "heapUsed": long, // bytes
+     *         "threads": int
+     *     }
+     * }
+     * </pre>
+     * </p>
+     *
+     * @param context the specified context
+     * @throws Exception exception
+     */
+    @RequestProcessing(value = "/stats", method = HTTPRequestMethod.GET)
+    public void getStats(final HTTPRequestContext context) throws Exception {
+        final HttpServletRequest request = context.getRequest();
+        final String key = request.getParameter("key");
+        if (Strings.isEmptyOrNull(key) || !key.equals(Rhythms.CFG.getString("key"))) {
+            context.getResponse().sendError(HttpServletResponse.SC_FORBIDDEN);
+
+            return;
+        }
+
+        final JSONObject ret = new JSONObject();
+        ret.put("urlfetch", OutboundFetchService.getStats());
+        ret.put("events", eventDispatcher.getStats());
+
+        final JSONObject outboxes = new JSONObject();
+        for (final ForwardTarget target : Outboxes.getTargets()) {
+            putOutbox(outboxes, target.getArticleOutbox());
+            putOutbox(outboxes, target.getCommentOutbox());
+        }
+        putOutbox(outboxes, Outboxes.getEventOutbox());
+        ret.put("outboxes", outboxes);
+        ret.put("broadcastChances", broadcastChanceService.getStats());
+        ret.put("versions", versionTelemetry.getStats());
+
+        final Runtime runtime = Runtime.getRuntime();
+        final JSONObject jvm = new JSONObject();
+        jvm.put("heapUsed", runtime.totalMemory() - runtime.freeMemory());
+        jvm.put("threads", Thread.activeCount());
+        ret.put("jvm", jvm);
+
+        final JSONRenderer renderer = new JSONRenderer();
+        context.setRenderer(renderer);
+        renderer.setJSONObject(ret);
+    }
+
+    /**
+     * Puts the pending records count of the specified outbox into the specified json object.
+     *
+     * @param outboxes the specified json object
+     * @param outbox the specified outbox, may be {@code null}
+     */
+    private static void putOutbox(final JSONObject outboxes, final Outbox outbox) {
+        if (null != outbox) {
+            outboxes.put(outbox.getName(), outbox.size());
+        }
+    }
+}
@@ -33,8 +33,9 @@ import org.b3log.latke.servlet.renderer.DoNothingRenderer;
 import org.b3log.latke.urlfetch.HTTPRequest;
 import org.b3log.latke.urlfetch.HTTPResponse;
 import org.b3log.latke.urlfetch.URLFetchService;
-import org.b3log.latke.urlfetch.URLFetchServiceFactory;
 import org.b3log.rhythm.service.DNSPodService;
+import org.b3log.rhythm.urlfetch.Destination;
+import org.b3log.rhythm.urlfetch.OutboundFetchService;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -46,7 +47,7 @@ import org.json.JSONObject;
  * </p>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.2, Aug 24, 2013
+ * @version 1.0.1.2, Oct 19, 2026
  * @since 0.1.6
  */
 @RequestProcessor
@@ -64,7 +65,7 @@ public class SubdomainMonitor {
     /**
      * URL fetch service.
      */
-    private URLFetchService urlFetchService = URLFetchServiceFactory.getURLFetchService();
+    private URLFetchService urlFetchService = OutboundFetchService.getInstance(Destination.CRAWL);
 
     /**
      * Ping all sub-domains.
@@ -15,34 +15,29 @@
  */
 package org.b3log.rhythm.processor;
 
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collections;
 import java.util.List;
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
-import org.apache.commons.lang.StringUtils;
-import org.b3log.latke.Keys;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
-import org.b3log.latke.repository.Query;
-import org.b3log.latke.repository.RepositoryException;
-import org.b3log.latke.repository.Transaction;
 import org.b3log.latke.servlet.HTTPRequestContext;
 import org.b3log.latke.servlet.HTTPRequestMethod;
 import org.b3log.latke.servlet.annotation.RequestProcessing;
 import org.b3log.latke.servlet.annotation.RequestProcessor;
 import org.b3log.latke.servlet.renderer.DoNothingRenderer;
-import org.b3log.latke.thread.ThreadService;
-import org.b3log.latke.thread.ThreadServiceFactory;
 import org.b3log.latke.urlfetch.HTTPHeader;
 import org.b3log.latke.urlfetch.HTTPRequest;
 import org.b3log.latke.urlfetch.HTTPResponse;
-import org.b3log.latke.urlfetch.URLFetchService;
-import org.b3log.latke.urlfetch.URLFetchServiceFactory;
-import org.b3log.latke.util.CollectionUtils;
 import org.b3log.latke.util.Strings;
 import org.b3log.rhythm.model.Sym;
-import org.b3log.rhythm.repository.SymRepository;
+import org.b3log.rhythm.service.SymService;
+import org.b3log.rhythm.urlfetch.Destination;
+import org.b3log.rhythm.urlfetch.HTMLHeadHandler;
+import org.b3log.rhythm.urlfetch.OutboundFetchService;
+import org.b3log.rhythm.urlfetch.Politeness;
 import org.b3log.rhythm.util.Rhythms;
 import org.json.JSONObject;
 
@@ -50,7 +45,7 @@ import org.json.JSONObject;
  * Checks accessibility of Syms.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.2, Oct 29, 2016
+ * @version 1.3.3.0, Oct 19, 2026
  * @since 1.2.0
  */
 @RequestProcessor
@@ -62,28 +57,39 @@ public class SymAccessibilityChecker {
     private static final Logger LOGGER = Logger.getLogger(SymAccessibilityChecker.class.getName());
 
     /**
-     * Sym repository.
+     * Sym service.
      */
     @Inject
-    private SymRepository symRepository;
+    private SymService symService;
 
     /**
      * Check timeout.
      */
     private static final long CHECK_TIMEOUT = 10000;
 
+    /**
+     * Batch timeout, the check results finished in this period will be persisted in one batch after the period.
+     */
+    private static final long BATCH_TIMEOUT = CHECK_TIMEOUT * 3;
+
+    /**
+     * Schedule window, the checks whose reserved time slots are beyond this window will be deferred to the next runs.
+     */
+    private static final long SCHEDULE_WINDOW = CHECK_TIMEOUT * 2;
+
     /**
      * URL fetch service.
      */
-    private URLFetchService urlFetchService = URLFetchServiceFactory.getURLFetchService();
+    private OutboundFetchService urlFetchService = OutboundFetchService.getInstance(Destination.CRAWL);
 
     /**
-     * Thread service.
+     * Politeness.
      */
-    private ThreadService threadService = ThreadServiceFactory.getThreadService();
+    private Politeness politeness = Politeness.getInstance();
 
     /**
-     * Checks.
+     * Checks the syms which are due, at most {@link Rhythms#SYM_CHECK_BUDGET} syms per run. Checks to the same host are
+     * spaced out by {@link Politeness}. The results, including the status changes, are persisted in one batch.
      *
      * @param context the specified context
      * @throws Exception exception
@@ -99,22 +105,40 @@ public class SymAccessibilityChecker {
             return;
         }
 
-        try {
-            final List<JSONObject> syms
-                    = CollectionUtils.jsonArrayToList(symRepository.get(new Query()).optJSONArray(Keys.RESULTS));
-            for (final JSONObject sym : syms) {
-                threadService.submit(new CheckTask(sym), CHECK_TIMEOUT);
+        final List<JSONObject> syms = symService.getSymsToCheck(Rhythms.SYM_CHECK_BUDGET);
+
+        final CheckBatch batch = new CheckBatch() {
+            @Override
+            void persist(final List<JSONObject> results) {
+                symService.updateAccessibilities(results);
+            }
+        };
+        for (final JSONObject sym : syms) {
+            long checkTime = System.currentTimeMillis();
+            try {
+                checkTime = politeness.reserve(new URL(sym.optString(Sym.SYM_URL)), SCHEDULE_WINDOW);
+            } catch (final MalformedURLException e) {
+                // Checks it immediately to record the failure
+            }
+
+            if (checkTime - System.currentTimeMillis() > SCHEDULE_WINDOW) {
+                symService.deferAccessibility(sym, checkTime);
+                batch.offer(sym);
+
+                continue;
             }
-        } catch (final RepositoryException e) {
-            LOGGER.log(Level.ERROR, "Check accessibility syms failed", e);
+
+            CheckScheduler.schedule(new CheckTask(sym, batch), checkTime);
         }
+
+        batch.closeAfter(BATCH_TIMEOUT);
     }
 
     /**
      * Sym accessibility check task.
      *
      * @author <a href="http://88250.b3log.org">Liang Ding</a>
-     * @version 1.0.0.1, Oct 29, 2016
+     * @version 1.3.1.0, Oct 19, 2026
      */
     private class CheckTask implements Runnable {
 
@@ -124,12 +148,19 @@ public class SymAccessibilityChecker {
         private final JSONObject sym;
 
         /**
-         * Constructs a check task with the specified sym.
+         * Check batch.
+         */
+        private final CheckBatch batch;
+
+        /**
+         * Constructs a check task with the specified sym and check batch.
          *
          * @param sym the specified sym
+         * @param batch the specified check batch
          */
-        public CheckTask(final JSONObject sym) {
+        public CheckTask(final JSONObject sym, final CheckBatch batch) {
             this.sym = sym;
+            this.batch = batch;
         }
 
         @Override
@@ -140,24 +171,31 @@ public class SymAccessibilityChecker {
             final long start = System.currentTimeMillis();
 
             int responseCode = 0;
+            long deferTime = 0;
 
             try {
-                final HTTPRequest request = new HTTPRequest();
-                request.addHeader(new HTTPHeader("User-Agent", "B3log Rhythm/" + Rhythms.RHYTHM_VERSION));
-                request.setURL(new URL(symURL));
-
-                final HTTPResponse response = urlFetchService.fetch(request);
-                responseCode = response.getResponseCode();
-                if (HttpServletResponse.SC_OK == responseCode) {
-                    final String html = new String(response.getContent(), "UTF-8");
-                    final String favicon
-                            = StringUtils.substringBetween(html, "<link rel=\"icon\" type=\"image/png\" href=\"", "\"");
-                    sym.put(Sym.SYM_ICON, StringUtils.trim(favicon));
-                    final String desc = StringUtils.substringBetween(html, "<meta name=\"description\" content=\"", "\"");
-                    sym.put(Sym.SYM_DESC, StringUtils.trim(desc));
-                }
+                final URL url = new URL(symURL);
+
+                if (!politeness.isAllowed(url)) {
+                    LOGGER.log(Level.DEBUG, "Sym [url={0}] is disallowed by robots.txt", symURL);
+                    deferTime = politeness.getRobotsExpiration(url);
+                } else {
+                    final HTTPRequest request = new HTTPRequest();
+                    request.addHeader(new HTTPHeader("User-Agent", Politeness.USER_AGENT));
+                    request.setURL(url);
+
+                    final HTMLHeadHandler handler = new HTMLHeadHandler(url, Rhythms.SYM_HEAD_MAX_BYTES);
+                    final HTTPResponse response = urlFetchService.fetch(request, handler);
+                    responseCode = response.getResponseCode();
+                    final JSONObject head = handler.getHead();
+                    if (null != head) {
+                        symService.applyHead(sym, head);
+                    } else if (Politeness.SC_TOO_MANY_REQUESTS == responseCode) {
+                        deferTime = politeness.backOff(url, response);
+                    }
 
-                LOGGER.log(Level.INFO, "Accesses sym [url=" + symURL + "] response [code={0}]", responseCode);
+                    LOGGER.log(Level.INFO, "Accesses sym [url=" + symURL + "] response [code={0}]", responseCode);
+                }
             } catch (final Exception e) {
                 LOGGER.warn("Sym [url=" + symURL + "] accessibility check failed [msg=" + e.getMessage() + "]");
             } finally {
@@ -165,22 +203,13 @@ public class SymAccessibilityChecker {
                 LOGGER.log(Level.DEBUG, "Accesses sym [url=" + symURL + "] response [code=" + responseCode + "], "
                         + "elapsed [" + elapsed + ']');
 
-                sym.put(Sym.SYM_ACCESSIBILITY_CHECK_CNT, sym.optInt(Sym.SYM_ACCESSIBILITY_CHECK_CNT) + 1);
-                if (HttpServletResponse.SC_OK != responseCode) {
-                    sym.put(Sym.SYM_ACCESSIBILITY_NOT_200_CNT, sym.optInt(Sym.SYM_ACCESSIBILITY_NOT_200_CNT) + 1);
+                if (deferTime > 0) {
+                    symService.deferAccessibility(sym, deferTime);
+                } else {
+                    symService.recordAccessibility(sym, responseCode, start);
                 }
-
-                final Transaction transaction = symRepository.beginTransaction();
-                try {
-                    symRepository.update(sym.optString(Keys.OBJECT_ID), sym);
-
-                    transaction.commit();
-                } catch (final RepositoryException e) {
-                    if (null != transaction && transaction.isActive()) {
-                        transaction.rollback();
-                    }
-
-                    LOGGER.log(Level.ERROR, "Updates sym failed", e);
+                if (!batch.offer(sym)) {
+                    symService.updateAccessibilities(Collections.singletonList(sym));
                 }
             }
         }
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.processor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.b3log.latke.ioc.Lifecycle;
+import org.b3log.rhythm.service.SymIconService;
+
+/**
+ * Sym icon servlet, serves "/sym/icon/{hash}" from the {@link SymIconService local icon store}.
+ *
+ * <p>
+ * A stored icon never changes, so it is served with a far-future "Cache-Control" and its hash as the "ETag". The file
+ * is transferred with the sendfile support of the container if available (Tomcat NIO/APR), with
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)} otherwise. It is mapped in web.xml rather than
+ * processed by the dispatcher servlet to access the container attributes.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public class SymIconServlet extends HttpServlet {
+
+    /**
+     * Default serial version uid.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Max age in seconds, one year.
+     */
+    private static final long MAX_AGE = 60L * 60 * 24 * 365;
+
+    /**
+     * Request attribute of the container sendfile support.
+     */
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    /**
+     * Request attribute prefix of a sendfile.
+     */
+    private static final String SENDFILE = "org.apache.tomcat.sendfile.";
+
+    /**
+     * Sym icon service.
+     */
+    private transient SymIconService symIconService;
+
+    @Override
+    public void init() {
+        symIconService = Lifecycle.getBeanManager().getReference(SymIconService.class);
+    }
+
+    @Override
+    protected void doGet(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+        final String pathInfo = request.getPathInfo();
+        final String hash = null == pathInfo ? null : pathInfo.substring(1);
+        final File file = symIconService.getFile(hash);
+        if (null == file) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+
+            return;
+        }
+
+        final String etag = '"' + hash + '"';
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", "public, max-age=" + MAX_AGE + ", immutable");
+        response.setDateHeader("Expires", System.currentTimeMillis() + MAX_AGE * 1000);
+
+        final String ifNoneMatch = request.getHeader("If-None-Match");
+        if (null != ifNoneMatch && (ifNoneMatch.contains(etag) || "*".equals(ifNoneMatch.trim()))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+
+            return;
+        }
+
+        final long length = file.length();
+        response.setContentType(symIconService.getContentType(hash, file));
+        response.setContentLength((int) length);
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        // SVG icons may carry scripts
+        response.setHeader("Content-Security-Policy", "default-src 'none'; style-src 'unsafe-inline'");
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE + "filename", file.getAbsolutePath());
+            request.setAttribute(SENDFILE + "start", 0L);
+            request.setAttribute(SENDFILE + "end", length);
+
+            return;
+        }
+
+        final FileInputStream inputStream = new FileInputStream(file);
+        try {
+            final FileChannel channel = inputStream.getChannel();
+            final WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+
+            long position = 0;
+            while (position < length) {
+                final long transferred = channel.transferTo(position, length - position, target);
+                if (transferred <= 0) {
+                    break;
+                }
+
+                position += transferred;
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+}
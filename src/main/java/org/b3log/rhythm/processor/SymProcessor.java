@@ -15,7 +15,8 @@
  */
 package org.b3log.rhythm.processor;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.inject.Inject;
@@ -29,6 +30,7 @@ import org.b3log.latke.servlet.HTTPRequestContext;
 import org.b3log.latke.servlet.HTTPRequestMethod;
 import org.b3log.latke.servlet.annotation.RequestProcessing;
 import org.b3log.latke.servlet.annotation.RequestProcessor;
+import org.b3log.latke.servlet.renderer.DoNothingRenderer;
 import org.b3log.latke.servlet.renderer.JSONRenderer;
 import org.b3log.latke.util.Requests;
 import org.b3log.rhythm.model.Sym;
@@ -39,7 +41,7 @@ import org.json.JSONObject;
  * Sym processor.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.3, Nov 29, 2016
+ * @version 1.1.0.0, Oct 19, 2026
  * @since 1.2.0
  */
 @RequestProcessor
@@ -69,23 +71,32 @@ public class SymProcessor {
      * </pre>
      * </p>
      *
+     * <p>
+     * The response is {@link SymService#getSymsResponse() cached serialized}.
+     * </p>
+     *
      * @param context the specified context
+     * @throws IOException io exception
      */
     @RequestProcessing(value = "/syms", method = HTTPRequestMethod.GET)
-    public void getSyms(final HTTPRequestContext context) {
-        final JSONObject ret = new JSONObject();
-        context.renderJSON(ret);
+    public void getSyms(final HTTPRequestContext context) throws IOException {
+        final byte[] syms = symService.getSymsResponse();
+        if (null == syms) {
+            context.renderJSON(new JSONObject().put(Keys.STATUS_CODE, false));
 
-        try {
-            final List<JSONObject> syms = symService.getSyms();
-            ret.put(Sym.SYMS, syms);
+            return;
+        }
 
-            ret.put(Keys.STATUS_CODE, true);
-        } catch (final Exception e) {
-            LOGGER.log(Level.ERROR, "Can not add sym", e);
+        context.setRenderer(new DoNothingRenderer());
 
-            ret.put(Keys.STATUS_CODE, false);
-        }
+        final HttpServletResponse response = context.getResponse();
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.setContentLength(syms.length);
+
+        final OutputStream outputStream = response.getOutputStream();
+        outputStream.write(syms);
+        outputStream.flush();
     }
 
     /**
@@ -142,6 +153,7 @@ public class SymProcessor {
             sym.put(Sym.SYM_TITLE, requestJSONObject.optString(Sym.SYM_TITLE));
 
             symService.addSym(sym);
+            symService.invalidateSyms();
 
             jsonObject.put(Keys.STATUS_CODE, true);
         } catch (final Exception e) {
@@ -15,7 +15,9 @@
  */
 package org.b3log.rhythm.processor;
 
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collections;
 import java.util.List;
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
@@ -29,15 +31,15 @@ import org.b3log.latke.servlet.HTTPRequestMethod;
 import org.b3log.latke.servlet.annotation.RequestProcessing;
 import org.b3log.latke.servlet.annotation.RequestProcessor;
 import org.b3log.latke.servlet.renderer.DoNothingRenderer;
-import org.b3log.latke.thread.ThreadService;
-import org.b3log.latke.thread.ThreadServiceFactory;
 import org.b3log.latke.urlfetch.HTTPHeader;
 import org.b3log.latke.urlfetch.HTTPRequest;
 import org.b3log.latke.urlfetch.HTTPResponse;
 import org.b3log.latke.urlfetch.URLFetchService;
-import org.b3log.latke.urlfetch.URLFetchServiceFactory;
 import org.b3log.latke.util.Strings;
 import org.b3log.rhythm.service.UserService;
+import org.b3log.rhythm.urlfetch.Destination;
+import org.b3log.rhythm.urlfetch.OutboundFetchService;
+import org.b3log.rhythm.urlfetch.Politeness;
 import org.b3log.rhythm.util.Rhythms;
 import org.json.JSONObject;
 
@@ -45,7 +47,7 @@ import org.json.JSONObject;
  * Checks accessibility of users.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.0.0, Jun 20, 2014
+ * @version 1.3.2.0, Oct 19, 2026
  * @since 0.2.0
  */
 @RequestProcessor
@@ -63,27 +65,33 @@ public class UserAccessibilityChecker {
     private UserService userService;
 
     /**
-     * Check count.
+     * Check timeout.
      */
-    private static final int CHECK_CNT = 200;
+    private static final long CHECK_TIMEOUT = 10000;
 
     /**
-     * Check timeout.
+     * Batch timeout, the check results finished in this period will be persisted in one batch after the period.
      */
-    private static final long CHECK_TIMEOUT = 10000;
+    private static final long BATCH_TIMEOUT = CHECK_TIMEOUT * 3;
+
+    /**
+     * Schedule window, the checks whose reserved time slots are beyond this window will be deferred to the next runs.
+     */
+    private static final long SCHEDULE_WINDOW = CHECK_TIMEOUT * 2;
 
     /**
      * URL fetch service.
      */
-    private URLFetchService urlFetchService = URLFetchServiceFactory.getURLFetchService();
+    private URLFetchService urlFetchService = OutboundFetchService.getInstance(Destination.CRAWL);
 
     /**
-     * Thread service.
+     * Politeness.
      */
-    private ThreadService threadService = ThreadServiceFactory.getThreadService();
+    private Politeness politeness = Politeness.getInstance();
 
     /**
-     * Checks.
+     * Checks the users which are due, at most {@link Rhythms#USER_CHECK_BUDGET} users per run. Checks to the same host
+     * are spaced out by {@link Politeness}.
      *
      * @param context the specified context
      * @throws Exception exception
@@ -99,18 +107,40 @@ public class UserAccessibilityChecker {
             return;
         }
 
-        final List<JSONObject> users = userService.getUsersRandomly(CHECK_CNT);
+        final List<JSONObject> users = userService.getUsersToCheck(Rhythms.USER_CHECK_BUDGET);
 
+        final CheckBatch batch = new CheckBatch() {
+            @Override
+            void persist(final List<JSONObject> results) {
+                userService.updateAccessibilities(results);
+            }
+        };
         for (final JSONObject user : users) {
-            threadService.submit(new CheckTask(user), CHECK_TIMEOUT);
+            long checkTime = System.currentTimeMillis();
+            try {
+                checkTime = politeness.reserve(new URL(user.optString(User.USER_URL)), SCHEDULE_WINDOW);
+            } catch (final MalformedURLException e) {
+                // Checks it immediately to remove the user
+            }
+
+            if (checkTime - System.currentTimeMillis() > SCHEDULE_WINDOW) {
+                userService.deferAccessibility(user, checkTime);
+                batch.offer(user);
+
+                continue;
+            }
+
+            CheckScheduler.schedule(new CheckTask(user, batch), checkTime);
         }
+
+        batch.closeAfter(BATCH_TIMEOUT);
     }
 
     /**
      * User accessibility check task.
      *
      * @author <a href="http://88250.b3log.org">Liang Ding</a>
-     * @version 1.0.1.0, Jun 17, 2014
+     * @version 1.2.0.0, Oct 19, 2026
      */
     private class CheckTask implements Runnable {
 
@@ -120,12 +150,19 @@ public class UserAccessibilityChecker {
         private JSONObject user;
 
         /**
-         * Constructs a check task with the specified user.
+         * Check batch.
+         */
+        private final CheckBatch batch;
+
+        /**
+         * Constructs a check task with the specified user and check batch.
          *
          * @param user the specified user
+         * @param batch the specified check batch
          */
-        public CheckTask(final JSONObject user) {
+        public CheckTask(final JSONObject user, final CheckBatch batch) {
             this.user = user;
+            this.batch = batch;
         }
 
         @Override
@@ -133,23 +170,45 @@ public class UserAccessibilityChecker {
             final String userUrl = user.optString(User.USER_URL);
 
             LOGGER.debug("Checks user[url=" + userUrl + "] accessibility");
+            final long start = System.currentTimeMillis();
 
             int responseCode = 0;
+            long deferTime = 0;
 
             try {
-                final HTTPRequest request = new HTTPRequest();
-                request.addHeader(new HTTPHeader("User-Agent", "B3log Rhythm/" + Rhythms.RHYTHM_VERSION));
-                request.setURL(new URL(userUrl));
-
-                final HTTPResponse response = urlFetchService.fetch(request);
-
-                responseCode = response.getResponseCode();
-                LOGGER.log(Level.INFO, "Accesses user[url=" + userUrl + "] response[code={0}]", responseCode);
+                final URL url = new URL(userUrl);
+
+                if (!politeness.isAllowed(url)) {
+                    LOGGER.log(Level.DEBUG, "User[url={0}] is disallowed by robots.txt", userUrl);
+                    deferTime = politeness.getRobotsExpiration(url);
+                } else {
+                    final HTTPRequest request = new HTTPRequest();
+                    request.addHeader(new HTTPHeader("User-Agent", Politeness.USER_AGENT));
+                    request.setURL(url);
+
+                    final HTTPResponse response = urlFetchService.fetch(request);
+
+                    responseCode = response.getResponseCode();
+                    if (Politeness.SC_TOO_MANY_REQUESTS == responseCode) {
+                        deferTime = politeness.backOff(url, response);
+                    }
+                    LOGGER.log(Level.INFO, "Accesses user[url=" + userUrl + "] response[code={0}]", responseCode);
+                }
             } catch (final Exception e) {
                 LOGGER.warn("User[url=" + userUrl + "] accessibility check failed [msg=" + e.getMessage() + "]");
             } finally {
-                if (HttpServletResponse.SC_OK != responseCode) {
+                if (deferTime > 0) {
+                    userService.deferAccessibility(user, deferTime);
+                    if (!batch.offer(user)) {
+                        userService.updateAccessibilities(Collections.singletonList(user));
+                    }
+                } else if (HttpServletResponse.SC_OK != responseCode) {
                     userService.removeUser(user.optString(Keys.OBJECT_ID));
+                } else {
+                    userService.recordAccessible(user, start);
+                    if (!batch.offer(user)) {
+                        userService.updateAccessibilities(Collections.singletonList(user));
+                    }
                 }
             }
         }
@@ -15,141 +15,122 @@
  */
 package org.b3log.rhythm.processor;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
-import org.apache.commons.lang.StringUtils;
-import org.b3log.latke.logging.Level;
-import org.b3log.latke.logging.Logger;
+import javax.servlet.http.HttpServletResponse;
 import org.b3log.latke.servlet.HTTPRequestContext;
 import org.b3log.latke.servlet.HTTPRequestMethod;
 import org.b3log.latke.servlet.annotation.RequestProcessing;
 import org.b3log.latke.servlet.annotation.RequestProcessor;
-import org.b3log.latke.servlet.renderer.JSONRenderer;
-import org.b3log.latke.util.Strings;
-import org.b3log.rhythm.model.Solo;
-import org.b3log.rhythm.util.Rhythms;
-import org.json.JSONObject;
+import org.b3log.latke.servlet.renderer.DoNothingRenderer;
+import org.b3log.latke.util.Requests;
+import org.b3log.rhythm.service.VersionRegistry;
+import org.b3log.rhythm.service.VersionTelemetry;
 
 /**
  * Version processor.
  *
+ * <p>
+ * The responses are {@link VersionRegistry#getLatestResponse(String, String, String) serialized ahead}, serving one is
+ * a map lookup and a byte write. The current version and address of the client are
+ * {@link VersionTelemetry#record(String, String, String) recorded} without locks.
+ * </p>
+ *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.0.5, Oct 17, 2014
+ * @version 1.3.0.0, Oct 19, 2026
  * @since 0.1.4
  */
 @RequestProcessor
 public class VersionProcessor {
 
     /**
-     * Logger.
+     * Version registry.
      */
-    private static final Logger LOGGER = Logger.getLogger(VersionProcessor.class.getName());
+    @Inject
+    private VersionRegistry versionRegistry;
+
+    /**
+     * Version telemetry.
+     */
+    @Inject
+    private VersionTelemetry versionTelemetry;
 
     /**
      * Gets the latest version of the B3log Solo.
      *
      * @param context the specified context
-     * @throws Exception exception
+     * @throws IOException io exception
      */
     @RequestProcessing(value = {"/version/solo/latest/*", "/version/solo/latest"}, method = HTTPRequestMethod.GET)
-    public void getLatestSoloVersion(final HTTPRequestContext context) throws Exception {
-        final HttpServletRequest request = context.getRequest();
-        String callbackFuncName = request.getParameter("callback");
-        if (Strings.isEmptyOrNull(callbackFuncName)) {
-            callbackFuncName = "callback";
-        }
-
-        final JSONObject jsonObject = new JSONObject();
-
-        final JSONRenderer renderer = new JSONRenderer();
-        context.setRenderer(renderer);
-
-        renderer.setCallback(callbackFuncName); // Sets JSONP
-        renderer.setJSONObject(jsonObject);
-
-        String currentVersion = request.getRequestURI();
-        currentVersion = StringUtils.substringAfter(currentVersion, "/version/solo/latest");
-        if (currentVersion.startsWith("/")) {
-            currentVersion = currentVersion.substring(1);
-        }
-
-        final String latestVersion = Rhythms.getLatestSoloVersion(currentVersion);
-
-        LOGGER.log(Level.DEBUG, "Version[client={0}, latest={1}]", new Object[]{currentVersion, latestVersion});
-
-        jsonObject.put(Solo.SOLO_VERSION, latestVersion);
-
-        jsonObject.put(Solo.SOLO_DOWNLOAD, Rhythms.LATEST_SOLO_DL_URL);
+    public void getLatestSoloVersion(final HTTPRequestContext context) throws IOException {
+        renderLatestVersion(context, VersionRegistry.SOLO, "/version/solo/latest");
     }
 
     /**
      * Gets the latest version of the B3log Wide.
      *
      * @param context the specified context
-     * @throws Exception exception
+     * @throws IOException io exception
      */
     @RequestProcessing(value = {"/version/wide/latest/*", "/version/wide/latest"}, method = HTTPRequestMethod.GET)
-    public void getLatestWideVersion(final HTTPRequestContext context) throws Exception {
-        final HttpServletRequest request = context.getRequest();
-        String callbackFuncName = request.getParameter("callback");
-        if (Strings.isEmptyOrNull(callbackFuncName)) {
-            callbackFuncName = "callback";
-        }
-
-        final JSONObject jsonObject = new JSONObject();
-
-        final JSONRenderer renderer = new JSONRenderer();
-        context.setRenderer(renderer);
-
-        renderer.setCallback(callbackFuncName); // Sets JSONP
-        renderer.setJSONObject(jsonObject);
-
-        String currentVersion = request.getRequestURI();
-        currentVersion = StringUtils.substringAfter(currentVersion, "/version/wide/latest");
-        if (currentVersion.startsWith("/")) {
-            currentVersion = currentVersion.substring(1);
-        }
-
-        final String latestVersion = Rhythms.getLatestWideVersion(currentVersion);
-
-        LOGGER.log(Level.DEBUG, "Version[client={0}, latest={1}]", new Object[]{currentVersion, latestVersion});
-
-        jsonObject.put("wideVersion", latestVersion);
-        jsonObject.put("wideDownload", Rhythms.LATEST_WIDE_DL_URL);
+    public void getLatestWideVersion(final HTTPRequestContext context) throws IOException {
+        renderLatestVersion(context, VersionRegistry.WIDE, "/version/wide/latest");
     }
 
     /**
      * Gets the latest version of the B3log Symphony.
      *
      * @param context the specified context
-     * @throws Exception exception
+     * @throws IOException io exception
      */
-    @RequestProcessing(value = {"/version/symphony/latest/*", "/version/symphony/latest"}, method = HTTPRequestMethod.GET)
-    public void getLatestSymphonyVersion(final HTTPRequestContext context) throws Exception {
-        final HttpServletRequest request = context.getRequest();
-        String callbackFuncName = request.getParameter("callback");
-        if (Strings.isEmptyOrNull(callbackFuncName)) {
-            callbackFuncName = "callback";
-        }
+    @RequestProcessing(value = {"/version/symphony/latest/*", "/version/symphony/latest"},
+            method = HTTPRequestMethod.GET)
+    public void getLatestSymphonyVersion(final HTTPRequestContext context) throws IOException {
+        renderLatestVersion(context, VersionRegistry.SYMPHONY, "/version/symphony/latest");
+    }
+
+    /**
+     * Renders the JSONP response of the latest version of the specified product, the current version of the client is
+     * the URI part after the specified path.
+     *
+     * @param context the specified context
+     * @param product the specified product
+     * @param path the specified path
+     * @throws IOException io exception
+     */
+    private void renderLatestVersion(final HTTPRequestContext context, final String product, final String path)
+            throws IOException {
+        context.setRenderer(new DoNothingRenderer());
 
-        final JSONObject jsonObject = new JSONObject();
+        final HttpServletRequest request = context.getRequest();
+        final HttpServletResponse response = context.getResponse();
 
-        final JSONRenderer renderer = new JSONRenderer();
-        context.setRenderer(renderer);
+        final String uri = request.getRequestURI();
+        final int index = uri.indexOf(path);
+        int from = -1 == index ? uri.length() : index + path.length();
+        if (from < uri.length() && '/' == uri.charAt(from)) {
+            from++;
+        }
+        final String currentVersion = uri.substring(from);
 
-        renderer.setCallback(callbackFuncName); // Sets JSONP
-        renderer.setJSONObject(jsonObject);
+        final byte[] content = versionRegistry.getLatestResponse(product, currentVersion,
+                request.getParameter("callback"));
+        if (null == content) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
 
-        String currentVersion = request.getRequestURI();
-        currentVersion = StringUtils.substringAfter(currentVersion, "/version/symphony/latest");
-        if (currentVersion.startsWith("/")) {
-            currentVersion = currentVersion.substring(1);
+            return;
         }
 
-        final String latestVersion = Rhythms.getLatestSymphonyVersion(currentVersion);
+        versionTelemetry.record(product, currentVersion, Requests.getRemoteAddr(request));
 
-        LOGGER.log(Level.DEBUG, "Version[client={0}, latest={1}]", new Object[]{currentVersion, latestVersion});
+        response.setContentType("application/javascript");
+        response.setCharacterEncoding("UTF-8");
+        response.setContentLength(content.length);
 
-        jsonObject.put("symphonyVersion", latestVersion);
-        jsonObject.put("symphonyDownload", Rhythms.LATEST_SYMPHONY_DL_URL);
+        final OutputStream outputStream = response.getOutputStream();
+        outputStream.write(content);
+        outputStream.flush();
     }
 }
@@ -15,6 +15,11 @@
  */
 package org.b3log.rhythm.service;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
@@ -25,14 +30,19 @@ import org.b3log.latke.Keys;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
 import org.b3log.latke.model.User;
+import org.b3log.latke.repository.CompositeFilter;
+import org.b3log.latke.repository.CompositeFilterOperator;
+import org.b3log.latke.repository.Filter;
 import org.b3log.latke.repository.FilterOperator;
 import org.b3log.latke.repository.PropertyFilter;
 import org.b3log.latke.repository.Query;
 import org.b3log.latke.repository.RepositoryException;
+import org.b3log.latke.repository.SortDirection;
 import org.b3log.latke.repository.Transaction;
+import org.b3log.latke.repository.jdbc.util.Connections;
 import org.b3log.latke.service.ServiceException;
 import org.b3log.latke.service.annotation.Service;
-import org.b3log.latke.util.Stopwatchs;
+import org.b3log.latke.util.CollectionUtils;
 import org.b3log.rhythm.model.Article;
 import org.b3log.rhythm.model.Blog;
 import org.b3log.rhythm.model.Common;
@@ -41,6 +51,7 @@ import org.b3log.rhythm.repository.ArticleRepository;
 import org.b3log.rhythm.repository.TagArticleRepository;
 import org.b3log.rhythm.repository.TagRepository;
 import org.b3log.rhythm.repository.UserRepository;
+import org.b3log.rhythm.util.Accessibilities;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -49,7 +60,7 @@ import org.json.JSONObject;
  * Article service.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.1.6, Mar 14, 2016
+ * @version 1.5.7.0, Oct 19, 2026
  * @since 0.1.5
  */
 @Service
@@ -85,9 +96,20 @@ public class ArticleService {
     private TagRepository tagRepository;
 
     /**
-     * Default article batch size.
+     * Broadcast recipient sampler.
      */
-    private static final int BATCH_SIZE = 50;
+    @Inject
+    private BroadcastRecipientSampler broadcastRecipientSampler;
+
+    /**
+     * Page size of scanning articles.
+     */
+    private static final int SCAN_PAGE_SIZE = 500;
+
+    /**
+     * Max number of articles removed in one bulk removal transaction.
+     */
+    private static final int REMOVE_CHUNK_SIZE = 100;
 
     /**
      * Tags the specified article with the specified tag titles.
@@ -192,120 +214,274 @@ public class ArticleService {
     }
 
     /**
-     * Gets articles randomly with the specified fetch size.
+     * Gets ids of articles which have been not accessible for at least the specified consecutive checks.
+     *
+     * <p>
+     * Scans all candidates page by page, so the whole backlog will be returned.
+     * </p>
      *
-     * @param fetchSize the specified fetch size
-     * @return a list of json objects, its size less or equal to the specified fetch size, returns an empty list if not
-     * found
+     * @param consecutiveFailures the specified consecutive failures
+     * @return a set of article ids, returns an empty set if not found
      */
-    public List<JSONObject> getArticlesRandomly(final int fetchSize) {
-        Stopwatchs.start("Gets Articles Randomly");
+    public Set<String> getArticleIdsByConsecutiveFailures(final int consecutiveFailures) {
+        final Set<String> ret = new HashSet<String>();
+
+        final List<Filter> filters = new ArrayList<Filter>();
+        filters.add(new PropertyFilter(Article.ARTICLE_ACCESSIBILITY_LAST_SC, FilterOperator.GREATER_THAN, 0));
+        filters.add(new PropertyFilter(Article.ARTICLE_ACCESSIBILITY_LAST_SC, FilterOperator.NOT_EQUAL,
+                HttpServletResponse.SC_OK));
+        filters.add(new PropertyFilter(Article.ARTICLE_ACCESSIBILITY_NOT_200_CNT, FilterOperator.GREATER_THAN_OR_EQUAL,
+                consecutiveFailures));
 
         try {
-            return articleRepository.getRandomly(fetchSize);
-        } catch (final RepositoryException e) {
-            LOGGER.log(Level.ERROR, "Gets articles ranomly failed", e);
+            int pageNum = 1;
+            JSONArray articles;
+            do {
+                final Query query = new Query().setFilter(new CompositeFilter(CompositeFilterOperator.AND, filters)).
+                        addSort(Keys.OBJECT_ID, SortDirection.ASCENDING).
+                        setCurrentPageNum(pageNum).setPageSize(SCAN_PAGE_SIZE).setPageCount(1).
+                        addProjection(Keys.OBJECT_ID, String.class).
+                        addProjection(Article.ARTICLE_ACCESSIBILITY_CHECK_CNT, Integer.class).
+                        addProjection(Article.ARTICLE_ACCESSIBILITY_HISTORY, Long.class);
+
+                articles = articleRepository.get(query).getJSONArray(Keys.RESULTS);
+                for (int i = 0; i < articles.length(); i++) {
+                    final JSONObject article = articles.getJSONObject(i);
+                    final long history = article.optLong(Article.ARTICLE_ACCESSIBILITY_HISTORY);
+                    final int checkCnt = article.optInt(Article.ARTICLE_ACCESSIBILITY_CHECK_CNT);
+
+                    if (Accessibilities.getConsecutiveFailures(history, checkCnt) >= consecutiveFailures) {
+                        ret.add(article.getString(Keys.OBJECT_ID));
+                    }
+                }
+
+                pageNum++;
+            } while (SCAN_PAGE_SIZE == articles.length());
 
-            return Collections.<JSONObject>emptyList();
-        } finally {
-            Stopwatchs.end();
+            LOGGER.log(Level.DEBUG, "Article Ids[{0}]", ret.toString());
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Gets article ids by consecutive failures [" + consecutiveFailures + "] failed", e);
         }
+
+        return ret;
     }
 
     /**
-     * Gets a list of articles specified by the given greater/less operation and the specified accessibility check
-     * count.
+     * Gets articles which are due to be checked, the most overdue first.
      *
-     * @param greaterOrLess the given greater/less operation, '>' or '<'
-     * @param checkCnt the specified accessibility check count
-     * @return a list of articles, returns an empty list if not found by the specified condition
+     * @param budget the specified budget, max number of articles to get
+     * @return a list of articles, returns an empty list if not found
+     * @see Accessibilities#getNextCheckTime(long, int, long)
      */
-    public Set<String> getArticleIdsByAccessibilityCheckCnt(final char greaterOrLess, final int checkCnt) {
-        final Set<String> ret = new HashSet<String>();
-
-        final FilterOperator operator = ('>' == greaterOrLess) ? FilterOperator.GREATER_THAN : FilterOperator.LESS_THAN;
-
-        final Query query = new Query().setFilter(
-                new PropertyFilter(Article.ARTICLE_ACCESSIBILITY_NOT_200_CNT, operator, checkCnt)).
-                setPageSize(BATCH_SIZE).setPageCount(1).
-                addProjection(Keys.OBJECT_ID, String.class);
+    public List<JSONObject> getArticlesToCheck(final int budget) {
+        final Query query = new Query().setFilter(new PropertyFilter(Article.ARTICLE_ACCESSIBILITY_NEXT_CHECK_TIME,
+                FilterOperator.LESS_THAN_OR_EQUAL, System.currentTimeMillis())).
+                addSort(Article.ARTICLE_ACCESSIBILITY_NEXT_CHECK_TIME, SortDirection.ASCENDING).
+                setPageSize(budget).setPageCount(1);
 
         try {
-            final JSONObject result = articleRepository.get(query);
-            final JSONArray articles = result.getJSONArray(Keys.RESULTS);
+            return CollectionUtils.jsonArrayToList(articleRepository.get(query).optJSONArray(Keys.RESULTS));
+        } catch (final RepositoryException e) {
+            LOGGER.log(Level.ERROR, "Gets articles to check failed", e);
 
-            for (int i = 0; i < articles.length(); i++) {
-                ret.add(articles.getJSONObject(i).getString(Keys.OBJECT_ID));
-            }
+            return Collections.emptyList();
+        }
+    }
 
-            LOGGER.log(Level.DEBUG, "Article Ids[{0}]", ret.toString());
-        } catch (final Exception e) {
-            LOGGER.log(Level.ERROR, "Gets article ids by accessibility check count[greaterOrLess=" + greaterOrLess
-                    + ", checkCnt=" + checkCnt + "] failed", e);
+    /**
+     * Records a check of the specified HTTP status code into the specified article and schedules its next check, does
+     * not persist it.
+     *
+     * @param article the specified article
+     * @param statusCode the specified HTTP status code
+     * @param checkTime the specified check time
+     * @see #updateAccessibilities(java.util.List)
+     */
+    public void recordAccessibility(final JSONObject article, final int statusCode, final long checkTime) {
+        final int checkCnt = article.optInt(Article.ARTICLE_ACCESSIBILITY_CHECK_CNT);
+        article.put(Article.ARTICLE_ACCESSIBILITY_CHECK_CNT, checkCnt + 1);
+
+        if (HttpServletResponse.SC_OK != statusCode) {
+            final int not200Cnt = article.optInt(Article.ARTICLE_ACCESSIBILITY_NOT_200_CNT);
+            article.put(Article.ARTICLE_ACCESSIBILITY_NOT_200_CNT, not200Cnt + 1);
         }
 
-        return ret;
+        final long history = Accessibilities.record(article.optLong(Article.ARTICLE_ACCESSIBILITY_HISTORY), statusCode);
+        article.put(Article.ARTICLE_ACCESSIBILITY_HISTORY, history);
+        article.put(Article.ARTICLE_ACCESSIBILITY_LAST_SC, statusCode);
+        article.put(Article.ARTICLE_ACCESSIBILITY_LAST_CHECK_TIME, checkTime);
+        article.put(Article.ARTICLE_ACCESSIBILITY_NEXT_CHECK_TIME,
+                Accessibilities.getNextCheckTime(history, checkCnt + 1, checkTime));
     }
 
     /**
-     * Updates the accessibility of the specified article.
+     * Defers the next check of the specified article to the specified time without recording a check, does not persist
+     * it.
      *
      * @param article the specified article
-     * @param statusCode the specified HTTP status code
+     * @param nextCheckTime the specified time
      */
-    public void updateAccessibility(final JSONObject article, final int statusCode) {
-        if (null == article) {
+    public void deferAccessibility(final JSONObject article, final long nextCheckTime) {
+        article.put(Article.ARTICLE_ACCESSIBILITY_NEXT_CHECK_TIME, nextCheckTime);
+    }
+
+    /**
+     * Updates the accessibility of the specified articles in one transaction.
+     *
+     * <p>
+     * Each article should have been {@link #recordAccessibility(org.json.JSONObject, int, long) recorded}.
+     * </p>
+     *
+     * @param articles the specified articles
+     */
+    public void updateAccessibilities(final List<JSONObject> articles) {
+        if (articles.isEmpty()) {
             return;
         }
 
         final Transaction transaction = articleRepository.beginTransaction();
 
         try {
-            final int checkCnt = article.optInt(Article.ARTICLE_ACCESSIBILITY_CHECK_CNT);
-            article.put(Article.ARTICLE_ACCESSIBILITY_CHECK_CNT, checkCnt + 1);
-
-            if (HttpServletResponse.SC_OK != statusCode) {
-                final int not200Cnt = article.optInt(Article.ARTICLE_ACCESSIBILITY_NOT_200_CNT);
-                article.put(Article.ARTICLE_ACCESSIBILITY_NOT_200_CNT, not200Cnt + 1);
+            for (final JSONObject article : articles) {
+                articleRepository.update(article.getString(Keys.OBJECT_ID), article);
             }
 
-            articleRepository.update(article.getString(Keys.OBJECT_ID), article);
-
             transaction.commit();
 
-            LOGGER.log(Level.INFO, "Updated accessibility of article[{0}]", article.toString());
+            LOGGER.log(Level.INFO, "Updated accessibility of [{0}] articles", articles.size());
         } catch (final Exception e) {
             if (transaction.isActive()) {
                 transaction.rollback();
             }
 
-            LOGGER.log(Level.ERROR, "Updates accessibility of article[" + article.toString() + "] failed", e);
+            LOGGER.log(Level.ERROR, "Updates accessibility of [" + articles.size() + "] articles failed", e);
         }
     }
 
     /**
-     * Removes an article specified by the given article id.
+     * Removes articles specified by the given article ids, including their tag-article relations and tag reference
+     * counts.
      *
-     * @param articleId the given article id
+     * <p>
+     * Articles are removed in chunks of {@value #REMOVE_CHUNK_SIZE} with set-based statements, one transaction per
+     * chunk, a failed chunk will be logged and skipped.
+     * </p>
+     *
+     * @param articleIds the given article ids
+     * @return number of removed articles
      */
-    public void removeArticle(final String articleId) {
-        final Transaction transaction = articleRepository.beginTransaction();
+    public int removeArticles(final Collection<String> articleIds) {
+        final List<String> ids = new ArrayList<String>(articleIds);
+        int ret = 0;
+
+        for (int i = 0; i < ids.size(); i += REMOVE_CHUNK_SIZE) {
+            final List<String> chunk = ids.subList(i, Math.min(i + REMOVE_CHUNK_SIZE, ids.size()));
+
+            try {
+                ret += removeArticlesChunk(chunk);
+            } catch (final SQLException e) {
+                LOGGER.log(Level.ERROR, "Removes articles " + chunk + " failed", e);
+            }
+        }
+
+        LOGGER.log(Level.INFO, "Removed [{0}] articles", ret);
 
+        return ret;
+    }
+
+    /**
+     * Removes articles specified by the given article ids in one transaction.
+     *
+     * @param articleIds the given article ids
+     * @return number of removed articles
+     * @throws SQLException sql exception
+     */
+    private int removeArticlesChunk(final List<String> articleIds) throws SQLException {
+        final String articleTable = articleRepository.getName();
+        final String tagTable = tagRepository.getName();
+        final String tagArticleTable = tagArticleRepository.getName();
+        final String tagId = Tag.TAG + "_" + Keys.OBJECT_ID;
+        final String articleId = Article.ARTICLE + "_" + Keys.OBJECT_ID;
+        final String in = getPlaceholders(articleIds.size());
+
+        final String decTagRefCountSql = "UPDATE `" + tagTable + "` SET `" + Tag.TAG_REFERENCE_COUNT + "` = `"
+                + Tag.TAG_REFERENCE_COUNT + "` - (SELECT COUNT(*) FROM `" + tagArticleTable + "` WHERE `"
+                + tagArticleTable + "`.`" + tagId + "` = `" + tagTable + "`.`" + Keys.OBJECT_ID + "` AND `"
+                + tagArticleTable + "`.`" + articleId + "` IN " + in + ") WHERE `" + Keys.OBJECT_ID + "` IN (SELECT `"
+                + tagId + "` FROM `" + tagArticleTable + "` WHERE `" + articleId + "` IN " + in + ")";
+        final String removeRelationsSql = "DELETE FROM `" + tagArticleTable + "` WHERE `" + articleId + "` IN " + in;
+        final String removeArticlesSql = "DELETE FROM `" + articleTable + "` WHERE `" + Keys.OBJECT_ID + "` IN " + in;
+
+        final Connection connection = Connections.getConnection();
+        final boolean autoCommit = connection.getAutoCommit();
         try {
-            articleRepository.remove(articleId);
-            decTagRefCount(articleId);
-            removeTagArticleRelations(articleId);
+            connection.setAutoCommit(false);
 
-            transaction.commit();
-        } catch (final Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
+            executeUpdate(connection, decTagRefCountSql, articleIds, 2);
+            executeUpdate(connection, removeRelationsSql, articleIds, 1);
+            final int ret = executeUpdate(connection, removeArticlesSql, articleIds, 1);
+
+            connection.commit();
+
+            return ret;
+        } catch (final SQLException e) {
+            connection.rollback();
+
+            throw e;
+        } finally {
+            try {
+                connection.setAutoCommit(autoCommit); // Returns the connection to the pool as it was taken
+            } finally {
+                connection.close();
             }
+        }
+    }
 
-            LOGGER.log(Level.ERROR, "Removes an article[id=" + articleId + "] failed", e);
+    /**
+     * Executes the specified update statement with the specified parameters.
+     *
+     * @param connection the specified connection
+     * @param sql the specified update statement
+     * @param params the specified parameters
+     * @param repeat the number of times the parameters occurs in the statement
+     * @return number of affected rows
+     * @throws SQLException sql exception
+     */
+    private static int executeUpdate(final Connection connection, final String sql, final List<String> params,
+            final int repeat) throws SQLException {
+        final PreparedStatement statement = connection.prepareStatement(sql);
+        try {
+            int index = 1;
+            for (int i = 0; i < repeat; i++) {
+                for (final String param : params) {
+                    statement.setString(index++, param);
+                }
+            }
+
+            return statement.executeUpdate();
+        } finally {
+            statement.close();
         }
     }
 
+    /**
+     * Gets a parenthesized placeholder list with the specified size, for example, "(?,?,?)".
+     *
+     * @param size the specified size
+     * @return placeholder list
+     */
+    private static String getPlaceholders(final int size) {
+        final StringBuilder ret = new StringBuilder("(");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                ret.append(',');
+            }
+            ret.append('?');
+        }
+
+        return ret.append(')').toString();
+    }
+
     /**
      * Adds the specified article.
      *
@@ -329,6 +505,10 @@ public class ArticleService {
         try {
             article.put(Article.ARTICLE_ACCESSIBILITY_CHECK_CNT, 0);
             article.put(Article.ARTICLE_ACCESSIBILITY_NOT_200_CNT, 0);
+            article.put(Article.ARTICLE_ACCESSIBILITY_HISTORY, 0L);
+            article.put(Article.ARTICLE_ACCESSIBILITY_LAST_SC, 0);
+            article.put(Article.ARTICLE_ACCESSIBILITY_LAST_CHECK_TIME, 0L);
+            article.put(Article.ARTICLE_ACCESSIBILITY_NEXT_CHECK_TIME, 0L);
 
             String articleTags = article.getString(Article.ARTICLE_TAGS_REF);
             articleTags = Tag.formatTags(articleTags);
@@ -341,9 +521,11 @@ public class ArticleService {
             final JSONArray tags = tag(tagTitles, article);
             addTagArticleRelation(tags, article);
 
-            updateRecentPostTime(article);
+            final JSONObject user = updateRecentPostTime(article);
 
             transaction.commit();
+
+            broadcastRecipientSampler.update(user);
         } catch (final Exception e) {
             if (transaction.isActive()) {
                 transaction.rollback();
@@ -369,8 +551,10 @@ public class ArticleService {
      *     "blogTitle": ""
      * }
      * </pre>
+     *
+     * @throws ServiceException if the article can not be updated
      */
-    public void updateByOriginalId(final JSONObject article) {
+    public void updateByOriginalId(final JSONObject article) throws ServiceException {
         final Transaction transaction = articleRepository.beginTransaction();
 
         final String originalId = article.optString(Article.ARTICLE_ORIGINAL_ID);
@@ -392,6 +576,12 @@ public class ArticleService {
 
             article.put(Article.ARTICLE_ACCESSIBILITY_CHECK_CNT, old.getInt(Article.ARTICLE_ACCESSIBILITY_CHECK_CNT));
             article.put(Article.ARTICLE_ACCESSIBILITY_NOT_200_CNT, old.getInt(Article.ARTICLE_ACCESSIBILITY_NOT_200_CNT));
+            article.put(Article.ARTICLE_ACCESSIBILITY_HISTORY, old.optLong(Article.ARTICLE_ACCESSIBILITY_HISTORY));
+            article.put(Article.ARTICLE_ACCESSIBILITY_LAST_SC, old.optInt(Article.ARTICLE_ACCESSIBILITY_LAST_SC));
+            article.put(Article.ARTICLE_ACCESSIBILITY_LAST_CHECK_TIME,
+                    old.optLong(Article.ARTICLE_ACCESSIBILITY_LAST_CHECK_TIME));
+            article.put(Article.ARTICLE_ACCESSIBILITY_NEXT_CHECK_TIME,
+                    old.optLong(Article.ARTICLE_ACCESSIBILITY_NEXT_CHECK_TIME));
 
             String articleTags = article.getString(Article.ARTICLE_TAGS_REF);
             articleTags = Tag.formatTags(articleTags);
@@ -405,16 +595,24 @@ public class ArticleService {
                 transaction.rollback();
             }
             LOGGER.log(Level.ERROR, "Updates article by original id [" + originalId + "] failed", e);
+
+            throw new ServiceException(e);
         }
     }
 
     /**
      * Updates the author's recent post time with the specified article.
      *
+     * <p>
+     * A new author has no B3 key hash, it is recorded once Symphony accepts an article of the author, see
+     * {@link UserService#recordB3Key(java.lang.String, java.lang.String)}.
+     * </p>
+     *
      * @param article the specified article
+     * @return the updated author
      * @throws ServiceException service exception
      */
-    private void updateRecentPostTime(final JSONObject article) throws ServiceException {
+    private JSONObject updateRecentPostTime(final JSONObject article) throws ServiceException {
         final long currentTimeMillis = System.currentTimeMillis();
 
         try {
@@ -430,6 +628,9 @@ public class ArticleService {
                 user.put(User.USER_EMAIL, authorEmail);
                 user.put(Common.RECENT_POST_TIME, currentTimeMillis);
                 user.put(User.USER_URL, authorURL);
+                user.put(Common.USER_ACCESSIBILITY_CHECK_CNT, 0);
+                user.put(Common.USER_ACCESSIBILITY_NEXT_CHECK_TIME, 0L);
+                user.put(Common.USER_B3_KEY_HASH, "");
 
                 userRepository.add(user);
             } else {
@@ -438,6 +639,8 @@ public class ArticleService {
 
                 userRepository.update(user.getString(Keys.OBJECT_ID), user);
             }
+
+            return user;
         } catch (final Exception e) {
             LOGGER.log(Level.ERROR, "Updates recent post time of failed", e);
 
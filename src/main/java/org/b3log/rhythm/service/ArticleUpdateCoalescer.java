@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.service;
+
+import java.util.List;
+import javax.inject.Inject;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.service.ServiceException;
+import org.b3log.latke.service.annotation.Service;
+import org.b3log.rhythm.event.EventDispatcher;
+import org.b3log.rhythm.event.EventTypes;
+import org.b3log.rhythm.event.symphony.ArticleEvent;
+import org.b3log.rhythm.model.Article;
+import org.b3log.rhythm.util.Debouncer;
+import org.b3log.rhythm.util.Rhythms;
+import org.json.JSONObject;
+
+/**
+ * Article update coalescer, persists the updates of articles immediately and debounces their forwards to Symphony of
+ * the same article (by original id) from Solo autosaves and re-publishes.
+ *
+ * <p>
+ * A forward is held until no newer update of the same article comes in "articleUpdate.window" milliseconds, but never
+ * longer than "articleUpdate.maxDelay" milliseconds since the first held forward. Only the latest forward is
+ * dispatched, then it is durable in the {@link org.b3log.rhythm.outbox.Outbox outbox}. Held forwards are dispatched on
+ * shutdown, a crash loses at most the forwards held in the max delay, and Symphony gets the next update of the
+ * article. An update not to be forwarded drops the held forward of its article, so that an older version is not sent
+ * after the newer one.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.2.1.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+@Service
+public class ArticleUpdateCoalescer {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ArticleUpdateCoalescer.class.getName());
+
+    /**
+     * Debounce window in milliseconds.
+     */
+    private static final long WINDOW = Long.valueOf(Rhythms.CFG.getString("articleUpdate.window"));
+
+    /**
+     * Max delay in milliseconds.
+     */
+    private static final long MAX_DELAY = Long.valueOf(Rhythms.CFG.getString("articleUpdate.maxDelay"));
+
+    /**
+     * Flush check interval in milliseconds.
+     */
+    private static final long TICK = Math.max(50, Math.min(WINDOW, MAX_DELAY) / 4);
+
+    /**
+     * Article service.
+     */
+    @Inject
+    private ArticleService articleService;
+
+    /**
+     * Event dispatcher.
+     */
+    @Inject
+    private EventDispatcher eventDispatcher;
+
+    /**
+     * Held forwards, &lt;original id, payload of event {@link EventTypes#UPDATE_ARTICLE_TO_SYMPHONY}&gt;.
+     */
+    private final Debouncer<String, ArticleEvent> forwards = new Debouncer<String, ArticleEvent>(WINDOW, MAX_DELAY);
+
+    /**
+     * Coalesced (skipped) forwards count.
+     */
+    private volatile long coalesced;
+
+    /**
+     * Flusher thread.
+     */
+    private Thread flusher;
+
+    /**
+     * Whether this coalescer is running.
+     */
+    private volatile boolean running;
+
+    /**
+     * Submits an update of an article, persists it and holds its forward, or drops the held forward of the article if
+     * the update should not be forwarded.
+     *
+     * @param article the specified article to update by its original id
+     * @param forward the specified payload of event {@link EventTypes#UPDATE_ARTICLE_TO_SYMPHONY}, {@code null} if the
+     * update should not be forwarded to Symphony
+     * @throws ServiceException if the update can not be persisted, its forward is not held
+     */
+    public void submit(final JSONObject article, final ArticleEvent forward) throws ServiceException {
+        articleService.updateByOriginalId(article);
+
+        final String originalId = article.optString(Article.ARTICLE_ORIGINAL_ID);
+        if (null == forward) {
+            if (null != forwards.remove(originalId)) {
+                coalesced++;
+            }
+
+            return;
+        }
+
+        if (!running) {
+            forward(forward);
+
+            return;
+        }
+
+        if (forwards.offer(originalId, forward, System.currentTimeMillis())) {
+            coalesced++;
+        }
+    }
+
+    /**
+     * Starts the flusher thread.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        running = true;
+        flusher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running) {
+                    try {
+                        Thread.sleep(TICK);
+                    } catch (final InterruptedException e) {
+                        break;
+                    }
+
+                    forward(forwards.poll(System.currentTimeMillis()));
+                }
+            }
+        }, "ArticleUpdateCoalescer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Stops the flusher thread and dispatches all held forwards.
+     */
+    public synchronized void shutdown() {
+        running = false;
+
+        if (null != flusher) {
+            flusher.interrupt();
+            try {
+                flusher.join(TICK * 2);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        forward(forwards.drain());
+
+        LOGGER.log(Level.INFO, "Stopped article update coalescer [coalesced={0}]", coalesced);
+    }
+
+    /**
+     * Dispatches the specified forwards.
+     *
+     * @param held the specified forwards
+     */
+    private void forward(final List<ArticleEvent> held) {
+        for (final ArticleEvent forward : held) {
+            forward(forward);
+        }
+    }
+
+    /**
+     * Dispatches the specified forward.
+     *
+     * @param forward the specified forward
+     */
+    private void forward(final ArticleEvent forward) {
+        try {
+            eventDispatcher.dispatch(EventTypes.UPDATE_ARTICLE_TO_SYMPHONY, forward);
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Forwards article update failed", e);
+        }
+    }
+}
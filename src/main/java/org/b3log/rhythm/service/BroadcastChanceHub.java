@@ -0,0 +1,561 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.service.annotation.Service;
+import org.b3log.rhythm.model.BroadcastChance;
+import org.b3log.rhythm.util.Rhythms;
+import org.json.JSONObject;
+
+/**
+ * Broadcast chance hub, pushes broadcast chances to the clients subscribed to the
+ * {@link org.b3log.rhythm.processor.BroadcastChanceStreamServlet broadcast chance stream}.
+ *
+ * <p>
+ * A subscriber is an async (Servlet 3) server-sent events response keyed by the client email, it holds no thread while
+ * idle. The heartbeat thread sends a comment every "broadcastChance.streamHeartbeat" milliseconds to keep proxies from
+ * closing idle streams and to find dead subscribers. A stream ends after "broadcastChance.streamTimeout" milliseconds,
+ * the client reconnects after the "retry" delay sent on subscribing.
+ * </p>
+ *
+ * <p>
+ * The Servlet 3.0 API has no non-blocking writes, so events are queued per subscriber (at most {@value #MAX_QUEUED})
+ * and written by the "broadcastChance.streamWriters" writer threads, one write of a subscriber at a time and without
+ * holding its lock. A subscriber whose queue overflows or whose write takes longer than
+ * "broadcastChance.streamSendTimeout" milliseconds is dropped, so a client with a full TCP window can not stall the
+ * heartbeats and pushes of the others; its chances are sent to its client host instead.
+ * </p>
+ *
+ * <p>
+ * A chance is pushed when it is generated or reassigned, or when its client subscribes, the chance is sent to its
+ * client host as before only if the client is not subscribed or the push fails.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+@Service
+public class BroadcastChanceHub {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(BroadcastChanceHub.class.getName());
+
+    /**
+     * Heartbeat interval in milliseconds.
+     */
+    private static final long HEARTBEAT = Long.valueOf(Rhythms.CFG.getString("broadcastChance.streamHeartbeat"));
+
+    /**
+     * Stream timeout in milliseconds.
+     */
+    private static final long STREAM_TIMEOUT = Long.valueOf(Rhythms.CFG.getString("broadcastChance.streamTimeout"));
+
+    /**
+     * Send timeout in milliseconds.
+     */
+    private static final long SEND_TIMEOUT
+            = Long.valueOf(Rhythms.CFG.getString("broadcastChance.streamSendTimeout"));
+
+    /**
+     * Max queued events of a subscriber.
+     */
+    private static final int MAX_QUEUED = 8;
+
+    /**
+     * Writer executor.
+     */
+    private static final ExecutorService WRITER = Executors.newFixedThreadPool(
+            Integer.valueOf(Rhythms.CFG.getString("broadcastChance.streamWriters")), new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread ret = new Thread(runnable, "BroadcastChanceWriter-" + count.incrementAndGet());
+            ret.setDaemon(true);
+
+            return ret;
+        }
+    });
+
+    /**
+     * UTF-8 charset.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Reconnect delay of clients in milliseconds.
+     */
+    private static final long RETRY = 5000;
+
+    /**
+     * Heartbeat event.
+     */
+    private static final byte[] HEARTBEAT_EVENT = ": ping\n\n".getBytes(UTF8);
+
+    /**
+     * Broadcast chance registry.
+     */
+    @Inject
+    private BroadcastChanceRegistry broadcastChanceRegistry;
+
+    /**
+     * Subscribers, &lt;email, subscriber&gt;.
+     */
+    private final ConcurrentMap<String, Subscriber> subscribers = new ConcurrentHashMap<String, Subscriber>();
+
+    /**
+     * Subscriptions count.
+     */
+    private final AtomicLong subscriptions = new AtomicLong();
+
+    /**
+     * Pushed chances count.
+     */
+    private final AtomicLong pushed = new AtomicLong();
+
+    /**
+     * Dropped slow subscribers count.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Heartbeat thread.
+     */
+    private Thread heartbeat;
+
+    /**
+     * Whether this hub is running.
+     */
+    private volatile boolean running;
+
+    /**
+     * Subscribes the specified email with the specified async context of a server-sent events response, pushes the
+     * undelivered chance of the email if any.
+     *
+     * @param email the specified email
+     * @param asyncContext the specified async context
+     */
+    public void subscribe(final String email, final AsyncContext asyncContext) {
+        final Subscriber subscriber = new Subscriber(email, asyncContext);
+        asyncContext.setTimeout(STREAM_TIMEOUT);
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(final AsyncEvent event) {
+                unsubscribe(subscriber);
+            }
+
+            @Override
+            public void onTimeout(final AsyncEvent event) {
+                subscriber.close();
+            }
+
+            @Override
+            public void onError(final AsyncEvent event) {
+                subscriber.close();
+            }
+
+            @Override
+            public void onStartAsync(final AsyncEvent event) {
+            }
+        });
+
+        if (null == subscriber.send(("retry: " + RETRY + "\n\n").getBytes(UTF8))) {
+            return;
+        }
+
+        final Subscriber replaced = subscribers.put(email, subscriber);
+        if (null != replaced) {
+            replaced.close();
+        }
+        subscriptions.incrementAndGet();
+
+        final JSONObject broadcastChance = broadcastChanceRegistry.get(email);
+        if (null != broadcastChance
+                && !BroadcastChanceRegistry.STATUS_DELIVERED.equals(broadcastChanceRegistry.getStatus(email))
+                && push(broadcastChance)) {
+            broadcastChanceRegistry.setStatus(email, BroadcastChanceRegistry.STATUS_DELIVERED);
+        }
+    }
+
+    /**
+     * Pushes the specified broadcast chance to its client if subscribed.
+     *
+     * @param broadcastChance the specified broadcast chance
+     * @return {@code true} if pushed, returns {@code false} if the client is not subscribed or the push failed
+     */
+    public boolean push(final JSONObject broadcastChance) {
+        final String email = broadcastChance.optString(BroadcastChance.BROADCAST_CHANCE_EMAIL);
+        final Subscriber subscriber = subscribers.get(email);
+        if (null == subscriber) {
+            return false;
+        }
+
+        final long expiration = broadcastChance.optLong(BroadcastChance.BROADCAST_CHANCE_POST_TIME)
+                + broadcastChance.optLong(BroadcastChance.BROADCAST_CHANCE_CYCLE_TIME);
+        final String event = "event: chance\ndata: " + new JSONObject().put("time", expiration) + "\n\n";
+        final Send send = subscriber.send(event.getBytes(UTF8));
+        if (null == send || !send.await()) {
+            return false;
+        }
+
+        pushed.incrementAndGet();
+
+        LOGGER.log(Level.INFO, "Pushed a broadcast chance to client[email={0}]", email);
+
+        return true;
+    }
+
+    /**
+     * Starts the heartbeat thread.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        running = true;
+        heartbeat = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long lastHeartbeatTime = System.currentTimeMillis();
+
+                while (running) {
+                    try {
+                        Thread.sleep(Math.min(HEARTBEAT, SEND_TIMEOUT));
+                    } catch (final InterruptedException e) {
+                        break;
+                    }
+
+                    final long now = System.currentTimeMillis();
+                    final boolean beat = now - lastHeartbeatTime >= HEARTBEAT;
+                    if (beat) {
+                        lastHeartbeatTime = now;
+                    }
+
+                    for (final Subscriber subscriber : subscribers.values()) {
+                        if (subscriber.isStalled(now)) {
+                            subscriber.drop();
+                        } else if (beat) {
+                            subscriber.send(HEARTBEAT_EVENT);
+                        }
+                    }
+                }
+            }
+        }, "BroadcastChanceHub");
+        heartbeat.setDaemon(true);
+        heartbeat.start();
+    }
+
+    /**
+     * Stops the heartbeat thread and closes all subscribers.
+     */
+    public synchronized void shutdown() {
+        running = false;
+
+        if (null != heartbeat) {
+            heartbeat.interrupt();
+        }
+
+        for (final Subscriber subscriber : subscribers.values()) {
+            subscriber.close();
+        }
+
+        LOGGER.log(Level.INFO, "Stopped broadcast chance hub [subscriptions={0}, pushed={1}]",
+                new Object[]{subscriptions.get(), pushed.get()});
+    }
+
+    /**
+     * Gets the statistics.
+     *
+     * @return for example,
+     * <pre>
+     * {
+     *     "subscribers": 1200,
+     *     "subscriptions": 35000,
+     *     "pushed": 80,
+     *     "dropped": 2 // slow subscribers
+     * }
+     * </pre>
+     */
+    public JSONObject getStats() {
+        final JSONObject ret = new JSONObject();
+        ret.put("subscribers", subscribers.size());
+        ret.put("subscriptions", subscriptions.get());
+        ret.put("pushed", pushed.get());
+        ret.put("dropped", dropped.get());
+
+        return ret;
+    }
+
+    /**
+     * Removes the specified subscriber.
+     *
+     * @param subscriber the specified subscriber
+     */
+    private void unsubscribe(final Subscriber subscriber) {
+        subscribers.remove(subscriber.email, subscriber);
+    }
+
+    /**
+     * A queued event.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 19, 2026
+     */
+    private static final class Send {
+
+        /**
+         * Event.
+         */
+        private final byte[] event;
+
+        /**
+         * Counted down when the event is written or discarded.
+         */
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        /**
+         * Whether the event is written.
+         */
+        private volatile boolean written;
+
+        /**
+         * Constructs a send of the specified event.
+         *
+         * @param event the specified event
+         */
+        private Send(final byte[] event) {
+            this.event = event;
+        }
+
+        /**
+         * Waits at most the send timeout for the event to be written.
+         *
+         * @return {@code true} if written, returns {@code false} otherwise
+         */
+        private boolean await() {
+            try {
+                return done.await(SEND_TIMEOUT, TimeUnit.MILLISECONDS) && written;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                return false;
+            }
+        }
+
+        /**
+         * Completes this send.
+         *
+         * @param written whether the event is written
+         */
+        private void complete(final boolean written) {
+            this.written = written;
+            done.countDown();
+        }
+    }
+
+    /**
+     * A subscriber.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.1.0.0, Oct 19, 2026
+     */
+    private final class Subscriber implements Runnable {
+
+        /**
+         * Email.
+         */
+        private final String email;
+
+        /**
+         * Async context.
+         */
+        private final AsyncContext asyncContext;
+
+        /**
+         * Queued events, guarded by this.
+         */
+        private final Deque<Send> queue = new ArrayDeque<Send>();
+
+        /**
+         * Whether a writer is draining the queue, guarded by this.
+         */
+        private boolean draining;
+
+        /**
+         * Start time of the write in progress, 0 if none.
+         */
+        private volatile long writeStartTime;
+
+        /**
+         * Whether this subscriber is closed, guarded by this.
+         */
+        private boolean closed;
+
+        /**
+         * Constructs a subscriber with the specified email and async context.
+         *
+         * @param email the specified email
+         * @param asyncContext the specified async context
+         */
+        private Subscriber(final String email, final AsyncContext asyncContext) {
+            this.email = email;
+            this.asyncContext = asyncContext;
+        }
+
+        /**
+         * Queues the specified event, drops this subscriber if its queue is full.
+         *
+         * @param event the specified event
+         * @return send to {@link Send#await() await}, returns {@code null} if this subscriber is closed or dropped
+         */
+        private Send send(final byte[] event) {
+            final Send ret = new Send(event);
+
+            synchronized (this) {
+                if (closed) {
+                    return null;
+                }
+
+                if (queue.size() < MAX_QUEUED) {
+                    queue.add(ret);
+
+                    if (draining) {
+                        return ret;
+                    }
+
+                    draining = true;
+                    try {
+                        WRITER.execute(this);
+
+                        return ret;
+                    } catch (final RejectedExecutionException e) {
+                        draining = false;
+                    }
+                }
+            }
+
+            drop();
+
+            return null;
+        }
+
+        /**
+         * Writes the queued events, one at a time and without holding the lock.
+         */
+        @Override
+        public void run() {
+            while (true) {
+                final Send send;
+                synchronized (this) {
+                    send = queue.poll();
+                    if (null == send) {
+                        draining = false;
+
+                        return;
+                    }
+                }
+
+                writeStartTime = System.currentTimeMillis();
+                try {
+                    final OutputStream outputStream = asyncContext.getResponse().getOutputStream();
+                    outputStream.write(send.event);
+                    outputStream.flush();
+                    send.complete(true);
+                } catch (final IOException | IllegalStateException e) {
+                    LOGGER.log(Level.DEBUG, "Sends to subscriber [email={0}] failed [msg={1}]",
+                            new Object[]{email, e.getMessage()});
+                    send.complete(false);
+                    close();
+                } finally {
+                    writeStartTime = 0;
+                }
+            }
+        }
+
+        /**
+         * Determines whether the write in progress has taken longer than the send timeout at the specified time.
+         *
+         * @param now the specified time
+         * @return {@code true} if it has, returns {@code false} otherwise
+         */
+        private boolean isStalled(final long now) {
+            final long start = writeStartTime;
+
+            return 0 != start && now - start > SEND_TIMEOUT;
+        }
+
+        /**
+         * Drops this slow subscriber.
+         */
+        private void drop() {
+            dropped.incrementAndGet();
+
+            LOGGER.log(Level.WARN, "Dropped slow subscriber [email={0}]", email);
+
+            close();
+        }
+
+        /**
+         * Closes this subscriber, discards the queued events.
+         */
+        private void close() {
+            unsubscribe(this);
+
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+
+                closed = true;
+                for (final Send send : queue) {
+                    send.complete(false);
+                }
+                queue.clear();
+            }
+
+            try {
+                asyncContext.complete();
+            } catch (final IllegalStateException e) {
+                // Completed already
+            }
+        }
+    }
+}
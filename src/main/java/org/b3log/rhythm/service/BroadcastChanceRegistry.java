@@ -0,0 +1,563 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.inject.Inject;
+import org.b3log.latke.Keys;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.repository.Query;
+import org.b3log.latke.repository.Transaction;
+import org.b3log.latke.service.annotation.Service;
+import org.b3log.rhythm.model.BroadcastChance;
+import org.b3log.rhythm.repository.BroadcastChanceRepository;
+import org.b3log.rhythm.util.Rhythms;
+import org.b3log.rhythm.util.TimingWheel;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Broadcast chance registry, the authoritative in-memory broadcast chances keyed by email.
+ *
+ * <p>
+ * Chances expire by a {@link TimingWheel timing wheel} advanced every "broadcastChance.tick" milliseconds, so neither
+ * a chance check nor the expiry queries the database. The broadcast chance table is only a write-behind snapshot for
+ * restarts: additions and removals are flushed in one transaction every "broadcastChance.flushInterval" milliseconds
+ * and on shutdown, and the snapshot is loaded on startup.
+ * </p>
+ *
+ * <p>
+ * Each chance has a delivery status in memory, a loaded chance is {@link #STATUS_PENDING pending} again.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.1.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+@Service
+public class BroadcastChanceRegistry {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(BroadcastChanceRegistry.class.getName());
+
+    /**
+     * Delivery status - pending, the chance is not sent to its client yet.
+     */
+    public static final String STATUS_PENDING = "pending";
+
+    /**
+     * Delivery status - delivered, the client accepted the chance.
+     */
+    public static final String STATUS_DELIVERED = "delivered";
+
+    /**
+     * Delivery status - failed, the client did not accept the chance.
+     */
+    public static final String STATUS_FAILED = "failed";
+
+    /**
+     * Tick of the timing wheel in milliseconds.
+     */
+    private static final long TICK = Long.valueOf(Rhythms.CFG.getString("broadcastChance.tick"));
+
+    /**
+     * Size of the timing wheel.
+     */
+    private static final int WHEEL_SIZE = Integer.valueOf(Rhythms.CFG.getString("broadcastChance.wheelSize"));
+
+    /**
+     * Write-behind flush interval in milliseconds.
+     */
+    private static final long FLUSH_INTERVAL = Long.valueOf(Rhythms.CFG.getString("broadcastChance.flushInterval"));
+
+    /**
+     * Broadcast chance repository.
+     */
+    @Inject
+    private BroadcastChanceRepository broadcastChanceRepository;
+
+    /**
+     * Chances, &lt;email, chance&gt;.
+     */
+    private final ConcurrentMap<String, Chance> chances = new ConcurrentHashMap<String, Chance>();
+
+    /**
+     * Expiry timing wheel of the chances, keyed by email.
+     */
+    private final TimingWheel<String> wheel = new TimingWheel<String>(TICK, WHEEL_SIZE, System.currentTimeMillis());
+
+    /**
+     * Chances to add to the snapshot, &lt;email, chance&gt;, guarded by itself.
+     */
+    private final Map<String, Chance> pendingAdds = new LinkedHashMap<String, Chance>();
+
+    /**
+     * Ids of the chances to remove from the snapshot, guarded by {@link #pendingAdds}.
+     */
+    private final List<String> pendingRemoves = new ArrayList<String>();
+
+    /**
+     * Ticker thread.
+     */
+    private Thread ticker;
+
+    /**
+     * Whether this registry is running.
+     */
+    private volatile boolean running;
+
+    /**
+     * Determines whether the specified email has an active broadcast chance.
+     *
+     * @param email the specified email
+     * @return {@code true} if it has, returns {@code false} otherwise
+     */
+    public boolean has(final String email) {
+        final Chance chance = chances.get(email);
+
+        return null != chance && chance.expiration > System.currentTimeMillis();
+    }
+
+    /**
+     * Adds the specified broadcast chance, replaces the chance of the same email if any.
+     *
+     * @param broadcastChance the specified broadcast chance, for example,
+     * <pre>
+     * {
+     *     "broadcastChanceHost": "",
+     *     "broadcastChanceEmail": "",
+     *     "broadcastChancePostTime": long,
+     *     "broadcastChanceCycleTime": long
+     * }
+     * </pre>
+     */
+    public void add(final JSONObject broadcastChance) {
+        final Chance chance = new Chance(broadcastChance, null);
+        chance.timeout = wheel.schedule(chance.email, chance.expiration);
+
+        final Chance replaced = chances.put(chance.email, chance);
+        synchronized (pendingAdds) {
+            if (null != replaced) {
+                wheel.cancel(replaced.timeout);
+                forget(replaced);
+            }
+
+            pendingAdds.put(chance.email, chance);
+        }
+    }
+
+    /**
+     * Removes the broadcast chance of the specified email.
+     *
+     * @param email the specified email
+     * @return {@code true} if removed, returns {@code false} if the email has no chance
+     */
+    public boolean remove(final String email) {
+        final Chance chance = chances.remove(email);
+        if (null == chance) {
+            return false;
+        }
+
+        wheel.cancel(chance.timeout);
+        synchronized (pendingAdds) {
+            forget(chance);
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the active broadcast chance of the specified email.
+     *
+     * @param email the specified email
+     * @return broadcast chance, returns {@code null} if the email has no active chance
+     */
+    public JSONObject get(final String email) {
+        final Chance chance = chances.get(email);
+
+        return null != chance && chance.expiration > System.currentTimeMillis() ? chance.broadcastChance : null;
+    }
+
+    /**
+     * Gets the number of the broadcast chances.
+     *
+     * @return number of the broadcast chances
+     */
+    public int size() {
+        return chances.size();
+    }
+
+    /**
+     * Gets all broadcast chances.
+     *
+     * @return broadcast chances, returns an empty list if not found
+     */
+    public List<JSONObject> getAll() {
+        final List<JSONObject> ret = new ArrayList<JSONObject>(chances.size());
+        for (final Chance chance : chances.values()) {
+            ret.add(chance.broadcastChance);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the active broadcast chances which are not delivered yet.
+     *
+     * @return broadcast chances, returns an empty list if not found
+     */
+    public List<JSONObject> getUndelivered() {
+        final List<JSONObject> ret = new ArrayList<JSONObject>();
+        final long now = System.currentTimeMillis();
+        for (final Chance chance : chances.values()) {
+            if (!STATUS_DELIVERED.equals(chance.status) && chance.expiration > now) {
+                ret.add(chance.broadcastChance);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Sets the delivery status of the broadcast chance of the specified email.
+     *
+     * @param email the specified email
+     * @param status the specified status, {@link #STATUS_PENDING}, {@link #STATUS_DELIVERED} or
+     * {@link #STATUS_FAILED}
+     */
+    public void setStatus(final String email, final String status) {
+        final Chance chance = chances.get(email);
+        if (null != chance) {
+            chance.status = status;
+        }
+    }
+
+    /**
+     * Gets the delivery status of the broadcast chance of the specified email.
+     *
+     * @param email the specified email
+     * @return status, returns {@code null} if the email has no chance
+     */
+    public String getStatus(final String email) {
+        final Chance chance = chances.get(email);
+
+        return null == chance ? null : chance.status;
+    }
+
+    /**
+     * Gets the statistics.
+     *
+     * @return for example,
+     * <pre>
+     * {
+     *     "pending": 2,
+     *     "delivered": 7,
+     *     "failed": 1
+     * }
+     * </pre>
+     */
+    public JSONObject getStats() {
+        int pending = 0;
+        int delivered = 0;
+        int failed = 0;
+        for (final Chance chance : chances.values()) {
+            final String status = chance.status;
+            if (STATUS_DELIVERED.equals(status)) {
+                delivered++;
+            } else if (STATUS_FAILED.equals(status)) {
+                failed++;
+            } else {
+                pending++;
+            }
+        }
+
+        final JSONObject ret = new JSONObject();
+        ret.put(STATUS_PENDING, pending);
+        ret.put(STATUS_DELIVERED, delivered);
+        ret.put(STATUS_FAILED, failed);
+
+        return ret;
+    }
+
+    /**
+     * Loads the snapshot and starts the ticker thread.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        load();
+
+        running = true;
+        ticker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long lastFlushTime = System.currentTimeMillis();
+
+                while (running) {
+                    try {
+                        Thread.sleep(TICK);
+                    } catch (final InterruptedException e) {
+                        break;
+                    }
+
+                    final long now = System.currentTimeMillis();
+                    expire(now);
+
+                    if (now - lastFlushTime >= FLUSH_INTERVAL) {
+                        flush();
+                        lastFlushTime = now;
+                    }
+                }
+            }
+        }, "BroadcastChanceRegistry");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    /**
+     * Stops the ticker thread and flushes the snapshot.
+     */
+    public synchronized void shutdown() {
+        running = false;
+
+        if (null != ticker) {
+            ticker.interrupt();
+            try {
+                ticker.join(TICK * 2);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        flush();
+
+        LOGGER.log(Level.INFO, "Stopped broadcast chance registry [chances={0}]", chances.size());
+    }
+
+    /**
+     * Removes the chances expired at the specified time.
+     *
+     * @param now the specified time
+     */
+    private void expire(final long now) {
+        for (final String email : wheel.advance(now)) {
+            final Chance chance = chances.get(email);
+            if (null == chance || chance.expiration > now || !chances.remove(email, chance)) {
+                continue;
+            }
+
+            synchronized (pendingAdds) {
+                forget(chance);
+            }
+
+            LOGGER.log(Level.INFO, "Expired broadcast chance [host={0}]",
+                    chance.broadcastChance.optString(BroadcastChance.BROADCAST_CHANCE_HOST));
+        }
+    }
+
+    /**
+     * Forgets the specified chance in the snapshot, the caller must hold the lock of {@link #pendingAdds}.
+     *
+     * <p>
+     * A chance being flushed has neither a pending addition nor an id, it is removed by {@link #flush()} after its id
+     * is assigned.
+     * </p>
+     *
+     * @param chance the specified chance
+     */
+    private void forget(final Chance chance) {
+        if (pendingAdds.get(chance.email) == chance) {
+            pendingAdds.remove(chance.email);
+        } else if (null != chance.id) {
+            pendingRemoves.add(chance.id);
+        }
+    }
+
+    /**
+     * Loads the snapshot, the expired chances in it are removed on the next flush.
+     */
+    private void load() {
+        final long now = System.currentTimeMillis();
+
+        try {
+            final JSONObject result = broadcastChanceRepository.get(new Query().setPageCount(1));
+            final JSONArray array = result.getJSONArray(Keys.RESULTS);
+            synchronized (pendingAdds) {
+                for (int i = 0; i < array.length(); i++) {
+                    final JSONObject broadcastChance = array.getJSONObject(i);
+                    final Chance chance = new Chance(broadcastChance, broadcastChance.getString(Keys.OBJECT_ID));
+                    if (chance.expiration <= now) {
+                        pendingRemoves.add(chance.id);
+
+                        continue;
+                    }
+
+                    final Chance existing = chances.get(chance.email);
+                    if (null != existing) { // Keeps the one expires later
+                        final Chance stale = existing.expiration >= chance.expiration ? chance : existing;
+                        pendingRemoves.add(stale.id);
+                        if (stale == chance) {
+                            continue;
+                        }
+
+                        wheel.cancel(existing.timeout);
+                    }
+
+                    chance.timeout = wheel.schedule(chance.email, chance.expiration);
+                    chances.put(chance.email, chance);
+                }
+            }
+
+            LOGGER.log(Level.INFO, "Loaded broadcast chances [active={0}, expired={1}]",
+                    new Object[]{chances.size(), pendingRemoves.size()});
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Loads broadcast chances failed", e);
+        }
+    }
+
+    /**
+     * Flushes the pending additions and removals to the snapshot in one transaction.
+     */
+    private void flush() {
+        final List<Chance> adds;
+        final List<String> removes;
+        synchronized (pendingAdds) {
+            if (pendingAdds.isEmpty() && pendingRemoves.isEmpty()) {
+                return;
+            }
+
+            adds = new ArrayList<Chance>(pendingAdds.values());
+            removes = new ArrayList<String>(pendingRemoves);
+            pendingAdds.clear();
+            pendingRemoves.clear();
+        }
+
+        final List<String> ids = new ArrayList<String>(adds.size());
+        final Transaction transaction = broadcastChanceRepository.beginTransaction();
+        try {
+            for (final String id : removes) {
+                broadcastChanceRepository.remove(id);
+            }
+
+            for (final Chance chance : adds) {
+                ids.add(broadcastChanceRepository.add(new JSONObject(chance.broadcastChance,
+                        JSONObject.getNames(chance.broadcastChance))));
+            }
+
+            transaction.commit();
+        } catch (final Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            LOGGER.log(Level.ERROR, "Flushes broadcast chances failed, retries on the next flush", e);
+
+            synchronized (pendingAdds) {
+                pendingRemoves.addAll(removes);
+                for (final Chance chance : adds) {
+                    if (chances.get(chance.email) == chance && !pendingAdds.containsKey(chance.email)) {
+                        pendingAdds.put(chance.email, chance);
+                    }
+                }
+            }
+
+            return;
+        }
+
+        synchronized (pendingAdds) {
+            for (int i = 0; i < adds.size(); i++) {
+                final Chance chance = adds.get(i);
+                chance.id = ids.get(i);
+
+                if (chances.get(chance.email) != chance) { // Removed while flushing
+                    pendingRemoves.add(chance.id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the broadcast chance repository with the specified broadcast chance repository.
+     *
+     * @param broadcastChanceRepository the specified broadcast chance repository
+     */
+    public void setBroadcastChanceRepository(final BroadcastChanceRepository broadcastChanceRepository) {
+        this.broadcastChanceRepository = broadcastChanceRepository;
+    }
+
+    /**
+     * A broadcast chance in memory.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 19, 2026
+     */
+    private static final class Chance {
+
+        /**
+         * Broadcast chance, read only.
+         */
+        private final JSONObject broadcastChance;
+
+        /**
+         * Email.
+         */
+        private final String email;
+
+        /**
+         * Expiration time.
+         */
+        private final long expiration;
+
+        /**
+         * Id in the snapshot, {@code null} if not flushed yet, guarded by the lock of the pending additions.
+         */
+        private String id;
+
+        /**
+         * Expiry timeout.
+         */
+        private volatile TimingWheel.Timeout<String> timeout;
+
+        /**
+         * Delivery status.
+         */
+        private volatile String status = STATUS_PENDING;
+
+        /**
+         * Constructs a chance with the specified broadcast chance and id.
+         *
+         * @param broadcastChance the specified broadcast chance
+         * @param id the specified id in the snapshot, {@code null} if not flushed yet
+         */
+        private Chance(final JSONObject broadcastChance, final String id) {
+            this.broadcastChance = broadcastChance;
+            this.id = id;
+            email = broadcastChance.optString(BroadcastChance.BROADCAST_CHANCE_EMAIL);
+            expiration = broadcastChance.optLong(BroadcastChance.BROADCAST_CHANCE_POST_TIME)
+                    + broadcastChance.optLong(BroadcastChance.BROADCAST_CHANCE_CYCLE_TIME);
+        }
+    }
+}
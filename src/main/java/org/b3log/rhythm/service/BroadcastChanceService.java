@@ -15,35 +15,62 @@
  */
 package org.b3log.rhythm.service;
 
+import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.inject.Inject;
-import org.b3log.latke.Keys;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
 import org.b3log.latke.model.User;
-import org.b3log.latke.repository.FilterOperator;
-import org.b3log.latke.repository.PropertyFilter;
-import org.b3log.latke.repository.Query;
-import org.b3log.latke.repository.Transaction;
 import org.b3log.latke.service.annotation.Service;
 import org.b3log.latke.servlet.HTTPRequestMethod;
 import org.b3log.latke.urlfetch.HTTPRequest;
+import org.b3log.latke.urlfetch.HTTPResponse;
 import org.b3log.latke.urlfetch.URLFetchService;
-import org.b3log.latke.urlfetch.URLFetchServiceFactory;
-import org.b3log.latke.util.Strings;
 import org.b3log.rhythm.model.BroadcastChance;
-import org.b3log.rhythm.repository.BroadcastChanceRepository;
-import org.b3log.rhythm.repository.UserRepository;
+import org.b3log.rhythm.urlfetch.Destination;
+import org.b3log.rhythm.urlfetch.OutboundFetchService;
 import org.b3log.rhythm.util.Rhythms;
-import org.json.JSONArray;
 import org.json.JSONObject;
 
 /**
  * Broadcast chance service.
  *
+ * <p>
+ * The chances are kept in the {@link BroadcastChanceRegistry broadcast chance registry}, which expires them by itself.
+ * </p>
+ *
+ * <p>
+ * Chances are pushed to the clients subscribed to the {@link BroadcastChanceHub broadcast chance hub} as soon as
+ * they are generated, the others are sent to their client hosts by "broadcastChance.sendThreads" threads in parallel,
+ * each request is bounded by the "urlfetch.solo.*" timeouts and the whole round by "broadcastChance.sendTimeout"
+ * milliseconds. A chance failed to deliver is reassigned to another user in the same round, at most
+ * "broadcastChance.maxReassignments" times a round; the reassigned chance keeps the expiration of the failed one.
+ * </p>
+ *
+ * <p>
+ * Recipients are drawn by the {@link BroadcastRecipientSampler broadcast recipient sampler}, skewed toward active
+ * bloggers.
+ * </p>
+ *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.1, Aug 24, 2013
+ * @version 1.4.0.0, Oct 19, 2026
  * @since 0.1.6
  */
 @Service
@@ -55,21 +82,64 @@ public class BroadcastChanceService {
     private static final Logger LOGGER = Logger.getLogger(BroadcastChanceService.class.getName());
 
     /**
-     * Broadcast chance repository.
+     * Sender threads.
+     */
+    private static final int SEND_THREADS = Integer.valueOf(Rhythms.CFG.getString("broadcastChance.sendThreads"));
+
+    /**
+     * Timeout of a send round in milliseconds.
+     */
+    private static final long SEND_TIMEOUT = Long.valueOf(Rhythms.CFG.getString("broadcastChance.sendTimeout"));
+
+    /**
+     * Max reassignments of failed chances in a send round.
+     */
+    private static final int MAX_REASSIGNMENTS
+            = Integer.valueOf(Rhythms.CFG.getString("broadcastChance.maxReassignments"));
+
+    /**
+     * Sender executor.
+     */
+    private static final ExecutorService SENDER = Executors.newFixedThreadPool(SEND_THREADS, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread ret = new Thread(runnable, "BroadcastChanceSender-" + count.incrementAndGet());
+            ret.setDaemon(true);
+
+            return ret;
+        }
+    });
+
+    /**
+     * Broadcast chance registry.
+     */
+    @Inject
+    private BroadcastChanceRegistry broadcastChanceRegistry;
+
+    /**
+     * Broadcast recipient sampler.
      */
     @Inject
-    private BroadcastChanceRepository broadcastChanceRepository;
+    private BroadcastRecipientSampler broadcastRecipientSampler;
 
     /**
-     * User repository.
+     * Broadcast chance hub.
      */
     @Inject
-    private UserRepository userRepository;
+    private BroadcastChanceHub broadcastChanceHub;
 
     /**
      * URL fetch service.
      */
-    private URLFetchService urlFetchService = URLFetchServiceFactory.getURLFetchService();
+    private URLFetchService urlFetchService = OutboundFetchService.getInstance(Destination.SOLO, "broadcast",
+            SEND_THREADS, Destination.SOLO.getMaxWait(), false);
+
+    /**
+     * Summary of the last send round.
+     */
+    private volatile JSONObject lastRound = new JSONObject();
 
     /**
      * Cycle time (active time).
@@ -83,60 +153,168 @@ public class BroadcastChanceService {
      * @return {@code true} if it has, returns {@code false} otherwise
      */
     public boolean hasBroadcastChance(final String email) {
-        final Query query = new Query().setFilter(new PropertyFilter(BroadcastChance.BROADCAST_CHANCE_EMAIL, FilterOperator.EQUAL, email));
+        return broadcastChanceRegistry.has(email);
+    }
 
-        try {
-            final JSONObject result = broadcastChanceRepository.get(query);
+    /**
+     * Generates broadcast chances to fill up the expired and removed ones.
+     */
+    public void generateBroadcastChances() {
+        final int remains = Rhythms.BROADCAST_CHANCE_NUM - broadcastChanceRegistry.size();
+        if (remains <= 0) {
+            return;
+        }
 
-            return 0 != result.optJSONArray(Keys.RESULTS).length();
-        } catch (final Exception e) {
-            LOGGER.log(Level.ERROR, "Determines broadcast chance failed", e);
+        final List<JSONObject> broadcastChances = newChances(remains, Collections.<String>emptySet(),
+                System.currentTimeMillis());
+        for (final JSONObject broadcastChance : broadcastChances) {
+            broadcastChanceRegistry.add(broadcastChance);
 
-            return false;
+            LOGGER.log(Level.INFO, "Generated broadcast chance [host={0}]",
+                    broadcastChance.optString(BroadcastChance.BROADCAST_CHANCE_HOST));
+
+            if (broadcastChanceHub.push(broadcastChance)) {
+                broadcastChanceRegistry.setStatus(broadcastChance.optString(BroadcastChance.BROADCAST_CHANCE_EMAIL),
+                        BroadcastChanceRegistry.STATUS_DELIVERED);
+            }
+        }
+
+        if (broadcastChances.size() < remains) {
+            LOGGER.log(Level.WARN, "Generated [{0}] broadcast chances, less than [{1}] empty slots",
+                    new Object[]{broadcastChances.size(), remains});
         }
     }
 
     /**
-     * Generates broadcast chances.
+     * Sends the undelivered broadcast chances to clients, returns after all of them are delivered or failed, or the
+     * round times out.
      */
-    public void generateBroadcastChances() {
+    public synchronized void sendBroadcastChances() {
+        final long start = System.currentTimeMillis();
+        final long deadline = start + SEND_TIMEOUT;
+        final CompletionService<Boolean> completionService = new ExecutorCompletionService<Boolean>(SENDER);
+        final Map<Future<Boolean>, JSONObject> inFlight = new HashMap<Future<Boolean>, JSONObject>();
+        final Set<String> failedEmails = new HashSet<String>();
+        int delivered = 0;
+        int reassigned = 0;
+
+        for (final JSONObject broadcastChance : broadcastChanceRegistry.getUndelivered()) {
+            inFlight.put(completionService.submit(newDelivery(broadcastChance)), broadcastChance);
+        }
+
         try {
-            final long count = broadcastChanceRepository.count();
-            final int remains = (int) (Rhythms.BROADCAST_CHANCE_NUM - count);
+            while (!inFlight.isEmpty()) {
+                final long remaining = deadline - System.currentTimeMillis();
+                final Future<Boolean> future = remaining > 0
+                        ? completionService.poll(remaining, TimeUnit.MILLISECONDS) : null;
+                if (null == future) {
+                    break;
+                }
 
-            if (remains > 0) {
-                gen(remains);
-            }
+                final JSONObject broadcastChance = inFlight.remove(future);
+                final String email = broadcastChance.optString(BroadcastChance.BROADCAST_CHANCE_EMAIL);
+                if (isDelivered(future)) {
+                    broadcastChanceRegistry.setStatus(email, BroadcastChanceRegistry.STATUS_DELIVERED);
+                    delivered++;
 
-            final long expirationTime = System.currentTimeMillis() - CYCLE_TIME;
+                    continue;
+                }
 
-            final Query query = new Query().setPageCount(1);
-            query.setFilter(new PropertyFilter(BroadcastChance.BROADCAST_CHANCE_POST_TIME, FilterOperator.LESS_THAN, expirationTime));
+                failedEmails.add(email);
+                final List<JSONObject> reassignments = reassigned < MAX_REASSIGNMENTS
+                        ? newChances(1, failedEmails,
+                                broadcastChance.optLong(BroadcastChance.BROADCAST_CHANCE_POST_TIME))
+                        : Collections.<JSONObject>emptyList();
+                if (reassignments.isEmpty() || !broadcastChanceRegistry.remove(email)) {
+                    broadcastChanceRegistry.setStatus(email, BroadcastChanceRegistry.STATUS_FAILED);
 
-            final JSONObject result = broadcastChanceRepository.get(query);
-            final JSONArray array = result.getJSONArray(Keys.RESULTS);
-            if (0 == array.length()) { // All broadcast chances are active
-                return;
-            }
+                    continue;
+                }
 
-            removeExpiredChances(array);
+                final JSONObject reassignment = reassignments.get(0);
+                broadcastChanceRegistry.add(reassignment);
+                reassigned++;
+                inFlight.put(completionService.submit(newDelivery(reassignment)), reassignment);
 
-            gen(array.length());
-        } catch (final Exception e) {
-            LOGGER.log(Level.ERROR, "Generates broadcast chances failed", e);
+                LOGGER.log(Level.INFO, "Reassigned broadcast chance [from={0}, to={1}]", new Object[]{
+                    broadcastChance.optString(BroadcastChance.BROADCAST_CHANCE_HOST),
+                    reassignment.optString(BroadcastChance.BROADCAST_CHANCE_HOST)});
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+
+        for (final Map.Entry<Future<Boolean>, JSONObject> entry : inFlight.entrySet()) {
+            entry.getKey().cancel(true);
+            broadcastChanceRegistry.setStatus(entry.getValue().optString(BroadcastChance.BROADCAST_CHANCE_EMAIL),
+                    BroadcastChanceRegistry.STATUS_FAILED);
+        }
+
+        final JSONObject round = new JSONObject();
+        round.put("time", start);
+        round.put("elapsed", System.currentTimeMillis() - start);
+        round.put("delivered", delivered);
+        round.put("failed", failedEmails.size());
+        round.put("reassigned", reassigned);
+        round.put("timedOut", inFlight.size());
+        lastRound = round;
+
+        LOGGER.log(Level.INFO, "Sent broadcast chances {0}", round);
     }
 
     /**
-     * Sends all generated broadcast chances to clients.
+     * Removes a broadcast chance with the specified email.
+     *
+     * @param email the specified email
      */
-    public void sendBroadcastChances() {
-        try {
-            final Query query = new Query().setPageCount(1);
-            final JSONObject result = broadcastChanceRepository.get(query);
-            final JSONArray array = result.getJSONArray(Keys.RESULTS);
-            for (int i = 0; i < array.length(); i++) {
-                final JSONObject broadcastChance = array.getJSONObject(i);
+    public void removeBroadcastChance(final String email) {
+        broadcastChanceRegistry.remove(email);
+    }
+
+    /**
+     * Gets the statistics.
+     *
+     * @return for example,
+     * <pre>
+     * {
+     *     "pending": 2,
+     *     "delivered": 7,
+     *     "failed": 1,
+     *     "lastRound": {
+     *         "time": long,
+     *         "elapsed": long,
+     *         "delivered": 7,
+     *         "failed": 2, // including the reassigned ones
+     *         "reassigned": 1,
+     *         "timedOut": 0
+     *     },
+     *     "stream": {} // broadcast chance hub stats
+     * }
+     * </pre>
+     */
+    public JSONObject getStats() {
+        final JSONObject ret = broadcastChanceRegistry.getStats();
+        ret.put("lastRound", lastRound);
+        ret.put("stream", broadcastChanceHub.getStats());
+
+        return ret;
+    }
+
+    /**
+     * Creates a delivery of the specified broadcast chance, pushes it if the client is subscribed, sends it to the
+     * client host otherwise.
+     *
+     * @param broadcastChance the specified broadcast chance
+     * @return delivery, returns {@code true} if the client accepted the chance, returns {@code false} otherwise
+     */
+    private Callable<Boolean> newDelivery(final JSONObject broadcastChance) {
+        return new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                if (broadcastChanceHub.push(broadcastChance)) {
+                    return true;
+                }
+
                 String clientURL = broadcastChance.getString(BroadcastChance.BROADCAST_CHANCE_HOST);
                 if (!clientURL.endsWith("/")) {
                     clientURL += "/";
@@ -151,135 +329,101 @@ public class BroadcastChanceService {
                 request.setURL(new URL(clientURL));
                 request.setRequestMethod(HTTPRequestMethod.POST);
 
-                urlFetchService.fetchAsync(request);
+                try {
+                    final HTTPResponse response = urlFetchService.fetch(request);
+                    final int code = response.getResponseCode();
+                    if (code < 200 || code >= 300) {
+                        LOGGER.log(Level.WARN, "Sends a broadcast chance to client[{0}] failed [code={1}]",
+                                new Object[]{clientURL, code});
+
+                        return false;
+                    }
+                } catch (final IOException e) {
+                    LOGGER.log(Level.WARN, "Sends a broadcast chance to client[{0}] failed [msg={1}]",
+                            new Object[]{clientURL, e.getMessage()});
+
+                    return false;
+                }
 
                 LOGGER.log(Level.INFO, "Sent a broadcast chance to client[{0}]", clientURL);
+
+                return true;
             }
-        } catch (final Exception e) {
-            LOGGER.log(Level.ERROR, "Generates broadcast chances failed", e);
-        }
+        };
     }
 
     /**
-     * Removes a broadcast chance with the specified email.
+     * Determines whether the specified done delivery succeeded.
      *
-     * @param email the specified email
+     * @param delivery the specified done delivery
+     * @return {@code true} if succeeded, returns {@code false} otherwise
      */
-    public void removeBroadcastChance(final String email) {
-        final Transaction transaction = broadcastChanceRepository.beginTransaction();
-
+    private static boolean isDelivered(final Future<Boolean> delivery) {
         try {
-            final Query query = new Query().setPageCount(1);
-            query.setFilter(new PropertyFilter(BroadcastChance.BROADCAST_CHANCE_EMAIL, FilterOperator.EQUAL, email));
-
-            final JSONObject result = broadcastChanceRepository.get(query);
-            final JSONArray array = result.getJSONArray(Keys.RESULTS);
-            if (0 == array.length()) {
-                return;
-            }
-
-            final JSONObject chanceToRemove = array.optJSONObject(0);
-            final String idToRemove = chanceToRemove.optString(Keys.OBJECT_ID);
+            return delivery.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
 
-            broadcastChanceRepository.remove(idToRemove);
-
-            transaction.commit();
-        } catch (final Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
+            return false;
+        } catch (final ExecutionException e) {
+            LOGGER.log(Level.ERROR, "Sends a broadcast chance failed", e.getCause());
 
-            LOGGER.log(Level.ERROR, "Removes broadcast chances failed", e);
+            return false;
         }
     }
 
     /**
-     * Removes the specified expired chances.
+     * Creates broadcast chances of the specified size for users drawn by the recipient sampler, skips the users who
+     * have a chance or are excluded.
      *
-     * @param expiredChances the specified expired chances
+     * @param size the specified size
+     * @param excludes the specified emails of the excluded users
+     * @param postTime the specified post time of the chances
+     * @return broadcast chances, may be less than the specified size if not enough users
      */
-    private void removeExpiredChances(final JSONArray expiredChances) {
-        final Transaction transaction = broadcastChanceRepository.beginTransaction();
-
-        try {
-            for (int i = 0; i < expiredChances.length(); i++) {
-                final JSONObject expiredChance = expiredChances.getJSONObject(i);
-
-                broadcastChanceRepository.remove(expiredChance.getString(Keys.OBJECT_ID));
-
-                LOGGER.log(Level.INFO, "Removed expired broadcast chance [host={0}]",
-                        expiredChance.getString(BroadcastChance.BROADCAST_CHANCE_HOST));
-            }
-
-            transaction.commit();
-        } catch (final Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
+    private List<JSONObject> newChances(final int size, final Set<String> excludes, final long postTime) {
+        final Set<String> skips = new HashSet<String>(excludes);
+        for (final JSONObject broadcastChance : broadcastChanceRegistry.getAll()) {
+            skips.add(broadcastChance.optString(BroadcastChance.BROADCAST_CHANCE_EMAIL));
+        }
 
-            LOGGER.log(Level.ERROR, "Removes broadcast chances failed", e);
+        final List<JSONObject> ret = new ArrayList<JSONObject>(size);
+        for (final JSONObject user : broadcastRecipientSampler.sample(size, skips)) {
+            final JSONObject broadcastChance = new JSONObject();
+            broadcastChance.put(BroadcastChance.BROADCAST_CHANCE_HOST, user.optString(User.USER_URL));
+            broadcastChance.put(BroadcastChance.BROADCAST_CHANCE_EMAIL, user.optString(User.USER_EMAIL));
+            broadcastChance.put(BroadcastChance.BROADCAST_CHANCE_POST_TIME, postTime);
+            broadcastChance.put(BroadcastChance.BROADCAST_CHANCE_CYCLE_TIME, CYCLE_TIME);
+            ret.add(broadcastChance);
         }
+
+        return ret;
     }
 
     /**
-     * Generates broadcast chances with the specified size.
+     * Sets the broadcast chance registry with the specified broadcast chance registry.
      *
-     * @param size the specified size
+     * @param broadcastChanceRegistry the specified broadcast chance registry
      */
-    private void gen(final int size) {
-        final Transaction transaction = broadcastChanceRepository.beginTransaction();
-
-        try {
-            final List<JSONObject> users = userRepository.getRandomly(size);
-            for (final JSONObject user : users) {
-                String userURL = user.getString(User.USER_URL);
-
-                if (!Strings.isURL(userURL)) { // For the legacy data 
-                    userURL = "http://" + userURL;
-
-                    if (!Strings.isURL(userURL)) {
-                        LOGGER.log(Level.WARN, "User URL [{0}] is invalid", userURL);
-
-                        continue;
-                    }
-                }
-
-                final JSONObject broadcastChance = new JSONObject();
-                broadcastChance.put(BroadcastChance.BROADCAST_CHANCE_HOST, userURL);
-                broadcastChance.put(BroadcastChance.BROADCAST_CHANCE_EMAIL, user.getString(User.USER_EMAIL));
-                broadcastChance.put(BroadcastChance.BROADCAST_CHANCE_POST_TIME, System.currentTimeMillis());
-                broadcastChance.put(BroadcastChance.BROADCAST_CHANCE_CYCLE_TIME, CYCLE_TIME);
-
-                broadcastChanceRepository.add(broadcastChance);
-
-                LOGGER.log(Level.INFO, "Generated broadcast chance [host={0}]", userURL);
-            }
-
-            transaction.commit();
-        } catch (final Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
-
-            LOGGER.log(Level.ERROR, "Adds broadcast chances failed", e);
-        }
+    public void setBroadcastChanceRegistry(final BroadcastChanceRegistry broadcastChanceRegistry) {
+        this.broadcastChanceRegistry = broadcastChanceRegistry;
     }
 
     /**
-     * Sets the broadcast chance repository with the specified broadcast chance repository.
+     * Sets the broadcast chance hub with the specified broadcast chance hub.
      *
-     * @param broadcastChanceRepository the specified broadcast chance repository
+     * @param broadcastChanceHub the specified broadcast chance hub
      */
-    public void setBroadcastChanceRepository(final BroadcastChanceRepository broadcastChanceRepository) {
-        this.broadcastChanceRepository = broadcastChanceRepository;
+    public void setBroadcastChanceHub(final BroadcastChanceHub broadcastChanceHub) {
+        this.broadcastChanceHub = broadcastChanceHub;
     }
 
     /**
-     * Sets the user repository with the specified user repository.
+     * Sets the broadcast recipient sampler with the specified broadcast recipient sampler.
      *
-     * @param userRepository the specified user repository
+     * @param broadcastRecipientSampler the specified broadcast recipient sampler
      */
-    public void setUserRepository(final UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public void setBroadcastRecipientSampler(final BroadcastRecipientSampler broadcastRecipientSampler) {
+        this.broadcastRecipientSampler = broadcastRecipientSampler;
     }
 }
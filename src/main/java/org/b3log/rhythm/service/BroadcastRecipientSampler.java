@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import javax.inject.Inject;
+import org.b3log.latke.Keys;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.model.User;
+import org.b3log.latke.repository.FilterOperator;
+import org.b3log.latke.repository.PropertyFilter;
+import org.b3log.latke.repository.Query;
+import org.b3log.latke.repository.SortDirection;
+import org.b3log.latke.service.annotation.Service;
+import org.b3log.latke.util.Strings;
+import org.b3log.rhythm.model.Common;
+import org.b3log.rhythm.repository.UserRepository;
+import org.b3log.rhythm.util.Rhythms;
+import org.b3log.rhythm.util.WeightedSampler;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Broadcast recipient sampler, draws users for broadcast chances skewed toward active bloggers.
+ *
+ * <p>
+ * The weight of a user halves every "broadcastChance.activityHalfLife" days since the user's recent post time, users
+ * with an invalid URL are not drawn at all. The weights are kept in a {@link WeightedSampler}, loaded on the first draw
+ * and reloaded every "broadcastChance.samplerReload" hours to renew the decay base, in between they are updated
+ * incrementally by {@link #update(JSONObject)} and {@link #remove(String)}, which should be invoked after the user
+ * changes committed. A reload scans the users page by page in id order, only the fields needed are read.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+@Service
+public class BroadcastRecipientSampler {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(BroadcastRecipientSampler.class.getName());
+
+    /**
+     * Activity half life in milliseconds.
+     */
+    private static final long HALF_LIFE
+            = Long.valueOf(Rhythms.CFG.getString("broadcastChance.activityHalfLife")) * 24 * 60 * 60 * 1000;
+
+    /**
+     * Reload interval in milliseconds.
+     */
+    private static final long RELOAD_INTERVAL
+            = Long.valueOf(Rhythms.CFG.getString("broadcastChance.samplerReload")) * 60 * 60 * 1000;
+
+    /**
+     * Page size of scanning users.
+     */
+    private static final int SCAN_PAGE_SIZE = 500;
+
+    /**
+     * Weight of a user posted at the decay base time.
+     */
+    private static final long SCALE = 1L << 20;
+
+    /**
+     * Max exponent of the weight growth, bounds the weight of a user posted long after the decay base time.
+     */
+    private static final int MAX_EXPONENT = 20;
+
+    /**
+     * User repository.
+     */
+    @Inject
+    private UserRepository userRepository;
+
+    /**
+     * Sampler of user ids, {@code null} if not loaded.
+     */
+    private WeightedSampler<String> sampler;
+
+    /**
+     * Recipients, &lt;user id, recipient&gt;.
+     */
+    private Map<String, JSONObject> recipients;
+
+    /**
+     * Decay base time.
+     */
+    private long baseTime;
+
+    /**
+     * Updates during loading, &lt;user id, user&gt;, a {@code null} user is a removal, {@code null} if not loading.
+     */
+    private Map<String, JSONObject> pendingUpdates;
+
+    /**
+     * Random.
+     */
+    private final Random random = new Random();
+
+    /**
+     * Updates the weight of the specified user.
+     *
+     * @param user the specified user, for example,
+     * <pre>
+     * {
+     *     "oId": "",
+     *     "userEmail": "",
+     *     "userURL": "",
+     *     "recentPostTime": long
+     * }
+     * </pre>
+     */
+    public synchronized void update(final JSONObject user) {
+        if (null != pendingUpdates) {
+            pendingUpdates.put(user.optString(Keys.OBJECT_ID), user);
+        }
+
+        if (null != sampler) {
+            put(sampler, recipients, user, baseTime);
+        }
+    }
+
+    /**
+     * Removes the user specified by the given user id.
+     *
+     * @param userId the given user id
+     */
+    public synchronized void remove(final String userId) {
+        if (null != pendingUpdates) {
+            pendingUpdates.put(userId, null);
+        }
+
+        if (null != sampler) {
+            sampler.remove(userId);
+            recipients.remove(userId);
+        }
+    }
+
+    /**
+     * Draws the specified number of distinct users.
+     *
+     * @param size the specified number
+     * @param excludes the specified emails of the users not to draw
+     * @return users, may be less than the specified number if not enough users, for example,
+     * <pre>
+     * [{
+     *     "userEmail": "",
+     *     "userURL": "" // a valid URL
+     * }, ....]
+     * </pre>
+     */
+    public List<JSONObject> sample(final int size, final Set<String> excludes) {
+        loadIfStale();
+
+        final List<JSONObject> ret = new ArrayList<JSONObject>(size);
+        synchronized (this) {
+            if (null == sampler) {
+                return ret;
+            }
+
+            // Drawn users are taken out until the end, so each draw either hits or takes out an excluded user
+            final Map<String, Long> drawn = new HashMap<String, Long>();
+            while (ret.size() < size) {
+                final String userId = sampler.sample(random);
+                if (null == userId) {
+                    break;
+                }
+
+                drawn.put(userId, sampler.getWeight(userId));
+                sampler.remove(userId);
+
+                final JSONObject recipient = recipients.get(userId);
+                if (!excludes.contains(recipient.optString(User.USER_EMAIL))) {
+                    ret.add(recipient);
+                }
+            }
+
+            for (final Map.Entry<String, Long> entry : drawn.entrySet()) {
+                sampler.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Loads the weights of all users if they are not loaded or older than the reload interval, the loading is done
+     * outside the lock so updates do not wait for it.
+     */
+    private void loadIfStale() {
+        final long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (null != pendingUpdates || (null != sampler && now - baseTime < RELOAD_INTERVAL)) {
+                return;
+            }
+
+            pendingUpdates = new LinkedHashMap<String, JSONObject>();
+        }
+
+        WeightedSampler<String> loaded = null;
+        final Map<String, JSONObject> loadedRecipients = new HashMap<String, JSONObject>();
+        try {
+            final WeightedSampler<String> scanned = new WeightedSampler<String>(SCAN_PAGE_SIZE);
+            int userCnt = 0;
+            String lastId = "";
+            JSONArray users;
+            do {
+                final Query query = new Query().setFilter(new PropertyFilter(Keys.OBJECT_ID,
+                        FilterOperator.GREATER_THAN, lastId)).
+                        addSort(Keys.OBJECT_ID, SortDirection.ASCENDING).
+                        setPageSize(SCAN_PAGE_SIZE).setPageCount(1).
+                        addProjection(Keys.OBJECT_ID, String.class).
+                        addProjection(User.USER_EMAIL, String.class).
+                        addProjection(User.USER_URL, String.class).
+                        addProjection(Common.RECENT_POST_TIME, Long.class);
+
+                users = userRepository.get(query).getJSONArray(Keys.RESULTS);
+                for (int i = 0; i < users.length(); i++) {
+                    final JSONObject user = users.getJSONObject(i);
+                    put(scanned, loadedRecipients, user, now);
+                    lastId = user.getString(Keys.OBJECT_ID);
+                }
+
+                userCnt += users.length();
+            } while (SCAN_PAGE_SIZE == users.length());
+
+            loaded = scanned;
+
+            LOGGER.log(Level.INFO, "Loaded broadcast recipients [users={0}, recipients={1}]",
+                    new Object[]{userCnt, loaded.size()});
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Loads broadcast recipients failed", e);
+        }
+
+        synchronized (this) {
+            if (null != loaded) {
+                for (final Map.Entry<String, JSONObject> update : pendingUpdates.entrySet()) {
+                    if (null == update.getValue()) {
+                        loaded.remove(update.getKey());
+                        loadedRecipients.remove(update.getKey());
+                    } else {
+                        put(loaded, loadedRecipients, update.getValue(), now);
+                    }
+                }
+
+                sampler = loaded;
+                recipients = loadedRecipients;
+                baseTime = now;
+            }
+
+            pendingUpdates = null;
+        }
+    }
+
+    /**
+     * Puts the specified user into the specified sampler and recipients with the weight relative to the specified
+     * decay base time.
+     *
+     * @param sampler the specified sampler
+     * @param recipients the specified recipients
+     * @param user the specified user
+     * @param baseTime the specified decay base time
+     */
+    private static void put(final WeightedSampler<String> sampler, final Map<String, JSONObject> recipients,
+            final JSONObject user, final long baseTime) {
+        final String userId = user.optString(Keys.OBJECT_ID);
+        String userURL = user.optString(User.USER_URL);
+        if (!Strings.isURL(userURL)) { // For the legacy data
+            userURL = "http://" + userURL;
+
+            if (!Strings.isURL(userURL)) {
+                sampler.remove(userId);
+                recipients.remove(userId);
+
+                return;
+            }
+        }
+
+        final double exponent = Math.min(MAX_EXPONENT,
+                (double) (user.optLong(Common.RECENT_POST_TIME) - baseTime) / HALF_LIFE);
+        sampler.put(userId, Math.max(1L, Math.round(SCALE * Math.pow(2, exponent))));
+
+        final JSONObject recipient = new JSONObject();
+        recipient.put(User.USER_EMAIL, user.optString(User.USER_EMAIL));
+        recipient.put(User.USER_URL, userURL);
+        recipients.put(userId, recipient);
+    }
+
+    /**
+     * Sets the user repository with the specified user repository.
+     *
+     * @param userRepository the specified user repository
+     */
+    public void setUserRepository(final UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+}
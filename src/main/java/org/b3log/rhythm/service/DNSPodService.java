@@ -26,8 +26,9 @@ import org.b3log.latke.urlfetch.HTTPHeader;
 import org.b3log.latke.urlfetch.HTTPRequest;
 import org.b3log.latke.urlfetch.HTTPResponse;
 import org.b3log.latke.urlfetch.URLFetchService;
-import org.b3log.latke.urlfetch.URLFetchServiceFactory;
 import org.b3log.latke.util.Strings;
+import org.b3log.rhythm.urlfetch.Destination;
+import org.b3log.rhythm.urlfetch.OutboundFetchService;
 import org.b3log.rhythm.util.Rhythms;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -40,7 +41,7 @@ import org.json.JSONObject;
  * </p>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.4, Aug 24, 2013
+ * @version 1.0.0.5, Oct 19, 2026
  * @since 0.1.6
  */
 @Service
@@ -54,7 +55,7 @@ public class DNSPodService {
     /**
      * URL fetch service.
      */
-    private static final URLFetchService URL_FETCH_SVC = URLFetchServiceFactory.getURLFetchService();
+    private static final URLFetchService URL_FETCH_SVC = OutboundFetchService.getInstance(Destination.DNSPOD);
 
     /**
      * DNSPod API URL.
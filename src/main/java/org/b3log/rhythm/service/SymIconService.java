@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.service;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+import javax.servlet.http.HttpServletResponse;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.service.annotation.Service;
+import org.b3log.latke.urlfetch.HTTPHeader;
+import org.b3log.latke.urlfetch.HTTPRequest;
+import org.b3log.latke.urlfetch.HTTPResponse;
+import org.b3log.latke.util.Strings;
+import org.b3log.rhythm.urlfetch.ContentHandler;
+import org.b3log.rhythm.urlfetch.Destination;
+import org.b3log.rhythm.urlfetch.OutboundFetchService;
+import org.b3log.rhythm.urlfetch.Politeness;
+import org.b3log.rhythm.util.Rhythms;
+
+/**
+ * Sym icon service, stores the favicons of syms content-addressed on the local disk.
+ *
+ * <p>
+ * An icon is downloaded once, at most "sym.iconMaxBytes" bytes, and stored as "{dir}/{hash[0..2]}/{hash}" where hash is
+ * the lower case hex SHA-256 of its content, so the same icon of many syms is stored once and a stored icon never
+ * changes. Only PNG, GIF, JPEG, ICO, BMP, WebP and SVG icons are stored, the type is sniffed from the content.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.1.0, Oct 19, 2026
+ * @since 1.2.0
+ * @see org.b3log.rhythm.processor.SymIconServlet
+ */
+@Service
+public class SymIconService {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(SymIconService.class.getName());
+
+    /**
+     * Max bytes of an icon.
+     */
+    private static final int MAX_BYTES = Integer.valueOf(Rhythms.CFG.getString("sym.iconMaxBytes"));
+
+    /**
+     * Hash pattern.
+     */
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    /**
+     * Bytes to sniff the content type.
+     */
+    private static final int SNIFF_BYTES = 256;
+
+    /**
+     * Max size of the content type cache.
+     */
+    private static final int CONTENT_TYPES_SIZE = 10000;
+
+    /**
+     * Buffer size.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Store directory.
+     */
+    private final File dir;
+
+    /**
+     * Content types of the stored icons, &lt;hash, content type&gt;.
+     */
+    private final ConcurrentMap<String, String> contentTypes = new ConcurrentHashMap<String, String>();
+
+    /**
+     * Constructs a sym icon service, see rhythm.properties "sym.iconDir" for the store directory.
+     *
+     * @throws IllegalStateException if "sym.iconDir" and the data directory are not configured
+     */
+    public SymIconService() {
+        final String path = Rhythms.CFG.getString("sym.iconDir");
+        dir = Strings.isEmptyOrNull(path) ? new File(Rhythms.getDataDir(), "sym-icons") : new File(path);
+    }
+
+    /**
+     * Downloads the icon specified by the given URL and stores it.
+     *
+     * @param iconURL the given URL
+     * @return hash of the stored icon, returns {@code null} if failed or it is not an icon
+     */
+    public String store(final String iconURL) {
+        File temp = null;
+        try {
+            if (!dir.exists() && !dir.mkdirs() && !dir.exists()) {
+                throw new IOException("Creates icon directory [" + dir + "] failed");
+            }
+
+            temp = File.createTempFile("icon", ".tmp", dir);
+
+            final HTTPRequest request = new HTTPRequest();
+            request.addHeader(new HTTPHeader("User-Agent", Politeness.USER_AGENT));
+            request.setURL(new URL(iconURL));
+
+            final Download download = new Download(temp);
+            OutboundFetchService.getInstance(Destination.CRAWL).fetch(request, download);
+            if (null == download.hash) {
+                return null;
+            }
+
+            if (null == sniff(temp)) {
+                LOGGER.log(Level.DEBUG, "Icon [url={0}] is not an image", iconURL);
+
+                return null;
+            }
+
+            final File target = getPath(download.hash);
+            if (!target.exists()) {
+                final File parent = target.getParentFile();
+                if (!parent.exists() && !parent.mkdirs() && !parent.exists()) {
+                    throw new IOException("Creates icon directory [" + parent + "] failed");
+                }
+
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            return download.hash;
+        } catch (final Exception e) {
+            LOGGER.log(Level.WARN, "Stores icon [url=" + iconURL + "] failed [msg={0}]", e.getMessage());
+
+            return null;
+        } finally {
+            if (null != temp && temp.exists() && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Gets the stored icon file of the specified hash.
+     *
+     * @param hash the specified hash
+     * @return icon file, returns {@code null} if the hash is malformed or the icon is not stored
+     */
+    public File getFile(final String hash) {
+        if (null == hash || !HASH_PATTERN.matcher(hash).matches()) {
+            return null;
+        }
+
+        final File ret = getPath(hash);
+
+        return ret.isFile() ? ret : null;
+    }
+
+    /**
+     * Gets the content type of the specified stored icon file.
+     *
+     * @param hash the hash of the icon
+     * @param file the specified icon file
+     * @return content type
+     * @throws IOException io exception
+     */
+    public String getContentType(final String hash, final File file) throws IOException {
+        String ret = contentTypes.get(hash);
+        if (null != ret) {
+            return ret;
+        }
+
+        ret = sniff(file);
+        if (null == ret) {
+            ret = "application/octet-stream";
+        }
+
+        if (contentTypes.size() >= CONTENT_TYPES_SIZE) {
+            contentTypes.clear();
+        }
+        contentTypes.put(hash, ret);
+
+        return ret;
+    }
+
+    /**
+     * Gets the path of the icon of the specified hash.
+     *
+     * @param hash the specified hash
+     * @return path
+     */
+    private File getPath(final String hash) {
+        return new File(new File(dir, hash.substring(0, 2)), hash);
+    }
+
+    /**
+     * Sniffs the image content type of the specified file.
+     *
+     * @param file the specified file
+     * @return content type, returns {@code null} if it is not an image
+     * @throws IOException io exception
+     */
+    private static String sniff(final File file) throws IOException {
+        final byte[] head = new byte[SNIFF_BYTES];
+        int length = 0;
+
+        final InputStream inputStream = new FileInputStream(file);
+        try {
+            int read;
+            while (length < head.length && -1 != (read = inputStream.read(head, length, head.length - length))) {
+                length += read;
+            }
+        } finally {
+            inputStream.close();
+        }
+
+        if (startsWith(head, length, 0x89, 'P', 'N', 'G')) {
+            return "image/png";
+        }
+        if (startsWith(head, length, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(head, length, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, length, 0, 0, 1, 0)) {
+            return "image/x-icon";
+        }
+        if (startsWith(head, length, 'B', 'M')) {
+            return "image/bmp";
+        }
+        if (length >= 12 && startsWith(head, length, 'R', 'I', 'F', 'F')
+                && 'W' == head[8] && 'E' == head[9] && 'B' == head[10] && 'P' == head[11]) {
+            return "image/webp";
+        }
+        if (new String(head, 0, length, "ISO-8859-1").contains("<svg")) {
+            return "image/svg+xml";
+        }
+
+        return null;
+    }
+
+    /**
+     * Determines whether the specified bytes start with the specified prefix.
+     *
+     * @param bytes the specified bytes
+     * @param length the length of the specified bytes
+     * @param prefix the specified prefix
+     * @return {@code true} if it does, returns {@code false} otherwise
+     */
+    private static boolean startsWith(final byte[] bytes, final int length, final int... prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length; i++) {
+            if ((bytes[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Content handler downloads an icon into a file and hashes it.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 19, 2026
+     */
+    private static final class Download implements ContentHandler {
+
+        /**
+         * File to download into.
+         */
+        private final File file;
+
+        /**
+         * Hash of the downloaded icon, {@code null} if not downloaded.
+         */
+        private String hash;
+
+        /**
+         * Constructs a download into the specified file.
+         *
+         * @param file the specified file
+         */
+        private Download(final File file) {
+            this.file = file;
+        }
+
+        @Override
+        public void handle(final HTTPResponse response, final InputStream content) throws IOException {
+            if (HttpServletResponse.SC_OK != response.getResponseCode()) {
+                return;
+            }
+
+            final MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (final NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+
+            final OutputStream outputStream = new FileOutputStream(file);
+            try {
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                long total = 0;
+                int read;
+                while (-1 != (read = content.read(buffer))) {
+                    total += read;
+                    if (total > MAX_BYTES) {
+                        throw new IOException("Icon is larger than [" + MAX_BYTES + "] bytes");
+                    }
+
+                    digest.update(buffer, 0, read);
+                    outputStream.write(buffer, 0, read);
+                }
+            } finally {
+                outputStream.close();
+            }
+
+            final StringBuilder hex = new StringBuilder();
+            for (final byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            hash = hex.toString();
+        }
+    }
+}
@@ -16,12 +16,25 @@
 package org.b3log.rhythm.service;
 
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.inject.Inject;
-import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.lang.StringUtils;
 import org.b3log.latke.Keys;
+import org.b3log.latke.Latkes;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
 import org.b3log.latke.repository.FilterOperator;
@@ -29,16 +42,20 @@ import org.b3log.latke.repository.PropertyFilter;
 import org.b3log.latke.repository.Query;
 import org.b3log.latke.repository.RepositoryException;
 import org.b3log.latke.repository.SortDirection;
-import org.b3log.latke.repository.annotation.Transactional;
+import org.b3log.latke.repository.Transaction;
 import org.b3log.latke.service.annotation.Service;
 import org.b3log.latke.urlfetch.HTTPHeader;
 import org.b3log.latke.urlfetch.HTTPRequest;
 import org.b3log.latke.urlfetch.HTTPResponse;
-import org.b3log.latke.urlfetch.URLFetchService;
-import org.b3log.latke.urlfetch.URLFetchServiceFactory;
 import org.b3log.latke.util.CollectionUtils;
 import org.b3log.rhythm.model.Sym;
 import org.b3log.rhythm.repository.SymRepository;
+import org.b3log.rhythm.urlfetch.Destination;
+import org.b3log.rhythm.urlfetch.HTMLHeadHandler;
+import org.b3log.rhythm.urlfetch.OutboundFetchService;
+import org.b3log.rhythm.urlfetch.Politeness;
+import org.b3log.rhythm.util.Accessibilities;
+import org.b3log.rhythm.util.HTMLHeads;
 import org.b3log.rhythm.util.Rhythms;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -46,8 +63,35 @@ import org.json.JSONObject;
 /**
  * Sym service.
  *
+ * <p>
+ * The "/syms" response is cached serialized and swapped atomically. Changes of syms only
+ * {@link #invalidateSyms() invalidate} it, a stale response (or one older than "syms.maxAge" milliseconds) is still
+ * served while a single background refresh rebuilds it, so serving syms queries the database only on the first
+ * request.
+ * </p>
+ *
+ * <p>
+ * {@link #addSym(JSONObject) Adding a sym} commits it without fetching its home page, the favicon and description are
+ * fetched by "sym.enrichThreads" background threads and written back with a separate small update, at most
+ * "sym.enrichQueue" enrichments are queued. Enrichments follow the {@link Politeness politeness} of the crawl, an
+ * enrichment disallowed by robots.txt or not reserved a time slot in 10 seconds is dropped, the hourly sym
+ * accessibility check enriches the sym when it is due.
+ * </p>
+ *
+ * <p>
+ * The status of a sym follows its accessibility checks with hysteresis: a valid sym turns invalid after
+ * "sym.invalidFailures" consecutive failed checks, an invalid sym turns valid again after "sym.validSuccesses"
+ * consecutive successful checks. The checks of one run are {@link #updateAccessibilities(List) updated} in one
+ * transaction and the "/syms" response is rebuilt right after it.
+ * </p>
+ *
+ * <p>
+ * Favicons are {@link SymIconService stored locally}, the "symIcon" of a sym whose favicon is stored points to
+ * "/sym/icon/{symIconHash}" of this server, so clients load all favicons from one origin.
+ * </p>
+ *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.1, Oct 29, 2016
+ * @version 1.6.2.0, Oct 19, 2026
  * @since 1.2.0
  */
 @Service
@@ -58,27 +102,160 @@ public class SymService {
      */
     private static final Logger LOGGER = Logger.getLogger(SymService.class.getName());
 
+    /**
+     * Max age of the cached syms response in milliseconds.
+     */
+    private static final long SYMS_MAX_AGE = Long.valueOf(Rhythms.CFG.getString("syms.maxAge"));
+
+    /**
+     * Consecutive failed checks to turn a valid sym invalid.
+     */
+    private static final int INVALID_FAILURES = Integer.valueOf(Rhythms.CFG.getString("sym.invalidFailures"));
+
+    /**
+     * Consecutive successful checks to turn an invalid sym valid.
+     */
+    private static final int VALID_SUCCESSES = Integer.valueOf(Rhythms.CFG.getString("sym.validSuccesses"));
+
+    /**
+     * Politeness window of an enrichment in milliseconds, an enrichment whose reserved time slot is beyond this window
+     * is dropped.
+     */
+    private static final long ENRICH_WINDOW = 10000L;
+
+    /**
+     * UTF-8 charset.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Syms response refresher.
+     */
+    private static final ExecutorService REFRESHER = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread ret = new Thread(runnable, "SymsRefresher");
+            ret.setDaemon(true);
+
+            return ret;
+        }
+    });
+
+    /**
+     * Enrichment executor.
+     */
+    private static final ExecutorService ENRICHER = new ThreadPoolExecutor(
+            Integer.valueOf(Rhythms.CFG.getString("sym.enrichThreads")),
+            Integer.valueOf(Rhythms.CFG.getString("sym.enrichThreads")), 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(Integer.valueOf(Rhythms.CFG.getString("sym.enrichQueue"))),
+            new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread ret = new Thread(runnable, "SymEnricher-" + count.incrementAndGet());
+            ret.setDaemon(true);
+
+            return ret;
+        }
+    });
+
     /**
      * Sym repository.
      */
     @Inject
     private SymRepository symRepository;
 
+    /**
+     * Sym icon service.
+     */
+    @Inject
+    private SymIconService symIconService;
+
+    /**
+     * Politeness.
+     */
+    private Politeness politeness = Politeness.getInstance();
+
+    /**
+     * URLs of the syms being enriched or queued.
+     */
+    private final Set<String> enriching = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * Cached syms response, {@code null} if not built yet.
+     */
+    private volatile SymsResponse symsResponse;
+
+    /**
+     * Syms generation, increased by each invalidation.
+     */
+    private final AtomicLong symsGeneration = new AtomicLong();
+
+    /**
+     * Whether a syms response refresh is running.
+     */
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * Gets the serialized syms response, refreshes it in background if stale.
+     *
+     * @return for example,
+     * <pre>
+     * {
+     *     "sc": true,
+     *     "syms": []
+     * }
+     * </pre>
+     * returns {@code null} if the first build failed
+     */
+    public byte[] getSymsResponse() {
+        SymsResponse response = symsResponse;
+        if (null == response) {
+            response = refreshSymsResponse();
+
+            return null == response ? null : response.content;
+        }
+
+        if ((response.generation != symsGeneration.get()
+                || System.currentTimeMillis() - response.time >= SYMS_MAX_AGE)
+                && refreshing.compareAndSet(false, true)) {
+            try {
+                REFRESHER.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            refreshSymsResponse();
+                        } finally {
+                            refreshing.set(false);
+                        }
+                    }
+                });
+            } catch (final Exception e) {
+                refreshing.set(false);
+
+                LOGGER.log(Level.ERROR, "Submits syms refresh failed", e);
+            }
+        }
+
+        return response.content;
+    }
+
+    /**
+     * Invalidates the cached syms response, should be invoked after the changes of syms are committed.
+     */
+    public void invalidateSyms() {
+        symsGeneration.incrementAndGet();
+    }
+
     /**
      * Gets syms.
      *
      * @return a list of syms :p
      */
     public List<JSONObject> getSyms() {
-        final Query query = new Query().
-                setFilter(new PropertyFilter(Sym.SYM_STATUS, FilterOperator.EQUAL, Sym.SYM_STATUS_C_VALID)).
-                addSort(Keys.OBJECT_ID, SortDirection.ASCENDING).
-                addProjection(Sym.SYM_URL, String.class).
-                addProjection(Sym.SYM_TITLE, String.class).
-                addProjection(Sym.SYM_ICON, String.class).
-                addProjection(Sym.SYM_DESC, String.class);
         try {
-            return CollectionUtils.jsonArrayToList(symRepository.get(query).optJSONArray(Keys.RESULTS));
+            return querySyms();
         } catch (final RepositoryException e) {
             LOGGER.log(Level.ERROR, "Gets syms failed", e);
 
@@ -87,81 +264,419 @@ public class SymService {
     }
 
     /**
-     * Updates the specified sym.
+     * Gets syms which are due to be checked, the most overdue first.
      *
-     * @param sym the specified sym
+     * @param budget the specified budget, max number of syms to get
+     * @return a list of syms, returns an empty list if not found
+     * @see Accessibilities#getNextCheckTime(long, int, long)
      */
-    @Transactional
-    public void updateSym(final JSONObject sym) {
+    public List<JSONObject> getSymsToCheck(final int budget) {
+        final Query query = new Query().setFilter(new PropertyFilter(Sym.SYM_ACCESSIBILITY_NEXT_CHECK_TIME,
+                FilterOperator.LESS_THAN_OR_EQUAL, System.currentTimeMillis())).
+                addSort(Sym.SYM_ACCESSIBILITY_NEXT_CHECK_TIME, SortDirection.ASCENDING).
+                setPageSize(budget).setPageCount(1);
         try {
-            symRepository.update(sym.optString(Keys.OBJECT_ID), sym);
+            return CollectionUtils.jsonArrayToList(symRepository.get(query).optJSONArray(Keys.RESULTS));
         } catch (final RepositoryException e) {
-            LOGGER.log(Level.ERROR, "Updates sym failed", e);
+            LOGGER.log(Level.ERROR, "Gets syms to check failed", e);
+
+            return Collections.emptyList();
         }
     }
 
     /**
-     * Adds or updates a sym.
+     * Records a check of the specified HTTP status code into the specified sym, evaluates its status and schedules its
+     * next check, does not persist it.
      *
      * @param sym the specified sym
+     * @param statusCode the specified HTTP status code
+     * @param checkTime the specified check time
+     * @see #updateAccessibilities(List)
      */
-    @Transactional
-    public void addSym(final JSONObject sym) {
-        final String symURL = sym.optString(Sym.SYM_URL);
+    public void recordAccessibility(final JSONObject sym, final int statusCode, final long checkTime) {
+        final int checkCnt = sym.optInt(Sym.SYM_ACCESSIBILITY_CHECK_CNT) + 1;
+        sym.put(Sym.SYM_ACCESSIBILITY_CHECK_CNT, checkCnt);
+        if (!Accessibilities.isAccessible(statusCode)) {
+            sym.put(Sym.SYM_ACCESSIBILITY_NOT_200_CNT, sym.optInt(Sym.SYM_ACCESSIBILITY_NOT_200_CNT) + 1);
+        }
+
+        final long history = Accessibilities.record(sym.optLong(Sym.SYM_ACCESSIBILITY_HISTORY), statusCode);
+        sym.put(Sym.SYM_ACCESSIBILITY_HISTORY, history);
+        sym.put(Sym.SYM_ACCESSIBILITY_NEXT_CHECK_TIME, Accessibilities.getNextCheckTime(history, checkCnt, checkTime));
+
+        final boolean valid = Sym.SYM_STATUS_C_VALID == sym.optInt(Sym.SYM_STATUS);
+        final boolean healthy = Accessibilities.isHealthy(valid, history, checkCnt, INVALID_FAILURES, VALID_SUCCESSES);
+        if (healthy != valid) {
+            sym.put(Sym.SYM_STATUS, healthy ? Sym.SYM_STATUS_C_VALID : Sym.SYM_STATUS_C_INVALID);
+
+            LOGGER.log(Level.INFO, "Sym [url={0}] turns [{1}]",
+                    new Object[]{sym.optString(Sym.SYM_URL), healthy ? "valid" : "invalid"});
+        }
+    }
 
+    /**
+     * Defers the next check of the specified sym to the specified time without recording a check, does not persist it.
+     *
+     * @param sym the specified sym
+     * @param nextCheckTime the specified time
+     */
+    public void deferAccessibility(final JSONObject sym, final long nextCheckTime) {
+        sym.put(Sym.SYM_ACCESSIBILITY_NEXT_CHECK_TIME, nextCheckTime);
+    }
+
+    /**
+     * Updates the accessibility of the specified syms in one transaction, then rebuilds the "/syms" response so that
+     * status changes take effect immediately.
+     *
+     * <p>
+     * Each sym should have been {@link #recordAccessibility(JSONObject, int, long) recorded} or
+     * {@link #deferAccessibility(JSONObject, long) deferred}.
+     * </p>
+     *
+     * @param syms the specified syms
+     */
+    public void updateAccessibilities(final List<JSONObject> syms) {
+        if (syms.isEmpty()) {
+            return;
+        }
+
+        final Transaction transaction = symRepository.beginTransaction();
         try {
-            String favicon = "";
-            String desc = "";
-            try {
-                final URLFetchService urlFetchService = URLFetchServiceFactory.getURLFetchService();
-                final HTTPRequest request = new HTTPRequest();
-                request.addHeader(new HTTPHeader("User-Agent", "B3log Rhythm/" + Rhythms.RHYTHM_VERSION));
-                request.setURL(new URL(symURL));
-
-                final HTTPResponse response = urlFetchService.fetch(request);
-                if (HttpServletResponse.SC_OK == response.getResponseCode()) {
-                    final String html = new String(response.getContent(), "UTF-8");
-                    favicon = StringUtils.substringBetween(html, "<link rel=\"icon\" type=\"image/png\" href=\"", "\"");
-                    desc = StringUtils.substringBetween(html, "<meta name=\"description\" content=\"", "\"");
-                }
-            } catch (final Exception e) {
-                LOGGER.log(Level.ERROR, "Gets favicon failed [symURL=" + symURL + "]", e);
+            for (final JSONObject sym : syms) {
+                symRepository.update(sym.getString(Keys.OBJECT_ID), sym);
             }
 
-            final Query query = new Query().
-                    setFilter(new PropertyFilter(Sym.SYM_URL, FilterOperator.EQUAL, symURL));
-            final JSONObject result = symRepository.get(query);
-            final JSONArray syms = result.optJSONArray(Keys.RESULTS);
+            transaction.commit();
 
-            String symTitle = sym.optString(Sym.SYM_TITLE);
-            symTitle = StringUtils.trim(symTitle);
-            favicon = StringUtils.trim(favicon);
-            desc = StringUtils.trim(desc);
+            LOGGER.log(Level.INFO, "Updated accessibility of [{0}] syms", syms.size());
+        } catch (final Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            LOGGER.log(Level.ERROR, "Updates accessibility of [" + syms.size() + "] syms failed", e);
+
+            return;
+        }
+
+        invalidateSyms();
+        refreshSymsResponse();
+    }
+
+    /**
+     * Adds or updates a sym, commits it immediately and enriches its favicon and description in background.
+     *
+     * @param sym the specified sym
+     */
+    public void addSym(final JSONObject sym) {
+        final String symURL = sym.optString(Sym.SYM_URL);
+        final String symTitle = StringUtils.trim(sym.optString(Sym.SYM_TITLE));
 
-            if (syms.length() > 0) {
-                // Update
-                final JSONObject existSym = syms.optJSONObject(0);
+        final Transaction transaction = symRepository.beginTransaction();
+        try {
+            final JSONObject existSym = getByURL(symURL);
+            if (null != existSym) {
                 existSym.put(Sym.SYM_TITLE, symTitle);
-                existSym.put(Sym.SYM_ICON, favicon);
-                existSym.put(Sym.SYM_DESC, desc);
 
                 symRepository.update(existSym.optString(Keys.OBJECT_ID), existSym);
             } else {
-                // Add
                 sym.put(Sym.SYM_ACCESSIBILITY_CHECK_CNT, 0);
                 sym.put(Sym.SYM_ACCESSIBILITY_NOT_200_CNT, 0);
+                sym.put(Sym.SYM_ACCESSIBILITY_HISTORY, 0L);
+                sym.put(Sym.SYM_ACCESSIBILITY_NEXT_CHECK_TIME, 0L);
                 sym.put(Sym.SYM_STATUS, Sym.SYM_STATUS_C_VALID);
                 sym.put(Sym.SYM_TITLE, symTitle);
-                sym.put(Sym.SYM_ICON, favicon);
-                sym.put(Sym.SYM_DESC, desc);
+                sym.put(Sym.SYM_ICON, "");
+                sym.put(Sym.SYM_DESC, "");
+                sym.put(Sym.SYM_ICON_HASH, "");
 
                 symRepository.add(sym);
             }
 
+            transaction.commit();
+
             LOGGER.info("Added a sym [symURL=" + symURL + ']');
         } catch (final RepositoryException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
             LOGGER.log(Level.ERROR, "Adds sym failed", e);
+
+            return;
         }
+
+        enrich(symURL);
     }
 
+    /**
+     * Enqueues an enrichment of the favicon and description of the sym specified by the given URL, the enrichment is
+     * dropped if the queue is full, the sym is enriched by its next due accessibility check anyway.
+     *
+     * @param symURL the given URL
+     */
+    private void enrich(final String symURL) {
+        if (!enriching.add(symURL)) {
+            return;
+        }
+
+        try {
+            ENRICHER.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        enrichNow(symURL);
+                    } finally {
+                        enriching.remove(symURL);
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            enriching.remove(symURL);
+
+            LOGGER.log(Level.WARN, "Enrichment queue is full, skips sym [symURL={0}]", symURL);
+        }
+    }
+
+    /**
+     * Fetches the head of the home page of the sym specified by the given URL, updates its favicon and description.
+     *
+     * <p>
+     * The head is applied to the stored sym, so its favicon is downloaded only if the favicon URL changed or the
+     * favicon is not stored yet.
+     * </p>
+     *
+     * @param symURL the given URL
+     */
+    private void enrichNow(final String symURL) {
+        final JSONObject enriched;
+        try {
+            enriched = getByURL(symURL);
+        } catch (final RepositoryException e) {
+            LOGGER.log(Level.ERROR, "Gets sym failed [symURL=" + symURL + "]", e);
+
+            return;
+        }
+
+        if (null == enriched) {
+            return;
+        }
+
+        try {
+            final URL url = new URL(symURL);
+            if (!politeness.isAllowed(url)) {
+                LOGGER.log(Level.DEBUG, "Sym [url={0}] is disallowed by robots.txt, skips its enrichment", symURL);
+
+                return;
+            }
+
+            final long wait = politeness.reserve(url, ENRICH_WINDOW) - System.currentTimeMillis();
+            if (wait > ENRICH_WINDOW) {
+                LOGGER.log(Level.DEBUG, "Sym [url={0}] is busy, leaves its enrichment to its accessibility check",
+                        symURL);
+
+                return;
+            }
+
+            if (wait > 0) {
+                Thread.sleep(wait);
+            }
+
+            final OutboundFetchService urlFetchService = OutboundFetchService.getInstance(Destination.CRAWL);
+            final HTTPRequest request = new HTTPRequest();
+            request.addHeader(new HTTPHeader("User-Agent", Politeness.USER_AGENT));
+            request.setURL(url);
+
+            final HTMLHeadHandler handler = new HTMLHeadHandler(url, Rhythms.SYM_HEAD_MAX_BYTES);
+            final HTTPResponse response = urlFetchService.fetch(request, handler);
+            final JSONObject head = handler.getHead();
+            if (null == head) {
+                if (Politeness.SC_TOO_MANY_REQUESTS == response.getResponseCode()) {
+                    politeness.backOff(url, response);
+                }
+
+                return;
+            }
+
+            applyHead(enriched, head);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            return;
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Gets favicon failed [symURL=" + symURL + "]", e);
+
+            return;
+        }
+
+        final Transaction transaction = symRepository.beginTransaction();
+        try {
+            final JSONObject sym = getByURL(symURL);
+            if (null == sym) {
+                transaction.rollback();
+
+                return;
+            }
+
+            sym.put(Sym.SYM_ICON, enriched.optString(Sym.SYM_ICON));
+            sym.put(Sym.SYM_DESC, enriched.optString(Sym.SYM_DESC));
+            sym.put(Sym.SYM_ICON_HASH, enriched.optString(Sym.SYM_ICON_HASH));
+            symRepository.update(sym.optString(Keys.OBJECT_ID), sym);
+
+            transaction.commit();
+        } catch (final RepositoryException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            LOGGER.log(Level.ERROR, "Enriches sym failed [symURL=" + symURL + "]", e);
+
+            return;
+        }
+
+        invalidateSyms();
+
+        LOGGER.log(Level.DEBUG, "Enriched sym [symURL={0}]", symURL);
+    }
+
+    /**
+     * Applies the specified head of the home page to the specified sym, downloads and stores its favicon if the favicon
+     * URL changed or the favicon is not stored yet, does not persist it.
+     *
+     * @param sym the specified sym
+     * @param head the specified head, see {@link HTMLHeads#parse(java.io.InputStream, Charset, int)} for the format
+     */
+    public void applyHead(final JSONObject sym, final JSONObject head) {
+        final String icon = head.optString(HTMLHeads.ICON);
+
+        String iconHash = sym.optString(Sym.SYM_ICON_HASH);
+        if (icon.isEmpty()) {
+            iconHash = "";
+        } else if (!icon.equals(sym.optString(Sym.SYM_ICON)) || null == symIconService.getFile(iconHash)) {
+            final String stored = symIconService.store(icon);
+            iconHash = null == stored ? "" : stored;
+        }
+
+        sym.put(Sym.SYM_ICON, icon);
+        sym.put(Sym.SYM_DESC, head.optString(HTMLHeads.DESCRIPTION));
+        sym.put(Sym.SYM_ICON_HASH, iconHash);
+    }
+
+    /**
+     * Gets a sym by the specified URL.
+     *
+     * @param symURL the specified URL
+     * @return sym, returns {@code null} if not found
+     * @throws RepositoryException repository exception
+     */
+    private JSONObject getByURL(final String symURL) throws RepositoryException {
+        final Query query = new Query().setFilter(new PropertyFilter(Sym.SYM_URL, FilterOperator.EQUAL, symURL));
+        final JSONArray syms = symRepository.get(query).optJSONArray(Keys.RESULTS);
+
+        return 0 == syms.length() ? null : syms.optJSONObject(0);
+    }
+
+    /**
+     * Rebuilds the cached syms response, keeps the cached one if failed.
+     *
+     * @return the rebuilt response, returns the cached one if it is rebuilt by another thread meanwhile, returns
+     * {@code null} if failed
+     */
+    private synchronized SymsResponse refreshSymsResponse() {
+        final long generation = symsGeneration.get();
+        final SymsResponse cached = symsResponse;
+        if (null != cached && cached.generation == generation
+                && System.currentTimeMillis() - cached.time < SYMS_MAX_AGE) {
+            return cached;
+        }
+
+        final long time = System.currentTimeMillis();
+        try {
+            final JSONObject ret = new JSONObject();
+            ret.put(Keys.STATUS_CODE, true);
+            ret.put(Sym.SYMS, querySyms());
+
+            final SymsResponse response = new SymsResponse(ret.toString().getBytes(UTF8), generation, time);
+            symsResponse = response;
+
+            return response;
+        } catch (final RepositoryException e) {
+            LOGGER.log(Level.ERROR, "Refreshes syms failed", e);
+
+            return null;
+        }
+    }
+
+    /**
+     * Queries the valid syms, points the icons of the syms whose icons are stored to this server. A sym whose icon file
+     * is missing, for example, the store directory was lost, keeps its original favicon URL and is enriched again to
+     * store it.
+     *
+     * @return a list of syms
+     * @throws RepositoryException repository exception
+     */
+    private List<JSONObject> querySyms() throws RepositoryException {
+        final Query query = new Query().
+                setFilter(new PropertyFilter(Sym.SYM_STATUS, FilterOperator.EQUAL, Sym.SYM_STATUS_C_VALID)).
+                addSort(Keys.OBJECT_ID, SortDirection.ASCENDING).
+                addProjection(Sym.SYM_URL, String.class).
+                addProjection(Sym.SYM_TITLE, String.class).
+                addProjection(Sym.SYM_ICON, String.class).
+                addProjection(Sym.SYM_DESC, String.class).
+                addProjection(Sym.SYM_ICON_HASH, String.class);
+
+        final List<JSONObject> ret
+                = CollectionUtils.jsonArrayToList(symRepository.get(query).optJSONArray(Keys.RESULTS));
+        for (final JSONObject sym : ret) {
+            final String iconHash = sym.optString(Sym.SYM_ICON_HASH);
+            if (iconHash.isEmpty()) {
+                continue;
+            }
+
+            if (null != symIconService.getFile(iconHash)) {
+                sym.put(Sym.SYM_ICON, Latkes.getServePath() + "/sym/icon/" + iconHash);
+            } else {
+                enrich(sym.optString(Sym.SYM_URL));
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * A serialized syms response.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 19, 2026
+     */
+    private static final class SymsResponse {
+
+        /**
+         * Content.
+         */
+        private final byte[] content;
+
+        /**
+         * Syms generation it was built at.
+         */
+        private final long generation;
+
+        /**
+         * Time it was built at.
+         */
+        private final long time;
+
+        /**
+         * Constructs a syms response.
+         *
+         * @param content the specified content
+         * @param generation the specified syms generation
+         * @param time the specified time
+         */
+        private SymsResponse(final byte[] content, final long generation, final long time) {
+            this.content = content;
+            this.generation = generation;
+            this.time = time;
+        }
+    }
 }
@@ -15,22 +15,34 @@
  */
 package org.b3log.rhythm.service;
 
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
 import java.util.List;
 import javax.inject.Inject;
+import org.b3log.latke.Keys;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
+import org.b3log.latke.repository.FilterOperator;
+import org.b3log.latke.repository.PropertyFilter;
+import org.b3log.latke.repository.Query;
 import org.b3log.latke.repository.RepositoryException;
-import org.b3log.latke.repository.annotation.Transactional;
+import org.b3log.latke.repository.SortDirection;
+import org.b3log.latke.repository.Transaction;
 import org.b3log.latke.service.annotation.Service;
+import org.b3log.latke.util.CollectionUtils;
+import org.b3log.latke.util.Strings;
+import org.b3log.rhythm.model.Common;
 import org.b3log.rhythm.repository.UserRepository;
+import org.b3log.rhythm.util.Accessibilities;
 import org.json.JSONObject;
 
 /**
  * User service.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.0, May 30, 2014
+ * @version 1.4.0.1, Oct 19, 2026
  * @since 0.2.0
  */
 @Service
@@ -41,42 +53,216 @@ public class UserService {
      */
     private static final Logger LOGGER = Logger.getLogger(UserService.class.getName());
 
+    /**
+     * UTF-8 charset.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
     /**
      * User repository.
      */
     @Inject
     private UserRepository userRepository;
 
+    /**
+     * Broadcast recipient sampler.
+     */
+    @Inject
+    private BroadcastRecipientSampler broadcastRecipientSampler;
+
     /**
      * Removes the specified user by the given user id.
      *
      * @param userId the given user id
      */
-    @Transactional
     public void removeUser(final String userId) {
+        final Transaction transaction = userRepository.beginTransaction();
+
         try {
             userRepository.remove(userId);
 
+            transaction.commit();
+
+            broadcastRecipientSampler.remove(userId);
+
             LOGGER.info("Removed user [id=" + userId + ']');
         } catch (final Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
             LOGGER.log(Level.ERROR, "Removes user [id=" + userId + "] failed", e);
         }
     }
 
     /**
-     * Gets users randomly with the specified fetch size.
+     * Gets users which are due to be checked, the most overdue first.
      *
-     * @param fetchSize the specified fetch size
-     * @return a list of json objects, its size less or equal to the specified fetch size, returns an empty list if not
-     * found
+     * @param budget the specified budget, max number of users to get
+     * @return a list of users, returns an empty list if not found
+     * @see Accessibilities#getNextCheckTime(long, int, long)
      */
-    public List<JSONObject> getUsersRandomly(final int fetchSize) {
+    public List<JSONObject> getUsersToCheck(final int budget) {
+        final Query query = new Query().setFilter(new PropertyFilter(Common.USER_ACCESSIBILITY_NEXT_CHECK_TIME,
+                FilterOperator.LESS_THAN_OR_EQUAL, System.currentTimeMillis())).
+                addSort(Common.USER_ACCESSIBILITY_NEXT_CHECK_TIME, SortDirection.ASCENDING).
+                setPageSize(budget).setPageCount(1);
+
         try {
-            return userRepository.getRandomly(fetchSize);
+            return CollectionUtils.jsonArrayToList(userRepository.get(query).optJSONArray(Keys.RESULTS));
         } catch (final RepositoryException e) {
-            LOGGER.log(Level.ERROR, "Gets users ranomly failed", e);
+            LOGGER.log(Level.ERROR, "Gets users to check failed", e);
 
             return Collections.<JSONObject>emptyList();
         }
     }
+
+    /**
+     * Records an accessible check into the specified user and schedules its next check, does not persist it.
+     *
+     * <p>
+     * Inaccessible users are removed directly, so the accessibility history of a user is all accessible.
+     * </p>
+     *
+     * @param user the specified user
+     * @param checkTime the specified check time
+     * @see #updateAccessibilities(java.util.List)
+     */
+    public void recordAccessible(final JSONObject user, final long checkTime) {
+        final int checkCnt = user.optInt(Common.USER_ACCESSIBILITY_CHECK_CNT) + 1;
+        user.put(Common.USER_ACCESSIBILITY_CHECK_CNT, checkCnt);
+        user.put(Common.USER_ACCESSIBILITY_NEXT_CHECK_TIME, Accessibilities.getNextCheckTime(0L, checkCnt, checkTime));
+    }
+
+    /**
+     * Defers the next check of the specified user to the specified time without recording a check, does not persist it.
+     *
+     * @param user the specified user
+     * @param nextCheckTime the specified time
+     */
+    public void deferAccessibility(final JSONObject user, final long nextCheckTime) {
+        user.put(Common.USER_ACCESSIBILITY_NEXT_CHECK_TIME, nextCheckTime);
+    }
+
+    /**
+     * Updates the accessibility of the specified users in one transaction.
+     *
+     * @param users the specified users
+     */
+    public void updateAccessibilities(final List<JSONObject> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+
+        final Transaction transaction = userRepository.beginTransaction();
+
+        try {
+            for (final JSONObject user : users) {
+                userRepository.update(user.getString(Keys.OBJECT_ID), user);
+            }
+
+            transaction.commit();
+
+            LOGGER.log(Level.INFO, "Updated accessibility of [{0}] users", users.size());
+        } catch (final Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            LOGGER.log(Level.ERROR, "Updates accessibility of [" + users.size() + "] users failed", e);
+        }
+    }
+
+    /**
+     * Records the hash of the specified B3 key for the user specified by the email if the user has none.
+     *
+     * <p>
+     * Rhythm can not validate a B3 key itself, so this should be invoked only after Symphony accepted an article posted
+     * with the key. The hash is the credential of the
+     * {@link org.b3log.rhythm.processor.BroadcastChanceStreamServlet broadcast chance stream}, it is never replaced,
+     * so a later post with another key can not take over the stream of the user.
+     * </p>
+     *
+     * @param email the specified email
+     * @param b3Key the specified B3 key
+     */
+    public void recordB3Key(final String email, final String b3Key) {
+        if (Strings.isEmptyOrNull(email) || Strings.isEmptyOrNull(b3Key)) {
+            return;
+        }
+
+        final Transaction transaction = userRepository.beginTransaction();
+
+        try {
+            final JSONObject user = userRepository.getByEmail(email);
+            if (null == user || !user.optString(Common.USER_B3_KEY_HASH).isEmpty()) {
+                transaction.rollback();
+
+                return;
+            }
+
+            user.put(Common.USER_B3_KEY_HASH, hashB3Key(b3Key));
+            userRepository.update(user.getString(Keys.OBJECT_ID), user);
+
+            transaction.commit();
+
+            LOGGER.log(Level.INFO, "Recorded B3 key of user [email={0}]", email);
+        } catch (final Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            LOGGER.log(Level.ERROR, "Records B3 key of user [email=" + email + "] failed", e);
+        }
+    }
+
+    /**
+     * Verifies the specified B3 key of the user specified by the email against the hash recorded once Symphony
+     * accepted an article of the user, see {@link #recordB3Key(java.lang.String, java.lang.String)}.
+     *
+     * @param email the specified email
+     * @param b3Key the specified B3 key
+     * @return {@code true} if the key matches, returns {@code false} if it does not, the user is not found or has no
+     * recorded key
+     */
+    public boolean verifyB3Key(final String email, final String b3Key) {
+        if (Strings.isEmptyOrNull(email) || Strings.isEmptyOrNull(b3Key)) {
+            return false;
+        }
+
+        try {
+            final JSONObject user = userRepository.getByEmail(email);
+            if (null == user) {
+                return false;
+            }
+
+            final String hash = user.optString(Common.USER_B3_KEY_HASH);
+
+            return !hash.isEmpty() && MessageDigest.isEqual(hash.getBytes(UTF8), hashB3Key(b3Key).getBytes(UTF8));
+        } catch (final RepositoryException e) {
+            LOGGER.log(Level.ERROR, "Gets user [email=" + email + "] failed", e);
+
+            return false;
+        }
+    }
+
+    /**
+     * Hashes the specified B3 key.
+     *
+     * @param b3Key the specified B3 key
+     * @return hex SHA-256 of the key
+     */
+    public static String hashB3Key(final String b3Key) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(b3Key.getBytes(UTF8));
+            final StringBuilder ret = new StringBuilder(digest.length * 2);
+            for (final byte b : digest) {
+                ret.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+
+            return ret.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
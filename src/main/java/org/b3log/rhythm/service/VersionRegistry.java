@@ -0,0 +1,488 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.service.annotation.Service;
+import org.b3log.latke.util.Strings;
+import org.b3log.rhythm.util.Rhythms;
+import org.b3log.rhythm.util.SemanticVersion;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Version registry of the B3log products, answers "/version/{product}/latest" which every deployed instance polls.
+ *
+ * <p>
+ * Versions are loaded from "versions.file" (the classpath versions.json if empty) and compared as
+ * {@link SemanticVersion semantic versions}. The file is reloaded in "versions.reloadInterval" milliseconds after it is
+ * changed, a malformed file is logged and ignored so the loaded versions stay in use.
+ * </p>
+ *
+ * <p>
+ * The JSONP responses are serialized ahead: the responses of the default callback to the known versions are built at
+ * load time, the other responses are built once and cached until the next load, at most {@value #MAX_CACHED} of them.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+@Service
+public class VersionRegistry {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(VersionRegistry.class.getName());
+
+    /**
+     * Product B3log Solo.
+     */
+    public static final String SOLO = "solo";
+
+    /**
+     * Product B3log Wide.
+     */
+    public static final String WIDE = "wide";
+
+    /**
+     * Product B3log Symphony.
+     */
+    public static final String SYMPHONY = "symphony";
+
+    /**
+     * Default JSONP callback.
+     */
+    private static final String DEFAULT_CALLBACK = "callback";
+
+    /**
+     * Pattern of a valid JSONP callback.
+     */
+    private static final Pattern CALLBACK_PATTERN = Pattern.compile("[A-Za-z_$][\\w$.]{0,63}");
+
+    /**
+     * Max cached responses besides the ones built at load time.
+     */
+    private static final int MAX_CACHED = 10000;
+
+    /**
+     * UTF-8 charset.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Loaded versions.
+     */
+    private volatile Versions versions = new Versions(Collections.<String, Product>emptyMap());
+
+    /**
+     * Versions file, {@code null} if it is not a file (for example, in a jar) and can not be reloaded.
+     */
+    private volatile File file;
+
+    /**
+     * Last modified time of the loaded versions file.
+     */
+    private volatile long lastModified;
+
+    /**
+     * Reloader thread.
+     */
+    private Thread reloader;
+
+    /**
+     * Whether the reloader is running.
+     */
+    private volatile boolean running;
+
+    /**
+     * Loads the versions and starts the reloader thread.
+     *
+     * @throws IllegalStateException if the versions can not be loaded
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        if (!load()) {
+            throw new IllegalStateException("Loads versions failed");
+        }
+
+        final long interval = Long.valueOf(Rhythms.CFG.getString("versions.reloadInterval"));
+        if (null == file || interval <= 0) {
+            return;
+        }
+
+        running = true;
+        reloader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running) {
+                    try {
+                        Thread.sleep(interval);
+                    } catch (final InterruptedException e) {
+                        break;
+                    }
+
+                    if (file.lastModified() != lastModified) {
+                        load();
+                    }
+                }
+            }
+        }, "VersionReloader");
+        reloader.setDaemon(true);
+        reloader.start();
+    }
+
+    /**
+     * Stops the reloader thread.
+     */
+    public synchronized void shutdown() {
+        running = false;
+
+        if (null != reloader) {
+            reloader.interrupt();
+        }
+    }
+
+    /**
+     * Gets the serialized JSONP response of the latest version of the specified product.
+     *
+     * @param product the specified product, for example, {@value #SOLO}
+     * @param currentVersion the specified current version of the client, may be empty
+     * @param callback the specified JSONP callback, uses "callback" if it is empty or invalid
+     * @return response, for example, <pre>callback({"soloVersion": "1.8.0", "soloDownload": ""})</pre>, returns
+     * {@code null} if the specified product is unknown
+     */
+    public byte[] getLatestResponse(final String product, final String currentVersion, final String callback) {
+        final Versions loaded = versions;
+        final Product p = loaded.products.get(product);
+        if (null == p) {
+            return null;
+        }
+
+        final String current = null == currentVersion ? "" : currentVersion;
+        final boolean defaultCallback = Strings.isEmptyOrNull(callback) || DEFAULT_CALLBACK.equals(callback)
+                || !CALLBACK_PATTERN.matcher(callback).matches();
+        if (defaultCallback) {
+            final byte[] ret = p.responses.get(current);
+            if (null != ret) {
+                return ret;
+            }
+        }
+
+        final String jsonp = defaultCallback ? DEFAULT_CALLBACK : callback;
+        final String key = product + ' ' + jsonp + ' ' + current;
+        byte[] ret = loaded.cached.get(key);
+        if (null == ret) {
+            ret = p.render(p.getLatest(current), jsonp);
+
+            if (loaded.cached.size() >= MAX_CACHED) {
+                loaded.cached.clear();
+            }
+            loaded.cached.put(key, ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the latest version of the specified product with the specified current version.
+     *
+     * @param product the specified product
+     * @param currentVersion the specified current version
+     * @return the latest released version, or the specified current version if it is greater, returns {@code null} if
+     * the specified product is unknown
+     */
+    public String getLatest(final String product, final String currentVersion) {
+        final Product p = versions.products.get(product);
+
+        return null == p ? null : p.getLatest(currentVersion);
+    }
+
+    /**
+     * Determines whether the specified version is a released or the development version of the specified product.
+     *
+     * @param product the specified product
+     * @param version the specified version
+     * @return {@code true} if it is, returns {@code false} otherwise
+     */
+    public boolean isKnown(final String product, final String version) {
+        final Product p = versions.products.get(product);
+
+        return null != p && p.known.contains(version);
+    }
+
+    /**
+     * Loads the versions file.
+     *
+     * @return {@code true} if loaded, returns {@code false} otherwise
+     */
+    private synchronized boolean load() {
+        try {
+            final String path = Rhythms.CFG.getString("versions.file");
+            InputStream inputStream;
+            if (Strings.isEmptyOrNull(path)) {
+                final URL url = VersionRegistry.class.getResource("/versions.json");
+                if (null == url) {
+                    throw new IOException("Not found versions.json in classpath");
+                }
+
+                file = "file".equals(url.getProtocol()) ? new File(url.toURI()) : null;
+                inputStream = url.openStream();
+            } else {
+                file = new File(path);
+                inputStream = new FileInputStream(file);
+            }
+
+            final long modified = null == file ? 0 : file.lastModified();
+            final JSONObject config;
+            try {
+                config = new JSONObject(read(inputStream));
+            } finally {
+                inputStream.close();
+            }
+
+            final Map<String, Product> products = new HashMap<String, Product>();
+            final JSONObject productsConfig = config.getJSONObject("products");
+            for (final String name : productsConfig.keySet()) {
+                products.put(name, new Product(name, productsConfig.getJSONObject(name)));
+            }
+
+            versions = new Versions(products);
+            lastModified = modified;
+
+            LOGGER.log(Level.INFO, "Loaded versions {0}", products.values());
+
+            return true;
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Loads versions failed, keeps the loaded versions", e);
+
+            // Does not retry the same file
+            if (null != file) {
+                lastModified = file.lastModified();
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Reads the specified input stream as a UTF-8 string.
+     *
+     * @param inputStream the specified input stream
+     * @return string
+     * @throws IOException io exception
+     */
+    private static String read(final InputStream inputStream) throws IOException {
+        final ByteArrayOutputStream ret = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int read;
+        while (-1 != (read = inputStream.read(buffer))) {
+            ret.write(buffer, 0, read);
+        }
+
+        return new String(ret.toByteArray(), UTF8);
+    }
+
+    /**
+     * Loaded versions of all products.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 19, 2026
+     */
+    private static final class Versions {
+
+        /**
+         * Products, &lt;name, product&gt;.
+         */
+        private final Map<String, Product> products;
+
+        /**
+         * Responses built after loaded, &lt;"product callback currentVersion", response&gt;.
+         */
+        private final ConcurrentMap<String, byte[]> cached = new ConcurrentHashMap<String, byte[]>();
+
+        /**
+         * Constructs loaded versions with the specified products.
+         *
+         * @param products the specified products
+         */
+        private Versions(final Map<String, Product> products) {
+            this.products = products;
+        }
+    }
+
+    /**
+     * Versions of a product.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 19, 2026
+     */
+    private static final class Product {
+
+        /**
+         * Name.
+         */
+        private final String name;
+
+        /**
+         * Released and development versions.
+         */
+        private final Set<String> known = new HashSet<String>();
+
+        /**
+         * The latest released version.
+         */
+        private final String latest;
+
+        /**
+         * Parsed latest released version.
+         */
+        private final SemanticVersion latestVersion;
+
+        /**
+         * Download URL of the latest released version.
+         */
+        private final String download;
+
+        /**
+         * Responses of the default callback, &lt;current version, response&gt;, the key of no current version is empty.
+         */
+        private final Map<String, byte[]> responses = new HashMap<String, byte[]>();
+
+        /**
+         * Constructs a product with the specified name and configuration.
+         *
+         * @param name the specified name
+         * @param config the specified configuration, for example,
+         * <pre>
+         * {
+         *     "released": ["1.7.0", "1.8.0"],
+         *     "snapshot": "1.9.0",
+         *     "download": "https://github.com/b3log/solo/releases/tag/{version}"
+         * }
+         * </pre>
+         * @throws IllegalArgumentException if a version is malformed or there is no released version
+         */
+        private Product(final String name, final JSONObject config) {
+            this.name = name;
+
+            final JSONArray released = config.getJSONArray("released");
+            final List<String> versions = new ArrayList<String>();
+            String max = null;
+            SemanticVersion maxVersion = null;
+            for (int i = 0; i < released.length(); i++) {
+                final String version = released.getString(i);
+                final SemanticVersion parsed = parse(version);
+                if (null == maxVersion || parsed.compareTo(maxVersion) > 0) {
+                    max = version;
+                    maxVersion = parsed;
+                }
+
+                versions.add(version);
+            }
+
+            if (null == max) {
+                throw new IllegalArgumentException("No released version of [" + name + "]");
+            }
+
+            latest = max;
+            latestVersion = maxVersion;
+            download = config.optString("download").replace("{version}", latest);
+
+            final String snapshot = config.optString("snapshot");
+            if (!snapshot.isEmpty()) {
+                parse(snapshot);
+                versions.add(snapshot);
+            }
+
+            known.addAll(versions);
+            responses.put("", render(latest, DEFAULT_CALLBACK));
+            for (final String version : versions) {
+                responses.put(version, render(getLatest(version), DEFAULT_CALLBACK));
+            }
+        }
+
+        /**
+         * Gets the latest version with the specified current version.
+         *
+         * @param currentVersion the specified current version
+         * @return the latest released version, or the specified current version if it is greater
+         */
+        private String getLatest(final String currentVersion) {
+            final SemanticVersion current = SemanticVersion.parse(currentVersion);
+
+            return null != current && current.compareTo(latestVersion) > 0 ? currentVersion : latest;
+        }
+
+        /**
+         * Renders the JSONP response of the specified latest version with the specified callback.
+         *
+         * @param version the specified latest version
+         * @param callback the specified callback
+         * @return response
+         */
+        private byte[] render(final String version, final String callback) {
+            final JSONObject ret = new JSONObject();
+            ret.put(name + "Version", version);
+            ret.put(name + "Download", download);
+
+            return (callback + '(' + ret.toString() + ')').getBytes(UTF8);
+        }
+
+        /**
+         * Parses the specified version.
+         *
+         * @param version the specified version
+         * @return parsed version
+         * @throws IllegalArgumentException if the specified version is malformed
+         */
+        private SemanticVersion parse(final String version) {
+            final SemanticVersion ret = SemanticVersion.parse(version);
+            if (null == ret) {
+                throw new IllegalArgumentException("Malformed version [" + version + "] of [" + name + "]");
+            }
+
+            return ret;
+        }
+
+        @Override
+        public String toString() {
+            return name + '[' + latest + ']';
+        }
+    }
+}
@@ -0,0 +1,565 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.service.annotation.Service;
+import org.b3log.latke.util.Strings;
+import org.b3log.rhythm.util.HyperLogLog;
+import org.b3log.rhythm.util.Rhythms;
+import org.b3log.rhythm.util.SemanticVersion;
+import org.b3log.rhythm.util.StripedCounter;
+import org.json.JSONObject;
+
+/**
+ * Telemetry of the deployed B3log product versions, recorded from the "/version/{product}/latest" checks.
+ *
+ * <p>
+ * Each check counts the current version of the client on a {@link StripedCounter striped counter} and offers the client
+ * address to the {@link HyperLogLog} of the current {@value #BUCKET_MINUTES} minutes bucket, the sliding hour and day
+ * distinct clients are estimated by merging the buckets. Recording takes no locks. A version string which is not a
+ * semantic version is counted as "unknown", versions beyond {@value #MAX_VERSIONS} of a product are counted as "other".
+ * </p>
+ *
+ * <p>
+ * The telemetry is saved to "versions.telemetryFile" (defaults to ${dataDir}/version-telemetry) every
+ * "versions.telemetrySnapshotInterval" milliseconds and on shutdown, and loaded on startup, see {@link #getStats()}
+ * for the figures.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.1.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+@Service
+public class VersionTelemetry {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(VersionTelemetry.class.getName());
+
+    /**
+     * Minutes of a bucket.
+     */
+    private static final int BUCKET_MINUTES = 10;
+
+    /**
+     * Bucket length in milliseconds.
+     */
+    private static final long BUCKET = BUCKET_MINUTES * 60 * 1000L;
+
+    /**
+     * Buckets of the hour window.
+     */
+    private static final int HOUR_BUCKETS = 60 / BUCKET_MINUTES;
+
+    /**
+     * Buckets of the day window, also the number of buckets kept.
+     */
+    private static final int DAY_BUCKETS = 24 * HOUR_BUCKETS;
+
+    /**
+     * Precision of the distinct clients sketches, about 1.6% standard error in 4KB a bucket.
+     */
+    private static final int PRECISION = 12;
+
+    /**
+     * Max counted versions of a product.
+     */
+    private static final int MAX_VERSIONS = 256;
+
+    /**
+     * Magic number of the snapshot file.
+     */
+    private static final int MAGIC = 0x52565431;
+
+    /**
+     * Telemetry of the products, &lt;product, telemetry&gt;, read only.
+     */
+    private final Map<String, ProductTelemetry> products;
+
+    /**
+     * Time the telemetry started.
+     */
+    private volatile long since = System.currentTimeMillis();
+
+    /**
+     * Snapshot file.
+     */
+    private File file;
+
+    /**
+     * Whether the snapshot thread is running.
+     */
+    private volatile boolean running;
+
+    /**
+     * Snapshot thread.
+     */
+    private Thread snapshotter;
+
+    /**
+     * Constructs the telemetry of the known products.
+     */
+    public VersionTelemetry() {
+        final Map<String, ProductTelemetry> telemetries = new HashMap<String, ProductTelemetry>();
+        for (final String product : new String[]{VersionRegistry.SOLO, VersionRegistry.WIDE,
+            VersionRegistry.SYMPHONY}) {
+            telemetries.put(product, new ProductTelemetry());
+        }
+
+        products = Collections.unmodifiableMap(telemetries);
+    }
+
+    /**
+     * Records a version check.
+     *
+     * @param product the specified product
+     * @param currentVersion the specified current version of the client, may be empty
+     * @param remoteAddr the specified client address, may be {@code null}
+     */
+    public void record(final String product, final String currentVersion, final String remoteAddr) {
+        final ProductTelemetry telemetry = products.get(product);
+        if (null == telemetry) {
+            return;
+        }
+
+        telemetry.count(currentVersion);
+
+        if (!Strings.isEmptyOrNull(remoteAddr)) {
+            telemetry.getBucket(System.currentTimeMillis() / BUCKET).offer(remoteAddr);
+        }
+    }
+
+    /**
+     * Gets the statistics.
+     *
+     * @return for example,
+     * <pre>
+     * {
+     *     "since": long, // time the telemetry started
+     *     "solo": {
+     *         "requests": long,
+     *         "versions": {
+     *             "2.0.0": long,
+     *             "1.9.0": long,
+     *             ....,
+     *             "unknown": long,
+     *             "other": long
+     *         },
+     *         "clients": { // estimated distinct client addresses
+     *             "hour": long,
+     *             "day": long
+     *         }
+     *     },
+     *     "wide": {},
+     *     "symphony": {}
+     * }
+     * </pre>
+     */
+    public JSONObject getStats() {
+        final long epoch = System.currentTimeMillis() / BUCKET;
+
+        final JSONObject ret = new JSONObject();
+        ret.put("since", since);
+
+        for (final Map.Entry<String, ProductTelemetry> entry : products.entrySet()) {
+            final ProductTelemetry telemetry = entry.getValue();
+
+            final Map<String, Long> counts = new HashMap<String, Long>();
+            long requests = 0;
+            for (final Map.Entry<String, StripedCounter> version : telemetry.versions.entrySet()) {
+                final String name = SemanticVersion.parse(version.getKey()).toString();
+                final long count = version.getValue().sum();
+                final Long counted = counts.get(name);
+                counts.put(name, null == counted ? count : counted + count);
+                requests += count;
+            }
+
+            final JSONObject versions = new JSONObject();
+            for (final Map.Entry<String, Long> count : counts.entrySet()) {
+                versions.put(count.getKey(), count.getValue());
+            }
+            versions.put("unknown", telemetry.unknown.sum());
+            versions.put("other", telemetry.other.sum());
+            requests += telemetry.unknown.sum() + telemetry.other.sum();
+
+            final JSONObject clients = new JSONObject();
+            clients.put("hour", telemetry.estimateClients(epoch, HOUR_BUCKETS));
+            clients.put("day", telemetry.estimateClients(epoch, DAY_BUCKETS));
+
+            final JSONObject stats = new JSONObject();
+            stats.put("requests", requests);
+            stats.put("versions", versions);
+            stats.put("clients", clients);
+            ret.put(entry.getKey(), stats);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Loads the snapshot and starts the snapshot thread.
+     *
+     * @throws IllegalStateException if "versions.telemetryFile" and the data directory are not configured
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        final String path = Rhythms.CFG.getString("versions.telemetryFile");
+        file = Strings.isEmptyOrNull(path) ? new File(Rhythms.getDataDir(), "version-telemetry") : new File(path);
+        load();
+
+        final long interval = Long.valueOf(Rhythms.CFG.getString("versions.telemetrySnapshotInterval"));
+        running = true;
+        snapshotter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running) {
+                    try {
+                        Thread.sleep(interval);
+                    } catch (final InterruptedException e) {
+                        break;
+                    }
+
+                    save();
+                }
+            }
+        }, "VersionTelemetry");
+        snapshotter.setDaemon(true);
+        snapshotter.start();
+    }
+
+    /**
+     * Stops the snapshot thread and saves the snapshot.
+     */
+    public synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+
+        running = false;
+        snapshotter.interrupt();
+        try {
+            snapshotter.join(1000);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        save();
+    }
+
+    /**
+     * Loads the snapshot, a missing or malformed snapshot is skipped.
+     */
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+
+        final long epoch = System.currentTimeMillis() / BUCKET;
+        final DataInputStream input;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        } catch (final IOException e) {
+            LOGGER.log(Level.WARN, "Opens version telemetry snapshot [" + file + "] failed", e);
+
+            return;
+        }
+
+        try {
+            if (MAGIC != input.readInt()) {
+                LOGGER.log(Level.WARN, "Skipped malformed version telemetry snapshot [{0}]", file);
+
+                return;
+            }
+
+            since = input.readLong();
+            final int productCnt = input.readInt();
+            for (int i = 0; i < productCnt; i++) {
+                final String product = input.readUTF();
+                ProductTelemetry telemetry = products.get(product);
+                if (null == telemetry) {
+                    telemetry = new ProductTelemetry(); // Dropped product, reads through
+                }
+
+                telemetry.unknown.add(input.readLong());
+                telemetry.other.add(input.readLong());
+
+                final int versionCnt = input.readInt();
+                for (int j = 0; j < versionCnt; j++) {
+                    final String version = input.readUTF();
+                    final long count = input.readLong();
+                    telemetry.count(version, count);
+                }
+
+                final int bucketCnt = input.readInt();
+                for (int j = 0; j < bucketCnt; j++) {
+                    final long bucketEpoch = input.readLong();
+                    final byte[] registers = new byte[1 << PRECISION];
+                    input.readFully(registers);
+
+                    if (bucketEpoch > epoch - DAY_BUCKETS && bucketEpoch <= epoch) {
+                        telemetry.getBucket(bucketEpoch).setRegisters(registers);
+                    }
+                }
+            }
+
+            LOGGER.log(Level.INFO, "Loaded version telemetry snapshot [{0}]", file);
+        } catch (final IOException e) {
+            LOGGER.log(Level.WARN, "Loads version telemetry snapshot [" + file + "] failed", e);
+        } finally {
+            try {
+                input.close();
+            } catch (final IOException e) {
+                LOGGER.log(Level.WARN, "Closes version telemetry snapshot [" + file + "] failed", e);
+            }
+        }
+    }
+
+    /**
+     * Saves the snapshot, writes a temporary file and moves it over the snapshot.
+     */
+    private void save() {
+        final long epoch = System.currentTimeMillis() / BUCKET;
+        final File temp = new File(file.getPath() + ".tmp");
+
+        try {
+            final File dir = temp.getAbsoluteFile().getParentFile();
+            if (!dir.exists() && !dir.mkdirs() && !dir.exists()) {
+                throw new IOException("Creates version telemetry directory [" + dir + "] failed");
+            }
+
+            final FileOutputStream fileOutputStream = new FileOutputStream(temp);
+            final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutputStream));
+            try {
+                output.writeInt(MAGIC);
+                output.writeLong(since);
+                output.writeInt(products.size());
+
+                for (final Map.Entry<String, ProductTelemetry> entry : products.entrySet()) {
+                    final ProductTelemetry telemetry = entry.getValue();
+                    output.writeUTF(entry.getKey());
+                    output.writeLong(telemetry.unknown.sum());
+                    output.writeLong(telemetry.other.sum());
+
+                    final Map<String, StripedCounter> versions = new HashMap<String, StripedCounter>(
+                            telemetry.versions);
+                    output.writeInt(versions.size());
+                    for (final Map.Entry<String, StripedCounter> version : versions.entrySet()) {
+                        output.writeUTF(version.getKey());
+                        output.writeLong(version.getValue().sum());
+                    }
+
+                    final Map<Long, HyperLogLog> buckets = telemetry.getBuckets(epoch, DAY_BUCKETS);
+                    output.writeInt(buckets.size());
+                    for (final Map.Entry<Long, HyperLogLog> bucket : buckets.entrySet()) {
+                        output.writeLong(bucket.getKey());
+                        output.write(bucket.getValue().getRegisters());
+                    }
+                }
+
+                output.flush();
+                fileOutputStream.getFD().sync();
+            } finally {
+                output.close();
+            }
+
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            LOGGER.log(Level.ERROR, "Saves version telemetry snapshot [" + file + "] failed", e);
+
+            temp.delete();
+        }
+    }
+
+    /**
+     * Telemetry of a product.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 19, 2026
+     * @since 1.2.0
+     */
+    private static final class ProductTelemetry {
+
+        /**
+         * Counts of the versions, &lt;version as requested, count&gt;.
+         */
+        private final ConcurrentMap<String, StripedCounter> versions = new ConcurrentHashMap<String, StripedCounter>();
+
+        /**
+         * Count of the malformed versions.
+         */
+        private final StripedCounter unknown = new StripedCounter();
+
+        /**
+         * Count of the versions beyond {@link #MAX_VERSIONS}.
+         */
+        private final StripedCounter other = new StripedCounter();
+
+        /**
+         * Distinct clients buckets, the bucket of epoch e is at e % {@link #DAY_BUCKETS}.
+         */
+        private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<Bucket>(DAY_BUCKETS);
+
+        /**
+         * Counts one check of the specified version.
+         *
+         * @param version the specified version
+         */
+        private void count(final String version) {
+            count(version, 1L);
+        }
+
+        /**
+         * Counts the specified number of checks of the specified version.
+         *
+         * @param version the specified version
+         * @param count the specified number
+         */
+        private void count(final String version, final long count) {
+            StripedCounter counter = versions.get(version);
+            if (null == counter) {
+                if (null == SemanticVersion.parse(version)) {
+                    unknown.add(count);
+
+                    return;
+                }
+
+                if (versions.size() >= MAX_VERSIONS) {
+                    other.add(count);
+
+                    return;
+                }
+
+                final StripedCounter created = new StripedCounter();
+                counter = versions.putIfAbsent(version, created);
+                if (null == counter) {
+                    counter = created;
+                }
+            }
+
+            counter.add(count);
+        }
+
+        /**
+         * Gets the sketch of the bucket of the specified epoch, replaces the expired bucket in its slot.
+         *
+         * @param epoch the specified epoch, in buckets since 1970
+         * @return sketch
+         */
+        private HyperLogLog getBucket(final long epoch) {
+            final int slot = (int) (epoch % DAY_BUCKETS);
+
+            while (true) {
+                final Bucket bucket = buckets.get(slot);
+                if (null != bucket && bucket.epoch >= epoch) {
+                    return bucket.sketch;
+                }
+
+                final Bucket created = new Bucket(epoch);
+                if (buckets.compareAndSet(slot, bucket, created)) {
+                    return created.sketch;
+                }
+            }
+        }
+
+        /**
+         * Gets the sketches of the specified number of buckets up to the specified epoch.
+         *
+         * @param epoch the specified epoch
+         * @param count the specified number
+         * @return sketches, &lt;epoch, sketch&gt;
+         */
+        private Map<Long, HyperLogLog> getBuckets(final long epoch, final int count) {
+            final Map<Long, HyperLogLog> ret = new HashMap<Long, HyperLogLog>();
+            for (int i = 0; i < buckets.length(); i++) {
+                final Bucket bucket = buckets.get(i);
+                if (null != bucket && bucket.epoch > epoch - count && bucket.epoch <= epoch) {
+                    ret.put(bucket.epoch, bucket.sketch);
+                }
+            }
+
+            return ret;
+        }
+
+        /**
+         * Estimates the distinct clients of the specified number of buckets up to the specified epoch.
+         *
+         * @param epoch the specified epoch
+         * @param count the specified number
+         * @return estimated distinct clients
+         */
+        private long estimateClients(final long epoch, final int count) {
+            final HyperLogLog union = new HyperLogLog(PRECISION);
+            for (final HyperLogLog sketch : getBuckets(epoch, count).values()) {
+                union.merge(sketch);
+            }
+
+            return union.estimate();
+        }
+    }
+
+    /**
+     * Distinct clients of a bucket.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 19, 2026
+     * @since 1.2.0
+     */
+    private static final class Bucket {
+
+        /**
+         * Epoch, in buckets since 1970.
+         */
+        private final long epoch;
+
+        /**
+         * Sketch of the client addresses.
+         */
+        private final HyperLogLog sketch = new HyperLogLog(PRECISION);
+
+        /**
+         * Constructs a bucket of the specified epoch.
+         *
+         * @param epoch the specified epoch
+         */
+        private Bucket(final long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.urlfetch;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.json.JSONObject;
+
+/**
+ * Concurrency bulkhead, limits the number of concurrent calls to a destination so that a slow destination can not
+ * tie up the threads calling other destinations.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class Bulkhead {
+
+    /**
+     * Max concurrent calls.
+     */
+    private final int maxConcurrent;
+
+    /**
+     * Max time to wait for a permit in milliseconds.
+     */
+    private final long maxWait;
+
+    /**
+     * Permits.
+     */
+    private final Semaphore permits;
+
+    /**
+     * Rejected calls count.
+     */
+    private final AtomicLong rejections = new AtomicLong();
+
+    /**
+     * Constructs a bulkhead.
+     *
+     * @param maxConcurrent the specified max concurrent calls
+     * @param maxWait the specified max time to wait for a permit in milliseconds
+     */
+    public Bulkhead(final int maxConcurrent, final long maxWait) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxWait = maxWait;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Acquires a permit, a caller acquired must {@link #release() release} it.
+     *
+     * @return {@code true} if acquired, returns {@code false} if the bulkhead is full
+     */
+    public boolean acquire() {
+        try {
+            if (permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        rejections.incrementAndGet();
+
+        return false;
+    }
+
+    /**
+     * Releases a permit.
+     */
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * Gets the statistics.
+     *
+     * @return for example,
+     * <pre>
+     * {
+     *     "maxConcurrent": 10,
+     *     "active": 0,
+     *     "rejections": 0
+     * }
+     * </pre>
+     */
+    public JSONObject getStats() {
+        final JSONObject ret = new JSONObject();
+        ret.put("maxConcurrent", maxConcurrent);
+        ret.put("active", maxConcurrent - permits.availablePermits());
+        ret.put("rejections", rejections.get());
+
+        return ret;
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.urlfetch;
+
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.json.JSONObject;
+
+/**
+ * Rolling window circuit breaker.
+ *
+ * <p>
+ * Calls are counted in per second buckets of a rolling window. The breaker opens if there are at least "min calls" in
+ * the window and the rate of failed or slow calls reaches the "failure rate". An open breaker rejects all calls for the
+ * "open time", then half-opens to let one probe call through: the breaker closes if the probe succeeds, opens again
+ * otherwise.
+ * </p>
+ *
+ * <p>
+ * {@link #allow()} returns a permit which must be passed back to {@link #record(long, boolean, long)} or
+ * {@link #cancel(long)}. Only the permit of the current probe decides a half-open breaker, results of calls allowed
+ * before the breaker opened are dropped unless the breaker is still closed.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class CircuitBreaker {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(CircuitBreaker.class.getName());
+
+    /**
+     * Permit of a rejected call.
+     */
+    public static final long REJECTED = -1;
+
+    /**
+     * Permit of a call allowed by the closed breaker.
+     */
+    public static final long CLOSED_PERMIT = 0;
+
+    /**
+     * Breaker states.
+     */
+    public enum State {
+
+        /**
+         * Calls are allowed.
+         */
+        CLOSED,
+        /**
+         * Calls are rejected.
+         */
+        OPEN,
+        /**
+         * One probe call is allowed.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Name.
+     */
+    private final String name;
+
+    /**
+     * Call counts of the buckets.
+     */
+    private final int[] calls;
+
+    /**
+     * Failure (including slow call) counts of the buckets.
+     */
+    private final int[] failures;
+
+    /**
+     * Seconds of the buckets.
+     */
+    private final long[] seconds;
+
+    /**
+     * Min calls in the window to evaluate the failure rate.
+     */
+    private final int minCalls;
+
+    /**
+     * Failure rate to open the breaker, in percent.
+     */
+    private final int failureRate;
+
+    /**
+     * Calls slower than this are counted as failures, in milliseconds.
+     */
+    private final long slowCall;
+
+    /**
+     * Open time in milliseconds.
+     */
+    private final long openTime;
+
+    /**
+     * State.
+     */
+    private State state = State.CLOSED;
+
+    /**
+     * Time the breaker opened.
+     */
+    private long openedTime;
+
+    /**
+     * Permit of the probe call in flight, {@link #CLOSED_PERMIT} if there is no probe in flight.
+     */
+    private long probe;
+
+    /**
+     * Last issued probe permit.
+     */
+    private long probes;
+
+    /**
+     * Trip count.
+     */
+    private long trips;
+
+    /**
+     * Rejected calls count.
+     */
+    private long rejections;
+
+    /**
+     * Constructs a circuit breaker.
+     *
+     * @param name the specified name
+     * @param window the specified window size in seconds
+     * @param minCalls the specified min calls in the window to evaluate the failure rate
+     * @param failureRate the specified failure rate to open the breaker, in percent
+     * @param slowCall the specified slow call threshold in milliseconds
+     * @param openTime the specified open time in milliseconds
+     */
+    public CircuitBreaker(final String name, final int window, final int minCalls, final int failureRate,
+            final long slowCall, final long openTime) {
+        this.name = name;
+        this.calls = new int[window];
+        this.failures = new int[window];
+        this.seconds = new long[window];
+        this.minCalls = minCalls;
+        this.failureRate = failureRate;
+        this.slowCall = slowCall;
+        this.openTime = openTime;
+    }
+
+    /**
+     * Determines whether a call is allowed now, a caller allowed must {@link #record(long, boolean, long) record} the
+     * result or {@link #cancel(long) cancel} with the returned permit.
+     *
+     * @return permit, {@link #CLOSED_PERMIT} or a probe permit if allowed, returns {@link #REJECTED} otherwise
+     */
+    public synchronized long allow() {
+        final long now = System.currentTimeMillis();
+
+        if (State.OPEN == state && now - openedTime >= openTime) {
+            state = State.HALF_OPEN;
+            probe = CLOSED_PERMIT;
+        }
+
+        if (State.CLOSED == state) {
+            return CLOSED_PERMIT;
+        }
+
+        if (State.HALF_OPEN == state && CLOSED_PERMIT == probe) {
+            probe = ++probes;
+
+            return probe;
+        }
+
+        rejections++;
+
+        return REJECTED;
+    }
+
+    /**
+     * Records the result of an allowed call.
+     *
+     * @param permit the specified permit returned by {@link #allow()}
+     * @param success whether the call succeeded
+     * @param elapsed the specified elapsed time in milliseconds
+     */
+    public synchronized void record(final long permit, final boolean success, final long elapsed) {
+        final boolean failed = !success || elapsed >= slowCall;
+        final long now = System.currentTimeMillis();
+
+        if (CLOSED_PERMIT != permit) {
+            if (State.HALF_OPEN != state || permit != probe) { // Stale probe
+                return;
+            }
+
+            probe = CLOSED_PERMIT;
+
+            if (failed) {
+                open(now);
+            } else {
+                state = State.CLOSED;
+                reset();
+
+                LOGGER.log(Level.INFO, "Circuit breaker [{0}] closed", name);
+            }
+
+            return;
+        }
+
+        if (State.CLOSED != state) { // Allowed before the breaker opened
+            return;
+        }
+
+        final long second = now / 1000;
+        final int index = (int) (second % calls.length);
+        if (seconds[index] != second) {
+            seconds[index] = second;
+            calls[index] = 0;
+            failures[index] = 0;
+        }
+        calls[index]++;
+        if (failed) {
+            failures[index]++;
+        }
+
+        if (!failed) {
+            return;
+        }
+
+        int totalCalls = 0;
+        int totalFailures = 0;
+        for (int i = 0; i < calls.length; i++) {
+            if (second - seconds[i] < calls.length) {
+                totalCalls += calls[i];
+                totalFailures += failures[i];
+            }
+        }
+
+        if (totalCalls >= minCalls && totalFailures * 100 >= failureRate * totalCalls) {
+            open(now);
+        }
+    }
+
+    /**
+     * Cancels an allowed call which is not sent, lets another probe call through if the call is the current probe.
+     *
+     * @param permit the specified permit returned by {@link #allow()}
+     */
+    public synchronized void cancel(final long permit) {
+        if (CLOSED_PERMIT != permit && permit == probe) {
+            probe = CLOSED_PERMIT;
+        }
+    }
+
+    /**
+     * Gets the state.
+     *
+     * @return state
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Gets the statistics.
+     *
+     * @return for example,
+     * <pre>
+     * {
+     *     "state": "CLOSED",
+     *     "trips": 0,
+     *     "rejections": 0
+     * }
+     * </pre>
+     */
+    public synchronized JSONObject getStats() {
+        final JSONObject ret = new JSONObject();
+        ret.put("state", state.name());
+        ret.put("trips", trips);
+        ret.put("rejections", rejections);
+
+        return ret;
+    }
+
+    /**
+     * Opens the breaker at the specified time.
+     *
+     * @param now the specified time
+     */
+    private void open(final long now) {
+        state = State.OPEN;
+        openedTime = now;
+        trips++;
+        reset();
+
+        LOGGER.log(Level.WARN, "Circuit breaker [{0}] opened for [{1}ms]", new Object[]{name, openTime});
+    }
+
+    /**
+     * Resets the window.
+     */
+    private void reset() {
+        for (int i = 0; i < calls.length; i++) {
+            calls[i] = 0;
+            failures[i] = 0;
+            seconds[i] = 0;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.urlfetch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import org.b3log.latke.urlfetch.HTTPResponse;
+
+/**
+ * Handles the content of an outbound response as a stream, see
+ * {@link OutboundFetchService#fetch(org.b3log.latke.urlfetch.HTTPRequest, ContentHandler)}.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public interface ContentHandler {
+
+    /**
+     * Handles the content of the specified response. The handler may stop reading at any point, the rest of the
+     * content is discarded.
+     *
+     * @param response the specified response, with the response code and headers but without content
+     * @param content the specified content stream, will be closed after this method returns
+     * @throws IOException io exception
+     */
+    void handle(HTTPResponse response, InputStream content) throws IOException;
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.urlfetch;
+
+import org.b3log.rhythm.util.Rhythms;
+
+/**
+ * Destination classes of outbound HTTP requests.
+ *
+ * <p>
+ * Each destination is configured in rhythm.properties with the keys "urlfetch.{name}.connectTimeout",
+ * "urlfetch.{name}.readTimeout", "urlfetch.{name}.keepAlive", "urlfetch.{name}.maxConcurrent",
+ * "urlfetch.{name}.maxWait" and "urlfetch.{name}.breaker".
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public enum Destination {
+
+    /**
+     * Crawl targets, for example, article permalinks, user blogs and syms.
+     */
+    CRAWL("crawl"),
+    /**
+     * B3log Symphony.
+     */
+    SYMPHONY("symphony"),
+    /**
+     * Solo clients.
+     */
+    SOLO("solo"),
+    /**
+     * DNSPod APIs.
+     */
+    DNSPOD("dnspod");
+
+    /**
+     * Name.
+     */
+    private final String name;
+
+    /**
+     * Connect timeout in milliseconds.
+     */
+    private final int connectTimeout;
+
+    /**
+     * Read timeout in milliseconds.
+     */
+    private final int readTimeout;
+
+    /**
+     * Whether to keep connections alive for reuse.
+     */
+    private final boolean keepAlive;
+
+    /**
+     * Max concurrent requests.
+     */
+    private final int maxConcurrent;
+
+    /**
+     * Max time to wait for a concurrent request slot in milliseconds.
+     */
+    private final long maxWait;
+
+    /**
+     * Whether to guard this destination with a circuit breaker.
+     */
+    private final boolean breaker;
+
+    /**
+     * Constructs a destination with the specified name.
+     *
+     * @param name the specified name
+     */
+    private Destination(final String name) {
+        this.name = name;
+
+        final String prefix = "urlfetch." + name + '.';
+        connectTimeout = Integer.valueOf(Rhythms.CFG.getString(prefix + "connectTimeout"));
+        readTimeout = Integer.valueOf(Rhythms.CFG.getString(prefix + "readTimeout"));
+        keepAlive = Boolean.valueOf(Rhythms.CFG.getString(prefix + "keepAlive"));
+        maxConcurrent = Integer.valueOf(Rhythms.CFG.getString(prefix + "maxConcurrent"));
+        maxWait = Long.valueOf(Rhythms.CFG.getString(prefix + "maxWait"));
+        breaker = Boolean.valueOf(Rhythms.CFG.getString(prefix + "breaker"));
+    }
+
+    /**
+     * Gets the name.
+     *
+     * @return name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the connect timeout.
+     *
+     * @return connect timeout in milliseconds
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Gets the read timeout.
+     *
+     * @return read timeout in milliseconds
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Whether to keep connections alive for reuse.
+     *
+     * @return {@code true} if keep alive, returns {@code false} otherwise
+     */
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Gets the max concurrent requests.
+     *
+     * @return max concurrent requests
+     */
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * Gets the max time to wait for a concurrent request slot.
+     *
+     * @return max wait time in milliseconds
+     */
+    public long getMaxWait() {
+        return maxWait;
+    }
+
+    /**
+     * Whether to guard this destination with a circuit breaker.
+     *
+     * @return {@code true} if guarded, returns {@code false} otherwise
+     */
+    public boolean isBreaker() {
+        return breaker;
+    }
+}
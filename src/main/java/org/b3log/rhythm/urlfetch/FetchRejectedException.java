@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.urlfetch;
+
+import java.io.IOException;
+
+/**
+ * Thrown if an outbound request is rejected without being sent, because the circuit breaker of its destination is open
+ * or the bulkhead of its destination is full.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class FetchRejectedException extends IOException {
+
+    /**
+     * Default serial version uid.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a fetch rejected exception with the specified message.
+     *
+     * @param msg the specified message
+     */
+    public FetchRejectedException(final String msg) {
+        super(msg);
+    }
+}
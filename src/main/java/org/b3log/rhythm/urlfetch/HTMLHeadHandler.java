@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.urlfetch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import javax.servlet.http.HttpServletResponse;
+import org.b3log.latke.urlfetch.HTTPHeader;
+import org.b3log.latke.urlfetch.HTTPResponse;
+import org.b3log.rhythm.util.HTMLHeads;
+import org.json.JSONObject;
+
+/**
+ * Content handler parses the head of an HTML page, reads at most the "max bytes" and stops at the end of the head.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class HTMLHeadHandler implements ContentHandler {
+
+    /**
+     * Page URL, to resolve the relative icon URL.
+     */
+    private final URL page;
+
+    /**
+     * Max bytes to read.
+     */
+    private final int maxBytes;
+
+    /**
+     * Parsed head, {@code null} if the response is not an HTTP 200 HTML page.
+     */
+    private JSONObject head;
+
+    /**
+     * Constructs an HTML head handler with the specified page URL and max bytes.
+     *
+     * @param page the specified page URL
+     * @param maxBytes the specified max bytes
+     */
+    public HTMLHeadHandler(final URL page, final int maxBytes) {
+        this.page = page;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public void handle(final HTTPResponse response, final InputStream content) throws IOException {
+        if (HttpServletResponse.SC_OK != response.getResponseCode()) {
+            return;
+        }
+
+        final String contentType = getHeader(response, "Content-Type").toLowerCase(Locale.ENGLISH);
+        if (!contentType.isEmpty() && !contentType.contains("html")) {
+            return;
+        }
+
+        Charset charset = null;
+        final int index = contentType.indexOf("charset=");
+        if (-1 != index) {
+            try {
+                charset = Charset.forName(contentType.substring(index + "charset=".length()).split(";")[0]
+                        .replace("\"", "").trim());
+            } catch (final IllegalArgumentException e) {
+                // Uses the charset declared by the page
+            }
+        }
+
+        head = HTMLHeads.parse(content, charset, maxBytes);
+
+        final String icon = head.optString(HTMLHeads.ICON);
+        if (!icon.isEmpty()) {
+            try {
+                head.put(HTMLHeads.ICON, new URL(page, icon).toString());
+            } catch (final MalformedURLException e) {
+                // Keeps it as it is
+            }
+        }
+    }
+
+    /**
+     * Gets the parsed head, the icon URL is resolved against the page URL.
+     *
+     * @return head, see {@link HTMLHeads#parse(InputStream, Charset, int)} for the format, returns {@code null} if
+     * the response is not an HTTP 200 HTML page
+     */
+    public JSONObject getHead() {
+        return head;
+    }
+
+    /**
+     * Gets the value of the header with the specified name of the specified response.
+     *
+     * @param response the specified response
+     * @param name the specified name
+     * @return value, returns an empty string if not found
+     */
+    private static String getHeader(final HTTPResponse response, final String name) {
+        for (final HTTPHeader header : response.getHeaders()) {
+            if (name.equalsIgnoreCase(header.getName())) {
+                return header.getValue();
+            }
+        }
+
+        return "";
+    }
+}
@@ -0,0 +1,514 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.urlfetch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.servlet.http.HttpServletResponse;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.servlet.HTTPRequestMethod;
+import org.b3log.latke.urlfetch.HTTPHeader;
+import org.b3log.latke.urlfetch.HTTPRequest;
+import org.b3log.latke.urlfetch.HTTPResponse;
+import org.b3log.latke.urlfetch.URLFetchService;
+import org.b3log.rhythm.util.Rhythms;
+import org.json.JSONObject;
+
+/**
+ * Shared outbound HTTP fetch service.
+ *
+ * <p>
+ * Built on {@link HttpURLConnection} so that connections are pooled per host by the JDK keep-alive cache: response
+ * bodies are always drained and closed, and connections are never disconnected unless broken. A response can also be
+ * {@link #fetch(HTTPRequest, ContentHandler) streamed to a content handler}, which may stop reading early, the JDK
+ * then skips the small rest of the body or closes the connection. TLS sessions are cached
+ * by the shared default {@link SSLContext}, so reconnecting to a host resumes its session. Hosts failed to resolve are
+ * negatively cached to fail fast. A buffered response body larger than "urlfetch.maxResponseBytes" fails the fetch.
+ * </p>
+ *
+ * <p>
+ * The JVM-wide DNS cache TTL is not configured here, set {@code networkaddress.cache.ttl} and
+ * {@code networkaddress.cache.negative.ttl} in the JRE java.security file, or launch the JVM with
+ * {@code -Dsun.net.inetaddr.ttl=<seconds>} and {@code -Dsun.net.inetaddr.negative.ttl=<seconds>}.
+ * </p>
+ *
+ * <p>
+ * Each destination, or each named instance of a destination (for example, a forwarding target), is isolated by a
+ * {@link Bulkhead concurrency bulkhead}, and optionally guarded by a
+ * {@link CircuitBreaker circuit breaker} counting exceptions and 5xx/429 responses as failures. A request rejected by
+ * either fails fast with a {@link FetchRejectedException}.
+ * </p>
+ *
+ * <p>
+ * {@link #init()} should be invoked at startup and {@link #shutdown()} at shutdown, see rhythm.properties "urlfetch.*"
+ * for configurations.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.4.1.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class OutboundFetchService implements URLFetchService {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(OutboundFetchService.class.getName());
+
+    /**
+     * Instances.
+     */
+    private static final Map<Destination, OutboundFetchService> INSTANCES
+            = new EnumMap<Destination, OutboundFetchService>(Destination.class);
+
+    static {
+        for (final Destination destination : Destination.values()) {
+            INSTANCES.put(destination, new OutboundFetchService(destination, destination.getName(),
+                    destination.getMaxConcurrent(), destination.getMaxWait(), destination.isBreaker()));
+        }
+    }
+
+    /**
+     * Named instances, &lt;name, instance&gt;.
+     */
+    private static final Map<String, OutboundFetchService> NAMED_INSTANCES
+            = new ConcurrentHashMap<String, OutboundFetchService>();
+
+    /**
+     * Negative DNS cache TTL in milliseconds.
+     */
+    private static final long DNS_NEGATIVE_CACHE_TTL
+            = Long.valueOf(Rhythms.CFG.getString("urlfetch.dnsNegativeCacheTTL")) * 1000;
+
+    /**
+     * Max bytes of a buffered response body.
+     */
+    private static final long MAX_RESPONSE_BYTES = Long.valueOf(Rhythms.CFG.getString("urlfetch.maxResponseBytes"));
+
+    /**
+     * Max size of the negative DNS cache.
+     */
+    private static final int DNS_NEGATIVE_CACHE_SIZE = 10000;
+
+    /**
+     * Unresolvable hosts, &lt;host, expiration time&gt;.
+     */
+    private static final Map<String, Long> UNRESOLVABLE_HOSTS = new ConcurrentHashMap<String, Long>();
+
+    /**
+     * Async fetch executor.
+     */
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            Integer.valueOf(Rhythms.CFG.getString("urlfetch.asyncThreads")), new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread ret = new Thread(runnable, "OutboundFetch-" + count.incrementAndGet());
+            ret.setDaemon(true);
+
+            return ret;
+        }
+    });
+
+    /**
+     * Buffer size.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Content handler reads the whole content into the response, drains the body so that the connection can be reused.
+     */
+    private static final ContentHandler BUFFERING_HANDLER = new ContentHandler() {
+        @Override
+        public void handle(final HTTPResponse response, final InputStream content) throws IOException {
+            response.setContent(read(content));
+        }
+    };
+
+    /**
+     * Destination.
+     */
+    private final Destination destination;
+
+    /**
+     * Name.
+     */
+    private final String name;
+
+    /**
+     * Bulkhead.
+     */
+    private final Bulkhead bulkhead;
+
+    /**
+     * Circuit breaker, {@code null} if the destination is not guarded.
+     */
+    private final CircuitBreaker breaker;
+
+    /**
+     * Constructs an outbound fetch service with the specified destination, name and isolation settings.
+     *
+     * @param destination the specified destination
+     * @param name the specified name
+     * @param maxConcurrent the specified max concurrent requests
+     * @param maxWait the specified max time to wait for a concurrent request slot in milliseconds
+     * @param guarded whether to guard with a circuit breaker
+     */
+    private OutboundFetchService(final Destination destination, final String name, final int maxConcurrent,
+            final long maxWait, final boolean guarded) {
+        this.destination = destination;
+        this.name = name;
+
+        bulkhead = new Bulkhead(maxConcurrent, maxWait);
+        breaker = guarded ? new CircuitBreaker(name,
+                Integer.valueOf(Rhythms.CFG.getString("urlfetch.breaker.window")),
+                Integer.valueOf(Rhythms.CFG.getString("urlfetch.breaker.minCalls")),
+                Integer.valueOf(Rhythms.CFG.getString("urlfetch.breaker.failureRate")),
+                Long.valueOf(Rhythms.CFG.getString("urlfetch.breaker.slowCall")),
+                Long.valueOf(Rhythms.CFG.getString("urlfetch.breaker.openTime")) * 1000) : null;
+    }
+
+    /**
+     * Gets the outbound fetch service of the specified destination.
+     *
+     * @param destination the specified destination
+     * @return outbound fetch service
+     */
+    public static OutboundFetchService getInstance(final Destination destination) {
+        return INSTANCES.get(destination);
+    }
+
+    /**
+     * Gets the outbound fetch service with the specified name, creates it with the specified destination and isolation
+     * settings if not exist.
+     *
+     * @param destination the specified destination, provides the timeouts and keep-alive setting
+     * @param name the specified name, should not be a destination name
+     * @param maxConcurrent the specified max concurrent requests
+     * @param maxWait the specified max time to wait for a concurrent request slot in milliseconds
+     * @param guarded whether to guard with a circuit breaker
+     * @return outbound fetch service
+     */
+    public static synchronized OutboundFetchService getInstance(final Destination destination, final String name,
+            final int maxConcurrent, final long maxWait, final boolean guarded) {
+        OutboundFetchService ret = NAMED_INSTANCES.get(name);
+        if (null == ret) {
+            ret = new OutboundFetchService(destination, name, maxConcurrent, maxWait, guarded);
+            NAMED_INSTANCES.put(name, ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Initializes the JVM wide settings of outbound HTTP.
+     *
+     * <p>
+     * Keep-alive pool size is read once by the JDK, so this method should be invoked before any outbound request.
+     * </p>
+     */
+    public static void init() {
+        System.setProperty("http.keepAlive", "true");
+        System.setProperty("http.maxConnections", Rhythms.CFG.getString("urlfetch.maxConnectionsPerHost"));
+
+        try {
+            final SSLSessionContext sessionContext = SSLContext.getDefault().getClientSessionContext();
+            sessionContext.setSessionCacheSize(Integer.valueOf(Rhythms.CFG.getString("urlfetch.tlsSessionCacheSize")));
+            sessionContext.setSessionTimeout(Integer.valueOf(Rhythms.CFG.getString("urlfetch.tlsSessionTimeout")));
+        } catch (final Exception e) {
+            LOGGER.log(Level.WARN, "Configures TLS session cache failed", e);
+        }
+
+        LOGGER.info("Initialized outbound fetch service");
+    }
+
+    /**
+     * Gets the bulkhead and circuit breaker statistics of all destinations and named instances.
+     *
+     * @return for example,
+     * <pre>
+     * {
+     *     "symphony": {
+     *         "bulkhead": {"maxConcurrent": 8, "active": 0, "rejections": 0},
+     *         "breaker": {"state": "CLOSED", "trips": 0, "rejections": 0}
+     *     }, ....
+     * }
+     * </pre>
+     */
+    public static JSONObject getStats() {
+        final List<OutboundFetchService> services = new ArrayList<OutboundFetchService>(INSTANCES.values());
+        services.addAll(NAMED_INSTANCES.values());
+
+        final JSONObject ret = new JSONObject();
+        for (final OutboundFetchService service : services) {
+            final JSONObject stats = new JSONObject();
+            stats.put("bulkhead", service.bulkhead.getStats());
+            if (null != service.breaker) {
+                stats.put("breaker", service.breaker.getStats());
+            }
+
+            ret.put(service.name, stats);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Shutdowns the async fetch executor.
+     */
+    public static void shutdown() {
+        EXECUTOR.shutdown();
+    }
+
+    @Override
+    public HTTPResponse fetch(final HTTPRequest request) throws IOException {
+        return fetch(request, BUFFERING_HANDLER);
+    }
+
+    /**
+     * Fetches the specified request, streams the response content to the specified content handler.
+     *
+     * @param request the specified request
+     * @param handler the specified content handler
+     * @return response, its content is set only if the specified handler sets it
+     * @throws IOException io exception
+     */
+    public HTTPResponse fetch(final HTTPRequest request, final ContentHandler handler) throws IOException {
+        final long permit = null == breaker ? CircuitBreaker.CLOSED_PERMIT : breaker.allow();
+        if (CircuitBreaker.REJECTED == permit) {
+            throw new FetchRejectedException("Circuit breaker of [" + name + "] is open");
+        }
+
+        if (!bulkhead.acquire()) {
+            if (null != breaker) {
+                breaker.cancel(permit);
+            }
+
+            throw new FetchRejectedException("Bulkhead of [" + name + "] is full");
+        }
+
+        final long start = System.currentTimeMillis();
+        boolean success = false;
+        try {
+            final HTTPResponse ret = fetchDirectly(request, handler);
+            final int code = ret.getResponseCode();
+            success = code < HttpServletResponse.SC_INTERNAL_SERVER_ERROR && Politeness.SC_TOO_MANY_REQUESTS != code;
+
+            return ret;
+        } finally {
+            bulkhead.release();
+
+            if (null != breaker) {
+                breaker.record(permit, success, System.currentTimeMillis() - start);
+            }
+        }
+    }
+
+    /**
+     * Fetches the specified request without the bulkhead and circuit breaker.
+     *
+     * @param request the specified request
+     * @param handler the specified content handler
+     * @return response
+     * @throws IOException io exception
+     */
+    private HTTPResponse fetchDirectly(final HTTPRequest request, final ContentHandler handler) throws IOException {
+        final URL url = request.getURL();
+        final String host = url.getHost();
+
+        final Long expiration = UNRESOLVABLE_HOSTS.get(host);
+        if (null != expiration) {
+            if (expiration > System.currentTimeMillis()) {
+                throw new UnknownHostException(host + " (cached)");
+            }
+
+            UNRESOLVABLE_HOSTS.remove(host);
+        }
+
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+
+        try {
+            return fetch(connection, request, handler);
+        } catch (final UnknownHostException e) {
+            cacheUnresolvableHost(host);
+
+            throw e;
+        } catch (final IOException e) {
+            // Broken connection, do not return it to the keep-alive cache
+            connection.disconnect();
+
+            throw e;
+        }
+    }
+
+    @Override
+    public Future<?> fetchAsync(final HTTPRequest request) {
+        return EXECUTOR.submit(new Callable<HTTPResponse>() {
+            @Override
+            public HTTPResponse call() throws Exception {
+                try {
+                    return fetch(request);
+                } catch (final IOException e) {
+                    LOGGER.log(Level.WARN, "Fetches [" + request.getURL() + "] failed [msg={0}]", e.getMessage());
+
+                    throw e;
+                }
+            }
+        });
+    }
+
+    /**
+     * Fetches the specified request with the specified connection.
+     *
+     * @param connection the specified connection
+     * @param request the specified request
+     * @param handler the specified content handler
+     * @return response
+     * @throws IOException io exception
+     */
+    private HTTPResponse fetch(final HttpURLConnection connection, final HTTPRequest request,
+            final ContentHandler handler) throws IOException {
+        final HTTPRequestMethod method = null == request.getRequestMethod()
+                ? HTTPRequestMethod.GET : request.getRequestMethod();
+
+        connection.setConnectTimeout(destination.getConnectTimeout());
+        connection.setReadTimeout(destination.getReadTimeout());
+        connection.setRequestMethod(method.name());
+
+        final List<HTTPHeader> headers = request.getHeaders();
+        if (null != headers) {
+            for (final HTTPHeader header : headers) {
+                connection.setRequestProperty(header.getName(), header.getValue());
+            }
+        }
+
+        if (!destination.isKeepAlive()) {
+            connection.setRequestProperty("Connection", "close");
+        }
+
+        final byte[] payload = request.getPayload();
+        if (null != payload) {
+            connection.setDoOutput(true);
+
+            final OutputStream outputStream = connection.getOutputStream();
+            try {
+                outputStream.write(payload);
+            } finally {
+                outputStream.close();
+            }
+        }
+
+        final HTTPResponse ret = new HTTPResponse();
+        final int responseCode = connection.getResponseCode();
+        ret.setResponseCode(responseCode);
+
+        for (final Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+            if (null == header.getKey()) { // Status line
+                continue;
+            }
+
+            for (final String value : header.getValue()) {
+                ret.addHeader(new HTTPHeader(header.getKey(), value));
+            }
+        }
+
+        final InputStream inputStream = responseCode >= HttpURLConnection.HTTP_BAD_REQUEST
+                ? connection.getErrorStream() : connection.getInputStream();
+        if (null == inputStream) {
+            handler.handle(ret, new ByteArrayInputStream(new byte[0]));
+
+            return ret;
+        }
+
+        try {
+            handler.handle(ret, inputStream);
+        } finally {
+            inputStream.close();
+        }
+
+        return ret;
+    }
+
+    /**
+     * Reads all bytes of the specified input stream and closes it.
+     *
+     * @param inputStream the specified input stream
+     * @return bytes
+     * @throws IOException io exception, or the content exceeds {@link #MAX_RESPONSE_BYTES}
+     */
+    private static byte[] read(final InputStream inputStream) throws IOException {
+        try {
+            final ByteArrayOutputStream ret = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while (-1 != (read = inputStream.read(buffer))) {
+                if (ret.size() + read > MAX_RESPONSE_BYTES) {
+                    throw new IOException("Response body exceeds [" + MAX_RESPONSE_BYTES + "] bytes");
+                }
+
+                ret.write(buffer, 0, read);
+            }
+
+            return ret.toByteArray();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Caches the specified host as an unresolvable host.
+     *
+     * @param host the specified host
+     */
+    private static void cacheUnresolvableHost(final String host) {
+        final long now = System.currentTimeMillis();
+
+        if (UNRESOLVABLE_HOSTS.size() >= DNS_NEGATIVE_CACHE_SIZE) {
+            final Iterator<Long> expirations = UNRESOLVABLE_HOSTS.values().iterator();
+            while (expirations.hasNext()) {
+                if (expirations.next() <= now) {
+                    expirations.remove();
+                }
+            }
+        }
+
+        if (UNRESOLVABLE_HOSTS.size() < DNS_NEGATIVE_CACHE_SIZE) {
+            UNRESOLVABLE_HOSTS.put(host, now + DNS_NEGATIVE_CACHE_TTL);
+        }
+    }
+}
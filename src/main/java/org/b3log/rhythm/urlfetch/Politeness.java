@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.urlfetch;
+
+import java.net.URL;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import javax.servlet.http.HttpServletResponse;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.urlfetch.HTTPHeader;
+import org.b3log.latke.urlfetch.HTTPRequest;
+import org.b3log.latke.urlfetch.HTTPResponse;
+import org.b3log.rhythm.util.Rhythms;
+
+/**
+ * Per host politeness of crawling.
+ *
+ * <p>
+ * Caches the {@link RobotsRules robots.txt rules} of each host for "politeness.robotsTTL" seconds and spaces out
+ * requests to the same host by max("politeness.minInterval", crawl delay), the crawl delay is capped by
+ * "politeness.maxCrawlDelay". Callers {@link #reserve(java.net.URL, long) reserve} a time slot before fetching, and
+ * should defer the fetch to the slot instead of waiting for it.
+ * </p>
+ *
+ * <p>
+ * The robots.txt of a host is fetched outside the lock of the host by one caller at a time, the other callers use the
+ * expired rules meanwhile, or wait for the fetch if the rules of the host have never been fetched.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class Politeness {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(Politeness.class.getName());
+
+    /**
+     * Singleton.
+     */
+    private static final Politeness INSTANCE = new Politeness();
+
+    /**
+     * HTTP status code of "Too Many Requests".
+     */
+    public static final int SC_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * User agent.
+     */
+    public static final String USER_AGENT = "B3log Rhythm/" + Rhythms.RHYTHM_VERSION;
+
+    /**
+     * Robots.txt cache TTL in milliseconds.
+     */
+    private static final long ROBOTS_TTL = Long.valueOf(Rhythms.CFG.getString("politeness.robotsTTL")) * 1000;
+
+    /**
+     * Minimum interval of requests to the same host in milliseconds.
+     */
+    private static final long MIN_INTERVAL = Long.valueOf(Rhythms.CFG.getString("politeness.minInterval"));
+
+    /**
+     * Max crawl delay in milliseconds.
+     */
+    private static final long MAX_CRAWL_DELAY = Long.valueOf(Rhythms.CFG.getString("politeness.maxCrawlDelay")) * 1000;
+
+    /**
+     * Default back off time of HTTP 429 without a valid "Retry-After" in milliseconds.
+     */
+    private static final long DEFAULT_BACK_OFF = 1000 * 60 * 60;
+
+    /**
+     * Max number of cached hosts.
+     */
+    private static final int MAX_HOSTS = 20000;
+
+    /**
+     * Hosts, &lt;"protocol://host:port", host state&gt;.
+     */
+    private final ConcurrentHashMap<String, HostState> hosts = new ConcurrentHashMap<String, HostState>();
+
+    /**
+     * Gets the singleton.
+     *
+     * @return singleton
+     */
+    public static Politeness getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Private constructor.
+     */
+    private Politeness() {
+    }
+
+    /**
+     * Reserves a time slot in the specified window to fetch the specified URL.
+     *
+     * @param url the specified URL
+     * @param window the specified window in milliseconds from now
+     * @return the reserved time slot, the caller should fetch at (or after) this time; if it is beyond the window, it
+     * is the earliest time slot which is not reserved, and the caller should defer the fetch to it
+     */
+    public long reserve(final URL url, final long window) {
+        final HostState state = getHostState(url);
+
+        synchronized (state) {
+            final long now = System.currentTimeMillis();
+            final long ret = Math.max(now, state.nextFetchTime);
+            if (ret - now > window) {
+                return ret;
+            }
+
+            final long interval = Math.max(MIN_INTERVAL, Math.min(state.rules.getCrawlDelay(), MAX_CRAWL_DELAY));
+            state.nextFetchTime = ret + interval;
+
+            return ret;
+        }
+    }
+
+    /**
+     * Determines whether the specified URL is allowed by its robots.txt, fetches the robots.txt if it is not cached or
+     * expired.
+     *
+     * @param url the specified URL
+     * @return {@code true} if allowed, returns {@code false} otherwise
+     */
+    public boolean isAllowed(final URL url) {
+        final HostState state = getHostState(url);
+
+        RobotsRules rules;
+        FutureTask<RobotsRules> fetch = null;
+        boolean fetching = false;
+        synchronized (state) {
+            rules = state.rules;
+            if (state.robotsExpiration <= System.currentTimeMillis()) {
+                if (null == state.robotsFetch) {
+                    state.robotsFetch = new FutureTask<RobotsRules>(new Callable<RobotsRules>() {
+                        @Override
+                        public RobotsRules call() {
+                            return fetchRobots(url);
+                        }
+                    });
+                    fetching = true;
+                }
+
+                if (fetching || 0 == state.robotsExpiration) {
+                    fetch = state.robotsFetch;
+                }
+            }
+        }
+
+        if (null != fetch) {
+            if (fetching) {
+                fetch.run();
+            }
+
+            rules = getRobots(fetch);
+
+            if (fetching) {
+                synchronized (state) {
+                    state.rules = rules;
+                    state.robotsExpiration = System.currentTimeMillis() + ROBOTS_TTL;
+                    state.robotsFetch = null;
+                }
+            }
+        }
+
+        final String path = url.getFile();
+
+        return rules.isAllowed(path.isEmpty() ? "/" : path);
+    }
+
+    /**
+     * Gets the time that the robots.txt rules will be refreshed, a disallowed URL should be deferred to this time.
+     *
+     * @param url the specified URL
+     * @return refresh time
+     */
+    public long getRobotsExpiration(final URL url) {
+        final HostState state = getHostState(url);
+        synchronized (state) {
+            return state.robotsExpiration;
+        }
+    }
+
+    /**
+     * Backs off the host of the specified URL with the specified response, should be invoked when got a HTTP 429.
+     *
+     * @param url the specified URL
+     * @param response the specified response
+     * @return the time to retry
+     */
+    public long backOff(final URL url, final HTTPResponse response) {
+        long backOff = DEFAULT_BACK_OFF;
+        if (null != response.getHeaders()) {
+            for (final HTTPHeader header : response.getHeaders()) {
+                if ("Retry-After".equalsIgnoreCase(header.getName())) {
+                    try {
+                        backOff = Long.parseLong(header.getValue().trim()) * 1000;
+                    } catch (final NumberFormatException e) {
+                        // HTTP-date is not supported, uses the default
+                    }
+                }
+            }
+        }
+
+        final HostState state = getHostState(url);
+        synchronized (state) {
+            final long ret = System.currentTimeMillis() + backOff;
+            state.nextFetchTime = Math.max(state.nextFetchTime, ret);
+
+            LOGGER.log(Level.INFO, "Backs off host [{0}] for [{1}ms]", new Object[]{url.getHost(), backOff});
+
+            return ret;
+        }
+    }
+
+    /**
+     * Gets the state of the host of the specified URL.
+     *
+     * @param url the specified URL
+     * @return host state
+     */
+    private HostState getHostState(final URL url) {
+        final String key = url.getProtocol() + "://" + url.getHost().toLowerCase() + ':' + url.getPort();
+
+        HostState ret = hosts.get(key);
+        if (null != ret) {
+            return ret;
+        }
+
+        if (hosts.size() >= MAX_HOSTS) {
+            evict();
+        }
+
+        ret = new HostState();
+        final HostState old = hosts.putIfAbsent(key, ret);
+
+        return null == old ? ret : old;
+    }
+
+    /**
+     * Evicts idle hosts whose robots.txt rules have expired.
+     */
+    private void evict() {
+        final long now = System.currentTimeMillis();
+
+        final Iterator<HostState> states = hosts.values().iterator();
+        while (states.hasNext()) {
+            final HostState state = states.next();
+            if (state.robotsExpiration <= now && state.nextFetchTime <= now && null == state.robotsFetch) {
+                states.remove();
+            }
+        }
+    }
+
+    /**
+     * Gets the robots rules of the specified fetch, waits for it if it is running in another thread.
+     *
+     * @param fetch the specified fetch
+     * @return robots rules, returns {@link RobotsRules#ALLOW_ALL} if the fetch failed or the current thread is
+     * interrupted
+     */
+    private static RobotsRules getRobots(final FutureTask<RobotsRules> fetch) {
+        try {
+            return fetch.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            return RobotsRules.ALLOW_ALL;
+        } catch (final ExecutionException e) {
+            return RobotsRules.ALLOW_ALL;
+        }
+    }
+
+    /**
+     * Fetches and parses the robots.txt of the host of the specified URL.
+     *
+     * @param url the specified URL
+     * @return robots rules, returns {@link RobotsRules#ALLOW_ALL} if the robots.txt is unavailable
+     */
+    private static RobotsRules fetchRobots(final URL url) {
+        try {
+            final HTTPRequest request = new HTTPRequest();
+            request.addHeader(new HTTPHeader("User-Agent", USER_AGENT));
+            request.setURL(new URL(url.getProtocol(), url.getHost(), url.getPort(), "/robots.txt"));
+
+            final HTTPResponse response = OutboundFetchService.getInstance(Destination.CRAWL).fetch(request);
+            if (HttpServletResponse.SC_OK != response.getResponseCode()) {
+                return RobotsRules.ALLOW_ALL;
+            }
+
+            return RobotsRules.parse(new String(response.getContent(), "UTF-8"), USER_AGENT);
+        } catch (final Exception e) {
+            LOGGER.log(Level.DEBUG, "Fetches robots.txt of [" + url.getHost() + "] failed [msg={0}]", e.getMessage());
+
+            return RobotsRules.ALLOW_ALL;
+        }
+    }
+
+    /**
+     * Politeness state of a host.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.1.0.0, Oct 19, 2026
+     */
+    private static final class HostState {
+
+        /**
+         * Robots.txt rules.
+         */
+        private RobotsRules rules = RobotsRules.ALLOW_ALL;
+
+        /**
+         * Expiration time of the robots.txt rules.
+         */
+        private long robotsExpiration;
+
+        /**
+         * The earliest time of the next fetch.
+         */
+        private long nextFetchTime;
+
+        /**
+         * Running robots.txt fetch, {@code null} if none.
+         */
+        private FutureTask<RobotsRules> robotsFetch;
+    }
+}
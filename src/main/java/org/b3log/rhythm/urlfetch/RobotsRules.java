@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.urlfetch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Parsed rules of a robots.txt for one user agent.
+ *
+ * <p>
+ * Supports "User-agent", "Allow", "Disallow" (with "*" and "$" wildcards, the longest match wins, allow wins ties) and
+ * "Crawl-delay". Groups naming the user agent take precedence over the "*" group.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class RobotsRules {
+
+    /**
+     * Rules allow all.
+     */
+    public static final RobotsRules ALLOW_ALL = new RobotsRules(Collections.<Rule>emptyList(), 0);
+
+    /**
+     * Rules.
+     */
+    private final List<Rule> rules;
+
+    /**
+     * Crawl delay in milliseconds.
+     */
+    private final long crawlDelay;
+
+    /**
+     * Constructs robots rules with the specified rules and crawl delay.
+     *
+     * @param rules the specified rules
+     * @param crawlDelay the specified crawl delay in milliseconds
+     */
+    private RobotsRules(final List<Rule> rules, final long crawlDelay) {
+        this.rules = rules;
+        this.crawlDelay = crawlDelay;
+    }
+
+    /**
+     * Parses the specified robots.txt content for the specified user agent.
+     *
+     * @param content the specified robots.txt content
+     * @param userAgent the specified user agent, for example, "B3log Rhythm/1.1.0"
+     * @return robots rules
+     */
+    public static RobotsRules parse(final String content, final String userAgent) {
+        final String ua = userAgent.toLowerCase();
+
+        final List<Rule> specificRules = new ArrayList<Rule>();
+        final List<Rule> wildcardRules = new ArrayList<Rule>();
+        long specificDelay = -1;
+        long wildcardDelay = -1;
+        boolean specificFound = false;
+
+        boolean specific = false;
+        boolean wildcard = false;
+        boolean inRules = false;
+
+        for (String line : content.split("\r\n|\r|\n")) {
+            final int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            final int colon = line.indexOf(':');
+            if (colon < 1) {
+                continue;
+            }
+
+            final String field = line.substring(0, colon).trim().toLowerCase();
+            final String value = line.substring(colon + 1).trim();
+
+            if ("user-agent".equals(field)) {
+                if (inRules) { // A new group
+                    specific = false;
+                    wildcard = false;
+                    inRules = false;
+                }
+
+                final String agent = value.toLowerCase();
+                if ("*".equals(agent)) {
+                    wildcard = true;
+                } else if (!agent.isEmpty() && ua.contains(agent)) {
+                    specific = true;
+                    specificFound = true;
+                }
+
+                continue;
+            }
+
+            inRules = true;
+
+            if (!specific && !wildcard) {
+                continue;
+            }
+
+            if ("allow".equals(field) || "disallow".equals(field)) {
+                if (value.isEmpty()) { // "Disallow:" means allow all
+                    continue;
+                }
+
+                final Rule rule = new Rule(value, "allow".equals(field));
+                if (specific) {
+                    specificRules.add(rule);
+                } else {
+                    wildcardRules.add(rule);
+                }
+            } else if ("crawl-delay".equals(field)) {
+                try {
+                    final long delay = (long) (Double.parseDouble(value) * 1000);
+                    if (specific) {
+                        specificDelay = delay;
+                    } else {
+                        wildcardDelay = delay;
+                    }
+                } catch (final NumberFormatException e) {
+                    // Ignores invalid crawl delay
+                }
+            }
+        }
+
+        if (specificFound) {
+            return new RobotsRules(specificRules, Math.max(specificDelay, 0));
+        }
+
+        return new RobotsRules(wildcardRules, Math.max(wildcardDelay, 0));
+    }
+
+    /**
+     * Determines whether the specified path is allowed.
+     *
+     * @param path the specified path, including the query string, for example, "/articles/1.html?p=1"
+     * @return {@code true} if allowed, returns {@code false} otherwise
+     */
+    public boolean isAllowed(final String path) {
+        Rule matched = null;
+        for (final Rule rule : rules) {
+            if (!rule.matches(path)) {
+                continue;
+            }
+
+            if (null == matched || rule.length > matched.length || (rule.length == matched.length && rule.allow)) {
+                matched = rule;
+            }
+        }
+
+        return null == matched || matched.allow;
+    }
+
+    /**
+     * Gets the crawl delay.
+     *
+     * @return crawl delay in milliseconds, returns {@code 0} if not specified
+     */
+    public long getCrawlDelay() {
+        return crawlDelay;
+    }
+
+    /**
+     * An allow or disallow rule.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 19, 2026
+     */
+    private static final class Rule {
+
+        /**
+         * Compiled path pattern.
+         */
+        private final Pattern pattern;
+
+        /**
+         * Length of the path pattern, the longer the more specific.
+         */
+        private final int length;
+
+        /**
+         * Whether this is an allow rule.
+         */
+        private final boolean allow;
+
+        /**
+         * Constructs a rule with the specified path pattern.
+         *
+         * @param path the specified path pattern
+         * @param allow whether this is an allow rule
+         */
+        private Rule(final String path, final boolean allow) {
+            this.length = path.length();
+            this.allow = allow;
+
+            final boolean anchored = path.endsWith("$");
+            final String p = anchored ? path.substring(0, path.length() - 1) : path;
+
+            final StringBuilder regex = new StringBuilder("^");
+            final String[] parts = p.split("\\*", -1);
+            for (int i = 0; i < parts.length; i++) {
+                if (i > 0) {
+                    regex.append(".*");
+                }
+                if (!parts[i].isEmpty()) {
+                    regex.append(Pattern.quote(parts[i]));
+                }
+            }
+            if (anchored) {
+                regex.append('$');
+            }
+
+            pattern = Pattern.compile(regex.toString());
+        }
+
+        /**
+         * Determines whether this rule matches the specified path.
+         *
+         * @param path the specified path
+         * @return {@code true} if matches, returns {@code false} otherwise
+         */
+        private boolean matches(final String path) {
+            return pattern.matcher(path).find();
+        }
+    }
+}
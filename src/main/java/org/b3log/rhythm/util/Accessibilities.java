@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Accessibility history utilities.
+ *
+ * <p>
+ * An accessibility history is a 64-bit ring of the latest check outcomes. Every check shifts the history left by one
+ * bit and sets the lowest bit to {@code 1} if the check got a not HTTP 200 status code, so the lowest bit is always
+ * the latest outcome. Only the latest min(check count, {@value #CAPACITY}) bits are meaningful, histories of legacy
+ * data are {@code 0} which means "all accessible".
+ * </p>
+ *
+ * <p>
+ * The next check time is scheduled adaptively with the history, see
+ * {@link #getNextCheckTime(long, int, long)} for more details.
+ * </p>
+ *
+ * <p>
+ * The health of a target is evaluated from the history with hysteresis, see
+ * {@link #isHealthy(boolean, long, int, int, int)} for more details.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.2.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class Accessibilities {
+
+    /**
+     * Capacity of a history.
+     */
+    public static final int CAPACITY = Long.SIZE;
+
+    /**
+     * Hour in milliseconds.
+     */
+    private static final long HOUR = 1000 * 60 * 60;
+
+    /**
+     * Recheck interval of the first failure.
+     */
+    private static final long RETRY_INTERVAL = HOUR;
+
+    /**
+     * Check interval of the first success.
+     */
+    private static final long BASE_INTERVAL = HOUR * 12;
+
+    /**
+     * Max check interval.
+     */
+    private static final long MAX_INTERVAL = HOUR * 24 * 7;
+
+    /**
+     * Jitter ratio of check intervals.
+     */
+    private static final double JITTER = 0.2D;
+
+    /**
+     * Determines whether the specified HTTP status code is an accessible one.
+     *
+     * @param statusCode the specified HTTP status code
+     * @return {@code true} if it is accessible, returns {@code false} otherwise
+     */
+    public static boolean isAccessible(final int statusCode) {
+        return HttpServletResponse.SC_OK == statusCode;
+    }
+
+    /**
+     * Records a check outcome into the specified history.
+     *
+     * @param history the specified history
+     * @param statusCode the HTTP status code of the check
+     * @return new history
+     */
+    public static long record(final long history, final int statusCode) {
+        return (history << 1) | (isAccessible(statusCode) ? 0L : 1L);
+    }
+
+    /**
+     * Gets the number of the latest consecutive failures of the specified history.
+     *
+     * @param history the specified history
+     * @param checkCnt the check count of the history
+     * @return consecutive failures, [0, {@value #CAPACITY}]
+     */
+    public static int getConsecutiveFailures(final long history, final int checkCnt) {
+        return Math.min(Long.numberOfTrailingZeros(~history), getLength(checkCnt));
+    }
+
+    /**
+     * Gets the number of the latest consecutive successes of the specified history.
+     *
+     * @param history the specified history
+     * @param checkCnt the check count of the history
+     * @return consecutive successes, [0, {@value #CAPACITY}]
+     */
+    public static int getConsecutiveSuccesses(final long history, final int checkCnt) {
+        return Math.min(Long.numberOfTrailingZeros(history), getLength(checkCnt));
+    }
+
+    /**
+     * Gets the number of failures in the latest checks of the specified window.
+     *
+     * @param history the specified history
+     * @param checkCnt the check count of the history
+     * @param window the specified window, for example, 10 means the latest 10 checks
+     * @return failures
+     */
+    public static int getFailures(final long history, final int checkCnt, final int window) {
+        final int length = Math.min(window, getLength(checkCnt));
+        if (length <= 0) {
+            return 0;
+        }
+
+        final long mask = CAPACITY == length ? -1L : (1L << length) - 1;
+
+        return Long.bitCount(history & mask);
+    }
+
+    /**
+     * Evaluates the health of a target with the specified current health and history.
+     *
+     * <p>
+     * The evaluation has hysteresis: a healthy target turns unhealthy only after the specified failures to down
+     * consecutive failures, an unhealthy target turns healthy only after the specified successes to up consecutive
+     * successes. A target flapping between the two keeps its current health.
+     * </p>
+     *
+     * @param healthy the specified current health
+     * @param history the specified history
+     * @param checkCnt the check count of the history
+     * @param failuresToDown the specified failures to down
+     * @param successesToUp the specified successes to up
+     * @return {@code true} if healthy, returns {@code false} otherwise
+     */
+    public static boolean isHealthy(final boolean healthy, final long history, final int checkCnt,
+            final int failuresToDown, final int successesToUp) {
+        if (healthy) {
+            return getConsecutiveFailures(history, checkCnt) < failuresToDown;
+        }
+
+        return getConsecutiveSuccesses(history, checkCnt) >= successesToUp;
+    }
+
+    /**
+     * Gets the next check time with the specified history, check count and the latest check time.
+     *
+     * <ul>
+     * <li>Failing: rechecks after {@link #RETRY_INTERVAL} and doubles it for every consecutive failure, up to
+     * {@link #BASE_INTERVAL}, so dead links can be confirmed soon</li>
+     * <li>Healthy: checks after {@link #BASE_INTERVAL} and doubles it for every consecutive success, up to
+     * {@link #MAX_INTERVAL}, so long-term healthy links are checked rarely</li>
+     * </ul>
+     * A random jitter of &plusmn;{@link #JITTER} is applied to spread load.
+     *
+     * @param history the specified history
+     * @param checkCnt the specified check count
+     * @param checkTime the specified latest check time
+     * @return next check time
+     */
+    public static long getNextCheckTime(final long history, final int checkCnt, final long checkTime) {
+        final int failures = getConsecutiveFailures(history, checkCnt);
+
+        long interval;
+        if (failures > 0) {
+            interval = Math.min(BASE_INTERVAL, RETRY_INTERVAL << Math.min(failures - 1, Integer.SIZE));
+        } else {
+            final int successes = getConsecutiveSuccesses(history, checkCnt);
+            interval = Math.min(MAX_INTERVAL, BASE_INTERVAL << Math.min(Math.max(successes - 1, 0), Integer.SIZE));
+        }
+
+        final double jitter = (ThreadLocalRandom.current().nextDouble() * 2 - 1) * JITTER;
+        interval += (long) (interval * jitter);
+
+        return checkTime + interval;
+    }
+
+    /**
+     * Gets the meaningful length of a history with the specified check count.
+     *
+     * @param checkCnt the specified check count
+     * @return length, [0, {@value #CAPACITY}]
+     */
+    private static int getLength(final int checkCnt) {
+        return Math.max(0, Math.min(checkCnt, CAPACITY));
+    }
+
+    /**
+     * Private constructor.
+     */
+    private Accessibilities() {
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Debouncer, holds the latest value of each key until the key is quiet.
+ *
+ * <p>
+ * A value is {@link #offer(java.lang.Object, java.lang.Object, long) offered} under a key, a newer value replaces the
+ * held value of its key. The held value of a key is {@link #poll(long) due} once no newer value comes in the window,
+ * but never later than the max delay since the first value of the key is held. The held value of a key can be
+ * {@link #remove(java.lang.Object) removed} before it is due. Time is passed in by the caller.
+ * </p>
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class Debouncer<K, V> {
+
+    /**
+     * Window in milliseconds.
+     */
+    private final long window;
+
+    /**
+     * Max delay in milliseconds.
+     */
+    private final long maxDelay;
+
+    /**
+     * Held values, &lt;key, held&gt;, in the order of their first held time.
+     */
+    private final Map<K, Held<V>> helds = new LinkedHashMap<K, Held<V>>();
+
+    /**
+     * Constructs a debouncer.
+     *
+     * @param window the specified window in milliseconds
+     * @param maxDelay the specified max delay in milliseconds
+     */
+    public Debouncer(final long window, final long maxDelay) {
+        this.window = window;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * Offers the specified value of the specified key.
+     *
+     * @param key the specified key
+     * @param value the specified value
+     * @param now the specified current time
+     * @return {@code true} if the value replaces a held value, {@code false} otherwise
+     */
+    public synchronized boolean offer(final K key, final V value, final long now) {
+        final Held<V> held = helds.get(key);
+        if (null == held) {
+            helds.put(key, new Held<V>(value, now));
+
+            return false;
+        }
+
+        held.value = value;
+        held.lastTime = now;
+
+        return true;
+    }
+
+    /**
+     * Removes the held value of the specified key.
+     *
+     * @param key the specified key
+     * @return the removed value, {@code null} if the key has no held value
+     */
+    public synchronized V remove(final K key) {
+        final Held<V> held = helds.remove(key);
+
+        return null == held ? null : held.value;
+    }
+
+    /**
+     * Removes and gets the held values which are due.
+     *
+     * @param now the specified current time
+     * @return due values in the order of their first held time
+     */
+    public synchronized List<V> poll(final long now) {
+        final List<V> ret = new ArrayList<V>();
+
+        final Iterator<Held<V>> iterator = helds.values().iterator();
+        while (iterator.hasNext()) {
+            final Held<V> held = iterator.next();
+            if (now - held.lastTime >= window || now - held.firstTime >= maxDelay) {
+                ret.add(held.value);
+                iterator.remove();
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Removes and gets all the held values.
+     *
+     * @return held values in the order of their first held time
+     */
+    public synchronized List<V> drain() {
+        final List<V> ret = new ArrayList<V>(helds.size());
+        for (final Held<V> held : helds.values()) {
+            ret.add(held.value);
+        }
+        helds.clear();
+
+        return ret;
+    }
+
+    /**
+     * Gets the number of the held values.
+     *
+     * @return number of held values
+     */
+    public synchronized int size() {
+        return helds.size();
+    }
+
+    /**
+     * A held value.
+     *
+     * @param <V> the type of the value
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 19, 2026
+     */
+    private static final class Held<V> {
+
+        /**
+         * Latest value.
+         */
+        private V value;
+
+        /**
+         * First held time.
+         */
+        private final long firstTime;
+
+        /**
+         * Latest held time.
+         */
+        private long lastTime;
+
+        /**
+         * Constructs a held value.
+         *
+         * @param value the specified value
+         * @param time the specified held time
+         */
+        private Held(final V value, final long time) {
+            this.value = value;
+            this.firstTime = time;
+            this.lastTime = time;
+        }
+    }
+}
@@ -0,0 +1,688 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.json.JSONObject;
+
+/**
+ * HTML head utilities.
+ *
+ * <p>
+ * {@link #parse(InputStream, Charset, int)} tokenizes a page incrementally as its bytes arrive and extracts the icon,
+ * description and title from the head. Tokenizing stops at {@code </head>}, {@code <body>} or the byte cap, tags
+ * longer than {@value #MAX_TAG} bytes and titles longer than {@value #MAX_TITLE} bytes are truncated, so both the
+ * memory and the time of a parse are bounded no matter how large the page is.
+ * </p>
+ *
+ * <p>
+ * Attributes may be in any order and quoted with double quotes, single quotes or not at all. Comments and the bodies
+ * of {@code <script>} and {@code <style>} are skipped.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class HTMLHeads {
+
+    /**
+     * Key of icon.
+     */
+    public static final String ICON = "icon";
+
+    /**
+     * Key of description.
+     */
+    public static final String DESCRIPTION = "description";
+
+    /**
+     * Key of title.
+     */
+    public static final String TITLE = "title";
+
+    /**
+     * Max bytes of a tag.
+     */
+    private static final int MAX_TAG = 4096;
+
+    /**
+     * Max bytes of a title.
+     */
+    private static final int MAX_TITLE = 1024;
+
+    /**
+     * Read buffer size.
+     */
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Default charset.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Private constructor.
+     */
+    private HTMLHeads() {
+    }
+
+    /**
+     * Parses the head of the page read from the specified input stream, reads at most the specified max bytes.
+     *
+     * @param inputStream the specified input stream, will not be closed
+     * @param charset the specified charset, for example, the charset of the "Content-Type" response header,
+     * {@code null} to use the charset declared by {@code <meta>} or UTF-8
+     * @param maxBytes the specified max bytes
+     * @return for example,
+     * <pre>
+     * {
+     *     "icon": "/favicon.png",
+     *     "description": "",
+     *     "title": "B3log"
+     * }
+     * </pre>, a value is empty if not found
+     * @throws IOException io exception
+     */
+    public static JSONObject parse(final InputStream inputStream, final Charset charset, final int maxBytes)
+            throws IOException {
+        final Tokenizer tokenizer = new Tokenizer(charset);
+        final byte[] buffer = new byte[BUFFER_SIZE];
+
+        int remaining = maxBytes;
+        int read;
+        while (remaining > 0 && -1 != (read = inputStream.read(buffer, 0, Math.min(buffer.length, remaining)))) {
+            remaining -= read;
+
+            if (!tokenizer.feed(buffer, read)) {
+                break;
+            }
+        }
+
+        return tokenizer.getHead();
+    }
+
+    /**
+     * Parses the attributes of the specified tag from the specified index.
+     *
+     * @param tag the specified tag, without the angle brackets
+     * @param from the specified index
+     * @return attributes, names are lower case, the first one wins if a name is duplicated
+     */
+    private static Map<String, String> parseAttributes(final String tag, final int from) {
+        final Map<String, String> ret = new HashMap<String, String>();
+        final int length = tag.length();
+
+        int i = from;
+        while (i < length) {
+            final char c = tag.charAt(i);
+            if (Character.isWhitespace(c) || '/' == c) {
+                i++;
+
+                continue;
+            }
+
+            final int nameStart = i;
+            while (i < length && !Character.isWhitespace(tag.charAt(i)) && '=' != tag.charAt(i)
+                    && '/' != tag.charAt(i)) {
+                i++;
+            }
+            final String name = tag.substring(nameStart, i).toLowerCase(Locale.ENGLISH);
+
+            while (i < length && Character.isWhitespace(tag.charAt(i))) {
+                i++;
+            }
+
+            String value = "";
+            if (i < length && '=' == tag.charAt(i)) {
+                i++;
+                while (i < length && Character.isWhitespace(tag.charAt(i))) {
+                    i++;
+                }
+
+                if (i < length && ('"' == tag.charAt(i) || '\'' == tag.charAt(i))) {
+                    int end = tag.indexOf(tag.charAt(i), i + 1);
+                    if (-1 == end) {
+                        end = length;
+                    }
+
+                    value = tag.substring(i + 1, end);
+                    i = end + 1;
+                } else {
+                    final int valueStart = i;
+                    while (i < length && !Character.isWhitespace(tag.charAt(i))) {
+                        i++;
+                    }
+
+                    value = tag.substring(valueStart, i);
+                }
+            }
+
+            if (!name.isEmpty() && !ret.containsKey(name)) {
+                ret.put(name, unescape(value));
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Unescapes the character references of the specified text.
+     *
+     * @param text the specified text
+     * @return unescaped text, unknown references are kept as they are
+     */
+    private static String unescape(final String text) {
+        int amp = text.indexOf('&');
+        if (-1 == amp) {
+            return text;
+        }
+
+        final StringBuilder ret = new StringBuilder(text.length());
+        int from = 0;
+        while (-1 != amp) {
+            ret.append(text, from, amp);
+
+            final int semicolon = text.indexOf(';', amp);
+            final String decoded = -1 == semicolon || semicolon - amp > 10
+                    ? null : decodeReference(text.substring(amp + 1, semicolon));
+            if (null == decoded) {
+                ret.append('&');
+                from = amp + 1;
+            } else {
+                ret.append(decoded);
+                from = semicolon + 1;
+            }
+
+            amp = text.indexOf('&', from);
+        }
+        ret.append(text, from, text.length());
+
+        return ret.toString();
+    }
+
+    /**
+     * Decodes the specified character reference.
+     *
+     * @param reference the specified character reference, without "&amp;" and ";", for example, "amp" or "#39"
+     * @return decoded text, returns {@code null} if the reference is unknown
+     */
+    private static String decodeReference(final String reference) {
+        switch (reference) {
+            case "amp":
+                return "&";
+            case "lt":
+                return "<";
+            case "gt":
+                return ">";
+            case "quot":
+                return "\"";
+            case "apos":
+                return "'";
+            case "nbsp":
+                return " ";
+            default:
+                break;
+        }
+
+        if (reference.length() < 2 || '#' != reference.charAt(0)) {
+            return null;
+        }
+
+        try {
+            final boolean hex = 'x' == reference.charAt(1) || 'X' == reference.charAt(1);
+            final int codePoint = hex ? Integer.parseInt(reference.substring(2), 16)
+                    : Integer.parseInt(reference.substring(1));
+
+            return new String(Character.toChars(codePoint));
+        } catch (final IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Collapses the whitespaces of the specified text and trims it.
+     *
+     * @param text the specified text
+     * @return collapsed text
+     */
+    private static String collapse(final String text) {
+        return text.replaceAll("\\s+", " ").trim();
+    }
+
+    /**
+     * Incremental head tokenizer.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 19, 2026
+     */
+    private static final class Tokenizer {
+
+        /**
+         * State of text.
+         */
+        private static final int TEXT = 0;
+
+        /**
+         * State of tag.
+         */
+        private static final int TAG = 1;
+
+        /**
+         * State of comment.
+         */
+        private static final int COMMENT = 2;
+
+        /**
+         * State of raw text, the body of {@code <script>}, {@code <style>} or {@code <title>}.
+         */
+        private static final int RAW = 3;
+
+        /**
+         * Current state.
+         */
+        private int state = TEXT;
+
+        /**
+         * Tag buffer.
+         */
+        private final byte[] tag = new byte[MAX_TAG];
+
+        /**
+         * Length of the tag buffer.
+         */
+        private int tagLength;
+
+        /**
+         * Quote of the current attribute value, {@code 0} if not in a quoted value.
+         */
+        private byte quote;
+
+        /**
+         * Whether the last not whitespace byte of the tag is "=".
+         */
+        private boolean afterEquals;
+
+        /**
+         * Dashes before the current byte in a comment.
+         */
+        private int dashes;
+
+        /**
+         * Lower case end tag of the raw text, for example, "&lt;/script".
+         */
+        private byte[] rawEnd;
+
+        /**
+         * Matched bytes of the end tag of the raw text.
+         */
+        private int rawMatched;
+
+        /**
+         * Title buffer.
+         */
+        private final byte[] titleBytes = new byte[MAX_TITLE];
+
+        /**
+         * Length of the title buffer.
+         */
+        private int titleLength;
+
+        /**
+         * Total bytes of the title, including the end tag and the truncated bytes.
+         */
+        private int titleTotal;
+
+        /**
+         * Whether in the title.
+         */
+        private boolean inTitle;
+
+        /**
+         * Whether the charset is specified by the caller.
+         */
+        private final boolean charsetSpecified;
+
+        /**
+         * Charset.
+         */
+        private Charset charset;
+
+        /**
+         * Icon.
+         */
+        private String icon;
+
+        /**
+         * Priority of the icon, "icon" is preferred to "apple-touch-icon".
+         */
+        private int iconPriority;
+
+        /**
+         * Description.
+         */
+        private String description;
+
+        /**
+         * Open Graph description, used if there is no description.
+         */
+        private String ogDescription;
+
+        /**
+         * Title.
+         */
+        private String title;
+
+        /**
+         * Constructs a tokenizer with the specified charset.
+         *
+         * @param charset the specified charset, {@code null} to use the declared charset or UTF-8
+         */
+        private Tokenizer(final Charset charset) {
+            charsetSpecified = null != charset;
+            this.charset = charsetSpecified ? charset : UTF8;
+        }
+
+        /**
+         * Feeds the specified bytes.
+         *
+         * @param bytes the specified bytes
+         * @param length the specified length
+         * @return {@code true} if the head is not finished, returns {@code false} otherwise
+         */
+        private boolean feed(final byte[] bytes, final int length) {
+            for (int i = 0; i < length; i++) {
+                final byte b = bytes[i];
+
+                switch (state) {
+                    case TEXT:
+                        if ('<' == b) {
+                            state = TAG;
+                            tagLength = 0;
+                            quote = 0;
+                            afterEquals = false;
+                        }
+
+                        break;
+                    case TAG:
+                        if (0 == tagLength && !isTagStart(b)) { // "a < b" in text
+                            state = TEXT;
+
+                            break;
+                        }
+
+                        if (0 != quote) {
+                            if (quote == b) {
+                                quote = 0;
+                            }
+                        } else if ('>' == b) {
+                            if (!endTag()) {
+                                return false;
+                            }
+
+                            break;
+                        } else if (afterEquals && ('"' == b || '\'' == b)) {
+                            quote = b;
+                        }
+
+                        if (!isWhitespace(b)) {
+                            afterEquals = '=' == b;
+                        }
+
+                        if (tagLength < MAX_TAG) {
+                            tag[tagLength++] = b;
+                        }
+
+                        if (3 == tagLength && '!' == tag[0] && '-' == tag[1] && '-' == tag[2]) {
+                            state = COMMENT;
+                            dashes = 0;
+                        }
+
+                        break;
+                    case COMMENT:
+                        if ('>' == b && dashes >= 2) {
+                            state = TEXT;
+                        }
+
+                        dashes = '-' == b ? dashes + 1 : 0;
+
+                        break;
+                    case RAW:
+                        if (inTitle) {
+                            if (titleLength < MAX_TITLE) {
+                                titleBytes[titleLength++] = b;
+                            }
+                            titleTotal++;
+                        }
+
+                        final byte lower = 'A' <= b && 'Z' >= b ? (byte) (b + ('a' - 'A')) : b;
+                        if (rawEnd[rawMatched] == lower) {
+                            rawMatched++;
+                        } else {
+                            rawMatched = rawEnd[0] == lower ? 1 : 0;
+                        }
+
+                        if (rawEnd.length == rawMatched) {
+                            if (inTitle) {
+                                endTitle();
+                            }
+
+                            // Consumes the rest of the end tag as a tag
+                            state = TAG;
+                            tagLength = rawEnd.length - 1;
+                            System.arraycopy(rawEnd, 1, tag, 0, tagLength);
+                            quote = 0;
+                            afterEquals = false;
+                        }
+
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown state [" + state + "]");
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Handles the tag in the tag buffer.
+         *
+         * @return {@code true} if the head is not finished, returns {@code false} otherwise
+         */
+        private boolean endTag() {
+            state = TEXT;
+
+            final String text = new String(tag, 0, tagLength, charset);
+            final boolean closing = text.startsWith("/");
+            int nameEnd = closing ? 1 : 0;
+            while (nameEnd < text.length() && !Character.isWhitespace(text.charAt(nameEnd))
+                    && '/' != text.charAt(nameEnd)) {
+                nameEnd++;
+            }
+            final String name = text.substring(closing ? 1 : 0, nameEnd).toLowerCase(Locale.ENGLISH);
+
+            if (closing) {
+                return !"head".equals(name);
+            }
+
+            switch (name) {
+                case "body":
+                    return false;
+                case "title":
+                    if (null == title) {
+                        inTitle = true;
+                        titleLength = 0;
+                        titleTotal = 0;
+                    }
+                    raw(name);
+
+                    break;
+                case "script":
+                case "style":
+                    raw(name);
+
+                    break;
+                case "meta":
+                    meta(parseAttributes(text, nameEnd));
+
+                    break;
+                case "link":
+                    link(parseAttributes(text, nameEnd));
+
+                    break;
+                default:
+                    break;
+            }
+
+            return true;
+        }
+
+        /**
+         * Enters the raw text of the specified tag.
+         *
+         * @param name the specified tag name
+         */
+        private void raw(final String name) {
+            state = RAW;
+            rawEnd = ("</" + name).getBytes(UTF8);
+            rawMatched = 0;
+        }
+
+        /**
+         * Ends the title.
+         */
+        private void endTitle() {
+            inTitle = false;
+
+            final int length = Math.min(titleLength, titleTotal - rawEnd.length);
+            title = collapse(unescape(new String(titleBytes, 0, Math.max(0, length), charset)));
+            // Drops the character truncated in the middle
+            title = title.replace("\uFFFD", "").trim();
+        }
+
+        /**
+         * Handles a meta tag with the specified attributes.
+         *
+         * @param attributes the specified attributes
+         */
+        private void meta(final Map<String, String> attributes) {
+            if (attributes.containsKey("charset")) {
+                declareCharset(attributes.get("charset"));
+            }
+
+            final String content = attributes.get("content");
+            if ("content-type".equalsIgnoreCase(attributes.get("http-equiv")) && null != content) {
+                final int index = content.toLowerCase(Locale.ENGLISH).indexOf("charset=");
+                if (-1 != index) {
+                    declareCharset(content.substring(index + "charset=".length()));
+                }
+            }
+
+            if (null == content) {
+                return;
+            }
+
+            if ("description".equalsIgnoreCase(attributes.get("name")) && null == description) {
+                description = collapse(content);
+            } else if ("og:description".equalsIgnoreCase(attributes.get("property")) && null == ogDescription) {
+                ogDescription = collapse(content);
+            }
+        }
+
+        /**
+         * Handles a link tag with the specified attributes.
+         *
+         * @param attributes the specified attributes
+         */
+        private void link(final Map<String, String> attributes) {
+            final String rel = attributes.get("rel");
+            final String href = attributes.get("href");
+            if (null == rel || null == href || href.trim().isEmpty()) {
+                return;
+            }
+
+            int priority = 0;
+            for (final String type : rel.toLowerCase(Locale.ENGLISH).trim().split("\\s+")) {
+                if ("icon".equals(type)) {
+                    priority = 2;
+                } else if (type.startsWith("apple-touch-icon")) {
+                    priority = Math.max(priority, 1);
+                }
+            }
+
+            if (priority > iconPriority) {
+                icon = href.trim();
+                iconPriority = priority;
+            }
+        }
+
+        /**
+         * Uses the specified declared charset if the caller does not specify one.
+         *
+         * @param name the specified charset name
+         */
+        private void declareCharset(final String name) {
+            if (charsetSpecified) {
+                return;
+            }
+
+            try {
+                charset = Charset.forName(name.replace("\"", "").replace("'", "").trim());
+            } catch (final IllegalArgumentException e) {
+                // Keeps the current charset
+            }
+        }
+
+        /**
+         * Gets the parsed head.
+         *
+         * @return head
+         */
+        private JSONObject getHead() {
+            final JSONObject ret = new JSONObject();
+            ret.put(ICON, null == icon ? "" : icon);
+            ret.put(DESCRIPTION, null != description ? description : null == ogDescription ? "" : ogDescription);
+            ret.put(TITLE, null == title ? "" : title);
+
+            return ret;
+        }
+
+        /**
+         * Determines whether the specified byte may start a tag.
+         *
+         * @param b the specified byte
+         * @return {@code true} if it may, returns {@code false} otherwise
+         */
+        private static boolean isTagStart(final byte b) {
+            return ('a' <= b && 'z' >= b) || ('A' <= b && 'Z' >= b) || '/' == b || '!' == b || '?' == b;
+        }
+
+        /**
+         * Determines whether the specified byte is an ASCII whitespace.
+         *
+         * @param b the specified byte
+         * @return {@code true} if it is, returns {@code false} otherwise
+         */
+        private static boolean isWhitespace(final byte b) {
+            return ' ' == b || '\t' == b || '\n' == b || '\r' == b || '\f' == b;
+        }
+    }
+}
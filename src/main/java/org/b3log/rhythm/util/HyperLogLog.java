@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.util;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * HyperLogLog distinct counter.
+ *
+ * <p>
+ * Estimates the number of distinct values offered with 2<sup>p</sup> registers of one byte, the standard error is
+ * about 1.04 / sqrt(2<sup>p</sup>), for example, 1.6% with p = 12 in 4KB. Four registers are packed in an int and
+ * raised with CAS, so {@link #offer(String)} is lock-free and safe to call from many threads. Sketches of the same
+ * precision {@link #merge(HyperLogLog) merge} into the sketch of the union, which makes sliding windows out of per
+ * interval sketches.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class HyperLogLog {
+
+    /**
+     * Precision, the number of index bits.
+     */
+    private final int precision;
+
+    /**
+     * Packed registers, register i is byte (i &amp; 3) of int i / 4.
+     */
+    private final AtomicIntegerArray registers;
+
+    /**
+     * Constructs a sketch with the specified precision.
+     *
+     * @param precision the specified precision, [4, 16]
+     * @throws IllegalArgumentException if the precision is out of range
+     */
+    public HyperLogLog(final int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("Precision [" + precision + "] is out of [4, 16]");
+        }
+
+        this.precision = precision;
+        this.registers = new AtomicIntegerArray((1 << precision) / 4);
+    }
+
+    /**
+     * Offers the specified value.
+     *
+     * @param value the specified value
+     */
+    public void offer(final String value) {
+        offerHash(hash(value));
+    }
+
+    /**
+     * Offers the specified 64-bit hash of a value.
+     *
+     * @param hash the specified hash
+     */
+    public void offerHash(final long hash) {
+        final int index = (int) (hash >>> (64 - precision));
+        final int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+
+        raise(index, rank);
+    }
+
+    /**
+     * Merges the specified sketch into this one.
+     *
+     * @param other the specified sketch
+     * @throws IllegalArgumentException if the precisions differ
+     */
+    public void merge(final HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Precisions [" + precision + ", " + other.precision + "] differ");
+        }
+
+        for (int i = 0; i < registers.length(); i++) {
+            final int packed = other.registers.get(i);
+            for (int j = 0; j < 4; j++) {
+                final int rank = (packed >>> (j * 8)) & 0xFF;
+                if (0 != rank) {
+                    raise(i * 4 + j, rank);
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimates the number of distinct values offered.
+     *
+     * @return estimated cardinality
+     */
+    public long estimate() {
+        final int m = 1 << precision;
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < registers.length(); i++) {
+            final int packed = registers.get(i);
+            for (int j = 0; j < 4; j++) {
+                final int rank = (packed >>> (j * 8)) & 0xFF;
+                sum += 1.0 / (1L << rank);
+                if (0 == rank) {
+                    zeros++;
+                }
+            }
+        }
+
+        final double alpha;
+        switch (m) {
+            case 16:
+                alpha = 0.673;
+                break;
+            case 32:
+                alpha = 0.697;
+                break;
+            case 64:
+                alpha = 0.709;
+                break;
+            default:
+                alpha = 0.7213 / (1 + 1.079 / m);
+        }
+
+        final double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && 0 != zeros) { // Small range correction by linear counting
+            return Math.round(m * Math.log((double) m / zeros));
+        }
+
+        return Math.round(estimate);
+    }
+
+    /**
+     * Gets the precision.
+     *
+     * @return precision
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Gets a copy of the registers, one byte each.
+     *
+     * @return registers
+     */
+    public byte[] getRegisters() {
+        final byte[] ret = new byte[1 << precision];
+        for (int i = 0; i < registers.length(); i++) {
+            final int packed = registers.get(i);
+            for (int j = 0; j < 4; j++) {
+                ret[i * 4 + j] = (byte) (packed >>> (j * 8));
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Raises the registers to the specified registers, one byte each, for example, to restore a sketch saved by
+     * {@link #getRegisters()}.
+     *
+     * @param ranks the specified registers
+     * @throws IllegalArgumentException if the number of registers does not match the precision
+     */
+    public void setRegisters(final byte[] ranks) {
+        if (ranks.length != 1 << precision) {
+            throw new IllegalArgumentException("Expected [" + (1 << precision) + "] registers, got [" + ranks.length
+                    + "]");
+        }
+
+        for (int i = 0; i < ranks.length; i++) {
+            final int rank = ranks[i] & 0xFF;
+            if (0 != rank) {
+                raise(i, Math.min(rank, 64 - precision + 1));
+            }
+        }
+    }
+
+    /**
+     * Raises the specified register to the specified rank if it is lower.
+     *
+     * @param index the specified register index
+     * @param rank the specified rank
+     */
+    private void raise(final int index, final int rank) {
+        final int i = index >>> 2;
+        final int shift = (index & 3) * 8;
+
+        while (true) {
+            final int packed = registers.get(i);
+            if (((packed >>> shift) & 0xFF) >= rank) {
+                return;
+            }
+
+            if (registers.compareAndSet(i, packed, (packed & ~(0xFF << shift)) | (rank << shift))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Hashes the specified value to 64 bits, FNV-1a over the chars finished with the MurmurHash3 mixer.
+     *
+     * @param value the specified value
+     * @return hash
+     */
+    public static long hash(final String value) {
+        long ret = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            ret ^= value.charAt(i);
+            ret *= 0x100000001B3L;
+        }
+
+        ret ^= ret >>> 33;
+        ret *= 0xFF51AFD7ED558CCDL;
+        ret ^= ret >>> 33;
+        ret *= 0xC4CEB9FE1A85EC53L;
+        ret ^= ret >>> 33;
+
+        return ret;
+    }
+}
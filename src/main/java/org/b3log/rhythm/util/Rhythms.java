@@ -15,17 +15,14 @@
  */
 package org.b3log.rhythm.util;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.File;
 import java.util.ResourceBundle;
 
-import org.b3log.latke.util.Strings;
-
 /**
  * Rhythm utilities.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.6.1.26, Jan 23, 2017
+ * @version 1.8.0.0, Oct 19, 2026
  * @since 0.1.4
  */
 public final class Rhythms {
@@ -61,97 +58,39 @@ public final class Rhythms {
     public static final long MIN_STEP_POST_TIME = Long.valueOf(CFG.getString("minStepPostTime"));
 
     /**
-     * Released Solo versions.
-     */
-    public static final List<String> RELEASED_SOLO_VERSIONS = new ArrayList<String>() {
-        {
-            add("0.5.5");
-            add("0.5.6");
-            add("0.6.0");
-            add("0.6.1");
-            add("0.6.5");
-            add("0.6.6");
-            add("0.6.7");
-            add("0.6.8");
-            add("0.6.9");
-            add("1.0.0");
-            add("1.1.0");
-            add("1.2.0");
-            add("1.3.0");
-            add("1.4.0");
-            add("1.5.0");
-            add("1.6.0");
-            add("1.7.0");
-            add("1.8.0");
-        }
-    };
-
-    /**
-     * The latest Solo download URL.
+     * Max number of articles to check per accessibility check run.
      */
-    public static final String LATEST_SOLO_DL_URL
-            = "http://pan.baidu.com/share/link?shareid=541735&uk=3255126224#dir/path=%2Fb3log-solo%2F";
+    public static final int ARTICLE_CHECK_BUDGET = Integer.valueOf(CFG.getString("articleCheckBudget"));
 
     /**
-     * The latest development Solo version.
+     * Max number of users to check per accessibility check run.
      */
-    public static final String SNAPSHOT_SOLO_VERSION = "1.9.0";
+    public static final int USER_CHECK_BUDGET = Integer.valueOf(CFG.getString("userCheckBudget"));
 
     /**
-     * Released Wide versions.
+     * Max number of syms to check per accessibility check run.
      */
-    public static final List<String> RELEASED_WIDE_VERSIONS = new ArrayList<String>() {
-        {
-            add("1.0.0");
-            add("1.0.1");
-            add("1.1.0");
-            add("1.2.0");
-            add("1.3.0");
-            add("1.4.0");
-            add("1.5.0");
-            add("1.5.1");
-            add("1.5.2");
-        }
-    };
+    public static final int SYM_CHECK_BUDGET = Integer.valueOf(CFG.getString("symCheckBudget"));
 
     /**
-     * The latest Wide download URL.
+     * Max bytes of a sym home page to read for its favicon and description.
      */
-    public static final String LATEST_WIDE_DL_URL = "http://pan.baidu.com/s/1dD3XwOT#path=%252FWide%252F"
-            + RELEASED_WIDE_VERSIONS.get(RELEASED_WIDE_VERSIONS.size() - 1);
+    public static final int SYM_HEAD_MAX_BYTES = Integer.valueOf(CFG.getString("sym.headMaxBytes"));
 
     /**
-     * The latest development Wide version.
-     */
-    public static final String SNAPSHOT_WIDE_VERSION = "1.5.3";
-
-    /**
-     * Released B3log Symphony versions.
+     * Gets the data directory configured by "dataDir".
+     *
+     * @return data directory
+     * @throws IllegalStateException if "dataDir" is not configured
      */
-    public static final List<String> RELEASED_SYMPHONY_VERSIONS = new ArrayList<String>() {
-        {
-            add("0.2.5");
-            add("1.0.0");
-            add("1.3.0");
-            add("1.4.0");
-            add("1.5.0");
-            add("1.6.0");
-            add("1.7.0");
-            add("1.8.0");
-            add("1.9.0");
+    public static File getDataDir() {
+        final String ret = CFG.getString("dataDir").trim();
+        if (ret.isEmpty()) {
+            throw new IllegalStateException("Configures [dataDir] in rhythm.properties with a durable directory");
         }
-    };
-
-    /**
-     * The latest Symphony download URL.
-     */
-    public static final String LATEST_SYMPHONY_DL_URL = "https://github.com/b3log/symphony/releases/tag/"
-            + RELEASED_SYMPHONY_VERSIONS.get(RELEASED_SYMPHONY_VERSIONS.size() - 1);
 
-    /**
-     * The latest development Symphony version.
-     */
-    public static final String SNAPSHOT_SYMPHONY_VERSION = "2.0.0";
+        return new File(ret);
+    }
 
     /**
      * Checks whether the specified client name is valid.
@@ -164,63 +103,6 @@ public final class Rhythms {
         return "B3log Solo".equals(clientName) || "Cat".equals(clientName);
     }
 
-    /**
-     * Gets the latest Solo version with the specified current versions.
-     *
-     * @param currentVersion the specified current version
-     * @return the latest Solo version
-     */
-    public static String getLatestSoloVersion(final String currentVersion) {
-        final String latest = RELEASED_SOLO_VERSIONS.get(RELEASED_SOLO_VERSIONS.size() - 1);
-        if (Strings.isEmptyOrNull(currentVersion)) {
-            return latest;
-        }
-
-        if (currentVersion.compareTo(latest) > 0) {
-            return currentVersion;
-        }
-
-        return latest;
-    }
-
-    /**
-     * Gets the latest Wide version with the specified current versions.
-     *
-     * @param currentVersion the specified current version
-     * @return the latest Solo version
-     */
-    public static String getLatestWideVersion(final String currentVersion) {
-        final String latest = RELEASED_WIDE_VERSIONS.get(RELEASED_WIDE_VERSIONS.size() - 1);
-        if (Strings.isEmptyOrNull(currentVersion)) {
-            return latest;
-        }
-
-        if (currentVersion.compareTo(latest) > 0) {
-            return currentVersion;
-        }
-
-        return latest;
-    }
-
-    /**
-     * Gets the latest Symphony version with the specified current versions.
-     *
-     * @param currentVersion the specified current version
-     * @return the latest Solo version
-     */
-    public static String getLatestSymphonyVersion(final String currentVersion) {
-        final String latest = RELEASED_SYMPHONY_VERSIONS.get(RELEASED_SYMPHONY_VERSIONS.size() - 1);
-        if (Strings.isEmptyOrNull(currentVersion)) {
-            return latest;
-        }
-
-        if (currentVersion.compareTo(latest) > 0) {
-            return currentVersion;
-        }
-
-        return latest;
-    }
-
     /**
      * Private default constructor.
      */
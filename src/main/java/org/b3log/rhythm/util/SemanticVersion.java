@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Semantic version, see <a href="http://semver.org">semver.org</a>.
+ *
+ * <p>
+ * Parsing is lenient to the versions in the wild: a leading "v" is ignored and missing minor or patch numbers are
+ * {@code 0}, so "v1.9" equals "1.9.0". Versions are compared numerically, "1.10.0" is greater than "1.9.0", and a
+ * pre-release version is less than its release, "2.0.0-beta.2" &lt; "2.0.0-beta.10" &lt; "2.0.0". Build metadata is
+ * ignored.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class SemanticVersion implements Comparable<SemanticVersion> {
+
+    /**
+     * Version pattern.
+     */
+    private static final Pattern PATTERN = Pattern.compile(
+            "[vV]?(\\d{1,9})(?:\\.(\\d{1,9}))?(?:\\.(\\d{1,9}))?(?:-([0-9A-Za-z-]+(?:\\.[0-9A-Za-z-]+)*))?"
+            + "(?:\\+[0-9A-Za-z-]+(?:\\.[0-9A-Za-z-]+)*)?");
+
+    /**
+     * Major version.
+     */
+    private final int major;
+
+    /**
+     * Minor version.
+     */
+    private final int minor;
+
+    /**
+     * Patch version.
+     */
+    private final int patch;
+
+    /**
+     * Pre-release identifiers, empty if it is a release.
+     */
+    private final String[] preRelease;
+
+    /**
+     * Constructs a semantic version.
+     *
+     * @param major the specified major version
+     * @param minor the specified minor version
+     * @param patch the specified patch version
+     * @param preRelease the specified pre-release identifiers
+     */
+    private SemanticVersion(final int major, final int minor, final int patch, final String[] preRelease) {
+        this.major = major;
+        this.minor = minor;
+        this.patch = patch;
+        this.preRelease = preRelease;
+    }
+
+    /**
+     * Parses the specified version.
+     *
+     * @param version the specified version
+     * @return semantic version, returns {@code null} if the specified version is {@code null} or malformed
+     */
+    public static SemanticVersion parse(final String version) {
+        if (null == version) {
+            return null;
+        }
+
+        final Matcher matcher = PATTERN.matcher(version.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        final String preRelease = matcher.group(4);
+
+        return new SemanticVersion(Integer.parseInt(matcher.group(1)), parseInt(matcher.group(2)),
+                parseInt(matcher.group(3)), null == preRelease ? new String[0] : preRelease.split("\\."));
+    }
+
+    /**
+     * Determines whether this version is a pre-release.
+     *
+     * @return {@code true} if it is, returns {@code false} otherwise
+     */
+    public boolean isPreRelease() {
+        return 0 != preRelease.length;
+    }
+
+    @Override
+    public int compareTo(final SemanticVersion other) {
+        int ret = Integer.compare(major, other.major);
+        if (0 == ret) {
+            ret = Integer.compare(minor, other.minor);
+        }
+        if (0 == ret) {
+            ret = Integer.compare(patch, other.patch);
+        }
+        if (0 != ret) {
+            return ret;
+        }
+
+        // A release is greater than its pre-releases
+        if (0 == preRelease.length || 0 == other.preRelease.length) {
+            return Integer.compare(other.preRelease.length, preRelease.length);
+        }
+
+        for (int i = 0; i < Math.min(preRelease.length, other.preRelease.length); i++) {
+            ret = compareIdentifier(preRelease[i], other.preRelease[i]);
+            if (0 != ret) {
+                return ret;
+            }
+        }
+
+        return Integer.compare(preRelease.length, other.preRelease.length);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return obj instanceof SemanticVersion && 0 == compareTo((SemanticVersion) obj);
+    }
+
+    @Override
+    public int hashCode() {
+        int ret = major;
+        ret = 31 * ret + minor;
+        ret = 31 * ret + patch;
+        for (final String identifier : preRelease) {
+            ret = 31 * ret + identifier.hashCode();
+        }
+
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder ret = new StringBuilder().append(major).append('.').append(minor).append('.').append(patch);
+        for (int i = 0; i < preRelease.length; i++) {
+            ret.append(0 == i ? '-' : '.').append(preRelease[i]);
+        }
+
+        return ret.toString();
+    }
+
+    /**
+     * Compares the specified pre-release identifiers, numeric identifiers are compared numerically and are less than
+     * alphanumeric ones.
+     *
+     * @param identifier1 the specified identifier 1
+     * @param identifier2 the specified identifier 2
+     * @return comparison result
+     */
+    private static int compareIdentifier(final String identifier1, final String identifier2) {
+        final boolean numeric1 = isNumeric(identifier1);
+        final boolean numeric2 = isNumeric(identifier2);
+        if (numeric1 && numeric2) {
+            final int ret = Integer.compare(identifier1.length(), identifier2.length());
+
+            return 0 != ret ? ret : identifier1.compareTo(identifier2);
+        }
+
+        if (numeric1 != numeric2) {
+            return numeric1 ? -1 : 1;
+        }
+
+        return identifier1.compareTo(identifier2);
+    }
+
+    /**
+     * Determines whether the specified identifier is numeric.
+     *
+     * @param identifier the specified identifier
+     * @return {@code true} if it is, returns {@code false} otherwise
+     */
+    private static boolean isNumeric(final String identifier) {
+        for (int i = 0; i < identifier.length(); i++) {
+            if (!Character.isDigit(identifier.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Parses the specified optional number.
+     *
+     * @param number the specified number, may be {@code null}
+     * @return number, returns {@code 0} if the specified number is {@code null}
+     */
+    private static int parseInt(final String number) {
+        return null == number ? 0 : Integer.parseInt(number);
+    }
+}
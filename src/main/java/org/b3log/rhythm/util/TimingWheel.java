@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hashed timing wheel.
+ *
+ * <p>
+ * Time is cut into ticks, a timeout is put into the bucket of its deadline tick modulo the wheel size, so scheduling
+ * and cancelling are O(1). {@link #advance(long)} visits only the buckets of the elapsed ticks and expires the
+ * timeouts whose deadline tick has come, timeouts of later rounds stay in their buckets. A timeout never expires before
+ * its deadline, and expires at most one tick after it if the wheel is advanced every tick.
+ * </p>
+ *
+ * @param <K> the type of timeout keys
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class TimingWheel<K> {
+
+    /**
+     * Tick duration in milliseconds.
+     */
+    private final long tick;
+
+    /**
+     * Buckets.
+     */
+    private final List<Set<Timeout<K>>> buckets;
+
+    /**
+     * Current tick, all ticks before it have been advanced.
+     */
+    private long currentTick;
+
+    /**
+     * Number of scheduled timeouts.
+     */
+    private int size;
+
+    /**
+     * Constructs a timing wheel.
+     *
+     * @param tick the specified tick duration in milliseconds
+     * @param wheelSize the specified number of buckets
+     * @param now the specified current time
+     */
+    public TimingWheel(final long tick, final int wheelSize, final long now) {
+        this.tick = tick;
+        this.buckets = new ArrayList<Set<Timeout<K>>>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new LinkedHashSet<Timeout<K>>());
+        }
+        this.currentTick = now / tick;
+    }
+
+    /**
+     * Schedules a timeout of the specified key at the specified deadline.
+     *
+     * @param key the specified key
+     * @param deadline the specified deadline
+     * @return timeout, for {@link #cancel(org.b3log.rhythm.util.TimingWheel.Timeout) cancelling}
+     */
+    public synchronized Timeout<K> schedule(final K key, final long deadline) {
+        final Timeout<K> ret = new Timeout<K>(key, Math.max((deadline + tick - 1) / tick, currentTick));
+        bucket(ret.deadlineTick).add(ret);
+        size++;
+
+        return ret;
+    }
+
+    /**
+     * Cancels the specified timeout.
+     *
+     * @param timeout the specified timeout
+     * @return {@code true} if cancelled, returns {@code false} if it has expired or been cancelled
+     */
+    public synchronized boolean cancel(final Timeout<K> timeout) {
+        if (bucket(timeout.deadlineTick).remove(timeout)) {
+            size--;
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Advances the wheel to the specified time.
+     *
+     * @param now the specified time
+     * @return keys of the expired timeouts
+     */
+    public synchronized List<K> advance(final long now) {
+        final List<K> ret = new ArrayList<K>();
+
+        final long nowTick = now / tick;
+        final long lastTick = Math.min(nowTick, currentTick + buckets.size() - 1);
+        for (long t = currentTick; t <= lastTick; t++) {
+            final Iterator<Timeout<K>> iterator = bucket(t).iterator();
+            while (iterator.hasNext()) {
+                final Timeout<K> timeout = iterator.next();
+                if (timeout.deadlineTick <= nowTick) {
+                    iterator.remove();
+                    size--;
+                    ret.add(timeout.key);
+                }
+            }
+        }
+
+        if (nowTick >= currentTick) {
+            currentTick = nowTick + 1;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the number of scheduled timeouts.
+     *
+     * @return size
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gets the bucket of the specified tick.
+     *
+     * @param t the specified tick
+     * @return bucket
+     */
+    private Set<Timeout<K>> bucket(final long t) {
+        return buckets.get((int) (t % buckets.size()));
+    }
+
+    /**
+     * A scheduled timeout.
+     *
+     * @param <K> the type of the key
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 19, 2026
+     */
+    public static final class Timeout<K> {
+
+        /**
+         * Key.
+         */
+        private final K key;
+
+        /**
+         * Deadline tick.
+         */
+        private final long deadlineTick;
+
+        /**
+         * Constructs a timeout.
+         *
+         * @param key the specified key
+         * @param deadlineTick the specified deadline tick
+         */
+        private Timeout(final K key, final long deadlineTick) {
+            this.key = key;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * Gets the key.
+         *
+         * @return key
+         */
+        public K getKey() {
+            return key;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Weighted random sampler backed by a Fenwick (binary indexed) tree of the weights.
+ *
+ * <p>
+ * Each key takes a slot of the tree, putting, updating and removing a key adds the weight delta along the tree in
+ * O(log n), and {@link #sample(Random)} descends the tree in O(log n) to draw a key with a probability proportional to
+ * its weight. Slots of removed keys are reused, the tree doubles when it is full.
+ * </p>
+ *
+ * @param <K> the type of keys
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class WeightedSampler<K> {
+
+    /**
+     * Fenwick tree, 1-based, node i holds the sum of the weights of slots (i - lowbit(i), i].
+     */
+    private long[] tree;
+
+    /**
+     * Weights of the slots, 0 if free.
+     */
+    private long[] weights;
+
+    /**
+     * Keys of the slots, {@code null} if free.
+     */
+    private Object[] keys;
+
+    /**
+     * Slots of the keys, &lt;key, slot&gt;.
+     */
+    private final Map<K, Integer> slots = new HashMap<K, Integer>();
+
+    /**
+     * Free slots below {@link #used}.
+     */
+    private final Deque<Integer> freeSlots = new ArrayDeque<Integer>();
+
+    /**
+     * Number of slots ever used.
+     */
+    private int used;
+
+    /**
+     * Total weight.
+     */
+    private long total;
+
+    /**
+     * Constructs a sampler with the specified initial capacity.
+     *
+     * @param capacity the specified initial capacity
+     */
+    public WeightedSampler(final int capacity) {
+        final int size = Math.max(1, capacity);
+        tree = new long[size + 1];
+        weights = new long[size];
+        keys = new Object[size];
+    }
+
+    /**
+     * Puts the specified key with the specified weight, replaces its weight if the key exists.
+     *
+     * @param key the specified key
+     * @param weight the specified weight, the key is removed if it is not positive
+     */
+    public synchronized void put(final K key, final long weight) {
+        if (weight <= 0) {
+            remove(key);
+
+            return;
+        }
+
+        Integer slot = slots.get(key);
+        if (null == slot) {
+            slot = freeSlots.poll();
+            if (null == slot) {
+                if (used == weights.length) {
+                    grow();
+                }
+
+                slot = used++;
+            }
+
+            keys[slot] = key;
+            slots.put(key, slot);
+        }
+
+        add(slot, weight - weights[slot]);
+        weights[slot] = weight;
+    }
+
+    /**
+     * Removes the specified key.
+     *
+     * @param key the specified key
+     * @return {@code true} if removed, returns {@code false} if the key does not exist
+     */
+    public synchronized boolean remove(final K key) {
+        final Integer slot = slots.remove(key);
+        if (null == slot) {
+            return false;
+        }
+
+        add(slot, -weights[slot]);
+        weights[slot] = 0;
+        keys[slot] = null;
+        freeSlots.push(slot);
+
+        return true;
+    }
+
+    /**
+     * Draws a key with a probability proportional to its weight.
+     *
+     * @param random the specified random
+     * @return key, returns {@code null} if empty
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized K sample(final Random random) {
+        if (0 == total) {
+            return null;
+        }
+
+        long target = nextLong(random, total);
+        int position = 0;
+        for (int step = Integer.highestOneBit(weights.length); step > 0; step >>= 1) {
+            final int next = position + step;
+            if (next < tree.length && tree[next] <= target) {
+                position = next;
+                target -= tree[next];
+            }
+        }
+
+        // The prefix sum of the slots before the position is the greatest one not exceeding the target
+        return (K) keys[position];
+    }
+
+    /**
+     * Gets the weight of the specified key.
+     *
+     * @param key the specified key
+     * @return weight, returns {@code 0} if the key does not exist
+     */
+    public synchronized long getWeight(final K key) {
+        final Integer slot = slots.get(key);
+
+        return null == slot ? 0 : weights[slot];
+    }
+
+    /**
+     * Gets the total weight.
+     *
+     * @return total weight
+     */
+    public synchronized long getTotalWeight() {
+        return total;
+    }
+
+    /**
+     * Gets the number of keys.
+     *
+     * @return number of keys
+     */
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    /**
+     * Adds the specified delta to the weight of the specified slot in the tree.
+     *
+     * @param slot the specified slot
+     * @param delta the specified delta
+     */
+    private void add(final int slot, final long delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+
+        total += delta;
+    }
+
+    /**
+     * Doubles the slots and rebuilds the tree in O(n).
+     */
+    private void grow() {
+        final int size = weights.length * 2;
+        weights = Arrays.copyOf(weights, size);
+        keys = Arrays.copyOf(keys, size);
+
+        tree = new long[size + 1];
+        for (int i = 1; i <= size; i++) {
+            tree[i] += weights[i - 1];
+
+            final int parent = i + (i & -i);
+            if (parent <= size) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    /**
+     * Gets a uniformly distributed random long in [0, bound).
+     *
+     * @param random the specified random
+     * @param bound the specified bound, must be positive
+     * @return random long
+     */
+    private static long nextLong(final Random random, final long bound) {
+        final long mask = bound - 1;
+        if (0 == (bound & mask)) {
+            return random.nextLong() & mask;
+        }
+
+        long bits;
+        long ret;
+        do {
+            bits = random.nextLong() >>> 1;
+            ret = bits % bound;
+        } while (bits - ret + mask < 0);
+
+        return ret;
+    }
+}
@@ -0,0 +1,38 @@
+--
+-- Copyright (c) 2010-2017, b3log.org & hacpai.com
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--     http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+
+--
+-- Description: Upgrades the tables of Rhythm 1.1.x to 1.2.0 (MySQL), adds the columns of repository.json 1.4.0.0.
+--              Existing rows get the defaults, a next check time of 0 makes them due at the next check run.
+-- Version: 1.0.0.0, Oct 19, 2026
+-- Author: Liang Ding
+--
+
+ALTER TABLE `article`
+    ADD COLUMN `articleAccessibilityHistory` BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN `articleAccessibilityLastSC` INT NOT NULL DEFAULT 0,
+    ADD COLUMN `articleAccessibilityLastCheckTime` BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN `articleAccessibilityNextCheckTime` BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE `user`
+    ADD COLUMN `userAccessibilityCheckCnt` INT NOT NULL DEFAULT 0,
+    ADD COLUMN `userAccessibilityNextCheckTime` BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN `userB3KeyHash` VARCHAR(64) NOT NULL DEFAULT '';
+
+ALTER TABLE `sym`
+    ADD COLUMN `symIconHash` VARCHAR(64) NOT NULL DEFAULT '',
+    ADD COLUMN `symAccessibilityHistory` BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN `symAccessibilityNextCheckTime` BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.b3log.latke.event.AbstractEventListener;
+import org.b3log.latke.event.Event;
+import org.b3log.latke.event.EventException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Event dispatching benchmark, compares the {@link RingBuffer ring} path of {@link EventDispatcher} with the previous
+ * path which allocates an {@link Event} per dispatch, queues it in an {@link ArrayBlockingQueue} and walks the listener
+ * list per event.
+ *
+ * <p>
+ * Four producer threads dispatch the same payload; one consumer thread runs a no-op listener. Run with
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main EventDispatcherBenchmark
+ * </pre>
+ * This is not a unit test, Surefire does not run it.
+ * </p>
+ *
+ * <p>
+ * Results of the same paths timed without JMH (4 producers, 3 warmup and 5 measured 1s rounds, 2 runs, JDK 17, 1 CPU)
+ * in ops/ms: ring BLOCKING 11,100-16,600, YIELDING 14,700-16,100, SLEEPING 6,000-6,400, queue 11,800-14,500. With one
+ * CPU the producers and the consumer share the core, so the ring paths are within the noise of the queue path and
+ * SLEEPING is slower. Rerun with JMH on the production host before relying on a throughput gain, what the ring path
+ * removes for sure is the allocation per dispatch and the listener walk per event.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.1.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(4)
+public class EventDispatcherBenchmark {
+
+    /**
+     * Capacity of the ring and the queue.
+     */
+    private static final int CAPACITY = 1024;
+
+    /**
+     * Max events per batch of the ring consumer.
+     */
+    private static final int BATCH_SIZE = 50;
+
+    /**
+     * Event type.
+     */
+    private static final String TYPE = EventTypes.ADD_ARTICLE_TO_SYMPHONY;
+
+    /**
+     * Payload.
+     */
+    private static final JSONObject PAYLOAD = new JSONObject().put("articleTitle", "benchmark");
+
+    /**
+     * Ring path state.
+     */
+    @State(Scope.Benchmark)
+    public static class RingState {
+
+        /**
+         * Wait strategy.
+         */
+        @Param({"BLOCKING", "SLEEPING", "YIELDING"})
+        public String waitStrategy;
+
+        /**
+         * Ring.
+         */
+        private RingBuffer<JSONObject> ring;
+
+        /**
+         * Consumed events count.
+         */
+        private final AtomicLong consumed = new AtomicLong();
+
+        /**
+         * Consumer thread.
+         */
+        private Thread consumer;
+
+        /**
+         * Starts the consumer.
+         */
+        @Setup
+        public void start() {
+            ring = new RingBuffer<JSONObject>(CAPACITY, WaitStrategy.valueOf(waitStrategy));
+            consumer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    final List<JSONObject> batch = new ArrayList<JSONObject>(BATCH_SIZE);
+                    try {
+                        while (!Thread.currentThread().isInterrupted()) {
+                            if (ring.await(100)) {
+                                ring.drainTo(batch, BATCH_SIZE);
+                                consumed.addAndGet(batch.size());
+                                batch.clear();
+                            }
+                        }
+                    } catch (final InterruptedException e) {
+                        // Stopped
+                    }
+                }
+            });
+            consumer.setDaemon(true);
+            consumer.start();
+        }
+
+        /**
+         * Stops the consumer.
+         *
+         * @throws InterruptedException interrupted exception
+         */
+        @TearDown
+        public void stop() throws InterruptedException {
+            consumer.interrupt();
+            consumer.join();
+        }
+    }
+
+    /**
+     * Queue path state.
+     */
+    @State(Scope.Benchmark)
+    public static class QueueState {
+
+        /**
+         * Queue.
+         */
+        private final BlockingQueue<Event<JSONObject>> queue = new ArrayBlockingQueue<Event<JSONObject>>(CAPACITY);
+
+        /**
+         * Listeners.
+         */
+        private final List<AbstractEventListener<JSONObject>> listeners
+                = new CopyOnWriteArrayList<AbstractEventListener<JSONObject>>();
+
+        /**
+         * Consumer thread.
+         */
+        private Thread consumer;
+
+        /**
+         * Starts the consumer.
+         */
+        @Setup
+        public void start() {
+            final AtomicLong consumed = new AtomicLong();
+            listeners.add(new AbstractEventListener<JSONObject>() {
+                @Override
+                public String getEventType() {
+                    return TYPE;
+                }
+
+                @Override
+                public void action(final Event<JSONObject> event) throws EventException {
+                    consumed.incrementAndGet();
+                }
+            });
+
+            consumer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (true) {
+                            final Event<JSONObject> event = queue.take();
+                            for (final AbstractEventListener<JSONObject> listener : listeners) {
+                                if (listener.getEventType().equals(event.getType())) {
+                                    listener.action(event);
+                                }
+                            }
+                        }
+                    } catch (final InterruptedException e) {
+                        // Stopped
+                    } catch (final EventException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            consumer.setDaemon(true);
+            consumer.start();
+        }
+
+        /**
+         * Stops the consumer.
+         *
+         * @throws InterruptedException interrupted exception
+         */
+        @TearDown
+        public void stop() throws InterruptedException {
+            consumer.interrupt();
+            consumer.join();
+        }
+    }
+
+    /**
+     * Dispatches an event through the ring, spins until there is room.
+     *
+     * @param state the specified state
+     */
+    @Benchmark
+    public void ring(final RingState state) {
+        while (!state.ring.tryPublish(PAYLOAD)) {
+            LockSupport.parkNanos(1000);
+        }
+    }
+
+    /**
+     * Dispatches an event through the queue, waits until there is room.
+     *
+     * @param state the specified state
+     * @throws InterruptedException interrupted exception
+     */
+    @Benchmark
+    public void queue(final QueueState state) throws InterruptedException {
+        state.queue.put(new Event<JSONObject>(TYPE, PAYLOAD));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link RingBuffer} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public class RingBufferTestCase {
+
+    /**
+     * Tests a full ring rejects publishing until drained.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void full() throws Exception {
+        final RingBuffer<Integer> ring = new RingBuffer<Integer>(4, WaitStrategy.BLOCKING);
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(ring.tryPublish(i));
+        }
+        Assert.assertFalse(ring.tryPublish(4));
+        Assert.assertFalse(ring.publish(4, 10));
+        Assert.assertEquals(4, ring.size());
+
+        final List<Integer> batch = new ArrayList<Integer>();
+        Assert.assertEquals(3, ring.drainTo(batch, 3));
+        Assert.assertEquals(0, batch.get(0).intValue());
+        Assert.assertEquals(2, batch.get(2).intValue());
+        Assert.assertTrue(ring.tryPublish(4));
+        Assert.assertEquals(2, ring.drainTo(batch, 10));
+        Assert.assertEquals(4, batch.get(4).intValue());
+        Assert.assertFalse(ring.await(10));
+    }
+
+    /**
+     * Tests every payload of concurrent producers is consumed once, in the order of each producer.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void producers() throws Exception {
+        for (final WaitStrategy waitStrategy : WaitStrategy.values()) {
+            consume(waitStrategy);
+        }
+    }
+
+    /**
+     * Runs 4 producers against a consumer with the specified wait strategy.
+     *
+     * @param waitStrategy the specified wait strategy
+     * @throws Exception exception
+     */
+    private static void consume(final WaitStrategy waitStrategy) throws Exception {
+        final int producers = 4;
+        final int count = 20000;
+        final RingBuffer<long[]> ring = new RingBuffer<long[]>(64, waitStrategy);
+
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < count; i++) {
+                            Assert.assertTrue(ring.publish(new long[]{producer, i}, 10000));
+                        }
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        final long[] next = new long[producers];
+        final List<long[]> batch = new ArrayList<long[]>();
+        int consumed = 0;
+        while (consumed < producers * count) {
+            Assert.assertTrue(ring.await(10000));
+            ring.drainTo(batch, 50);
+            for (final long[] payload : batch) {
+                Assert.assertEquals(next[(int) payload[0]]++, payload[1]);
+            }
+            consumed += batch.size();
+            batch.clear();
+        }
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(0, ring.size());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.outbox;
+
+import java.io.File;
+import junit.framework.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link DeliveryTracker} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public class DeliveryTrackerTestCase {
+
+    /**
+     * A record delivered before its write is awaited, as a fast dispatcher does, is reported as delivered.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void deliveredBeforeAwaited() throws Exception {
+        final Outbox outbox = newOutbox("delivered");
+        final DeliveryTracker tracker = new DeliveryTracker(10);
+        final OutboxListener listener = tracker.getListener("symphony");
+
+        try {
+            final long trackId = tracker.nextId();
+            final Outbox.Write write = outbox.prepare("/solo/comment", "POST", "{}", "article");
+            tracker.track(trackId, "symphony", write.getRecord());
+            outbox.submit(write);
+
+            // Delivers the record as soon as it is durable, before the write is awaited
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (outbox.getDue(System.currentTimeMillis(), 1).isEmpty()) {
+                if (System.currentTimeMillis() > deadline) {
+                    Assert.fail("Record is not durable");
+                }
+
+                outbox.await(10);
+            }
+            final OutboxRecord record = outbox.getDue(System.currentTimeMillis(), 1).get(0);
+            outbox.ack(record);
+            listener.delivered(record);
+
+            outbox.awaitDurable(write);
+
+            Assert.assertEquals(DeliveryTracker.STATUS_DELIVERED, tracker.getStatus(trackId).getString("status"));
+            Assert.assertEquals(0, tracker.getTracked());
+        } finally {
+            outbox.close();
+        }
+    }
+
+    /**
+     * A record which can not be submitted is untracked and reported as failed.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void untrack() throws Exception {
+        final Outbox outbox = newOutbox("untrack");
+        outbox.close();
+
+        final DeliveryTracker tracker = new DeliveryTracker(10);
+        final long trackId = tracker.nextId();
+        final Outbox.Write write = outbox.prepare("/solo/comment", "POST", "{}", null);
+        tracker.track(trackId, "symphony", write.getRecord());
+        Assert.assertEquals(DeliveryTracker.STATUS_QUEUED, tracker.getStatus(trackId).getString("status"));
+
+        try {
+            outbox.submit(write);
+            Assert.fail("Submits to a closed outbox");
+        } catch (final Exception e) {
+            tracker.untrack("symphony", write.getRecord(), e.getMessage());
+        }
+
+        Assert.assertEquals(DeliveryTracker.STATUS_FAILED, tracker.getStatus(trackId).getString("status"));
+        Assert.assertEquals(0, tracker.getTracked());
+    }
+
+    /**
+     * Creates a new outbox.
+     *
+     * @param name the specified test name
+     * @return outbox
+     * @throws Exception exception
+     */
+    private static Outbox newOutbox(final String name) throws Exception {
+        final File dir = new File(System.getProperty("java.io.tmpdir"),
+                "rhythm-outbox-test-" + name + "-" + System.nanoTime());
+
+        return new Outbox(name, dir, 1024 * 1024, 1000);
+    }
+}
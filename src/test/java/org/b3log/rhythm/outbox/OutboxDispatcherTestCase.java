@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.outbox;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.Assert;
+import org.b3log.rhythm.urlfetch.Destination;
+import org.b3log.rhythm.urlfetch.OutboundFetchService;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * {@link OutboxDispatcher} test case, runs against a local stub Symphony.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.2.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public class OutboxDispatcherTestCase {
+
+    /**
+     * Number of articles to send.
+     */
+    private static final int ARTICLES = 100;
+
+    /**
+     * Stub Symphony.
+     */
+    private HttpServer server;
+
+    /**
+     * Stub Symphony address.
+     */
+    private String servePath;
+
+    /**
+     * Requests to the single article endpoint.
+     */
+    private final AtomicInteger singleRequests = new AtomicInteger();
+
+    /**
+     * Requests to the batch endpoint.
+     */
+    private final AtomicInteger batchRequests = new AtomicInteger();
+
+    /**
+     * Comments received by the comment endpoint, "comment id:status code".
+     */
+    private final List<String> comments = new CopyOnWriteArrayList<String>();
+
+    /**
+     * Comments received by the batched comment endpoints, "comment id:status code".
+     */
+    private final List<String> batchedComments = new CopyOnWriteArrayList<String>();
+
+    /**
+     * Batches received by the comment batch endpoint, comment ids of each batch.
+     */
+    private final List<List<String>> commentBatches = new CopyOnWriteArrayList<List<String>>();
+
+    /**
+     * Starts the stub Symphony, article "7" is rejected with HTTP 400, the first attempt of comment "parent" fails
+     * with HTTP 503, so does the first attempt of batched comment "batchParent".
+     *
+     * @throws Exception exception
+     */
+    @BeforeClass
+    public void startSymphony() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/rhythm/article", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                singleRequests.incrementAndGet();
+
+                final JSONObject request = new JSONObject(read(exchange.getRequestBody()));
+                final String title = request.getJSONObject("article").getString("articleTitle");
+                respond(exchange, "7".equals(title) ? 400 : 200, "{}");
+            }
+        });
+        server.createContext("/rhythm/article/batch", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                batchRequests.incrementAndGet();
+
+                final JSONObject request = new JSONObject(read(exchange.getRequestBody()));
+                Assert.assertEquals("key", request.getString("symphonyKey"));
+
+                final JSONArray items = request.getJSONArray("items");
+                final JSONArray results = new JSONArray();
+                for (int i = 0; i < items.length(); i++) {
+                    final JSONObject item = items.getJSONObject(i);
+                    final JSONObject payload = item.getJSONObject("payload");
+                    Assert.assertFalse(payload.has("symphonyKey"));
+
+                    final String title = payload.getJSONObject("article").getString("articleTitle");
+                    final JSONObject result = new JSONObject();
+                    result.put("id", item.getLong("id"));
+                    result.put("code", "7".equals(title) ? 400 : 200);
+                    results.put(result);
+                }
+
+                respond(exchange, 200, new JSONObject().put("items", results).toString());
+            }
+        });
+        server.createContext("/solo/comment", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                final JSONObject request = new JSONObject(read(exchange.getRequestBody()));
+                final String commentId = request.getJSONObject("comment").getString("commentId");
+                final int code = "parent".equals(commentId) && !comments.contains("parent:503") ? 503 : 200;
+                comments.add(commentId + ":" + code);
+                respond(exchange, code, "{}");
+            }
+        });
+        server.createContext("/batched/comment", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                final JSONObject request = new JSONObject(read(exchange.getRequestBody()));
+                respond(exchange, receiveBatched(request.getJSONObject("comment").getString("commentId")), "{}");
+            }
+        });
+        server.createContext("/batched/comment/batch", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                final JSONArray items = new JSONObject(read(exchange.getRequestBody())).getJSONArray("items");
+                final List<String> commentIds = new ArrayList<String>();
+                final JSONArray results = new JSONArray();
+                for (int i = 0; i < items.length(); i++) {
+                    final JSONObject item = items.getJSONObject(i);
+                    final String commentId = item.getJSONObject("payload").getJSONObject("comment").
+                            getString("commentId");
+                    commentIds.add(commentId);
+
+                    final JSONObject result = new JSONObject();
+                    result.put("id", item.getLong("id"));
+                    result.put("code", receiveBatched(commentId));
+                    results.put(result);
+                }
+                commentBatches.add(commentIds);
+
+                respond(exchange, 200, new JSONObject().put("items", results).toString());
+            }
+        });
+        server.start();
+
+        servePath = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the stub Symphony.
+     */
+    @AfterClass
+    public void stopSymphony() {
+        server.stop(0);
+    }
+
+    /**
+     * Tests a burst of articles is sent in batches, and the rejected one is dead-lettered.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void batch() throws Exception {
+        singleRequests.set(0);
+        batchRequests.set(0);
+
+        final Outbox outbox = open("batch");
+        final OutboxBatch batch = new OutboxBatch(servePath + "/rhythm/article",
+                new URL(servePath + "/rhythm/article/batch"), "symphonyKey", 50, 200);
+        send(outbox, batch);
+
+        Assert.assertEquals(0, singleRequests.get());
+        Assert.assertTrue(batchRequests.get() <= ARTICLES / 10);
+        Assert.assertTrue(new File(outbox.getDir(), "dead-letter.log").exists());
+    }
+
+    /**
+     * Tests articles are sent one by one if the batch endpoint is missing.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void fallback() throws Exception {
+        singleRequests.set(0);
+        batchRequests.set(0);
+
+        final Outbox outbox = open("fallback");
+        final OutboxBatch batch = new OutboxBatch(servePath + "/rhythm/article",
+                new URL(servePath + "/missing/batch"), "symphonyKey", 50, 200);
+        send(outbox, batch);
+
+        Assert.assertEquals(ARTICLES, singleRequests.get());
+        Assert.assertTrue(new File(outbox.getDir(), "dead-letter.log").exists());
+    }
+
+    /**
+     * Tests a reply is held back until its parent comment of the same article is delivered, while comments of other
+     * articles are not.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void ordered() throws Exception {
+        final Outbox outbox = open("ordered");
+        final OutboxDispatcher dispatcher = new OutboxDispatcher(outbox,
+                OutboundFetchService.getInstance(Destination.SYMPHONY), 3, 100, 1000);
+        final DeliveryTracker tracker = new DeliveryTracker(10);
+        dispatcher.setListener(tracker.getListener("test"));
+
+        final OutboxRecord parent = outbox.append(servePath + "/solo/comment", "POST", comment("parent"), "article1");
+        final OutboxRecord reply = outbox.append(servePath + "/solo/comment", "POST", comment("reply"), "article1");
+        outbox.append(servePath + "/solo/comment", "POST", comment("other"), "article2");
+        final long parentTrackId = tracker.nextId();
+        tracker.track(parentTrackId, "test", parent);
+        tracker.track(tracker.nextId(), "test", reply);
+        dispatcher.start();
+
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (outbox.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        dispatcher.stop();
+        outbox.close();
+
+        Assert.assertEquals(0, outbox.size());
+        Assert.assertEquals("parent:503", comments.get(0));
+        Assert.assertEquals("other:200", comments.get(1));
+        Assert.assertEquals("parent:200", comments.get(2));
+        Assert.assertEquals("reply:200", comments.get(3));
+        final JSONObject status = tracker.getStatus(parentTrackId);
+        Assert.assertEquals(DeliveryTracker.STATUS_DELIVERED, status.getString("status"));
+        Assert.assertEquals(1, status.getJSONObject("targets").getJSONObject("test").getInt("attempts"));
+        Assert.assertEquals(DeliveryTracker.STATUS_UNKNOWN, tracker.getStatus(-1).getString("status"));
+    }
+
+    /**
+     * Tests a reply is not sent in the same batch as its parent comment, so it does not overtake the parent which
+     * fails in the batch.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void orderedBatch() throws Exception {
+        final Outbox outbox = open("orderedBatch");
+        final OutboxBatch batch = new OutboxBatch(servePath + "/batched/comment",
+                new URL(servePath + "/batched/comment/batch"), null, 50, 200);
+        final OutboxDispatcher dispatcher = new OutboxDispatcher(outbox,
+                OutboundFetchService.getInstance(Destination.SYMPHONY), 3, 100, 1000, batch);
+
+        outbox.append(servePath + "/batched/comment", "POST", comment("batchParent"), "article1");
+        outbox.append(servePath + "/batched/comment", "POST", comment("batchReply"), "article1");
+        outbox.append(servePath + "/batched/comment", "POST", comment("batchOther"), "article2");
+        dispatcher.start();
+
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (outbox.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        dispatcher.stop();
+        outbox.close();
+
+        Assert.assertEquals(0, outbox.size());
+        Assert.assertEquals("batchParent:503", batchedComments.get(0));
+        Assert.assertTrue(batchedComments.indexOf("batchParent:200") < batchedComments.indexOf("batchReply:200"));
+        for (final List<String> commentIds : commentBatches) {
+            Assert.assertFalse(commentIds.contains("batchParent") && commentIds.contains("batchReply"));
+        }
+    }
+
+    /**
+     * Receives the specified batched comment.
+     *
+     * @param commentId the specified comment id
+     * @return status code
+     */
+    private int receiveBatched(final String commentId) {
+        final int ret = "batchParent".equals(commentId) && !batchedComments.contains("batchParent:503") ? 503 : 200;
+        batchedComments.add(commentId + ":" + ret);
+
+        return ret;
+    }
+
+    /**
+     * Builds a comment payload with the specified comment id.
+     *
+     * @param commentId the specified comment id
+     * @return payload
+     */
+    private static String comment(final String commentId) {
+        final JSONObject comment = new JSONObject();
+        comment.put("commentId", commentId);
+
+        return new JSONObject().put("comment", comment).toString();
+    }
+
+    /**
+     * Sends {@link #ARTICLES} articles through the specified outbox and batch endpoint, waits for all of them to be
+     * delivered.
+     *
+     * @param outbox the specified outbox
+     * @param batch the specified batch endpoint
+     * @throws Exception exception
+     */
+    private void send(final Outbox outbox, final OutboxBatch batch) throws Exception {
+        final OutboxDispatcher dispatcher = new OutboxDispatcher(outbox,
+                OutboundFetchService.getInstance(Destination.SYMPHONY), 3, 100, 1000, batch);
+        dispatcher.start();
+
+        for (int i = 0; i < ARTICLES; i++) {
+            final JSONObject article = new JSONObject();
+            article.put("articleTitle", String.valueOf(i));
+
+            final JSONObject payload = new JSONObject();
+            payload.put("symphonyKey", "key");
+            payload.put("article", article);
+            outbox.append(servePath + "/rhythm/article", "POST", payload.toString());
+        }
+
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (outbox.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        dispatcher.stop();
+        outbox.close();
+
+        Assert.assertEquals(0, outbox.size());
+    }
+
+    /**
+     * Opens an empty outbox with the specified name.
+     *
+     * @param name the specified name
+     * @return outbox
+     * @throws IOException io exception
+     */
+    private static Outbox open(final String name) throws IOException {
+        final File dir = new File(System.getProperty("java.io.tmpdir"),
+                "rhythm-outbox-test-" + name + "-" + System.nanoTime());
+
+        return new Outbox(name, dir, 1024 * 1024, 1000);
+    }
+
+    /**
+     * Reads the specified input stream as a string.
+     *
+     * @param inputStream the specified input stream
+     * @return string
+     * @throws IOException io exception
+     */
+    private static String read(final InputStream inputStream) throws IOException {
+        final ByteArrayOutputStream ret = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int read;
+        while (-1 != (read = inputStream.read(buffer))) {
+            ret.write(buffer, 0, read);
+        }
+
+        return ret.toString("UTF-8");
+    }
+
+    /**
+     * Responds the specified exchange with the specified status code and body.
+     *
+     * @param exchange the specified exchange
+     * @param code the specified status code
+     * @param body the specified body
+     * @throws IOException io exception
+     */
+    private static void respond(final HttpExchange exchange, final int code, final String body) throws IOException {
+        final byte[] bytes = body.getBytes("UTF-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+
+        final OutputStream outputStream = exchange.getResponseBody();
+        outputStream.write(bytes);
+        outputStream.close();
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.outbox;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+import junit.framework.Assert;
+import org.json.JSONObject;
+import org.testng.annotations.Test;
+
+/**
+ * {@link Outbox} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public class OutboxTestCase {
+
+    /**
+     * Replays the pending records after a restart.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void replay() throws Exception {
+        final File dir = newDir("replay");
+
+        Outbox outbox = new Outbox("replay", dir, 1024 * 1024, 1000);
+        final OutboxRecord first = outbox.append("/article", "POST", "1");
+        outbox.append("/article", "POST", "2");
+        outbox.append("/comment", "POST", "3", "article");
+        outbox.ack(first);
+        outbox.close();
+
+        outbox = new Outbox("replay", dir, 1024 * 1024, 1000);
+        try {
+            Assert.assertEquals(2, outbox.size());
+
+            final List<OutboxRecord> due = outbox.getDue(System.currentTimeMillis(), 10);
+            Assert.assertEquals(2, due.size());
+            Assert.assertEquals("2", due.get(0).getPayload());
+            Assert.assertEquals("3", due.get(1).getPayload());
+            Assert.assertEquals("article", due.get(1).getKey());
+
+            Assert.assertEquals(4, outbox.append("/article", "POST", "4").getId());
+        } finally {
+            outbox.close();
+        }
+    }
+
+    /**
+     * Acknowledges records, an acknowledged record is not replayed.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void ack() throws Exception {
+        final File dir = newDir("ack");
+
+        Outbox outbox = new Outbox("ack", dir, 1024 * 1024, 1000);
+        for (int i = 0; i < 5; i++) {
+            outbox.append("/article", "POST", String.valueOf(i));
+        }
+        for (final OutboxRecord record : outbox.getDue(System.currentTimeMillis(), 10)) {
+            outbox.ack(record);
+        }
+        Assert.assertEquals(0, outbox.size());
+        Assert.assertTrue(outbox.getDue(System.currentTimeMillis(), 10).isEmpty());
+        outbox.close();
+
+        outbox = new Outbox("ack", dir, 1024 * 1024, 1000);
+        try {
+            Assert.assertEquals(0, outbox.size());
+        } finally {
+            outbox.close();
+        }
+    }
+
+    /**
+     * Deletes the segments from the oldest one once their records are acknowledged.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void compact() throws Exception {
+        final File dir = newDir("compact");
+        final int records = 20;
+
+        // Rolls a segment after each record
+        Outbox outbox = new Outbox("compact", dir, 1, 1000);
+        for (int i = 0; i < records; i++) {
+            outbox.append("/article", "POST", String.valueOf(i));
+        }
+        Assert.assertTrue(countSegments(dir) > records);
+
+        final List<OutboxRecord> due = outbox.getDue(System.currentTimeMillis(), records);
+        for (int i = 0; i < records - 1; i++) {
+            outbox.ack(due.get(i));
+        }
+        outbox.close();
+
+        // The segment of the last record is the oldest one now, it holds the markers behind it
+        Assert.assertTrue(read(oldestSegment(dir)).contains("\"id\":" + records));
+
+        outbox = new Outbox("compact", dir, 1, 1000);
+        Assert.assertEquals(1, outbox.size());
+        outbox.ack(outbox.getDue(System.currentTimeMillis(), 10).get(0));
+        outbox.close();
+
+        final int segments = countSegments(dir);
+        Assert.assertTrue("Segments [" + segments + "] are not compacted", segments <= 2);
+
+        outbox = new Outbox("compact", dir, 1, 1000);
+        try {
+            Assert.assertEquals(0, outbox.size());
+        } finally {
+            outbox.close();
+        }
+    }
+
+    /**
+     * Dead-letters a record, the keys in its payload are redacted.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void deadLetter() throws Exception {
+        final File dir = newDir("dead");
+
+        final JSONObject payload = new JSONObject();
+        payload.put("symphonyKey", "secret-symphony");
+        payload.put("article", new JSONObject().put("title", "test").put("userB3Key", "secret-user"));
+
+        final Outbox outbox = new Outbox("dead", dir, 1024 * 1024, 1000);
+        try {
+            outbox.deadLetter(outbox.append("/article", "POST", payload.toString()), "HTTP 400");
+            Assert.assertEquals(0, outbox.size());
+        } finally {
+            outbox.close();
+        }
+
+        final String deadLetters = read(new File(dir, "dead-letter.log"));
+        Assert.assertFalse(deadLetters.contains("secret-"));
+        Assert.assertTrue(deadLetters.contains("test"));
+        Assert.assertTrue(deadLetters.contains("HTTP 400"));
+    }
+
+    /**
+     * Redacts payloads which are not json objects.
+     */
+    @Test
+    public void redact() {
+        Assert.assertNull(Outbox.redact(null));
+        Assert.assertEquals("plain", Outbox.redact("plain"));
+        Assert.assertEquals("***", new JSONObject(Outbox.redact("{\"key\": \"0\"}")).getString("key"));
+    }
+
+    /**
+     * Creates a new outbox directory.
+     *
+     * @param name the specified test name
+     * @return outbox directory
+     */
+    private static File newDir(final String name) {
+        return new File(System.getProperty("java.io.tmpdir"), "rhythm-outbox-test-" + name + "-" + System.nanoTime());
+    }
+
+    /**
+     * Counts the segment files in the specified directory.
+     *
+     * @param dir the specified directory
+     * @return number of segment files
+     */
+    private static int countSegments(final File dir) {
+        int ret = 0;
+        for (final String name : dir.list()) {
+            if (name.startsWith("segment-")) {
+                ret++;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the oldest segment file in the specified directory.
+     *
+     * @param dir the specified directory
+     * @return oldest segment file
+     */
+    private static File oldestSegment(final File dir) {
+        String ret = null;
+        for (final String name : dir.list()) {
+            if (name.startsWith("segment-") && (null == ret || name.compareTo(ret) < 0)) {
+                ret = name;
+            }
+        }
+
+        return new File(dir, ret);
+    }
+
+    /**
+     * Reads the specified file.
+     *
+     * @param file the specified file
+     * @return file content
+     * @throws IOException io exception
+     */
+    private static String read(final File file) throws IOException {
+        final FileInputStream inputStream = new FileInputStream(file);
+        try {
+            final byte[] bytes = new byte[(int) file.length()];
+            int read = 0;
+            while (read < bytes.length) {
+                read += inputStream.read(bytes, read, bytes.length - read);
+            }
+
+            return new String(bytes, "UTF-8");
+        } finally {
+            inputStream.close();
+        }
+    }
+}
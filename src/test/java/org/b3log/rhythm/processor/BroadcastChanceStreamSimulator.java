@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.processor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import org.json.JSONObject;
+
+/**
+ * {@link BroadcastChanceStreamServlet} client simulator, subscribes many idle clients to a running Rhythm and reports
+ * the subscriber count, server heap and threads per subscriber from "/stats".
+ *
+ * <p>
+ * All clients are driven by one selector thread. Run against a local server, for example,
+ * <pre>
+ * mvn jetty:run
+ * java -cp target/test-classes:target/classes:... org.b3log.rhythm.processor.BroadcastChanceStreamSimulator \
+ *     http://localhost:8081 5000 60 key userKey
+ * </pre>
+ * The simulated users "simulator{i}@localhost" must exist with the B3 key hash of "userKey", for example, inserted into
+ * the user table of the local database, otherwise their subscriptions are rejected.
+ * The heap delta includes garbage not collected yet, run it a few times and with larger subscriber counts to read a
+ * stable per subscriber cost.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class BroadcastChanceStreamSimulator {
+
+    /**
+     * UTF-8 charset.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Chance event.
+     */
+    private static final String CHANCE_EVENT = "event: chance";
+
+    /**
+     * Private constructor.
+     */
+    private BroadcastChanceStreamSimulator() {
+    }
+
+    /**
+     * Main.
+     *
+     * @param args serve path, subscribers, hold seconds, the key of Rhythm and the B3 key of the simulated users
+     * @throws Exception exception
+     */
+    public static void main(final String[] args) throws Exception {
+        if (5 != args.length) {
+            System.out.println("Usage: BroadcastChanceStreamSimulator <servePath> <subscribers> <holdSeconds> <key> "
+                    + "<userKey>");
+
+            return;
+        }
+
+        final URL servePath = new URL(args[0]);
+        final int subscribers = Integer.valueOf(args[1]);
+        final long hold = Long.valueOf(args[2]) * 1000;
+        final String key = args[3];
+        final String userKey = URLEncoder.encode(args[4], "UTF-8");
+
+        final JSONObject before = getStats(servePath, key);
+
+        final Selector selector = Selector.open();
+        final InetSocketAddress address = new InetSocketAddress(servePath.getHost(),
+                -1 == servePath.getPort() ? 80 : servePath.getPort());
+        for (int i = 0; i < subscribers; i++) {
+            final SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.connect(address);
+
+            final String request = "GET " + servePath.getPath() + "/broadcast/chance/stream?email=simulator" + i
+                    + "%40localhost&key=" + userKey + " HTTP/1.1\r\nHost: " + servePath.getHost()
+                    + "\r\nAccept: text/event-stream\r\n\r\n";
+            channel.register(selector, SelectionKey.OP_CONNECT, new Client(request));
+        }
+
+        final long start = System.currentTimeMillis();
+        final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        int connected = 0;
+        int failed = 0;
+        int chances = 0;
+        long lastReport = start;
+        while (System.currentTimeMillis() - start < hold) {
+            selector.select(1000);
+
+            final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                final SelectionKey selectionKey = keys.next();
+                keys.remove();
+
+                final SocketChannel channel = (SocketChannel) selectionKey.channel();
+                final Client client = (Client) selectionKey.attachment();
+                try {
+                    if (selectionKey.isConnectable()) {
+                        channel.finishConnect();
+                        channel.write(ByteBuffer.wrap(client.request.getBytes(UTF8)));
+                        selectionKey.interestOps(SelectionKey.OP_READ);
+
+                        continue;
+                    }
+
+                    buffer.clear();
+                    if (-1 == channel.read(buffer)) {
+                        throw new IOException("Closed by server");
+                    }
+
+                    final String received = client.tail + new String(buffer.array(), 0, buffer.position(), UTF8);
+                    if (!client.subscribed && received.contains("retry:")) {
+                        client.subscribed = true;
+                        connected++;
+                    }
+
+                    int index = received.indexOf(CHANCE_EVENT);
+                    while (-1 != index) {
+                        chances++;
+                        index = received.indexOf(CHANCE_EVENT, index + 1);
+                    }
+
+                    client.tail = received.substring(Math.max(0, received.length() - CHANCE_EVENT.length() + 1));
+                } catch (final IOException e) {
+                    failed++;
+                    if (client.subscribed) {
+                        connected--;
+                    }
+                    selectionKey.cancel();
+                    channel.close();
+                }
+            }
+
+            if (System.currentTimeMillis() - lastReport >= 5000) {
+                lastReport = System.currentTimeMillis();
+                System.out.println("Subscribed [" + connected + "], failed [" + failed + "], chances [" + chances
+                        + "]");
+            }
+        }
+
+        final JSONObject after = getStats(servePath, key);
+
+        for (final SelectionKey selectionKey : selector.keys()) {
+            selectionKey.channel().close();
+        }
+        selector.close();
+
+        final int serverSubscribers = getSubscribers(after) - getSubscribers(before);
+        final long heap = after.getJSONObject("jvm").getLong("heapUsed")
+                - before.getJSONObject("jvm").getLong("heapUsed");
+        final int threads = after.getJSONObject("jvm").getInt("threads")
+                - before.getJSONObject("jvm").getInt("threads");
+        System.out.println("Subscribed [" + connected + "], failed [" + failed + "], chances [" + chances + "]");
+        System.out.println("Server subscribers [+" + serverSubscribers + "], heap [+" + heap / 1024 + "KB, "
+                + (0 == serverSubscribers ? 0 : heap / serverSubscribers) + "B per subscriber], threads [+"
+                + threads + "]");
+    }
+
+    /**
+     * Gets the stream subscribers count from the specified statistics.
+     *
+     * @param stats the specified statistics
+     * @return stream subscribers count
+     */
+    private static int getSubscribers(final JSONObject stats) {
+        return stats.getJSONObject("broadcastChances").getJSONObject("stream").getInt("subscribers");
+    }
+
+    /**
+     * Gets the runtime statistics of the specified Rhythm.
+     *
+     * @param servePath the specified serve path
+     * @param key the specified key
+     * @return statistics
+     * @throws IOException io exception
+     */
+    private static JSONObject getStats(final URL servePath, final String key) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(servePath + "/stats?key=" + key)
+                .openConnection();
+        final InputStream inputStream = connection.getInputStream();
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        final byte[] bytes = new byte[4096];
+        int read;
+        while (-1 != (read = inputStream.read(bytes))) {
+            content.write(bytes, 0, read);
+        }
+        inputStream.close();
+
+        return new JSONObject(new String(content.toByteArray(), UTF8));
+    }
+
+    /**
+     * A simulated client.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 19, 2026
+     */
+    private static final class Client {
+
+        /**
+         * Subscribe request.
+         */
+        private final String request;
+
+        /**
+         * Tail of the received content, to find an event split by reads.
+         */
+        private String tail = "";
+
+        /**
+         * Whether subscribed.
+         */
+        private boolean subscribed;
+
+        /**
+         * Constructs a client with the specified subscribe request.
+         *
+         * @param request the specified subscribe request
+         */
+        private Client(final String request) {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.processor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * {@link FastPathFilter} load simulator, requests a path of a running Rhythm from many keep-alive clients and reports
+ * the throughput and latency percentiles.
+ *
+ * <p>
+ * Run it against a local server with "fastPath.enabled" true and then false to compare the fast path with the
+ * dispatcher path, for example,
+ * <pre>
+ * mvn jetty:run
+ * java -cp target/test-classes:target/classes:... org.b3log.rhythm.processor.FastPathLoadSimulator \
+ *     http://localhost:8081 /version/solo/latest/1.8.0 16 30
+ * </pre>
+ * The first fifth of the duration warms up and is not reported.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public final class FastPathLoadSimulator {
+
+    /**
+     * Max latencies recorded per client.
+     */
+    private static final int MAX_SAMPLES = 200000;
+
+    /**
+     * Private constructor.
+     */
+    private FastPathLoadSimulator() {
+    }
+
+    /**
+     * Main.
+     *
+     * @param args serve path, path, clients and seconds
+     * @throws Exception exception
+     */
+    public static void main(final String[] args) throws Exception {
+        if (4 != args.length) {
+            System.out.println("Usage: FastPathLoadSimulator <servePath> <path> <clients> <seconds>");
+
+            return;
+        }
+
+        final URL url = new URL(args[0] + args[1]);
+        final int clients = Integer.valueOf(args[2]);
+        final long duration = Long.valueOf(args[3]) * 1000;
+        final long start = System.currentTimeMillis();
+        final long measureStart = start + duration / 5;
+        final long end = start + duration;
+
+        final long[][] latencies = new long[clients][];
+        final int[] counts = new int[clients];
+        final int[] errors = new int[clients];
+        final CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            final int client = i;
+            latencies[client] = new long[MAX_SAMPLES];
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final byte[] buffer = new byte[8192];
+                        long now = System.currentTimeMillis();
+                        while (now < end) {
+                            final long begin = System.nanoTime();
+                            final boolean ok = request(url, buffer);
+                            final long elapsed = System.nanoTime() - begin;
+                            now = System.currentTimeMillis();
+
+                            if (now < measureStart) {
+                                continue;
+                            }
+
+                            if (!ok) {
+                                errors[client]++;
+                            } else if (counts[client] < MAX_SAMPLES) {
+                                latencies[client][counts[client]++] = elapsed;
+                            }
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        done.await();
+
+        int total = 0;
+        for (final int count : counts) {
+            total += count;
+        }
+        final long[] all = new long[total];
+        int offset = 0;
+        int totalErrors = 0;
+        for (int i = 0; i < clients; i++) {
+            System.arraycopy(latencies[i], 0, all, offset, counts[i]);
+            offset += counts[i];
+            totalErrors += errors[i];
+        }
+        Arrays.sort(all);
+
+        final double seconds = (end - measureStart) / 1000.0;
+        System.out.println("URL: " + url);
+        System.out.println("Requests: " + total + ", errors: " + totalErrors);
+        System.out.println("Throughput: " + Math.round(total / seconds) + " req/s");
+        if (0 < total) {
+            System.out.println("Latency (us): p50=" + percentile(all, 50) + ", p90=" + percentile(all, 90)
+                    + ", p99=" + percentile(all, 99) + ", max=" + all[total - 1] / 1000);
+        }
+    }
+
+    /**
+     * Requests the specified URL and drains the response for the keep-alive connection to be reused.
+     *
+     * @param url the specified URL
+     * @param buffer the specified drain buffer
+     * @return {@code true} if the response is 2xx or 3xx, returns {@code false} otherwise
+     */
+    private static boolean request(final URL url, final byte[] buffer) {
+        try {
+            final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+            conn.setInstanceFollowRedirects(false);
+            final int code = conn.getResponseCode();
+
+            final InputStream inputStream = code < 400 ? conn.getInputStream() : conn.getErrorStream();
+            if (null != inputStream) {
+                while (-1 != inputStream.read(buffer)) {
+                    // Drains
+                }
+                inputStream.close();
+            }
+
+            return code < 400;
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets the specified percentile of the specified sorted latencies in microseconds.
+     *
+     * @param sorted the specified sorted latencies in nanoseconds
+     * @param percentile the specified percentile
+     * @return latency in microseconds
+     */
+    private static long percentile(final long[] sorted, final int percentile) {
+        final int index = (int) Math.min(sorted.length - 1, (long) sorted.length * percentile / 100);
+
+        return sorted[index] / 1000;
+    }
+}
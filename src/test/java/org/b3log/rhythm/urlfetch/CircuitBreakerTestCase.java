@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.urlfetch;
+
+import junit.framework.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link CircuitBreaker} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public class CircuitBreakerTestCase {
+
+    /**
+     * Tests the breaker opens on failures, half-opens after the open time and closes on a successful probe.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void trip() throws Exception {
+        final CircuitBreaker breaker = new CircuitBreaker("test", 10, 4, 50, 1000, 100);
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(CircuitBreaker.CLOSED_PERMIT, breaker.allow());
+            breaker.record(CircuitBreaker.CLOSED_PERMIT, false, 1);
+        }
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState()); // Not enough calls
+
+        Assert.assertEquals(CircuitBreaker.CLOSED_PERMIT, breaker.allow());
+        breaker.record(CircuitBreaker.CLOSED_PERMIT, true, 2000); // Slow call
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assert.assertEquals(CircuitBreaker.REJECTED, breaker.allow());
+
+        Thread.sleep(150);
+
+        long probe = breaker.allow();
+        Assert.assertTrue(probe > CircuitBreaker.CLOSED_PERMIT);
+        Assert.assertEquals(CircuitBreaker.REJECTED, breaker.allow());
+        breaker.record(probe, false, 1);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(150);
+
+        probe = breaker.allow();
+        Assert.assertTrue(probe > CircuitBreaker.CLOSED_PERMIT);
+        breaker.record(probe, true, 1);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assert.assertEquals(2, breaker.getStats().getLong("trips"));
+    }
+
+    /**
+     * Tests successful calls keep the breaker closed.
+     */
+    @Test
+    public void healthy() {
+        final CircuitBreaker breaker = new CircuitBreaker("test", 10, 4, 50, 1000, 100);
+
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(CircuitBreaker.CLOSED_PERMIT, breaker.allow());
+            breaker.record(CircuitBreaker.CLOSED_PERMIT, 0 != i % 4, 1);
+        }
+
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    /**
+     * Tests a call allowed by the closed breaker completing while half-open does not decide the probe.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void staleCall() throws Exception {
+        final CircuitBreaker breaker = new CircuitBreaker("test", 10, 2, 50, 1000, 100);
+
+        final long stale = breaker.allow();
+        Assert.assertEquals(CircuitBreaker.CLOSED_PERMIT, stale);
+        for (int i = 0; i < 2; i++) {
+            breaker.record(breaker.allow(), false, 1);
+        }
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(150);
+
+        final long probe = breaker.allow();
+        Assert.assertTrue(probe > CircuitBreaker.CLOSED_PERMIT);
+
+        breaker.record(stale, true, 1);
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.cancel(stale);
+        Assert.assertEquals(CircuitBreaker.REJECTED, breaker.allow()); // Probe still in flight
+
+        breaker.record(probe, false, 1);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        breaker.record(probe, true, 1); // Recorded twice
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
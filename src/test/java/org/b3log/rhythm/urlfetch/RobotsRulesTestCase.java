@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.urlfetch;
+
+import junit.framework.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link RobotsRules} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public class RobotsRulesTestCase {
+
+    /**
+     * User agent.
+     */
+    private static final String UA = "B3log Rhythm/1.1.0";
+
+    /**
+     * Tests the "*" group.
+     */
+    @Test
+    public void wildcard() {
+        final RobotsRules rules = RobotsRules.parse("# comment\n"
+                + "User-agent: Googlebot\n"
+                + "Disallow: /\n"
+                + "\n"
+                + "User-agent: *\n"
+                + "Disallow: /admin/\n"
+                + "Disallow: /*.php$\n"
+                + "Allow: /admin/public\n"
+                + "Crawl-delay: 1.5\n", UA);
+
+        Assert.assertTrue(rules.isAllowed("/articles/2016/10/1.html"));
+        Assert.assertFalse(rules.isAllowed("/admin/index.html"));
+        Assert.assertTrue(rules.isAllowed("/admin/public/a.html"));
+        Assert.assertFalse(rules.isAllowed("/index.php"));
+        Assert.assertTrue(rules.isAllowed("/index.php?p=1"));
+        Assert.assertEquals(1500, rules.getCrawlDelay());
+    }
+
+    /**
+     * Tests a group naming Rhythm.
+     */
+    @Test
+    public void specific() {
+        final RobotsRules rules = RobotsRules.parse("User-agent: *\r\n"
+                + "Disallow: /\r\n"
+                + "\r\n"
+                + "User-agent: b3log rhythm\r\n"
+                + "Disallow:\r\n", UA);
+
+        Assert.assertTrue(rules.isAllowed("/"));
+        Assert.assertEquals(0, rules.getCrawlDelay());
+
+        Assert.assertTrue(RobotsRules.parse("", UA).isAllowed("/"));
+        Assert.assertFalse(RobotsRules.parse("User-agent: *\nDisallow: /", UA).isAllowed("/a.html"));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.util;
+
+import junit.framework.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Accessibility history utilities test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.2.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public class AccessibilitiesTestCase {
+
+    /**
+     * Tests {@link Accessibilities#getConsecutiveFailures(long, int)}.
+     */
+    @Test
+    public void getConsecutiveFailures() {
+        long history = 0;
+        int checkCnt = 0;
+
+        Assert.assertEquals(0, Accessibilities.getConsecutiveFailures(history, checkCnt));
+
+        history = Accessibilities.record(history, 404);
+        checkCnt++;
+        Assert.assertEquals(1, Accessibilities.getConsecutiveFailures(history, checkCnt));
+
+        history = Accessibilities.record(history, 200);
+        checkCnt++;
+        Assert.assertEquals(0, Accessibilities.getConsecutiveFailures(history, checkCnt));
+        Assert.assertEquals(1, Accessibilities.getConsecutiveSuccesses(history, checkCnt));
+
+        for (int i = 0; i < 5; i++) {
+            history = Accessibilities.record(history, 500);
+            checkCnt++;
+        }
+        Assert.assertEquals(5, Accessibilities.getConsecutiveFailures(history, checkCnt));
+        Assert.assertEquals(6, Accessibilities.getFailures(history, checkCnt, Accessibilities.CAPACITY));
+        Assert.assertEquals(3, Accessibilities.getFailures(history, checkCnt, 3));
+    }
+
+    /**
+     * Tests a history which has been wrapped around.
+     */
+    @Test
+    public void wrap() {
+        long history = 0;
+        int checkCnt = 0;
+
+        for (int i = 0; i < Accessibilities.CAPACITY + 10; i++) {
+            history = Accessibilities.record(history, 404);
+            checkCnt++;
+        }
+
+        Assert.assertEquals(Accessibilities.CAPACITY, Accessibilities.getConsecutiveFailures(history, checkCnt));
+        Assert.assertEquals(Accessibilities.CAPACITY, Accessibilities.getFailures(history, checkCnt, 100));
+
+        history = Accessibilities.record(history, 200);
+        checkCnt++;
+        Assert.assertEquals(0, Accessibilities.getConsecutiveFailures(history, checkCnt));
+        Assert.assertEquals(Accessibilities.CAPACITY - 1, Accessibilities.getFailures(history, checkCnt, 100));
+    }
+
+    /**
+     * Tests legacy data which has check count but no history.
+     */
+    @Test
+    public void legacy() {
+        Assert.assertEquals(0, Accessibilities.getConsecutiveFailures(0, 100));
+        Assert.assertEquals(Accessibilities.CAPACITY, Accessibilities.getConsecutiveSuccesses(0, 100));
+    }
+
+    /**
+     * Tests {@link Accessibilities#getNextCheckTime(long, int, long)}.
+     */
+    @Test
+    public void getNextCheckTime() {
+        final long hour = 1000 * 60 * 60;
+
+        final long failing = Accessibilities.getNextCheckTime(1L, 1, 0);
+        Assert.assertTrue(failing >= hour * 0.8 && failing <= hour * 1.2);
+
+        final long healthy = Accessibilities.getNextCheckTime(0L, 1, 0);
+        Assert.assertTrue(healthy >= hour * 12 * 0.8 && healthy <= hour * 12 * 1.2);
+
+        final long longTermHealthy = Accessibilities.getNextCheckTime(0L, 1000, 0);
+        Assert.assertTrue(longTermHealthy >= hour * 24 * 7 * 0.8 && longTermHealthy <= hour * 24 * 7 * 1.2);
+
+        final long longTermFailing = Accessibilities.getNextCheckTime(-1L, 1000, 0);
+        Assert.assertTrue(longTermFailing <= hour * 12 * 1.2);
+    }
+
+    /**
+     * Tests {@link Accessibilities#isHealthy(boolean, long, int, int, int)} keeps the health of a flapping target.
+     */
+    @Test
+    public void isHealthy() {
+        boolean healthy = true;
+        long history = 0;
+        int checkCnt = 0;
+        final int[] codes = {404, 404, 200, 404, 404, 404, 200, 404, 200, 200};
+        final boolean[] expected = {true, true, true, true, true, false, false, false, false, true};
+        for (int i = 0; i < codes.length; i++) {
+            history = Accessibilities.record(history, codes[i]);
+            checkCnt++;
+            healthy = Accessibilities.isHealthy(healthy, history, checkCnt, 3, 2);
+
+            Assert.assertEquals("Check " + i, expected[i], healthy);
+        }
+
+        Assert.assertTrue(Accessibilities.isHealthy(false, 0, 100, 3, 2));
+        Assert.assertFalse(Accessibilities.isHealthy(false, 0, 1, 3, 2));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import junit.framework.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link Debouncer} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public class DebouncerTestCase {
+
+    /**
+     * Tests a held value is due once its key is quiet for the window.
+     */
+    @Test
+    public void window() {
+        final Debouncer<String, String> debouncer = new Debouncer<String, String>(1000, 10000);
+        Assert.assertFalse(debouncer.offer("a", "a1", 0));
+        Assert.assertTrue(debouncer.offer("a", "a2", 500));
+        Assert.assertFalse(debouncer.offer("b", "b1", 600));
+
+        Assert.assertEquals(Collections.emptyList(), debouncer.poll(1499));
+        Assert.assertEquals(Arrays.asList("a2"), debouncer.poll(1500));
+        Assert.assertEquals(Arrays.asList("b1"), debouncer.poll(1600));
+        Assert.assertEquals(0, debouncer.size());
+    }
+
+    /**
+     * Tests a held value is due after the max delay even if its key is never quiet.
+     */
+    @Test
+    public void maxDelay() {
+        final Debouncer<String, String> debouncer = new Debouncer<String, String>(1000, 3000);
+        for (int time = 0; time < 3000; time += 500) {
+            debouncer.offer("a", "a" + time, time);
+            Assert.assertEquals(Collections.emptyList(), debouncer.poll(time));
+        }
+
+        Assert.assertEquals(Arrays.asList("a2500"), debouncer.poll(3000));
+
+        // The next value of the key starts a new delay
+        debouncer.offer("a", "a3000", 3000);
+        Assert.assertEquals(Collections.emptyList(), debouncer.poll(3500));
+        Assert.assertEquals(Arrays.asList("a3000"), debouncer.poll(4000));
+    }
+
+    /**
+     * Tests a removed value is never due, as an update not to be forwarded in the window of a held forward.
+     */
+    @Test
+    public void remove() {
+        final Debouncer<String, String> debouncer = new Debouncer<String, String>(1000, 3000);
+        debouncer.offer("a", "a1", 0);
+        debouncer.offer("b", "b1", 10);
+
+        Assert.assertEquals("a1", debouncer.remove("a"));
+        Assert.assertNull(debouncer.remove("a"));
+        Assert.assertEquals(Collections.emptyList(), debouncer.poll(500));
+        Assert.assertEquals(Arrays.asList("b1"), debouncer.poll(10000));
+        Assert.assertEquals(Collections.emptyList(), debouncer.drain());
+    }
+
+    /**
+     * Tests draining all held values, as on shutdown.
+     */
+    @Test
+    public void drain() {
+        final Debouncer<String, String> debouncer = new Debouncer<String, String>(1000, 3000);
+        debouncer.offer("a", "a1", 0);
+        debouncer.offer("b", "b1", 10);
+        debouncer.offer("a", "a2", 20);
+
+        Assert.assertEquals(Arrays.asList("a2", "b1"), debouncer.drain());
+        Assert.assertEquals(0, debouncer.size());
+        Assert.assertEquals(Collections.emptyList(), debouncer.poll(10000));
+    }
+}
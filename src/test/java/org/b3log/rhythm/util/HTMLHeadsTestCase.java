@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import junit.framework.Assert;
+import org.json.JSONObject;
+import org.testng.annotations.Test;
+
+/**
+ * {@link HTMLHeads} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public class HTMLHeadsTestCase {
+
+    /**
+     * Tests attributes in any order and quoting, comments and scripts are skipped.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void parse() throws Exception {
+        final JSONObject head = parse("<!DOCTYPE html><html><head>\n"
+                + "<!-- <link rel=\"icon\" href=\"/commented.png\"> -->\n"
+                + "<script>if (a <b) { document.write('<meta name=\"description\" content=\"script\">'); }</script>\n"
+                + "<META content='B3log &amp; Solo' NAME=description />\n"
+                + "<link type=\"image/png\" href=/favicon.png rel=\"shortcut icon\">\n"
+                + "<title>\n  B3log &#x4E2D; &lt;Rhythm&gt;\n</title>\n"
+                + "</head><body><link rel=\"icon\" href=\"/body.png\"></body></html>", null);
+
+        Assert.assertEquals("/favicon.png", head.getString(HTMLHeads.ICON));
+        Assert.assertEquals("B3log & Solo", head.getString(HTMLHeads.DESCRIPTION));
+        Assert.assertEquals("B3log 中 <Rhythm>", head.getString(HTMLHeads.TITLE));
+    }
+
+    /**
+     * Tests "icon" is preferred to "apple-touch-icon", and the Open Graph description is the fallback.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void fallback() throws Exception {
+        final JSONObject head = parse("<head><link rel=\"apple-touch-icon\" href=\"/apple.png\">"
+                + "<meta property=\"og:description\" content=\"OG\">"
+                + "<link href=\"/icon.ico\" rel=\"ICON\"><link rel=\"icon\" href=\"/second.ico\"></head>", null);
+
+        Assert.assertEquals("/icon.ico", head.getString(HTMLHeads.ICON));
+        Assert.assertEquals("OG", head.getString(HTMLHeads.DESCRIPTION));
+        Assert.assertEquals("", head.getString(HTMLHeads.TITLE));
+    }
+
+    /**
+     * Tests the charset declared by the page is used unless the caller specifies one.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void charset() throws Exception {
+        final Charset gbk = Charset.forName("GBK");
+        final byte[] page = "<head><meta charset=\"gbk\"><title>中文</title></head>".getBytes(gbk);
+
+        Assert.assertEquals("中文", HTMLHeads.parse(new ByteArrayInputStream(page), null, 1024)
+                .getString(HTMLHeads.TITLE));
+        Assert.assertEquals("中文", HTMLHeads.parse(new ByteArrayInputStream(page), gbk, 1024)
+                .getString(HTMLHeads.TITLE));
+    }
+
+    /**
+     * Tests parsing stops at the end of the head and at the byte cap.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void bounded() throws Exception {
+        final CountingInputStream endless = new CountingInputStream("<head><title>Endless</title></head>");
+        Assert.assertEquals("Endless", HTMLHeads.parse(endless, null, 1024 * 1024).getString(HTMLHeads.TITLE));
+        Assert.assertTrue(endless.count < 8192);
+
+        final CountingInputStream noHead = new CountingInputStream("<html><title>No head</title><p>");
+        Assert.assertEquals("No head", HTMLHeads.parse(noHead, null, 10000).getString(HTMLHeads.TITLE));
+        Assert.assertEquals(10000, noHead.count);
+
+        final CountingInputStream longTitle = new CountingInputStream("<head><title>");
+        Assert.assertEquals("", HTMLHeads.parse(longTitle, null, 100000).getString(HTMLHeads.TITLE));
+        Assert.assertEquals(100000, longTitle.count);
+    }
+
+    /**
+     * Parses the specified page.
+     *
+     * @param page the specified page
+     * @param charset the specified charset
+     * @return head
+     * @throws IOException io exception
+     */
+    private static JSONObject parse(final String page, final Charset charset) throws IOException {
+        return HTMLHeads.parse(new ByteArrayInputStream(page.getBytes("UTF-8")), charset, 65536);
+    }
+
+    /**
+     * Endless input stream of the specified prefix followed by "x", counts the bytes read.
+     */
+    private static final class CountingInputStream extends InputStream {
+
+        /**
+         * Prefix.
+         */
+        private final byte[] prefix;
+
+        /**
+         * Bytes read.
+         */
+        private int count;
+
+        /**
+         * Constructs a counting input stream with the specified prefix.
+         *
+         * @param prefix the specified prefix
+         * @throws IOException io exception
+         */
+        private CountingInputStream(final String prefix) throws IOException {
+            this.prefix = prefix.getBytes("UTF-8");
+        }
+
+        @Override
+        public int read() {
+            if (count < prefix.length) {
+                return prefix[count++];
+            }
+
+            count++;
+
+            return 'x';
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.util;
+
+import junit.framework.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link HyperLogLog} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public class HyperLogLogTestCase {
+
+    /**
+     * Tests the estimates of small and large cardinalities are within 5%.
+     */
+    @Test
+    public void estimate() {
+        Assert.assertEquals(0, new HyperLogLog(12).estimate());
+
+        for (final int distinct : new int[]{10, 1000, 100000}) {
+            final HyperLogLog sketch = new HyperLogLog(12);
+            for (int i = 0; i < distinct; i++) {
+                sketch.offer(address(i));
+                sketch.offer(address(i));
+            }
+
+            final long estimate = sketch.estimate();
+            Assert.assertTrue(distinct + " estimated as " + estimate, Math.abs(estimate - distinct) <= distinct * 0.05);
+        }
+    }
+
+    /**
+     * Tests merging overlapping sketches estimates the union, and the registers round trip.
+     */
+    @Test
+    public void merge() {
+        final HyperLogLog first = new HyperLogLog(12);
+        final HyperLogLog second = new HyperLogLog(12);
+        for (int i = 0; i < 30000; i++) {
+            first.offer(address(i));
+            second.offer(address(i + 20000));
+        }
+
+        final HyperLogLog union = new HyperLogLog(12);
+        union.merge(first);
+        union.merge(second);
+        final long estimate = union.estimate();
+        Assert.assertTrue("50000 estimated as " + estimate, Math.abs(estimate - 50000) <= 2500);
+
+        final HyperLogLog restored = new HyperLogLog(12);
+        restored.setRegisters(union.getRegisters());
+        Assert.assertEquals(estimate, restored.estimate());
+
+        try {
+            union.merge(new HyperLogLog(10));
+            Assert.fail("Merged sketches of different precisions");
+        } catch (final IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Gets the IPv4 address of the specified number.
+     *
+     * @param i the specified number
+     * @return address
+     */
+    private static String address(final int i) {
+        return "10." + ((i >>> 16) & 0xFF) + '.' + ((i >>> 8) & 0xFF) + '.' + (i & 0xFF);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.util;
+
+import junit.framework.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link SemanticVersion} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public class SemanticVersionTestCase {
+
+    /**
+     * Tests parsing lenient and malformed versions.
+     */
+    @Test
+    public void parse() {
+        Assert.assertEquals("1.9.0", SemanticVersion.parse("v1.9").toString());
+        Assert.assertEquals("2.0.0-beta.1", SemanticVersion.parse(" 2.0.0-beta.1+build.5 ").toString());
+        Assert.assertEquals(SemanticVersion.parse("1.9.0"), SemanticVersion.parse("1.9"));
+        Assert.assertTrue(SemanticVersion.parse("2.0.0-SNAPSHOT").isPreRelease());
+
+        Assert.assertNull(SemanticVersion.parse(null));
+        Assert.assertNull(SemanticVersion.parse(""));
+        Assert.assertNull(SemanticVersion.parse("1.9.0.1"));
+        Assert.assertNull(SemanticVersion.parse("latest"));
+        Assert.assertNull(SemanticVersion.parse("1.9.0/../x"));
+    }
+
+    /**
+     * Tests versions are ordered numerically, and pre-releases before their releases.
+     */
+    @Test
+    public void compareTo() {
+        final String[] ordered = {"0.6.9", "1.0.0", "1.9.0", "1.10.0-alpha", "1.10.0-alpha.1", "1.10.0-alpha.beta",
+            "1.10.0-beta.2", "1.10.0-beta.10", "1.10.0-rc.1", "1.10.0", "1.10.1", "2.0.0"};
+
+        for (int i = 0; i < ordered.length; i++) {
+            for (int j = 0; j < ordered.length; j++) {
+                final int expected = Integer.signum(Integer.compare(i, j));
+                final int actual = Integer.signum(
+                        SemanticVersion.parse(ordered[i]).compareTo(SemanticVersion.parse(ordered[j])));
+
+                Assert.assertEquals(ordered[i] + " vs " + ordered[j], expected, actual);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import junit.framework.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link TimingWheel} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public class TimingWheelTestCase {
+
+    /**
+     * Tests timeouts expire at their deadline tick, not before.
+     */
+    @Test
+    public void advance() {
+        final TimingWheel<String> wheel = new TimingWheel<String>(1000, 8, 0);
+        wheel.schedule("a", 1500);
+        wheel.schedule("b", 3000);
+        wheel.schedule("c", 20000); // A later round, shares the bucket of "a"
+
+        Assert.assertEquals(Collections.emptyList(), wheel.advance(1999));
+        Assert.assertEquals(Arrays.asList("a"), wheel.advance(2000));
+        Assert.assertEquals(Arrays.asList("b"), wheel.advance(3000));
+        Assert.assertEquals(1, wheel.size());
+        Assert.assertEquals(Collections.emptyList(), wheel.advance(19999));
+        Assert.assertEquals(Arrays.asList("c"), wheel.advance(20000));
+        Assert.assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Tests cancelling and advancing over more than one round at once.
+     */
+    @Test
+    public void cancel() {
+        final TimingWheel<String> wheel = new TimingWheel<String>(1000, 4, 0);
+        final TimingWheel.Timeout<String> a = wheel.schedule("a", 2000);
+        wheel.schedule("b", 5000);
+        wheel.schedule("c", 100000);
+        wheel.schedule("d", -1000); // Past deadline, expires on the next advance
+
+        Assert.assertTrue(wheel.cancel(a));
+        Assert.assertFalse(wheel.cancel(a));
+        Assert.assertEquals(Arrays.asList("d", "b"), wheel.advance(50000));
+        Assert.assertEquals(Arrays.asList("c"), wheel.advance(100000));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2010-2017, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.rhythm.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link WeightedSampler} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 19, 2026
+ * @since 1.2.0
+ */
+public class WeightedSamplerTestCase {
+
+    /**
+     * Tests keys are drawn in proportion to their weights, across growing.
+     */
+    @Test
+    public void sample() {
+        final WeightedSampler<String> sampler = new WeightedSampler<String>(2);
+        sampler.put("a", 1);
+        sampler.put("b", 3);
+        sampler.put("c", 6);
+        Assert.assertEquals(10, sampler.getTotalWeight());
+
+        final Map<String, Integer> counts = draw(sampler, 100000);
+        Assert.assertEquals(10000, counts.get("a"), 1000);
+        Assert.assertEquals(30000, counts.get("b"), 1000);
+        Assert.assertEquals(60000, counts.get("c"), 1000);
+    }
+
+    /**
+     * Tests updating and removing keys, and reusing the slots of removed keys.
+     */
+    @Test
+    public void update() {
+        final WeightedSampler<String> sampler = new WeightedSampler<String>(4);
+        sampler.put("a", 5);
+        sampler.put("b", 5);
+        sampler.put("c", 5);
+
+        Assert.assertTrue(sampler.remove("b"));
+        Assert.assertFalse(sampler.remove("b"));
+        sampler.put("a", 0); // Removes "a"
+        sampler.put("c", 2);
+        sampler.put("d", 6);
+        Assert.assertEquals(2, sampler.size());
+        Assert.assertEquals(8, sampler.getTotalWeight());
+        Assert.assertEquals(0, sampler.getWeight("a"));
+
+        final Map<String, Integer> counts = draw(sampler, 40000);
+        Assert.assertEquals(2, counts.size());
+        Assert.assertEquals(10000, counts.get("c"), 1000);
+
+        sampler.remove("c");
+        sampler.remove("d");
+        Assert.assertNull(sampler.sample(new Random()));
+    }
+
+    /**
+     * Draws the specified number of keys from the specified sampler.
+     *
+     * @param sampler the specified sampler
+     * @param draws the specified number
+     * @return counts of the drawn keys, &lt;key, count&gt;
+     */
+    private static Map<String, Integer> draw(final WeightedSampler<String> sampler, final int draws) {
+        final Map<String, Integer> ret = new HashMap<String, Integer>();
+        final Random random = new Random(7);
+        for (int i = 0; i < draws; i++) {
+            final String key = sampler.sample(random);
+            final Integer count = ret.get(key);
+            ret.put(key, null == count ? 1 : count + 1);
+        }
+
+        return ret;
+    }
+}